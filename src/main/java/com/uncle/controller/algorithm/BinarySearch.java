@@ -1,33 +1,59 @@
 package com.uncle.controller.algorithm;
 
-import java.util.Arrays;
-
 /**
+ * 有序数组查找
+ * <p>
+ * 1.binarySearch: 普通二分, 找到返回下标, 否则返回-1
+ * 2.lowerBound: 第一个 &gt;= key 的下标, 用于区间查找, 都比key小时返回length
+ * 3.branchlessLowerBound: 无分支二分, 每轮用符号位算出偏移量代替if, 循环次数只和长度有关, 不会分支预测失败
+ * 4.lowerBounds: 批量查找, 多个key交错执行无分支二分, 同一轮的多次内存访问互不依赖, CPU可以同时等待多个cache miss
+ * 5.interpolationSearch: 插值查找, key分布均匀时接近O(log log n), 分布不均时退回二分
+ * 6.exponentialSearch: 倍增查找, 从上一次的位置出发, 适合key递增的连续查找
+ * <p>
+ * Eytzinger布局(按树的层序排列, 缓存友好)见 {@link EytzingerIndex}
+ *
  * @author 杨戬
  * @className BinarySearch
  * @email yangb@chaosource.com
  * @date 2020/8/5 17:47
  */
 public class BinarySearch {
+    /**
+     * 批量查找时交错执行的key个数
+     */
+    private static final int BATCH = 8;
+
     public static void main(String[] args) {
         // 二分法 算法
         int[] a = new int[2000];
         for (int i = 0; i < 2000; i++) {
             a[i] = i;
         }
-        System.out.println("Arrays.toString(a) = " + Arrays.toString(a));
         int result = binarySearch(a, a.length, 5659);
         System.out.println("result = " + result);
+        System.out.println("binarySearch(1500) = " + binarySearch(a, a.length, 1500));
+        System.out.println("branchlessLowerBound(1500) = " + branchlessLowerBound(a, 1500));
+        System.out.println("interpolationSearch(1500) = " + interpolationSearch(a, 1500));
+        System.out.println("exponentialSearch(1400, 1500) = " + exponentialSearch(a, 1400, 1500));
+        System.out.println("EytzingerIndex.lowerBound(1500) = " + new EytzingerIndex(a).lowerBound(1500));
     }
 
-    private static int binarySearch(int[] a, int length, int i) {
+    /**
+     * 普通二分查找
+     *
+     * @param a
+     *            有序数组
+     * @param length
+     *            查找范围 [0, length)
+     * @param i
+     *            key
+     * @return 下标, 不存在返回-1
+     */
+    public static int binarySearch(int[] a, int length, int i) {
         int low = 0;
         int high = length - 1;
-        int count = 0;
         while (low <= high) {
-            int mid = low+((high-low)>>1);
-            count++;
-            System.out.println("找了" + count + "次" + "中位:" + mid);
+            int mid = low + ((high - low) >> 1);
             if (a[mid] == i) {
                 return mid;
             }
@@ -38,6 +64,276 @@ public class BinarySearch {
             }
         }
         return -1;
+    }
+
+    /**
+     * 第一个 &gt;= key 的下标
+     *
+     * @param a
+     *            有序数组
+     * @param key
+     *            key
+     * @return 下标, 都比key小时返回a.length
+     */
+    public static int lowerBound(int[] a, int key) {
+        int low = 0;
+        int high = a.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (a[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 第一个 &gt;= key 的下标
+     *
+     * @param a
+     *            有序数组
+     * @param key
+     *            key
+     * @return 下标, 都比key小时返回a.length
+     */
+    public static int lowerBound(long[] a, long key) {
+        int low = 0;
+        int high = a.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (a[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 无分支的lowerBound
+     * <p>
+     * 每轮把区间长度减半, a[base + half] &lt; key 时base前进half; 这个判断用 (a[base + half] - key) 的符号位生成掩码,
+     * 不产生条件跳转, 数据随机时也不会有分支预测失败的代价
+     *
+     * @param a
+     *            有序数组
+     * @param key
+     *            key
+     * @return 下标, 都比key小时返回a.length
+     */
+    public static int branchlessLowerBound(int[] a, int key) {
+        int n = a.length;
+        if (n == 0) {
+            return 0;
+        }
+        int base = 0;
+        while (n > 1) {
+            int half = n >>> 1;
+            base += (int)(((long)a[base + half] - key) >> 63) & half;
+            n -= half;
+        }
+        return base + (int)(((long)a[base] - key) >>> 63);
+    }
+
+    /**
+     * 无分支的lowerBound, long版本, 比较结果用 Long.compare 的符号代替相减避免溢出
+     *
+     * @param a
+     *            有序数组
+     * @param key
+     *            key
+     * @return 下标, 都比key小时返回a.length
+     */
+    public static int branchlessLowerBound(long[] a, long key) {
+        int n = a.length;
+        if (n == 0) {
+            return 0;
+        }
+        int base = 0;
+        while (n > 1) {
+            int half = n >>> 1;
+            base += (Long.compare(a[base + half], key) >> 31) & half;
+            n -= half;
+        }
+        return base + (Long.compare(a[base], key) >>> 31);
+    }
+
+    /**
+     * 批量lowerBound
+     * <p>
+     * 每BATCH个key一组, 组内的key同步执行无分支二分: 每一轮先为组内所有key各发起一次数组读取再进入下一轮,
+     * 这些读取互不依赖, 数组远大于缓存时CPU可以同时等待多个cache miss, 相当于软件预取
+     *
+     * @param a
+     *            有序数组
+     * @param keys
+     *            key
+     * @param out
+     *            结果, out[i]对应keys[i]
+     */
+    public static void lowerBounds(int[] a, int[] keys, int[] out) {
+        int n = a.length;
+        int count = keys.length;
+        if (n == 0) {
+            for (int i = 0; i < count; i++) {
+                out[i] = 0;
+            }
+            return;
+        }
+        int[] base = new int[BATCH];
+        int i = 0;
+        for (; i + BATCH <= count; i += BATCH) {
+            for (int j = 0; j < BATCH; j++) {
+                base[j] = 0;
+            }
+            for (int len = n; len > 1;) {
+                int half = len >>> 1;
+                for (int j = 0; j < BATCH; j++) {
+                    int b = base[j];
+                    base[j] = b + ((int)(((long)a[b + half] - keys[i + j]) >> 63) & half);
+                }
+                len -= half;
+            }
+            for (int j = 0; j < BATCH; j++) {
+                int b = base[j];
+                out[i + j] = b + (int)(((long)a[b] - keys[i + j]) >>> 63);
+            }
+        }
+        for (; i < count; i++) {
+            out[i] = branchlessLowerBound(a, keys[i]);
+        }
+    }
+
+    /**
+     * 批量lowerBound, long版本
+     *
+     * @param a
+     *            有序数组
+     * @param keys
+     *            key
+     * @param out
+     *            结果, out[i]对应keys[i]
+     */
+    public static void lowerBounds(long[] a, long[] keys, int[] out) {
+        int n = a.length;
+        int count = keys.length;
+        if (n == 0) {
+            for (int i = 0; i < count; i++) {
+                out[i] = 0;
+            }
+            return;
+        }
+        int[] base = new int[BATCH];
+        int i = 0;
+        for (; i + BATCH <= count; i += BATCH) {
+            for (int j = 0; j < BATCH; j++) {
+                base[j] = 0;
+            }
+            for (int len = n; len > 1;) {
+                int half = len >>> 1;
+                for (int j = 0; j < BATCH; j++) {
+                    int b = base[j];
+                    base[j] = b + ((Long.compare(a[b + half], keys[i + j]) >> 31) & half);
+                }
+                len -= half;
+            }
+            for (int j = 0; j < BATCH; j++) {
+                int b = base[j];
+                out[i + j] = b + (Long.compare(a[b], keys[i + j]) >>> 31);
+            }
+        }
+        for (; i < count; i++) {
+            out[i] = branchlessLowerBound(a, keys[i]);
+        }
+    }
+
+    /**
+     * 插值查找, 按key在 [a[low], a[high]] 中的比例估算位置
+     * <p>
+     * 分布均匀时平均 O(log log n) 次访问; 估算了 log2(n) 次还没找到说明分布不均匀, 剩余区间改用二分, 最坏 O(log n)
+     *
+     * @param a
+     *            有序数组
+     * @param key
+     *            key
+     * @return 下标, 不存在返回-1
+     */
+    public static int interpolationSearch(int[] a, int key) {
+        int low = 0;
+        int high = a.length - 1;
+        int budget = 32 - Integer.numberOfLeadingZeros(a.length);
+        while (low <= high && key >= a[low] && key <= a[high]) {
+            if (budget-- == 0) {
+                return binarySearchRange(a, low, high, key);
+            }
+            long span = (long)a[high] - a[low];
+            if (span == 0) {
+                return a[low] == key ? low : -1;
+            }
+            int pos = low + (int)(((long)key - a[low]) * (double)(high - low) / span);
+            if (a[pos] == key) {
+                return pos;
+            }
+            if (a[pos] < key) {
+                low = pos + 1;
+            } else {
+                high = pos - 1;
+            }
+        }
+        return -1;
+    }
 
+    /**
+     * 倍增查找: 从from开始按 1, 2, 4, 8... 的步长向后跳, 越过key后在最后一段里二分
+     * <p>
+     * key离from越近越快, 代价是 O(log d), d是结果与from的距离; 一批递增的key可以把上一次的结果作为下一次的from
+     *
+     * @param a
+     *            有序数组
+     * @param from
+     *            起始下标, 要求 a[from - 1] &lt; key (from为0时不要求)
+     * @param key
+     *            key
+     * @return 第一个 &gt;= key 的下标, 都比key小时返回a.length
+     */
+    public static int exponentialSearch(int[] a, int from, int key) {
+        int n = a.length;
+        if (from >= n || a[from] >= key) {
+            return from;
+        }
+        // 不变式: a[from + bound / 2] < key
+        int bound = 1;
+        while (from + bound < n && a[from + bound] < key) {
+            bound <<= 1;
+        }
+        int low = from + (bound >>> 1) + 1;
+        int high = Math.min(from + bound, n);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (a[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int binarySearchRange(int[] a, int low, int high, int key) {
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (a[mid] == key) {
+                return mid;
+            }
+            if (a[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return -1;
     }
 }
@@ -0,0 +1,107 @@
+package com.uncle.controller.algorithm;
+
+/**
+ * Eytzinger布局的有序int索引
+ * <p>
+ * 把有序数组按完全二叉搜索树的层序存放: 下标从1开始, k的左右孩子是2k和2k+1. 查找路径上前几层集中在数组开头,
+ * 常驻缓存; 每一步只依赖上一步的比较结果, 循环体没有分支. 普通二分前几轮的访问点相距很远, 每次都可能cache miss.
+ * <p>
+ * 构建后只读, 可以被多个线程同时查询
+ *
+ * @author 杨戬
+ * @className EytzingerIndex
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 00:20
+ */
+public final class EytzingerIndex {
+    /**
+     * 层序存放的key, 下标0不用
+     */
+    private final int[] tree;
+    /**
+     * tree[k] 在原有序数组中的下标
+     */
+    private final int[] rank;
+    private final int size;
+
+    /**
+     * @param sorted
+     *            升序数组, 不会被修改
+     */
+    public EytzingerIndex(int[] sorted) {
+        this.size = sorted.length;
+        this.tree = new int[size + 1];
+        this.rank = new int[size + 1];
+        build(sorted);
+    }
+
+    /**
+     * 中序遍历完全二叉树, 依次填入有序数组的元素
+     */
+    private void build(int[] sorted) {
+        int i = 0;
+        int k = 1;
+        // 先走到最左边
+        while (k <= size) {
+            k <<= 1;
+        }
+        k >>>= 1;
+        while (k != 0) {
+            tree[k] = sorted[i];
+            rank[k] = i++;
+            if ((k << 1 | 1) <= size) {
+                // 有右子树: 进入右子树后一路向左
+                k = k << 1 | 1;
+                while ((k << 1) <= size) {
+                    k <<= 1;
+                }
+            } else {
+                // 没有右子树: 回到第一个以左孩子身份进入的祖先
+                k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+            }
+        }
+    }
+
+    /**
+     * 第一个 &gt;= key 的元素在原有序数组中的下标
+     * <p>
+     * 向下走时 tree[k] &lt; key 往右(低位补1), 否则往左(低位补0); 走出树后, 答案是最后一次往左的那个节点,
+     * 去掉末尾连续的1和它前面的一个0即可
+     *
+     * @param key
+     *            key
+     * @return 下标, 都比key小时返回size
+     */
+    public int lowerBound(int key) {
+        int[] t = tree;
+        int n = size;
+        int k = 1;
+        while (k <= n) {
+            k = k << 1 | (int)(((long)t[k] - key) >>> 63);
+        }
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        return k == 0 ? n : rank[k];
+    }
+
+    /**
+     * 查找key
+     *
+     * @param key
+     *            key
+     * @return 原有序数组中的下标, 不存在返回-1
+     */
+    public int indexOf(int key) {
+        int[] t = tree;
+        int n = size;
+        int k = 1;
+        while (k <= n) {
+            k = k << 1 | (int)(((long)t[k] - key) >>> 63);
+        }
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        return k != 0 && t[k] == key ? rank[k] : -1;
+    }
+
+    public int size() {
+        return size;
+    }
+}
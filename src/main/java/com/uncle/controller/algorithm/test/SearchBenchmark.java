@@ -0,0 +1,143 @@
+package com.uncle.controller.algorithm.test;
+
+import com.uncle.controller.algorithm.BinarySearch;
+import com.uncle.controller.algorithm.EytzingerIndex;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 各种查找在不同数据量下的耗时(ns/次)
+ * <p>
+ * 数组大小分别落在L1, L2, L3和内存里; 查找的key一半存在一半不存在; 先校验所有实现结果一致再计时.
+ * 数组最大128MB, 需要 -Xmx512m 以上
+ *
+ * @author 杨戬
+ * @className SearchBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 00:40
+ */
+public class SearchBenchmark {
+    private static final int[] SIZES = {4 << 10, 64 << 10, 1 << 20, 32 << 20};
+    private static final String[] LEVELS = {"L1", "L2", "L3", "DRAM"};
+    private static final int LOOKUPS = 1 << 20;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        System.out.println("size\tlevel\tArrays\tbinary\tlowerBound\tbranchless\tbatched\teytzinger\tinterpolation\texponential");
+        for (int s = 0; s < SIZES.length; s++) {
+            int n = SIZES[s];
+            // 偶数存在, 奇数不存在
+            int[] a = new int[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = i << 1;
+            }
+            int[] keys = new int[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                keys[i] = random.nextInt(n << 1);
+            }
+            int[] sortedKeys = keys.clone();
+            Arrays.sort(sortedKeys);
+            EytzingerIndex eytzinger = new EytzingerIndex(a);
+            verify(a, keys, sortedKeys, eytzinger);
+
+            StringBuilder line = new StringBuilder().append(n).append('\t').append(LEVELS[s]);
+            for (int v = 0; v < 8; v++) {
+                long best = Long.MAX_VALUE;
+                long sum = 0;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    sum += run(v, a, keys, sortedKeys, eytzinger);
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                line.append('\t').append(String.format("%.1f", (double)best / LOOKUPS));
+                if (sum == 42) {
+                    // 防止被当成死代码消除
+                    System.out.print("");
+                }
+            }
+            System.out.println(line);
+        }
+    }
+
+    private static long run(int variant, int[] a, int[] keys, int[] sortedKeys, EytzingerIndex eytzinger) {
+        long sum = 0;
+        switch (variant) {
+            case 0:
+                for (int key : keys) {
+                    sum += Arrays.binarySearch(a, key);
+                }
+                break;
+            case 1:
+                for (int key : keys) {
+                    sum += BinarySearch.binarySearch(a, a.length, key);
+                }
+                break;
+            case 2:
+                for (int key : keys) {
+                    sum += BinarySearch.lowerBound(a, key);
+                }
+                break;
+            case 3:
+                for (int key : keys) {
+                    sum += BinarySearch.branchlessLowerBound(a, key);
+                }
+                break;
+            case 4:
+                int[] out = new int[keys.length];
+                BinarySearch.lowerBounds(a, keys, out);
+                for (int index : out) {
+                    sum += index;
+                }
+                break;
+            case 5:
+                for (int key : keys) {
+                    sum += eytzinger.lowerBound(key);
+                }
+                break;
+            case 6:
+                for (int key : keys) {
+                    sum += BinarySearch.interpolationSearch(a, key);
+                }
+                break;
+            default:
+                // 倍增查找适合递增的key, 用排好序的key从上一次的结果继续
+                int from = 0;
+                for (int key : sortedKeys) {
+                    from = BinarySearch.exponentialSearch(a, from, key);
+                    sum += from;
+                }
+                break;
+        }
+        return sum;
+    }
+
+    private static void verify(int[] a, int[] keys, int[] sortedKeys, EytzingerIndex eytzinger) {
+        int[] batched = new int[keys.length];
+        BinarySearch.lowerBounds(a, keys, batched);
+        for (int i = 0; i < keys.length; i++) {
+            int key = keys[i];
+            int expected = BinarySearch.lowerBound(a, key);
+            int found = expected < a.length && a[expected] == key ? expected : -1;
+            check(Arrays.binarySearch(a, key) >= 0 ? Arrays.binarySearch(a, key) : -1, found, "Arrays", key);
+            check(BinarySearch.binarySearch(a, a.length, key), found, "binary", key);
+            check(BinarySearch.branchlessLowerBound(a, key), expected, "branchless", key);
+            check(batched[i], expected, "batched", key);
+            check(eytzinger.lowerBound(key), expected, "eytzinger", key);
+            check(eytzinger.indexOf(key), found, "eytzinger.indexOf", key);
+            check(BinarySearch.interpolationSearch(a, key), found, "interpolation", key);
+        }
+        int from = 0;
+        for (int key : sortedKeys) {
+            from = BinarySearch.exponentialSearch(a, from, key);
+            check(from, BinarySearch.lowerBound(a, key), "exponential", key);
+        }
+    }
+
+    private static void check(int actual, int expected, String name, int key) {
+        if (actual != expected) {
+            throw new IllegalStateException(name + " key=" + key + " expected=" + expected + " actual=" + actual);
+        }
+    }
+}
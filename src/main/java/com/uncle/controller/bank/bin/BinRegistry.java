@@ -0,0 +1,66 @@
+package com.uncle.controller.bank.bin;
+
+import com.uncle.controller.bank.enums.IINEnum;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 当前生效的BIN表
+ * <p>
+ * 读取只做一次volatile读, 不加锁; 重新加载时先在调用线程里完整构建新表, 校验通过后一次赋值替换,
+ * 正在查询旧表的线程不受影响, 旧表随后被回收. 文件有误时抛出异常, 继续使用旧表.
+ * 启动时默认使用 {@link BinTableLoader#fromIINEnum()} 生成的内置表
+ *
+ * @author 杨戬
+ * @className BinRegistry
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 01:40
+ */
+public final class BinRegistry {
+    private static volatile BinTable current = BinTableLoader.fromIINEnum();
+
+    private BinRegistry() {
+    }
+
+    /**
+     * 按卡号查找卡组织
+     *
+     * @param cardNo 卡号或卡号前缀, 至少 {@link BinTable#digits()} 位数字
+     * @return 卡组织
+     */
+    public static IINEnum lookup(CharSequence cardNo) {
+        return current.lookup(cardNo);
+    }
+
+    /**
+     * 当前的BIN表, 批量查询时先取出来再反复使用, 保证整批用的是同一张表
+     */
+    public static BinTable current() {
+        return current;
+    }
+
+    /**
+     * 从文件重新加载
+     *
+     * @param path .csv或二进制BIN文件
+     * @return 被替换掉的表
+     */
+    public static BinTable reload(Path path) throws IOException {
+        return replace(BinTableLoader.load(path));
+    }
+
+    /**
+     * 替换为指定的表
+     *
+     * @return 被替换掉的表
+     */
+    public static synchronized BinTable replace(BinTable table) {
+        if (table == null) {
+            throw new IllegalArgumentException("table");
+        }
+        BinTable previous = current;
+        current = table;
+        return previous;
+    }
+}
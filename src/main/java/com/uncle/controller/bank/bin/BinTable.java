@@ -0,0 +1,276 @@
+package com.uncle.controller.bank.bin;
+
+import com.uncle.controller.algorithm.BinarySearch;
+import com.uncle.controller.bank.enums.IINEnum;
+import com.uncle.core.SysCode;
+import com.uncle.core.UncleException;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * BIN区间索引: 卡号前digits位 -&gt; 卡组织
+ * <p>
+ * 区间按起点升序排列且互不重叠, 分三列存放(lows, highs, iins), 查找时在highs上做无分支二分,
+ * 找到第一个 high &gt;= key 的区间再检查 low &lt;= key; 六位及以下的BIN直接按下标查表.
+ * 构建后不可变, 可以被任意多个线程同时查询
+ *
+ * @author 杨戬
+ * @className BinTable
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 01:40
+ */
+public final class BinTable {
+    private static final IINEnum[] IINS = IINEnum.values();
+    /**
+     * long最多放18位十进制数
+     */
+    static final int MAX_DIGITS = 18;
+    /**
+     * 不超过这个位数时额外建一张直接下标表, 最多1MB
+     */
+    private static final int DIRECT_DIGITS = 6;
+    private static final int OTHER = IINEnum.OTHER_IIN.ordinal();
+
+    private final int digits;
+    private final long[] lows;
+    private final long[] highs;
+    private final byte[] iins;
+    /**
+     * BIN -&gt; 卡组织下标, 位数不超过 {@link #DIRECT_DIGITS} 时才有, 查找只需一次数组读取
+     */
+    private final byte[] direct;
+
+    private BinTable(int digits, long[] lows, long[] highs, byte[] iins) {
+        this.digits = digits;
+        this.lows = lows;
+        this.highs = highs;
+        this.iins = iins;
+        this.direct = digits <= DIRECT_DIGITS ? direct() : null;
+    }
+
+    private byte[] direct() {
+        byte[] table = new byte[(int)Builder.limit(digits)];
+        Arrays.fill(table, (byte)OTHER);
+        for (int i = 0; i < lows.length; i++) {
+            Arrays.fill(table, (int)lows[i], (int)highs[i] + 1, iins[i]);
+        }
+        return table;
+    }
+
+    public static Builder builder(int digits) {
+        return new Builder(digits);
+    }
+
+    /**
+     * 按卡号查找, 跳过空白字符后取前digits位
+     *
+     * @param cardNo 卡号或卡号前缀, 至少digits位数字
+     * @return 卡组织, 不在任何区间内返回 {@link IINEnum#OTHER_IIN}
+     */
+    public IINEnum lookup(CharSequence cardNo) {
+        if (cardNo == null) {
+            throw new UncleException(SysCode.ERRORS);
+        }
+        long key = 0;
+        int count = 0;
+        for (int i = 0, length = cardNo.length(); i < length && count < digits; i++) {
+            char c = cardNo.charAt(i);
+            if (c == ' ' || (c >= '\t' && c <= '\r')) {
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                throw new UncleException(SysCode.ERRORS);
+            }
+            key = key * 10 + (c - '0');
+            count++;
+        }
+        if (count < digits) {
+            throw new UncleException(SysCode.ERRORS);
+        }
+        return lookup(key);
+    }
+
+    /**
+     * 按BIN查找
+     *
+     * @param bin 卡号前digits位
+     * @return 卡组织, 不在任何区间内返回 {@link IINEnum#OTHER_IIN}
+     */
+    public IINEnum lookup(long bin) {
+        return IINS[ordinal(bin)];
+    }
+
+    /**
+     * 按BIN查找卡组织的下标
+     */
+    int ordinal(long bin) {
+        if (direct != null) {
+            return bin >= 0 && bin < direct.length ? direct[(int)bin] : OTHER;
+        }
+        int i = BinarySearch.branchlessLowerBound(highs, bin);
+        return i < lows.length && lows[i] <= bin ? iins[i] : OTHER;
+    }
+
+    /**
+     * 批量查找, 多个BIN交错二分, 数据量超出缓存时比逐个查找快
+     *
+     * @param bins 卡号前digits位
+     * @param out  结果, out[i]对应bins[i]
+     */
+    public void lookupAll(long[] bins, IINEnum[] out) {
+        if (direct != null) {
+            for (int i = 0; i < bins.length; i++) {
+                out[i] = IINS[ordinal(bins[i])];
+            }
+            return;
+        }
+        int[] index = new int[bins.length];
+        BinarySearch.lowerBounds(highs, bins, index);
+        for (int i = 0; i < bins.length; i++) {
+            int j = index[i];
+            out[i] = j < lows.length && lows[j] <= bins[i] ? IINS[iins[j]] : IINEnum.OTHER_IIN;
+        }
+    }
+
+    /**
+     * BIN位数
+     */
+    public int digits() {
+        return digits;
+    }
+
+    /**
+     * 区间个数
+     */
+    public int size() {
+        return lows.length;
+    }
+
+    long low(int i) {
+        return lows[i];
+    }
+
+    long high(int i) {
+        return highs[i];
+    }
+
+    IINEnum iin(int i) {
+        return IINS[iins[i]];
+    }
+
+    @Override
+    public String toString() {
+        return "BinTable{digits=" + digits + ", size=" + lows.length + "}";
+    }
+
+    /**
+     * 逐个添加区间, build时排序、校验不重叠, 并合并首尾相接且卡组织相同的区间
+     */
+    public static final class Builder {
+        private final int digits;
+        private final long limit;
+        private long[] lows = new long[16];
+        private long[] highs = new long[16];
+        private byte[] iins = new byte[16];
+        private int size;
+
+        private Builder(int digits) {
+            if (digits < 1 || digits > MAX_DIGITS) {
+                throw new IllegalArgumentException("digits must be in [1, " + MAX_DIGITS + "]: " + digits);
+            }
+            this.digits = digits;
+            this.limit = limit(digits);
+        }
+
+        /**
+         * 10的digits次方
+         */
+        static long limit(int digits) {
+            long limit = 1;
+            for (int i = 0; i < digits; i++) {
+                limit *= 10;
+            }
+            return limit;
+        }
+
+        /**
+         * @param low  起点(含)
+         * @param high 终点(含)
+         * @param iin  卡组织
+         */
+        public Builder add(long low, long high, IINEnum iin) {
+            if (low < 0 || low > high || high >= limit) {
+                throw new IllegalArgumentException("Illegal " + digits + "-digit range [" + low + ", " + high + "]");
+            }
+            if (size == lows.length) {
+                int capacity = size << 1;
+                lows = Arrays.copyOf(lows, capacity);
+                highs = Arrays.copyOf(highs, capacity);
+                iins = Arrays.copyOf(iins, capacity);
+            }
+            lows[size] = low;
+            highs[size] = high;
+            iins[size] = (byte)iin.ordinal();
+            size++;
+            return this;
+        }
+
+        public BinTable build() {
+            if (!sorted()) {
+                sort();
+            }
+            long[] l = new long[size];
+            long[] h = new long[size];
+            byte[] b = new byte[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (n > 0 && lows[i] <= h[n - 1]) {
+                    throw new IllegalArgumentException("Overlapping ranges [" + l[n - 1] + ", " + h[n - 1] + "] and ["
+                        + lows[i] + ", " + highs[i] + "]");
+                }
+                if (n > 0 && lows[i] == h[n - 1] + 1 && iins[i] == b[n - 1]) {
+                    //首尾相接且卡组织相同, 合并
+                    h[n - 1] = highs[i];
+                    continue;
+                }
+                l[n] = lows[i];
+                h[n] = highs[i];
+                b[n] = iins[i];
+                n++;
+            }
+            return new BinTable(digits, Arrays.copyOf(l, n), Arrays.copyOf(h, n), Arrays.copyOf(b, n));
+        }
+
+        private boolean sorted() {
+            for (int i = 1; i < size; i++) {
+                if (lows[i] < lows[i - 1]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * BIN文件一般已经有序, 这里只是兜底
+         */
+        private void sort() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingLong(i -> lows[i]));
+            long[] l = new long[size];
+            long[] h = new long[size];
+            byte[] b = new byte[size];
+            for (int i = 0; i < size; i++) {
+                l[i] = lows[order[i]];
+                h[i] = highs[order[i]];
+                b[i] = iins[order[i]];
+            }
+            lows = l;
+            highs = h;
+            iins = b;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.uncle.controller.bank.bin;
+
+import com.uncle.controller.bank.enums.IINEnum;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * BIN区间文件的读写
+ * <p>
+ * CSV格式: 每行 起点,终点,卡组织枚举名, 例如 62212600,62292599,DISCOVER_CARD_IIN; 起止都是定长数字串,
+ * 位数即BIN位数; 空行和#开头的行忽略.
+ * <p>
+ * 二进制格式(大端): int魔数 BIN1, int位数, int区间个数n, n个long起点, n个long终点, n个byte卡组织下标.
+ * 按列存放, 读取时直接mmap顺序扫描, 50万个区间约8.5MB
+ *
+ * @author 杨戬
+ * @className BinTableLoader
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 01:40
+ */
+public final class BinTableLoader {
+    private static final int MAGIC = 0x42494E31;
+    private static final int HEADER_BYTES = 12;
+    private static final IINEnum[] IINS = IINEnum.values();
+
+    private BinTableLoader() {
+    }
+
+    /**
+     * 按扩展名读取, .csv 为CSV, 其余为二进制
+     */
+    public static BinTable load(Path path) throws IOException {
+        if (path.getFileName().toString().endsWith(".csv")) {
+            try (InputStream in = Files.newInputStream(path)) {
+                return readCsv(in);
+            }
+        }
+        return readBinary(path);
+    }
+
+    public static BinTable readCsv(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        BinTable.Builder builder = null;
+        int digits = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            int first = line.indexOf(',');
+            int second = first < 0 ? -1 : line.indexOf(',', first + 1);
+            if (second < 0) {
+                throw new IllegalArgumentException("line " + lineNumber + ": expected low,high,iin but was " + line);
+            }
+            String low = line.substring(0, first).trim();
+            String high = line.substring(first + 1, second).trim();
+            String iin = line.substring(second + 1).trim();
+            if (builder == null) {
+                digits = low.length();
+                builder = BinTable.builder(digits);
+            }
+            if (low.length() != digits || high.length() != digits) {
+                throw new IllegalArgumentException("line " + lineNumber + ": expected " + digits + "-digit bounds");
+            }
+            try {
+                builder.add(parseDigits(low), parseDigits(high), IINEnum.valueOf(iin));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        if (builder == null) {
+            throw new IllegalArgumentException("Empty BIN file");
+        }
+        return builder.build();
+    }
+
+    public static void writeCsv(BinTable table, OutputStream out) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        String format = "%0" + table.digits() + "d";
+        for (int i = 0; i < table.size(); i++) {
+            writer.write(String.format(format, table.low(i)));
+            writer.write(',');
+            writer.write(String.format(format, table.high(i)));
+            writer.write(',');
+            writer.write(table.iin(i).name());
+            writer.newLine();
+        }
+        writer.flush();
+    }
+
+    public static BinTable readBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("Not a BIN file: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a BIN file: " + path);
+            }
+            int digits = buffer.getInt(4);
+            int size = buffer.getInt(8);
+            if (size < 0 || fileSize != HEADER_BYTES + 17L * size) {
+                throw new IOException("Truncated BIN file: " + path);
+            }
+            int lowOffset = HEADER_BYTES;
+            int highOffset = lowOffset + (size << 3);
+            int iinOffset = highOffset + (size << 3);
+            BinTable.Builder builder = BinTable.builder(digits);
+            for (int i = 0; i < size; i++) {
+                int ordinal = buffer.get(iinOffset + i);
+                if (ordinal < 0 || ordinal >= IINS.length) {
+                    throw new IOException("Illegal IIN ordinal " + ordinal + " at range " + i + ": " + path);
+                }
+                builder.add(buffer.getLong(lowOffset + (i << 3)), buffer.getLong(highOffset + (i << 3)), IINS[ordinal]);
+            }
+            return builder.build();
+        }
+    }
+
+    public static void writeBinary(BinTable table, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        int size = table.size();
+        data.writeInt(MAGIC);
+        data.writeInt(table.digits());
+        data.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            data.writeLong(table.low(i));
+        }
+        for (int i = 0; i < size; i++) {
+            data.writeLong(table.high(i));
+        }
+        for (int i = 0; i < size; i++) {
+            data.writeByte(table.iin(i).ordinal());
+        }
+        data.flush();
+    }
+
+    /**
+     * 内置的六位BIN表, 由 {@link IINEnum} 的规则生成
+     */
+    public static BinTable fromIINEnum() {
+        BinTable.Builder builder = BinTable.builder(6);
+        IINEnum current = null;
+        int start = 0;
+        for (int prefix = 0; prefix <= 1_000_000; prefix++) {
+            IINEnum iin = prefix < 1_000_000 ? IINEnum.getIINEnumByPrefix(prefix) : null;
+            if (iin != current) {
+                if (current != null && current != IINEnum.OTHER_IIN) {
+                    builder.add(start, prefix - 1, current);
+                }
+                current = iin;
+                start = prefix;
+            }
+        }
+        return builder.build();
+    }
+
+    private static long parseDigits(String s) {
+        long value = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("not a number: " + s);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
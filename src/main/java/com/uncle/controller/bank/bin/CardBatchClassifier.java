@@ -0,0 +1,332 @@
+package com.uncle.controller.bank.bin;
+
+import com.uncle.controller.bank.enums.IINEnum;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 批量卡号分类
+ * <p>
+ * 一行一个卡号, 只允许数字和空白字符, 取前 {@link BinTable#digits()} 位查BIN表. 非法行记为
+ * {@link CardBatchResult#INVALID}, 不抛异常; 逐行处理不分配对象, 每批只分配一个结果数组.
+ * <p>
+ * 数组和字节输入按行数/字节数切分后在 ForkJoinPool.commonPool() 上并行; 字节输入以\n分行(\r当作空白),
+ * 先并行数出每段的换行数得到各段的起始行号, 再并行分类. 迭代器输入顺序处理.
+ * 构造时固定一张BIN表, 整批都用这张表, 不受中途重新加载的影响
+ *
+ * @author 杨戬
+ * @className CardBatchClassifier
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 02:40
+ */
+public final class CardBatchClassifier {
+    private static final int COUNTERS = IINEnum.values().length + 1;
+    private static final int INVALID_COUNTER = COUNTERS - 1;
+    /**
+     * 每个子任务最少处理的行数/字节数
+     */
+    private static final int MIN_ROWS_PER_TASK = 4096;
+    private static final int MIN_BYTES_PER_TASK = 64 << 10;
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_7_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private final BinTable table;
+
+    /**
+     * 使用 {@link BinRegistry} 当前的BIN表
+     */
+    public CardBatchClassifier() {
+        this(BinRegistry.current());
+    }
+
+    public CardBatchClassifier(BinTable table) {
+        this.table = table;
+    }
+
+    /**
+     * 分类一组卡号, 并行
+     */
+    public CardBatchResult classify(List<? extends CharSequence> cardNos) {
+        int rows = cardNos.size();
+        byte[] codes = new byte[rows];
+        long[] counts = ForkJoinPool.commonPool()
+            .invoke(new RowTask(cardNos, codes, 0, rows, unit(rows, MIN_ROWS_PER_TASK)));
+        return new CardBatchResult(codes, rows, counts);
+    }
+
+    /**
+     * 分类一组卡号, 并行
+     */
+    public CardBatchResult classify(CharSequence[] cardNos) {
+        return classify(Arrays.asList(cardNos));
+    }
+
+    /**
+     * 流式分类, 顺序处理, 行数事先未知, 结果数组按需扩容
+     */
+    public CardBatchResult classify(Iterator<? extends CharSequence> cardNos) {
+        byte[] codes = new byte[1024];
+        long[] counts = new long[COUNTERS];
+        int rows = 0;
+        while (cardNos.hasNext()) {
+            if (rows == codes.length) {
+                codes = Arrays.copyOf(codes, rows + (rows >>> 1));
+            }
+            int code = classify(cardNos.next());
+            counts[code < 0 ? INVALID_COUNTER : code]++;
+            codes[rows++] = (byte)code;
+        }
+        return new CardBatchResult(codes, rows, counts);
+    }
+
+    /**
+     * 分类以\n分隔的卡号, 并行
+     */
+    public CardBatchResult classify(byte[] buffer, int offset, int length) {
+        return classify(ByteBuffer.wrap(buffer, offset, length).slice());
+    }
+
+    /**
+     * 分类文件, 文件mmap后按字节切分并行处理
+     *
+     * @param path 以\n分隔的卡号文件, 不超过2GB
+     */
+    public CardBatchResult classify(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File larger than 2GB: " + path);
+            }
+            return classify(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * 分类 [position, limit) 之间以\n分隔的卡号, 并行, 不改变buffer的position
+     */
+    public CardBatchResult classify(ByteBuffer buffer) {
+        ByteBuffer data = buffer.slice();
+        int length = data.remaining();
+        int unit = unit(length, MIN_BYTES_PER_TASK);
+        int chunks = length == 0 ? 0 : (length - 1) / unit + 1;
+        // 第一遍: 每段的换行数, 前缀和得到每段之前的换行数
+        int[] newlines = new int[chunks + 1];
+        if (chunks > 0) {
+            ForkJoinPool.commonPool().invoke(new NewlineTask(data, newlines, unit, 0, chunks));
+        }
+        int total = 0;
+        for (int i = 0; i < chunks; i++) {
+            int count = newlines[i];
+            newlines[i] = total;
+            total += count;
+        }
+        newlines[chunks] = total;
+        int rows = length == 0 || data.get(length - 1) == '\n' ? total : total + 1;
+        byte[] codes = new byte[rows];
+        long[] counts = chunks == 0 ? new long[COUNTERS]
+            : ForkJoinPool.commonPool().invoke(new ChunkTask(data, newlines, codes, unit, 0, chunks));
+        return new CardBatchResult(codes, rows, counts);
+    }
+
+    /**
+     * @return 卡组织下标, 非法返回 {@link CardBatchResult#INVALID}
+     */
+    private int classify(CharSequence cardNo) {
+        if (cardNo == null) {
+            return CardBatchResult.INVALID;
+        }
+        int digits = table.digits();
+        long key = 0;
+        int count = 0;
+        for (int i = 0, length = cardNo.length(); i < length; i++) {
+            char c = cardNo.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (count < digits) {
+                    key = key * 10 + (c - '0');
+                }
+                count++;
+            } else if (c != ' ' && (c < '\t' || c > '\r')) {
+                return CardBatchResult.INVALID;
+            }
+        }
+        return count < digits ? CardBatchResult.INVALID : table.ordinal(key);
+    }
+
+    /**
+     * 按并行度切分, 每份不少于min
+     */
+    private static int unit(int total, int min) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        return Math.max(min, total / (parallelism << 2) + 1);
+    }
+
+    private static long[] add(long[] left, long[] right) {
+        for (int i = 0; i < COUNTERS; i++) {
+            left[i] += right[i];
+        }
+        return left;
+    }
+
+    private final class RowTask extends RecursiveTask<long[]> {
+        private final List<? extends CharSequence> cardNos;
+        private final byte[] codes;
+        private final int lo;
+        private final int hi;
+        private final int unit;
+
+        RowTask(List<? extends CharSequence> cardNos, byte[] codes, int lo, int hi, int unit) {
+            this.cardNos = cardNos;
+            this.codes = codes;
+            this.lo = lo;
+            this.hi = hi;
+            this.unit = unit;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (hi - lo <= unit) {
+                long[] counts = new long[COUNTERS];
+                for (int i = lo; i < hi; i++) {
+                    int code = classify(cardNos.get(i));
+                    counts[code < 0 ? INVALID_COUNTER : code]++;
+                    codes[i] = (byte)code;
+                }
+                return counts;
+            }
+            int mid = (lo + hi) >>> 1;
+            RowTask right = new RowTask(cardNos, codes, mid, hi, unit);
+            right.fork();
+            long[] left = new RowTask(cardNos, codes, lo, mid, unit).compute();
+            return add(left, right.join());
+        }
+    }
+
+    /**
+     * 数出第 [lo, hi) 段各自的换行数
+     */
+    private static final class NewlineTask extends RecursiveAction {
+        private final ByteBuffer data;
+        private final int[] newlines;
+        private final int unit;
+        private final int lo;
+        private final int hi;
+
+        NewlineTask(ByteBuffer data, int[] newlines, int unit, int lo, int hi) {
+            this.data = data;
+            this.newlines = newlines;
+            this.unit = unit;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                int from = lo * unit;
+                int to = (int)Math.min((long)from + unit, data.limit());
+                int count = 0;
+                int i = from;
+                // 一次比较8个字节: 与\n异或后为0的字节即换行, 用SWAR统计0字节的个数
+                for (; i + 8 <= to; i += 8) {
+                    long x = data.getLong(i) ^ NEWLINES;
+                    long t = (x & LOW_7_BITS) + LOW_7_BITS;
+                    count += Long.bitCount(~(t | x | LOW_7_BITS));
+                }
+                for (; i < to; i++) {
+                    if (data.get(i) == '\n') {
+                        count++;
+                    }
+                }
+                newlines[lo] = count;
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            NewlineTask right = new NewlineTask(data, newlines, unit, mid, hi);
+            right.fork();
+            new NewlineTask(data, newlines, unit, lo, mid).compute();
+            right.join();
+        }
+    }
+
+    /**
+     * 分类从第 [lo, hi) 段开始的行; 一行属于它第一个字节所在的段, 可能越过段尾
+     */
+    private final class ChunkTask extends RecursiveTask<long[]> {
+        private final ByteBuffer data;
+        private final int[] newlines;
+        private final byte[] codes;
+        private final int unit;
+        private final int lo;
+        private final int hi;
+
+        ChunkTask(ByteBuffer data, int[] newlines, byte[] codes, int unit, int lo, int hi) {
+            this.data = data;
+            this.newlines = newlines;
+            this.codes = codes;
+            this.unit = unit;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (hi - lo == 1) {
+                return leaf();
+            }
+            int mid = (lo + hi) >>> 1;
+            ChunkTask right = new ChunkTask(data, newlines, codes, unit, mid, hi);
+            right.fork();
+            long[] left = new ChunkTask(data, newlines, codes, unit, lo, mid).compute();
+            return add(left, right.join());
+        }
+
+        private long[] leaf() {
+            long[] counts = new long[COUNTERS];
+            int limit = data.limit();
+            int from = lo * unit;
+            int end = (int)Math.min((long)from + unit, limit);
+            int row = newlines[lo];
+            // 段首不是行首时跳到下一行
+            if (from > 0 && data.get(from - 1) != '\n') {
+                while (from < end && data.get(from) != '\n') {
+                    from++;
+                }
+                from++;
+                row++;
+            }
+            int digits = table.digits();
+            while (from < end) {
+                // 一边找行尾一边解析, 每个字节只读一次
+                long key = 0;
+                int count = 0;
+                boolean invalid = false;
+                int i = from;
+                for (int c; i < limit && (c = data.get(i)) != '\n'; i++) {
+                    if (c >= '0' && c <= '9') {
+                        if (count < digits) {
+                            key = key * 10 + (c - '0');
+                        }
+                        count++;
+                    } else if (c != ' ' && (c < '\t' || c > '\r')) {
+                        invalid = true;
+                    }
+                }
+                int code = invalid || count < digits ? CardBatchResult.INVALID : table.ordinal(key);
+                counts[code < 0 ? INVALID_COUNTER : code]++;
+                codes[row++] = (byte)code;
+                from = i + 1;
+            }
+            return counts;
+        }
+    }
+}
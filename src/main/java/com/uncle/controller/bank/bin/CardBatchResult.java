@@ -0,0 +1,95 @@
+package com.uncle.controller.bank.bin;
+
+import com.uncle.controller.bank.enums.IINEnum;
+
+import java.util.EnumMap;
+
+/**
+ * 批量分类结果: 每行一个byte(卡组织下标, 非法行为 {@link #INVALID}), 加上各卡组织的行数
+ *
+ * @author 杨戬
+ * @className CardBatchResult
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 02:40
+ */
+public final class CardBatchResult {
+    /**
+     * 非法行: 有数字和空白以外的字符, 或者数字不够BIN位数
+     */
+    public static final byte INVALID = -1;
+    private static final IINEnum[] IINS = IINEnum.values();
+
+    private final byte[] codes;
+    private final int rows;
+    private final long[] counts;
+    private final long invalidCount;
+
+    CardBatchResult(byte[] codes, int rows, long[] counts) {
+        this.codes = codes;
+        this.rows = rows;
+        this.counts = new long[IINS.length];
+        System.arraycopy(counts, 0, this.counts, 0, IINS.length);
+        this.invalidCount = counts[IINS.length];
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * 第row行的卡组织
+     *
+     * @return 卡组织, 非法行返回null
+     */
+    public IINEnum iin(int row) {
+        byte code = code(row);
+        return code == INVALID ? null : IINS[code];
+    }
+
+    /**
+     * 第row行的卡组织下标, 非法行返回 {@link #INVALID}
+     */
+    public byte code(int row) {
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("row " + row + ", rows " + rows);
+        }
+        return codes[row];
+    }
+
+    public boolean isValid(int row) {
+        return code(row) != INVALID;
+    }
+
+    /**
+     * 逐行结果数组本身, 不复制, 长度可能大于 {@link #rows()}, 调用方不要修改
+     */
+    public byte[] codes() {
+        return codes;
+    }
+
+    public long count(IINEnum iin) {
+        return counts[iin.ordinal()];
+    }
+
+    public long invalidCount() {
+        return invalidCount;
+    }
+
+    /**
+     * 各卡组织的行数, 不含行数为0的
+     */
+    public EnumMap<IINEnum, Long> counts() {
+        EnumMap<IINEnum, Long> map = new EnumMap<>(IINEnum.class);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                map.put(IINS[i], counts[i]);
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "CardBatchResult{rows=" + rows + ", counts=" + counts() + ", invalid=" + invalidCount + "}";
+    }
+}
@@ -0,0 +1,127 @@
+package com.uncle.controller.bank.bin;
+
+import com.uncle.controller.bank.enums.IINEnum;
+import com.uncle.controller.bank.enums.PayTypeEnum;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 直接从字节解析卡号(ISO 8583 的2域等ASCII数字), 一次遍历同时完成格式校验、BIN提取和Luhn校验, 不创建String
+ * <p>
+ * 结果打包在一个int里, 避免返回对象: 低8位是卡组织下标, {@link #LUHN_VALID} 位表示校验位正确;
+ * 格式错误(非数字, 长度不在 [{@link #MIN_LENGTH}, {@link #MAX_LENGTH}])返回 {@link #MALFORMED}.
+ * 用 {@link #iin(int)}, {@link #payTypeIIN(int)}, {@link #isLuhnValid(int)} 解读结果.
+ * 整个调用不分配对象
+ *
+ * @author 杨戬
+ * @className CardBytes
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 03:40
+ */
+public final class CardBytes {
+    /**
+     * ISO/IEC 7812 卡号长度
+     */
+    public static final int MIN_LENGTH = 12;
+    public static final int MAX_LENGTH = 19;
+    public static final int MALFORMED = -1;
+    public static final int LUHN_VALID = 0x100;
+
+    private static final int IIN_MASK = 0xFF;
+    private static final IINEnum[] IINS = IINEnum.values();
+    /**
+     * 数字乘2后各位之和
+     */
+    private static final int[] DOUBLED = {0, 2, 4, 6, 8, 1, 3, 5, 7, 9};
+
+    private CardBytes() {
+    }
+
+    /**
+     * 用 {@link BinRegistry} 当前的BIN表分类
+     *
+     * @param src    报文
+     * @param offset 卡号起始位置
+     * @param length 卡号长度
+     * @return 打包的结果, 格式错误返回 {@link #MALFORMED}
+     */
+    public static int classify(byte[] src, int offset, int length) {
+        return classify(BinRegistry.current(), src, offset, length);
+    }
+
+    public static int classify(BinTable table, byte[] src, int offset, int length) {
+        int digits = table.digits();
+        if (length < MIN_LENGTH || length > MAX_LENGTH || digits > length) {
+            return MALFORMED;
+        }
+        long bin = 0;
+        int sum = 0;
+        // 从右数第2, 4, 6...位乘2, 即下标奇偶性与长度相同的位
+        int doubleParity = length & 1;
+        for (int i = 0; i < length; i++) {
+            int d = src[offset + i] - '0';
+            if (d < 0 || d > 9) {
+                return MALFORMED;
+            }
+            if (i < digits) {
+                bin = bin * 10 + d;
+            }
+            sum += (i & 1) == doubleParity ? DOUBLED[d] : d;
+        }
+        return table.ordinal(bin) | (sum % 10 == 0 ? LUHN_VALID : 0);
+    }
+
+    /**
+     * 用 {@link BinRegistry} 当前的BIN表分类, 按绝对位置读取, 不改变buffer的position
+     *
+     * @param src    报文
+     * @param offset 卡号起始位置
+     * @param length 卡号长度
+     * @return 打包的结果, 格式错误返回 {@link #MALFORMED}
+     */
+    public static int classify(ByteBuffer src, int offset, int length) {
+        return classify(BinRegistry.current(), src, offset, length);
+    }
+
+    public static int classify(BinTable table, ByteBuffer src, int offset, int length) {
+        int digits = table.digits();
+        if (length < MIN_LENGTH || length > MAX_LENGTH || digits > length) {
+            return MALFORMED;
+        }
+        long bin = 0;
+        int sum = 0;
+        int doubleParity = length & 1;
+        for (int i = 0; i < length; i++) {
+            int d = src.get(offset + i) - '0';
+            if (d < 0 || d > 9) {
+                return MALFORMED;
+            }
+            if (i < digits) {
+                bin = bin * 10 + d;
+            }
+            sum += (i & 1) == doubleParity ? DOUBLED[d] : d;
+        }
+        return table.ordinal(bin) | (sum % 10 == 0 ? LUHN_VALID : 0);
+    }
+
+    /**
+     * 格式正确且Luhn校验通过
+     */
+    public static boolean isLuhnValid(int result) {
+        return result != MALFORMED && (result & LUHN_VALID) != 0;
+    }
+
+    /**
+     * @return 卡组织, 格式错误返回null
+     */
+    public static IINEnum iin(int result) {
+        return result == MALFORMED ? null : IINS[result & IIN_MASK];
+    }
+
+    /**
+     * @return {@link PayTypeEnum#CARD_PAY} 中的卡组织, 格式错误返回null
+     */
+    public static PayTypeEnum.IINEnum payTypeIIN(int result) {
+        return result == MALFORMED ? null : PayTypeEnum.of(IINS[result & IIN_MASK]);
+    }
+}
@@ -2,7 +2,10 @@ package com.uncle.controller.bank.enums;
 
 import com.uncle.core.SysCode;
 import com.uncle.core.UncleException;
-import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * 银行转接清算机构枚举
@@ -94,120 +97,112 @@ public enum IINEnum {
 
     /**
      * 根据银行卡号前六位IIN码获取银行转接清算机构
+     * <p>
+     * 跳过空白字符后取前6位数字查 {@link PrefixTable}, 不分配对象; 传入完整卡号时同样只看前6位
      *
      * @param bankCardPrSix 银行卡号前六位IIN码
      * @return 银行转接清算机构
      */
     public static IINEnum getIINEnumByBankCardPrSix(String bankCardPrSix) {
-        //取出空白字符校验合法性
-        String nonBlank = bankCardPrSix.replaceAll("\\s*", "");
-        if (StringUtils.isBlank(nonBlank) || nonBlank.length() < 6) {
+        if (bankCardPrSix == null) {
+            throw new UncleException(SysCode.ERRORS);
+        }
+        int prefix = 0;
+        int digits = 0;
+        for (int i = 0, length = bankCardPrSix.length(); i < length && digits < PrefixTable.DIGITS; i++) {
+            char c = bankCardPrSix.charAt(i);
+            if (isWhitespace(c)) {
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                throw new UncleException(SysCode.ERRORS);
+            }
+            prefix = prefix * 10 + (c - '0');
+            digits++;
+        }
+        //校验合法性
+        if (digits < PrefixTable.DIGITS) {
             throw new UncleException(SysCode.ERRORS);
         }
+        return PrefixTable.VALUES[PrefixTable.TABLE[prefix]];
+    }
 
-        //获得切分卡号
-        String pr1String = nonBlank.substring(0, 1);
-        String pr2String = nonBlank.substring(0, 2);
-        String pr3String = nonBlank.substring(0, 3);
-        String pr4String = nonBlank.substring(0, 4);
-        String pr5String = nonBlank.substring(0, 5);
+    /**
+     * 根据卡号前六位数字获取银行转接清算机构
+     *
+     * @param prefix 卡号前六位, 000000 ~ 999999
+     * @return 银行转接清算机构
+     */
+    public static IINEnum getIINEnumByPrefix(int prefix) {
+        if (prefix < 0 || prefix >= PrefixTable.TABLE.length) {
+            throw new UncleException(SysCode.ERRORS);
+        }
+        return PrefixTable.VALUES[PrefixTable.TABLE[prefix]];
+    }
 
-        //获取IIN
-        for (IINEnum value : IINEnum.values()) {
-            String[] codes = value.getCodes();
+    /**
+     * 与正则 \s 一致: 空格 \t \n \x0B \f \r
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
 
-            //中国银联
-            if (value.equals(IINEnum.CHINA_UNIONPAY_IIN)) {
-                for (String code : codes) {
-                    if (code.equals(pr2String)) {
-                        return value;
-                    }
-                }
+    /**
+     * 前六位 -&gt; 枚举下标 的查找表, 1M个byte, 首次使用时构建一次
+     * <p>
+     * 每条规则覆盖一段连续的六位前缀, 按前缀长度从短到长、同样长度按枚举倒序写入, 后写的覆盖先写的,
+     * 即最长前缀优先, 长度相同时枚举靠前的优先. 镭射卡、Solo卡、SWITCH卡已退出市场, 原来逐个判断的实现
+     * 从不返回它们, 这里同样不参与匹配
+     */
+    private static final class PrefixTable {
+        static final int DIGITS = 6;
+        static final IINEnum[] VALUES = IINEnum.values();
+        static final byte[] TABLE = build();
 
-            }
-            //大来卡
-            if (value.equals(IINEnum.DINERS_CLUB_INTERNATIONAL_IIN)) {
-                for (String code : codes) {
-                    if (code.equals(pr3String)) {
-                        return value;
-                    }
-                    if (code.equals(pr4String)) {
-                        return value;
-                    }
-                    if (code.equals(pr2String)) {
-                        return value;
-                    }
+        private static byte[] build() {
+            byte[] table = new byte[1_000_000];
+            Arrays.fill(table, (byte)OTHER_IIN.ordinal());
+            List<int[]> rules = new ArrayList<>();
+            for (IINEnum value : VALUES) {
+                if (value == LASER_IIN || value == SOLO_IIN || value == SWITCH_IIN || value == OTHER_IIN) {
+                    continue;
                 }
-            }
-            //JBC
-            if (value.equals(IINEnum.JAPAN_CREDIT_BUREAU_IIN)) {
-                int pr4IntegerMin = Integer.parseInt(value.getCodes()[0]);
-                int pr4IntegerMax = Integer.parseInt(value.getCodes()[1]);
-                int pr4Integer = Integer.parseInt(pr4String);
-                if (isMaxMinRange(pr4IntegerMin, pr4IntegerMax, pr4Integer)) {
-                    return value;
+                String[] codes = value.getCodes();
+                if (value == JAPAN_CREDIT_BUREAU_IIN || value == MASTERCARD_INCORPORATED_IIN) {
+                    //codes是区间的起止
+                    rules.add(rule(value, codes[0], codes[1]));
+                    continue;
                 }
-            }
-            //发现卡
-            if (value.equals(IINEnum.DISCOVER_CARD_IIN)) {
-                for (String code : codes) {
-                    if (code.equals(pr2String)) {
-                        return value;
+                if (value == DISCOVER_CARD_IIN) {
+                    //最后两个是六位区间的起止
+                    for (int i = 0; i < codes.length - 2; i++) {
+                        rules.add(rule(value, codes[i], codes[i]));
                     }
-                    if (code.equals(pr3String)) {
-                        return value;
-                    }
-                    if (code.equals(pr4String)) {
-                        return value;
-                    }
-                }
-                int pr6IntegerMin = Integer.parseInt(value.getCodes()[8]);
-                int pr6IntegerMax = Integer.parseInt(value.getCodes()[9]);
-                int pr6Integer = Integer.parseInt(nonBlank);
-                if (isMaxMinRange(pr6IntegerMin, pr6IntegerMax, pr6Integer)) {
-                    return value;
+                    rules.add(rule(value, codes[codes.length - 2], codes[codes.length - 1]));
+                    continue;
                 }
-            }
-            //万事顺
-            if (value.equals(IINEnum.MAESTRO_IIN)) {
                 for (String code : codes) {
-                    if (code.equals(pr4String)) {
-                        return value;
-                    }
+                    rules.add(rule(value, code, code));
                 }
             }
-            //美国运通卡
-            if (value.equals(IINEnum.AMERICAN_EXPRESS_IIN)) {
-                for (String code : codes) {
-                    if (code.equals(pr2String)) {
-                        return value;
-                    }
-                }
-            }
-            //VISA卡
-            if (value.equals(IINEnum.VISA_IIN)) {
-                for (String code : codes) {
-                    if (code.equals(pr1String)) {
-                        return value;
-                    }
-                }
+            //{前缀长度, 枚举下标, 起, 止}
+            rules.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(b[1], a[1]));
+            for (int[] rule : rules) {
+                Arrays.fill(table, rule[2], rule[3] + 1, (byte)rule[1]);
             }
-            //万事达卡
-            if (value.equals(IINEnum.MASTERCARD_INCORPORATED_IIN)) {
-                int pr2IntegerMin = Integer.parseInt(value.getCodes()[0]);
-                int pr2IntegerMax = Integer.parseInt(value.getCodes()[1]);
-                int pr2Integer = Integer.parseInt(pr2String);
-                if (isMaxMinRange(pr2IntegerMin, pr2IntegerMax, pr2Integer)) {
-                    return value;
-                }
+            return table;
+        }
 
+        /**
+         * 前缀区间 [from, to] 换算成六位前缀区间
+         */
+        private static int[] rule(IINEnum value, String from, String to) {
+            int scale = 1;
+            for (int i = from.length(); i < DIGITS; i++) {
+                scale *= 10;
             }
+            return new int[]{from.length(), value.ordinal(), Integer.parseInt(from) * scale,
+                    (Integer.parseInt(to) + 1) * scale - 1};
         }
-        return IINEnum.OTHER_IIN;
-    }
-
-
-    private static boolean isMaxMinRange(int intMin, int intMax, int value) {
-        return value >= intMin && value <= intMax;
     }
 }
@@ -1,9 +1,5 @@
 package com.uncle.controller.bank.enums;
 
-import com.uncle.core.SysCode;
-import com.uncle.core.UncleException;
-import org.apache.commons.lang3.StringUtils;
-
 import java.util.EnumSet;
 
 /**
@@ -25,6 +21,19 @@ public enum PayTypeEnum {
     private EnumSet<?> universe;
     private String msg;
 
+    /**
+     * 下标与 com.uncle.controller.bank.enums.IINEnum 一致
+     */
+    private static final IINEnum[] IINS;
+
+    static {
+        com.uncle.controller.bank.enums.IINEnum[] values = com.uncle.controller.bank.enums.IINEnum.values();
+        IINS = new IINEnum[values.length];
+        for (com.uncle.controller.bank.enums.IINEnum value : values) {
+            IINS[value.ordinal()] = IINEnum.valueOf(value.name());
+        }
+    }
+
     PayTypeEnum(EnumSet<?> enums, String msg) {
         this.universe = enums;
         this.msg = msg;
@@ -142,124 +151,19 @@ public enum PayTypeEnum {
     }
 
     /**
-     * 根据银行卡号前六位IIN码获取银行转接清算机构
+     * 根据银行卡号前六位IIN码获取银行转接清算机构, 与 {@link com.uncle.controller.bank.enums.IINEnum} 共用一张前缀表
      *
      * @param bankCardPrSix 银行卡号前六位IIN码
      * @return 银行转接清算机构
      */
     public static IINEnum getIINEnumByBankCardPrSix(String bankCardPrSix) {
-        //取出空白字符校验合法性
-        String nonBlank = bankCardPrSix.replaceAll("\\s*", "");
-        if (StringUtils.isBlank(nonBlank) || nonBlank.length() < 6) {
-            throw new UncleException(SysCode.ERRORS);
-        }
-        bankCardPrSix = nonBlank.substring(0, 6);
-
-        //获得切分卡号
-        String pr1String = bankCardPrSix.substring(0, 1);
-        String pr2String = bankCardPrSix.substring(0, 2);
-        String pr3String = bankCardPrSix.substring(0, 3);
-        String pr4String = bankCardPrSix.substring(0, 4);
-        String pr5String = bankCardPrSix.substring(0, 5);
-
-        //获取IIN
-        for (IINEnum value : IINEnum.values()) {
-            String[] codes = value.getCodes();
-
-            //中国银联
-            if (value.equals(IINEnum.CHINA_UNIONPAY_IIN)) {
-                for (String code : codes) {
-                    if (code.equals(pr2String)) {
-                        return value;
-                    }
-                }
-
-            }
-            //大来卡
-            if (value.equals(IINEnum.DINERS_CLUB_INTERNATIONAL_IIN)) {
-                for (String code : codes) {
-                    if (code.equals(pr3String)) {
-                        return value;
-                    }
-                    if (code.equals(pr4String)) {
-                        return value;
-                    }
-                    if (code.equals(pr2String)) {
-                        return value;
-                    }
-                }
-            }
-            //JBC
-            if (value.equals(IINEnum.JAPAN_CREDIT_BUREAU_IIN)) {
-                int pr4IntegerMin = Integer.parseInt(value.getCodes()[0]);
-                int pr4IntegerMax = Integer.parseInt(value.getCodes()[1]);
-                int pr4Integer = Integer.parseInt(pr4String);
-                if (isMaxMinRange(pr4IntegerMin, pr4IntegerMax, pr4Integer)) {
-                    return value;
-                }
-            }
-            //发现卡
-            if (value.equals(IINEnum.DISCOVER_CARD_IIN)) {
-                for (String code : codes) {
-                    if (code.equals(pr2String)) {
-                        return value;
-                    }
-                    if (code.equals(pr3String)) {
-                        return value;
-                    }
-                    if (code.equals(pr4String)) {
-                        return value;
-                    }
-                }
-                int pr6IntegerMin = Integer.parseInt(value.getCodes()[8]);
-                int pr6IntegerMax = Integer.parseInt(value.getCodes()[9]);
-                int pr6Integer = Integer.parseInt(bankCardPrSix);
-                if (isMaxMinRange(pr6IntegerMin, pr6IntegerMax, pr6Integer)) {
-                    return value;
-                }
-            }
-            //万事顺
-            if (value.equals(IINEnum.MAESTRO_IIN)) {
-                for (String code : codes) {
-                    if (code.equals(pr4String)) {
-                        return value;
-                    }
-                }
-            }
-            //美国运通卡
-            if (value.equals(IINEnum.AMERICAN_EXPRESS_IIN)) {
-                for (String code : codes) {
-                    if (code.equals(pr2String)) {
-                        return value;
-                    }
-                }
-            }
-            //VISA卡
-            if (value.equals(IINEnum.VISA_IIN)) {
-                for (String code : codes) {
-                    if (code.equals(pr1String)) {
-                        return value;
-                    }
-                }
-            }
-            //万事达卡
-            if (value.equals(IINEnum.MASTERCARD_INCORPORATED_IIN)) {
-                int pr2IntegerMin = Integer.parseInt(value.getCodes()[0]);
-                int pr2IntegerMax = Integer.parseInt(value.getCodes()[1]);
-                int pr2Integer = Integer.parseInt(pr2String);
-                if (isMaxMinRange(pr2IntegerMin, pr2IntegerMax, pr2Integer)) {
-                    return value;
-                }
-
-            }
-        }
-        return IINEnum.OTHER_IIN;
+        return of(com.uncle.controller.bank.enums.IINEnum.getIINEnumByBankCardPrSix(bankCardPrSix));
     }
 
-    private static boolean isMaxMinRange(int intMin, int intMax, int value) {
-        return value >= intMin && value <= intMax;
+    /**
+     * 转换为本枚举的卡组织, 两边常量同名
+     */
+    public static IINEnum of(com.uncle.controller.bank.enums.IINEnum iin) {
+        return IINS[iin.ordinal()];
     }
-
-
 }
-
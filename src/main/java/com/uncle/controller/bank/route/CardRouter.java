@@ -0,0 +1,216 @@
+package com.uncle.controller.bank.route;
+
+import com.uncle.controller.bank.bin.BinRegistry;
+import com.uncle.controller.bank.bin.BinTable;
+import com.uncle.controller.bank.bin.BinTableLoader;
+import com.uncle.controller.bank.enums.PayTypeEnum;
+import com.uncle.core.SysCode;
+import com.uncle.core.UncleException;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * 按卡号前六位路由
+ * <p>
+ * 构建时为000000~999999每个前缀算好一个int: 低8位卡组织(PayTypeEnum.IINEnum下标), 8~15位支付方式(PayTypeEnum下标),
+ * 高16位路由id; 共1M个int, 4MB. 查路由只读一次数组, 再经 {@link Dispatcher} 读一次数组得到处理器.
+ * <p>
+ * 路由id先按卡组织配置, 再按前缀区间覆盖(后配置的优先), 都没有配置的用默认路由. 构建后不可变;
+ * BIN表重新加载后需要重新构建
+ *
+ * @author 杨戬
+ * @className CardRouter
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 04:30
+ */
+public final class CardRouter {
+    /**
+     * 没有任何路由配置时的路由id
+     */
+    public static final int NO_ROUTE = 0xFFFF;
+    private static final int PREFIXES = 1_000_000;
+    private static final int DIGITS = 6;
+    private static final PayTypeEnum.IINEnum[] SCHEMES = PayTypeEnum.IINEnum.values();
+    private static final PayTypeEnum[] PAY_TYPES = PayTypeEnum.values();
+
+    private final int[] entries;
+
+    private CardRouter(int[] entries) {
+        this.entries = entries;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 按卡号查路由表项, 跳过空白字符后取前六位
+     *
+     * @param cardNo 卡号或卡号前六位
+     * @return 打包的表项, 用 {@link #scheme(int)}, {@link #payType(int)}, {@link #routeId(int)} 解读
+     */
+    public int entry(CharSequence cardNo) {
+        if (cardNo == null) {
+            throw new UncleException(SysCode.ERRORS);
+        }
+        int prefix = 0;
+        int count = 0;
+        for (int i = 0, length = cardNo.length(); i < length && count < DIGITS; i++) {
+            char c = cardNo.charAt(i);
+            if (c == ' ' || (c >= '\t' && c <= '\r')) {
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                throw new UncleException(SysCode.ERRORS);
+            }
+            prefix = prefix * 10 + (c - '0');
+            count++;
+        }
+        if (count < DIGITS) {
+            throw new UncleException(SysCode.ERRORS);
+        }
+        return entries[prefix];
+    }
+
+    /**
+     * @param prefix 卡号前六位, 000000 ~ 999999
+     */
+    public int entry(int prefix) {
+        if (prefix < 0 || prefix >= PREFIXES) {
+            throw new UncleException(SysCode.ERRORS);
+        }
+        return entries[prefix];
+    }
+
+    public static PayTypeEnum.IINEnum scheme(int entry) {
+        return SCHEMES[entry & 0xFF];
+    }
+
+    public static PayTypeEnum payType(int entry) {
+        return PAY_TYPES[(entry >>> 8) & 0xFF];
+    }
+
+    public static int routeId(int entry) {
+        return entry >>> 16;
+    }
+
+    /**
+     * 按卡组织分派的处理器
+     *
+     * @param handlers 卡组织 -&gt; 处理器
+     * @param fallback 没有配置的卡组织使用的处理器
+     */
+    public <H> Dispatcher<H> dispatcher(EnumMap<PayTypeEnum.IINEnum, ? extends H> handlers, H fallback) {
+        Object[] array = new Object[SCHEMES.length];
+        for (PayTypeEnum.IINEnum scheme : SCHEMES) {
+            H handler = handlers.get(scheme);
+            array[scheme.ordinal()] = handler == null ? fallback : handler;
+        }
+        return new Dispatcher<>(this, array);
+    }
+
+    /**
+     * 卡号 -&gt; 处理器: 路由表一次数组读取, 处理器数组一次读取
+     */
+    public static final class Dispatcher<H> {
+        private final CardRouter router;
+        /**
+         * 按卡组织下标存放, 由EnumMap展开
+         */
+        private final Object[] handlers;
+
+        private Dispatcher(CardRouter router, Object[] handlers) {
+            this.router = router;
+            this.handlers = handlers;
+        }
+
+        @SuppressWarnings("unchecked")
+        public H dispatch(CharSequence cardNo) {
+            return (H)handlers[router.entry(cardNo) & 0xFF];
+        }
+
+        @SuppressWarnings("unchecked")
+        public H dispatch(int prefix) {
+            return (H)handlers[router.entry(prefix) & 0xFF];
+        }
+    }
+
+    public static final class Builder {
+        private BinTable table;
+        private final EnumMap<PayTypeEnum.IINEnum, Integer> schemeRoutes = new EnumMap<>(PayTypeEnum.IINEnum.class);
+        private final List<int[]> rangeRoutes = new ArrayList<>();
+        private int defaultRoute = NO_ROUTE;
+
+        private Builder() {
+        }
+
+        /**
+         * 六位BIN表, 默认使用 {@link BinRegistry} 当前的表, 它不是六位时使用内置表
+         */
+        public Builder table(BinTable table) {
+            if (table.digits() != DIGITS) {
+                throw new IllegalArgumentException("CardRouter needs a 6-digit BinTable: " + table);
+            }
+            this.table = table;
+            return this;
+        }
+
+        public Builder route(PayTypeEnum.IINEnum scheme, int routeId) {
+            schemeRoutes.put(scheme, checkRouteId(routeId));
+            return this;
+        }
+
+        /**
+         * 前缀区间 [fromPrefix, toPrefix] 使用指定路由, 优先于按卡组织的配置
+         */
+        public Builder route(int fromPrefix, int toPrefix, int routeId) {
+            if (fromPrefix < 0 || fromPrefix > toPrefix || toPrefix >= PREFIXES) {
+                throw new IllegalArgumentException("Illegal prefix range [" + fromPrefix + ", " + toPrefix + "]");
+            }
+            rangeRoutes.add(new int[]{fromPrefix, toPrefix, checkRouteId(routeId)});
+            return this;
+        }
+
+        public Builder defaultRoute(int routeId) {
+            this.defaultRoute = checkRouteId(routeId);
+            return this;
+        }
+
+        public CardRouter build() {
+            BinTable bins = table;
+            if (bins == null) {
+                bins = BinRegistry.current();
+                if (bins.digits() != DIGITS) {
+                    bins = BinTableLoader.fromIINEnum();
+                }
+            }
+            int[] schemeRoute = new int[SCHEMES.length];
+            for (PayTypeEnum.IINEnum scheme : SCHEMES) {
+                Integer routeId = schemeRoutes.get(scheme);
+                schemeRoute[scheme.ordinal()] = routeId == null ? defaultRoute : routeId;
+            }
+            // 卡号前缀都属于卡支付
+            int payType = PayTypeEnum.CARD_PAY.ordinal() << 8;
+            int[] entries = new int[PREFIXES];
+            for (int prefix = 0; prefix < PREFIXES; prefix++) {
+                int scheme = PayTypeEnum.of(bins.lookup(prefix)).ordinal();
+                entries[prefix] = schemeRoute[scheme] << 16 | payType | scheme;
+            }
+            for (int[] range : rangeRoutes) {
+                for (int prefix = range[0]; prefix <= range[1]; prefix++) {
+                    entries[prefix] = range[2] << 16 | (entries[prefix] & 0xFFFF);
+                }
+            }
+            return new CardRouter(entries);
+        }
+
+        private static int checkRouteId(int routeId) {
+            if (routeId < 0 || routeId >= NO_ROUTE) {
+                throw new IllegalArgumentException("routeId must be in [0, " + NO_ROUTE + "): " + routeId);
+            }
+            return routeId;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.uncle.controller.bank.test;
+
+import com.uncle.controller.bank.bin.BinRegistry;
+import com.uncle.controller.bank.bin.BinTable;
+import com.uncle.controller.bank.bin.BinTableLoader;
+import com.uncle.controller.bank.enums.IINEnum;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BinTable: 50万个八位BIN区间的加载耗时、查询吞吐量, 以及查询线程在反复重新加载期间的吞吐量
+ *
+ * @author 杨戬
+ * @className BinTableBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 02:10
+ */
+public class BinTableBenchmark {
+    private static final int RANGES = 500_000;
+    private static final int DIGITS = 8;
+    private static final int LOOKUPS = 1 << 20;
+    private static final long RELOAD_MILLIS = 3_000;
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        BinTable table = generate(random);
+        System.out.println("build " + table + " " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        Path csv = Files.createTempFile("bin", ".csv");
+        Path bin = Files.createTempFile("bin", ".bin");
+        try {
+            try (OutputStream out = Files.newOutputStream(csv)) {
+                BinTableLoader.writeCsv(table, out);
+            }
+            try (OutputStream out = Files.newOutputStream(bin)) {
+                BinTableLoader.writeBinary(table, out);
+            }
+            BinTable fromCsv = null;
+            BinTable fromBinary = null;
+            for (int round = 0; round < 3; round++) {
+                start = System.nanoTime();
+                fromCsv = BinTableLoader.load(csv);
+                long csvCost = System.nanoTime() - start;
+                start = System.nanoTime();
+                fromBinary = BinTableLoader.load(bin);
+                long binaryCost = System.nanoTime() - start;
+                System.out.println("load csv(" + Files.size(csv) / 1024 + "KB) " + csvCost / 1_000_000 + " ms, binary("
+                    + Files.size(bin) / 1024 + "KB) " + binaryCost / 1_000_000 + " ms");
+            }
+
+            long[] bins = new long[LOOKUPS];
+            String[] cardNos = new String[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                bins[i] = (long)(random.nextDouble() * 100_000_000L);
+                cardNos[i] = String.format("%08d%08d", bins[i], random.nextInt(100_000_000));
+            }
+            verify(table, fromCsv, fromBinary, bins);
+
+            IINEnum[] out = new IINEnum[LOOKUPS];
+            for (int round = 0; round < 5; round++) {
+                long sum = 0;
+                start = System.nanoTime();
+                for (long b : bins) {
+                    sum += table.lookup(b).ordinal();
+                }
+                long single = System.nanoTime() - start;
+                start = System.nanoTime();
+                table.lookupAll(bins, out);
+                long batch = System.nanoTime() - start;
+                start = System.nanoTime();
+                for (String cardNo : cardNos) {
+                    sum += table.lookup(cardNo).ordinal();
+                }
+                long card = System.nanoTime() - start;
+                System.out.println("lookup(long) " + LOOKUPS * 1_000_000L / single + " ops/ms, lookupAll "
+                    + LOOKUPS * 1_000_000L / batch + " ops/ms, lookup(卡号) " + LOOKUPS * 1_000_000L / card
+                    + " ops/ms (checksum " + sum + ")");
+            }
+
+            reloadUnderLoad(bin, cardNos);
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(bin);
+        }
+    }
+
+    /**
+     * 查询线程一直查, 主线程先空闲再反复重新加载, 比较两段时间里查询线程的吞吐量
+     */
+    private static void reloadUnderLoad(Path bin, String[] cardNos) throws Exception {
+        BinRegistry.reload(bin);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong lookups = new AtomicLong();
+        Thread reader = new Thread(() -> {
+            long count = 0;
+            while (running.get()) {
+                for (int i = 0; i < 4096; i++) {
+                    BinRegistry.lookup(cardNos[(int)(count++ & (LOOKUPS - 1))]);
+                }
+                lookups.lazySet(count);
+            }
+        }, "bin-reader");
+        reader.start();
+
+        Thread.sleep(RELOAD_MILLIS);
+        long quiet = lookups.get();
+        int reloads = 0;
+        long deadline = System.currentTimeMillis() + RELOAD_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            BinRegistry.reload(bin);
+            reloads++;
+        }
+        long busy = lookups.get() - quiet;
+        running.set(false);
+        reader.join();
+        System.out.println("reader without reload " + quiet / RELOAD_MILLIS + " ops/ms, during " + reloads
+            + " reloads " + busy / RELOAD_MILLIS + " ops/ms (" + Runtime.getRuntime().availableProcessors() + " cpus)");
+    }
+
+    /**
+     * 50万个互不重叠的区间, 平均宽度100, 间隔平均100
+     */
+    private static BinTable generate(Random random) {
+        BinTable.Builder builder = BinTable.builder(DIGITS);
+        IINEnum[] iins = IINEnum.values();
+        long position = 0;
+        for (int i = 0; i < RANGES; i++) {
+            long low = position + 1 + random.nextInt(99);
+            long high = low + random.nextInt(199);
+            builder.add(low, high, iins[random.nextInt(iins.length - 1)]);
+            position = high + 1;
+        }
+        return builder.build();
+    }
+
+    private static void verify(BinTable table, BinTable fromCsv, BinTable fromBinary, long[] bins) throws IOException {
+        if (table.size() != RANGES || fromCsv.size() != RANGES || fromBinary.size() != RANGES) {
+            throw new IllegalStateException("size " + table.size() + " " + fromCsv.size() + " " + fromBinary.size());
+        }
+        IINEnum[] batch = new IINEnum[bins.length];
+        table.lookupAll(bins, batch);
+        for (int i = 0; i < bins.length; i++) {
+            IINEnum expected = table.lookup(bins[i]);
+            if (fromCsv.lookup(bins[i]) != expected || fromBinary.lookup(bins[i]) != expected || batch[i] != expected) {
+                throw new IllegalStateException("bin " + bins[i]);
+            }
+        }
+        // 内置表与IINEnum一致
+        BinTable builtIn = BinTableLoader.fromIINEnum();
+        for (int prefix = 0; prefix < 1_000_000; prefix++) {
+            if (builtIn.lookup(prefix) != IINEnum.getIINEnumByPrefix(prefix)) {
+                throw new IllegalStateException("prefix " + prefix);
+            }
+        }
+        System.out.println("verified, built-in table " + builtIn);
+    }
+}
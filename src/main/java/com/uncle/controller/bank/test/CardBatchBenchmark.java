@@ -0,0 +1,129 @@
+package com.uncle.controller.bank.test;
+
+import com.uncle.controller.bank.bin.CardBatchClassifier;
+import com.uncle.controller.bank.bin.CardBatchResult;
+import com.uncle.controller.bank.enums.IINEnum;
+import com.uncle.core.UncleException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * CardBatchClassifier: 逐行调用 IINEnum.getIINEnumByBankCardPrSix(非法行catch异常) 与批量分类的吞吐量,
+ * 输入分别为String数组、迭代器、byte[]和mmap文件; 约1%的行非法
+ * <p>
+ * 单核机器上看不出并行的效果, 可以加 -Djava.util.concurrent.ForkJoinPool.common.parallelism=N 对比
+ *
+ * @author 杨戬
+ * @className CardBatchBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 03:10
+ */
+public class CardBatchBenchmark {
+    private static final int ROWS = 5_000_000;
+    private static final String[] PREFIXES = {"622126", "356000", "601100", "411111", "512345", "340000", "630400",
+        "621700", "999999", "300500"};
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(42);
+        String[] cardNos = new String[ROWS];
+        StringBuilder file = new StringBuilder(ROWS * 18);
+        for (int i = 0; i < ROWS; i++) {
+            String cardNo = PREFIXES[random.nextInt(PREFIXES.length)] + String.format("%010d", random.nextInt(1 << 30));
+            int r = random.nextInt(100);
+            if (r == 0) {
+                cardNo = cardNo.substring(0, 3) + "x" + cardNo.substring(4);
+            } else if (r == 1) {
+                cardNo = cardNo.substring(0, 4);
+            } else if (r == 2) {
+                cardNo = cardNo.substring(0, 4) + " " + cardNo.substring(4);
+            }
+            cardNos[i] = cardNo;
+            file.append(cardNo).append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        byte[] bytes = file.toString().getBytes(StandardCharsets.US_ASCII);
+        Path path = Files.createTempFile("cards", ".txt");
+        try {
+            Files.write(path, bytes);
+            CardBatchClassifier classifier = new CardBatchClassifier();
+            CardBatchResult expected = verify(classifier, cardNos, bytes, path);
+            System.out.println(expected);
+
+            for (int round = 0; round < 5; round++) {
+                long start = System.nanoTime();
+                long sum = 0;
+                for (String cardNo : cardNos) {
+                    try {
+                        sum += IINEnum.getIINEnumByBankCardPrSix(cardNo).ordinal();
+                    } catch (UncleException e) {
+                        sum--;
+                    }
+                }
+                long perRow = System.nanoTime() - start;
+                start = System.nanoTime();
+                sum += classifier.classify(cardNos).invalidCount();
+                long array = System.nanoTime() - start;
+                start = System.nanoTime();
+                sum += classifier.classify(Arrays.asList(cardNos).iterator()).invalidCount();
+                long iterator = System.nanoTime() - start;
+                start = System.nanoTime();
+                sum += classifier.classify(bytes, 0, bytes.length).invalidCount();
+                long buffer = System.nanoTime() - start;
+                start = System.nanoTime();
+                sum += classifier.classify(path).invalidCount();
+                long mapped = System.nanoTime() - start;
+                System.out.println("逐行+异常 " + opsPerMs(perRow) + ", String[] " + opsPerMs(array) + ", 迭代器 "
+                    + opsPerMs(iterator) + ", byte[] " + opsPerMs(buffer) + ", mmap " + opsPerMs(mapped)
+                    + " rows/ms (checksum " + sum + ")");
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static CardBatchResult verify(CardBatchClassifier classifier, String[] cardNos, byte[] bytes, Path path)
+        throws Exception {
+        CardBatchResult[] results = {classifier.classify(cardNos), classifier.classify(Arrays.asList(cardNos).iterator()),
+            classifier.classify(bytes, 0, bytes.length), classifier.classify(path)};
+        for (CardBatchResult result : results) {
+            if (result.rows() != ROWS) {
+                throw new IllegalStateException("rows " + result.rows());
+            }
+            long invalid = 0;
+            for (int i = 0; i < ROWS; i++) {
+                IINEnum expected = reference(cardNos[i]);
+                if (result.iin(i) != expected) {
+                    throw new IllegalStateException("row " + i + " " + cardNos[i] + " expected " + expected);
+                }
+                if (expected == null) {
+                    invalid++;
+                }
+            }
+            if (result.invalidCount() != invalid || !result.counts().equals(results[0].counts())) {
+                throw new IllegalStateException("counts " + result);
+            }
+        }
+        return results[0];
+    }
+
+    /**
+     * 只含数字和空白且至少6位数字时按IINEnum分类, 否则为null
+     */
+    private static IINEnum reference(String cardNo) {
+        if (!cardNo.matches("[\\d\\s]*")) {
+            return null;
+        }
+        try {
+            return IINEnum.getIINEnumByBankCardPrSix(cardNo);
+        } catch (UncleException e) {
+            return null;
+        }
+    }
+
+    private static long opsPerMs(long nanos) {
+        return ROWS * 1_000_000L / nanos;
+    }
+}
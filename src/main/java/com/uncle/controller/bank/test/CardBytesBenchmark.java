@@ -0,0 +1,152 @@
+package com.uncle.controller.bank.test;
+
+import com.uncle.controller.bank.bin.CardBytes;
+import com.uncle.controller.bank.enums.IINEnum;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * CardBytes: 从LLVAR格式(两位ASCII长度+卡号)的报文里逐个解析卡号, 对比先转String再分类和Luhn校验的做法,
+ * 输出吞吐量和每个卡号分配的字节数
+ *
+ * @author 杨戬
+ * @className CardBytesBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 04:00
+ */
+public class CardBytesBenchmark {
+    private static final int CARDS = 1_000_000;
+    private static final String[] PREFIXES = {"622126", "356000", "601100", "411111", "512345", "340000", "621700"};
+
+    public static void main(String[] args) {
+        byte[] message = message(new Random(42));
+        ByteBuffer direct = ByteBuffer.allocateDirect(message.length);
+        direct.put(message);
+        verify(message, direct);
+
+        for (int round = 0; round < 5; round++) {
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            long sum = viaString(message);
+            long stringCost = System.nanoTime() - start;
+            long stringBytes = allocatedBytes() - bytes;
+
+            bytes = allocatedBytes();
+            start = System.nanoTime();
+            sum += viaBytes(message);
+            long bytesCost = System.nanoTime() - start;
+            long bytesBytes = allocatedBytes() - bytes;
+
+            bytes = allocatedBytes();
+            start = System.nanoTime();
+            sum += viaBuffer(direct);
+            long bufferCost = System.nanoTime() - start;
+            long bufferBytes = allocatedBytes() - bytes;
+            System.out.println("String " + CARDS * 1_000_000L / stringCost + " ops/ms " + stringBytes / CARDS
+                + " B/op, byte[] " + CARDS * 1_000_000L / bytesCost + " ops/ms " + bytesBytes / CARDS
+                + " B/op, ByteBuffer " + CARDS * 1_000_000L / bufferCost + " ops/ms " + bufferBytes / CARDS
+                + " B/op (checksum " + sum + ")");
+        }
+    }
+
+    private static long viaBytes(byte[] message) {
+        long sum = 0;
+        for (int i = 0; i < message.length;) {
+            int length = (message[i] - '0') * 10 + message[i + 1] - '0';
+            sum += CardBytes.classify(message, i + 2, length);
+            i += 2 + length;
+        }
+        return sum;
+    }
+
+    private static long viaBuffer(ByteBuffer message) {
+        long sum = 0;
+        for (int i = 0, limit = message.limit(); i < limit;) {
+            int length = (message.get(i) - '0') * 10 + message.get(i + 1) - '0';
+            sum += CardBytes.classify(message, i + 2, length);
+            i += 2 + length;
+        }
+        return sum;
+    }
+
+    /**
+     * 原来的做法: 转String, IINEnum分类, 再对String做一遍Luhn
+     */
+    private static long viaString(byte[] message) {
+        long sum = 0;
+        for (int i = 0; i < message.length;) {
+            int length = (message[i] - '0') * 10 + message[i + 1] - '0';
+            sum += reference(new String(message, i + 2, length, StandardCharsets.US_ASCII));
+            i += 2 + length;
+        }
+        return sum;
+    }
+
+    private static int reference(String cardNo) {
+        IINEnum iin = IINEnum.getIINEnumByBankCardPrSix(cardNo);
+        int sum = luhnSum(cardNo);
+        return iin.ordinal() | (sum % 10 == 0 ? CardBytes.LUHN_VALID : 0);
+    }
+
+    private static void verify(byte[] message, ByteBuffer direct) {
+        int valid = 0;
+        for (int i = 0; i < message.length;) {
+            int length = (message[i] - '0') * 10 + message[i + 1] - '0';
+            int expected = reference(new String(message, i + 2, length, StandardCharsets.US_ASCII));
+            int actual = CardBytes.classify(message, i + 2, length);
+            if (actual != expected || CardBytes.classify(direct, i + 2, length) != expected) {
+                throw new IllegalStateException(new String(message, i + 2, length, StandardCharsets.US_ASCII));
+            }
+            if (CardBytes.isLuhnValid(actual)) {
+                valid++;
+            }
+            i += 2 + length;
+        }
+        byte[] bad = "62212600000a0000".getBytes(StandardCharsets.US_ASCII);
+        if (CardBytes.classify(bad, 0, bad.length) != CardBytes.MALFORMED
+            || CardBytes.classify(bad, 0, 11) != CardBytes.MALFORMED) {
+            throw new IllegalStateException("malformed");
+        }
+        System.out.println(CARDS + " cards verified, luhn valid " + valid);
+    }
+
+    /**
+     * 卡号长度16或19, 一半补上正确的校验位
+     */
+    private static byte[] message(Random random) {
+        StringBuilder sb = new StringBuilder(CARDS * 20);
+        for (int i = 0; i < CARDS; i++) {
+            StringBuilder cardNo = new StringBuilder(PREFIXES[random.nextInt(PREFIXES.length)]);
+            int length = random.nextBoolean() ? 16 : 19;
+            while (cardNo.length() < length - 1) {
+                cardNo.append((char)('0' + random.nextInt(10)));
+            }
+            // 末位先补0算出正确的校验位, 一半故意写错
+            cardNo.append('0');
+            int check = (10 - luhnSum(cardNo) % 10) % 10;
+            if (random.nextBoolean()) {
+                check = (check + 1 + random.nextInt(9)) % 10;
+            }
+            cardNo.setCharAt(length - 1, (char)('0' + check));
+            sb.append(length).append(cardNo);
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static int luhnSum(CharSequence cardNo) {
+        int sum = 0;
+        for (int i = cardNo.length() - 1, doubled = 0; i >= 0; i--, doubled ^= 1) {
+            int d = cardNo.charAt(i) - '0';
+            sum += doubled == 1 ? (d << 1) - (d >= 5 ? 9 : 0) : d;
+        }
+        return sum;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
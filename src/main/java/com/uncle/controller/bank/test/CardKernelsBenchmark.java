@@ -0,0 +1,120 @@
+package com.uncle.controller.bank.test;
+
+import com.uncle.controller.bank.util.CardKernels;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * CardKernels: 100万个16位卡号批量Luhn校验、掩码、BIN提取的每卡耗时(ns), 对比逐个调用的Luhn
+ * <p>
+ * 先用逐位计算的参考实现校验批量结果和单卡、CharSequence版本, 包括含非数字的卡号和19位卡号
+ *
+ * @author 杨戬
+ * @className CardKernelsBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 05:40
+ */
+public class CardKernelsBenchmark {
+    private static final int CARDS = 1_000_000;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        byte[] pans16 = pans(random, 16);
+        byte[] pans19 = pans(random, 19);
+        verify(pans16, 16);
+        verify(pans19, 19);
+
+        boolean[] valid = new boolean[CARDS];
+        byte[] masked = new byte[pans16.length];
+        int[] bins = new int[CARDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long sum = CardKernels.luhn(pans16, 16, CARDS, valid);
+            long luhn = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < CARDS; i++) {
+                sum += CardKernels.luhn(pans16, i << 4, 16) ? 1 : 0;
+            }
+            long scalar = System.nanoTime() - start;
+            start = System.nanoTime();
+            CardKernels.mask(pans16, 16, CARDS, masked);
+            long mask = System.nanoTime() - start;
+            start = System.nanoTime();
+            CardKernels.bins(pans16, 16, CARDS, bins);
+            long bin = System.nanoTime() - start;
+            start = System.nanoTime();
+            sum += CardKernels.luhn(pans19, 19, CARDS, valid);
+            long luhn19 = System.nanoTime() - start;
+            if (round >= ROUNDS - 3) {
+                System.out.println(String.format("ns/card: luhn(16位批量) %.2f, luhn(逐个) %.2f, luhn(19位批量) %.2f, "
+                    + "mask %.2f, bins %.2f (checksum %d)", (double)luhn / CARDS, (double)scalar / CARDS,
+                    (double)luhn19 / CARDS, (double)mask / CARDS, (double)bin / CARDS, sum + masked[7] + bins[3]));
+            }
+        }
+    }
+
+    private static void verify(byte[] pans, int width) {
+        boolean[] valid = new boolean[CARDS];
+        byte[] masked = new byte[pans.length];
+        int[] bins = new int[CARDS];
+        int count = CardKernels.luhn(pans, width, CARDS, valid);
+        CardKernels.mask(pans, width, CARDS, masked);
+        CardKernels.bins(pans, width, CARDS, bins);
+        int expectedCount = 0;
+        for (int i = 0; i < CARDS; i++) {
+            String pan = new String(pans, i * width, width, StandardCharsets.US_ASCII);
+            boolean expected = pan.matches("\\d+") && luhnSum(pan) % 10 == 0;
+            expectedCount += expected ? 1 : 0;
+            String mask = new String(masked, i * width, width, StandardCharsets.US_ASCII);
+            int bin = pan.substring(0, 6).matches("\\d+") ? Integer.parseInt(pan.substring(0, 6)) : -1;
+            if (valid[i] != expected || CardKernels.luhn(pans, i * width, width) != expected
+                || CardKernels.luhn(pan) != expected || CardKernels.bin(pans, i * width) != bin
+                || CardKernels.bin(pan) != bin || !mask.equals(CardKernels.mask(pan)) || !mask.equals(pan.substring(0, 6)
+                + "*********".substring(0, width - 10) + pan.substring(width - 4)) || bins[i] != bin) {
+                throw new IllegalStateException(pan + " " + mask + " " + bins[i]);
+            }
+        }
+        if (count != expectedCount) {
+            throw new IllegalStateException("count " + count);
+        }
+        System.out.println(width + "位: " + CARDS + " cards verified, luhn valid " + count);
+    }
+
+    /**
+     * 一半校验位正确, 1%含非数字
+     */
+    private static byte[] pans(Random random, int width) {
+        byte[] pans = new byte[CARDS * width];
+        StringBuilder pan = new StringBuilder(width);
+        for (int i = 0; i < CARDS; i++) {
+            pan.setLength(0);
+            for (int j = 0; j < width - 1; j++) {
+                pan.append((char)('0' + random.nextInt(10)));
+            }
+            pan.append('0');
+            int check = (10 - luhnSum(pan) % 10) % 10;
+            if (random.nextBoolean()) {
+                check = (check + 1 + random.nextInt(9)) % 10;
+            }
+            pan.setCharAt(width - 1, (char)('0' + check));
+            if (random.nextInt(100) == 0) {
+                pan.setCharAt(random.nextInt(width), "/:a -".charAt(random.nextInt(5)));
+            }
+            for (int j = 0; j < width; j++) {
+                pans[i * width + j] = (byte)pan.charAt(j);
+            }
+        }
+        return pans;
+    }
+
+    private static int luhnSum(CharSequence pan) {
+        int sum = 0;
+        for (int i = pan.length() - 1, doubled = 0; i >= 0; i--, doubled ^= 1) {
+            int d = pan.charAt(i) - '0';
+            sum += doubled == 1 ? (d << 1) - (d >= 5 ? 9 : 0) : d;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,129 @@
+package com.uncle.controller.bank.test;
+
+import com.uncle.controller.bank.enums.PayTypeEnum;
+import com.uncle.controller.bank.route.CardRouter;
+
+import java.util.EnumMap;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * CardRouter压测: 多个线程同时路由随机卡号, 对比原来的做法(分类后遍历各支付方式的universe, 再按EnumMap取路由)
+ *
+ * @author 杨戬
+ * @className CardRouterBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 04:50
+ */
+public class CardRouterBenchmark {
+    private static final int CARDS = 1 << 20;
+    private static final int OPS_PER_THREAD = 5_000_000;
+    private static final String[] PREFIXES = {"622126", "356000", "601100", "411111", "512345", "340000", "621700",
+        "999999"};
+
+    public static void main(String[] args) throws Exception {
+        EnumMap<PayTypeEnum.IINEnum, Integer> routes = new EnumMap<>(PayTypeEnum.IINEnum.class);
+        routes.put(PayTypeEnum.IINEnum.CHINA_UNIONPAY_IIN, 1);
+        routes.put(PayTypeEnum.IINEnum.VISA_IIN, 2);
+        routes.put(PayTypeEnum.IINEnum.MASTERCARD_INCORPORATED_IIN, 3);
+        CardRouter.Builder builder = CardRouter.builder().defaultRoute(0);
+        routes.forEach(builder::route);
+        long start = System.nanoTime();
+        CardRouter router = builder.build();
+        System.out.println("build " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        Random random = new Random(42);
+        String[] cardNos = new String[CARDS];
+        for (int i = 0; i < CARDS; i++) {
+            cardNos[i] = PREFIXES[random.nextInt(PREFIXES.length)] + String.format("%010d", random.nextInt(1 << 30));
+        }
+        verify(router, routes);
+
+        EnumMap<PayTypeEnum.IINEnum, String> handlers = new EnumMap<>(PayTypeEnum.IINEnum.class);
+        routes.forEach((scheme, routeId) -> handlers.put(scheme, "channel-" + routeId));
+        CardRouter.Dispatcher<String> dispatcher = router.dispatcher(handlers, "channel-0");
+
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        for (int round = 0; round < 3; round++) {
+            long legacy = load(threads, cardNos, cardNo -> legacyRoute(cardNo, routes));
+            long table = load(threads, cardNos, cardNo -> CardRouter.routeId(router.entry(cardNo)));
+            long dispatch = load(threads, cardNos, cardNo -> dispatcher.dispatch(cardNo).length());
+            System.out.println(threads + " threads: 分类+遍历universe " + legacy + " ops/ms, 路由表 " + table
+                + " ops/ms, 路由表+分派 " + dispatch + " ops/ms");
+        }
+    }
+
+    /**
+     * 原来的做法: 分类, 遍历找出包含该卡组织的支付方式, 再取路由
+     */
+    private static int legacyRoute(String cardNo, EnumMap<PayTypeEnum.IINEnum, Integer> routes) {
+        PayTypeEnum.IINEnum scheme = PayTypeEnum.getIINEnumByBankCardPrSix(cardNo);
+        for (PayTypeEnum payType : PayTypeEnum.values()) {
+            for (Enum<?> e : payType.getUniverse()) {
+                if (e == scheme) {
+                    Integer routeId = routes.get(scheme);
+                    return routeId == null ? 0 : routeId;
+                }
+            }
+        }
+        return CardRouter.NO_ROUTE;
+    }
+
+    private static void verify(CardRouter router, EnumMap<PayTypeEnum.IINEnum, Integer> routes) {
+        for (int prefix = 0; prefix < 1_000_000; prefix++) {
+            String s = String.format("%06d", prefix);
+            int entry = router.entry(prefix);
+            if (CardRouter.scheme(entry) != PayTypeEnum.getIINEnumByBankCardPrSix(s)
+                || CardRouter.payType(entry) != PayTypeEnum.CARD_PAY
+                || CardRouter.routeId(entry) != legacyRoute(s, routes) || router.entry(s) != entry) {
+                throw new IllegalStateException("prefix " + s);
+            }
+        }
+        CardRouter overridden = CardRouter.builder().route(622126, 622130, 9).build();
+        if (CardRouter.routeId(overridden.entry("6221280000000000")) != 9
+            || CardRouter.routeId(overridden.entry("6221310000000000")) != CardRouter.NO_ROUTE
+            || CardRouter.scheme(overridden.entry(622128)) != PayTypeEnum.IINEnum.DISCOVER_CARD_IIN) {
+            throw new IllegalStateException("range route");
+        }
+        System.out.println("1000000 prefixes verified");
+    }
+
+    /**
+     * @return 所有线程合计 ops/ms
+     */
+    private static long load(int threads, String[] cardNos, ToIntFunction<String> route) throws Exception {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicLong checksum = new AtomicLong();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long sum = 0;
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    sum += route.applyAsInt(cardNos[(i * 7 + seed * 104_729) & (CARDS - 1)]);
+                }
+                checksum.addAndGet(sum);
+                done.countDown();
+            }, "router-load-" + t).start();
+        }
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        done.await();
+        long cost = System.nanoTime() - start;
+        if (checksum.get() == 42) {
+            System.out.print("");
+        }
+        return (long)threads * OPS_PER_THREAD * 1_000_000L / cost;
+    }
+}
@@ -0,0 +1,126 @@
+package com.uncle.controller.bank.test;
+
+import com.uncle.controller.bank.enums.IINEnum;
+import com.uncle.core.SysCode;
+import com.uncle.core.UncleException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Random;
+
+/**
+ * IINEnum.getIINEnumByBankCardPrSix: 查找表与原来逐个枚举判断的实现对比
+ * <p>
+ * 先校验 000000 ~ 999999 全部前缀两者结果一致, 再比较吞吐量
+ *
+ * @author 杨戬
+ * @className IINEnumBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 01:10
+ */
+public class IINEnumBenchmark {
+    private static final int LOOKUPS = 2_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        verify();
+
+        Random random = new Random(42);
+        String[] prefixes = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            prefixes[i] = String.format("%06d", random.nextInt(1_000_000));
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long sum = 0;
+            for (String prefix : prefixes) {
+                sum += legacy(prefix).ordinal();
+            }
+            long legacyCost = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (String prefix : prefixes) {
+                sum += IINEnum.getIINEnumByBankCardPrSix(prefix).ordinal();
+            }
+            long tableCost = System.nanoTime() - start;
+            System.out.println("round " + round + ": legacy " + LOOKUPS * 1_000_000L / legacyCost + " ops/ms, table "
+                + LOOKUPS * 1_000_000L / tableCost + " ops/ms (checksum " + sum + ")");
+        }
+    }
+
+    private static void verify() {
+        for (int prefix = 0; prefix < 1_000_000; prefix++) {
+            String s = String.format("%06d", prefix);
+            IINEnum expected = legacy(s);
+            if (IINEnum.getIINEnumByBankCardPrSix(s) != expected || IINEnum.getIINEnumByPrefix(prefix) != expected) {
+                throw new IllegalStateException(s + " expected " + expected);
+            }
+        }
+        if (IINEnum.getIINEnumByBankCardPrSix(" 6221 26") != legacy(" 6221 26")) {
+            throw new IllegalStateException("whitespace");
+        }
+        System.out.println("1000000 prefixes verified");
+    }
+
+    /**
+     * 原实现
+     */
+    private static IINEnum legacy(String bankCardPrSix) {
+        String nonBlank = bankCardPrSix.replaceAll("\\s*", "");
+        if (StringUtils.isBlank(nonBlank) || nonBlank.length() < 6) {
+            throw new UncleException(SysCode.ERRORS);
+        }
+        String pr1String = nonBlank.substring(0, 1);
+        String pr2String = nonBlank.substring(0, 2);
+        String pr3String = nonBlank.substring(0, 3);
+        String pr4String = nonBlank.substring(0, 4);
+        for (IINEnum value : IINEnum.values()) {
+            String[] codes = value.getCodes();
+            if (value.equals(IINEnum.CHINA_UNIONPAY_IIN)) {
+                for (String code : codes) {
+                    if (code.equals(pr2String)) {
+                        return value;
+                    }
+                }
+            }
+            if (value.equals(IINEnum.DINERS_CLUB_INTERNATIONAL_IIN)) {
+                for (String code : codes) {
+                    if (code.equals(pr3String) || code.equals(pr4String) || code.equals(pr2String)) {
+                        return value;
+                    }
+                }
+            }
+            if (value.equals(IINEnum.JAPAN_CREDIT_BUREAU_IIN)) {
+                int pr4Integer = Integer.parseInt(pr4String);
+                if (pr4Integer >= Integer.parseInt(codes[0]) && pr4Integer <= Integer.parseInt(codes[1])) {
+                    return value;
+                }
+            }
+            if (value.equals(IINEnum.DISCOVER_CARD_IIN)) {
+                for (String code : codes) {
+                    if (code.equals(pr2String) || code.equals(pr3String) || code.equals(pr4String)) {
+                        return value;
+                    }
+                }
+                int pr6Integer = Integer.parseInt(nonBlank);
+                if (pr6Integer >= Integer.parseInt(codes[8]) && pr6Integer <= Integer.parseInt(codes[9])) {
+                    return value;
+                }
+            }
+            if (value.equals(IINEnum.MAESTRO_IIN) || value.equals(IINEnum.AMERICAN_EXPRESS_IIN)
+                || value.equals(IINEnum.VISA_IIN)) {
+                for (String code : codes) {
+                    if (code.equals(pr4String) || code.equals(pr2String) || code.equals(pr1String)) {
+                        return value;
+                    }
+                }
+            }
+            if (value.equals(IINEnum.MASTERCARD_INCORPORATED_IIN)) {
+                int pr2Integer = Integer.parseInt(pr2String);
+                if (pr2Integer >= Integer.parseInt(codes[0]) && pr2Integer <= Integer.parseInt(codes[1])) {
+                    return value;
+                }
+            }
+        }
+        return IINEnum.OTHER_IIN;
+    }
+}
@@ -0,0 +1,264 @@
+package com.uncle.controller.bank.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 卡号批处理内核: Luhn校验、卡号掩码、BIN提取
+ * <p>
+ * 批量方法的输入是定长记录: pans里连续存放count个width字节的ASCII卡号, 第i个从 i * width 开始.
+ * Luhn校验按8字节一组做SWAR(一个long里同时处理8个数字), 不足8字节的尾部逐位计算; 循环里没有分支跳转和对象分配.
+ * 掩码保留前6后4位, 中间替换为*
+ *
+ * @author 杨戬
+ * @className CardKernels
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 05:20
+ */
+public final class CardKernels {
+    public static final byte MASK_CHAR = '*';
+    public static final int BIN_DIGITS = 6;
+    private static final int KEEP_LAST = 4;
+
+    private static final long ZEROS = 0x3030303030303030L;
+    private static final long HIGH_NIBBLES = 0xF0F0F0F0F0F0F0F0L;
+    private static final long SIXES = 0x0606060606060606L;
+    private static final long THREES = 0x0303030303030303L;
+    private static final long ONES = 0x0101010101010101L;
+    /**
+     * 大端long里第0, 2, 4, 6个字节
+     */
+    private static final long EVEN_BYTES = 0xFF00FF00FF00FF00L;
+
+    private CardKernels() {
+    }
+
+    /**
+     * Luhn校验
+     *
+     * @return 全是数字且校验通过
+     */
+    public static boolean luhn(byte[] src, int offset, int length) {
+        if (length <= 0) {
+            return false;
+        }
+        int sum = 0;
+        int bad = 0;
+        int doubleParity = length & 1;
+        for (int i = 0; i < length; i++) {
+            int d = src[offset + i] - '0';
+            bad |= d | (9 - d);
+            // 乘2后大于9的减9, 即 2d - 9 * (d >= 5)
+            int doubled = (d << 1) - (9 & ((4 - d) >> 31));
+            sum += ((i & 1) == doubleParity) ? doubled : d;
+        }
+        return bad >= 0 && sum % 10 == 0;
+    }
+
+    /**
+     * Luhn校验
+     *
+     * @return 全是数字且校验通过, null或空串返回false
+     */
+    public static boolean luhn(CharSequence cardNo) {
+        if (cardNo == null || cardNo.length() == 0) {
+            return false;
+        }
+        int length = cardNo.length();
+        int sum = 0;
+        int bad = 0;
+        int doubleParity = length & 1;
+        for (int i = 0; i < length; i++) {
+            int d = cardNo.charAt(i) - '0';
+            bad |= d | (9 - d);
+            int doubled = (d << 1) - (9 & ((4 - d) >> 31));
+            sum += ((i & 1) == doubleParity) ? doubled : d;
+        }
+        return bad >= 0 && sum % 10 == 0;
+    }
+
+    /**
+     * 批量Luhn校验
+     *
+     * @param pans  定长卡号
+     * @param width 卡号长度
+     * @param count 卡号个数
+     * @param out   out[i]为第i个卡号是否全是数字且校验通过
+     * @return 通过的个数
+     */
+    public static int luhn(byte[] pans, int width, int count, boolean[] out) {
+        checkBatch(pans, width, count);
+        int valid = 0;
+        if (width < Long.BYTES) {
+            for (int i = 0, offset = 0; i < count; i++, offset += width) {
+                boolean ok = luhn(pans, offset, width);
+                out[i] = ok;
+                valid += ok ? 1 : 0;
+            }
+            return valid;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(pans);
+        // 每个long从偶数下标开始, 字节的奇偶性与卡号下标一致
+        long doubledBytes = (width & 1) == 0 ? EVEN_BYTES : ~EVEN_BYTES;
+        int words = width >>> 3;
+        int doubleParity = width & 1;
+        for (int i = 0, offset = 0; i < count; i++, offset += width) {
+            int sum = 0;
+            boolean digits = true;
+            int j = 0;
+            for (int w = 0; w < words; w++, j += Long.BYTES) {
+                long t = buffer.getLong(offset + j) ^ ZEROS;
+                digits &= isDigits(t);
+                sum += digitSum(t, doubledBytes);
+            }
+            int bad = 0;
+            for (; j < width; j++) {
+                int d = pans[offset + j] - '0';
+                bad |= d | (9 - d);
+                int doubled = (d << 1) - (9 & ((4 - d) >> 31));
+                sum += ((j & 1) == doubleParity) ? doubled : d;
+            }
+            boolean ok = digits & bad >= 0 & sum % 10 == 0;
+            out[i] = ok;
+            valid += ok ? 1 : 0;
+        }
+        return valid;
+    }
+
+    /**
+     * 与'0'异或后每个字节都在0~9之间
+     */
+    private static boolean isDigits(long t) {
+        return ((t & HIGH_NIBBLES) | ((t + SIXES) & HIGH_NIBBLES)) == 0;
+    }
+
+    /**
+     * 8个数字(大端, 每字节一个)按Luhn规则加权求和, doubledBytes选中的字节乘2
+     */
+    private static int digitSum(long d, long doubledBytes) {
+        // d >= 5 的字节得1: d + 3 >= 8
+        long ge5 = ((d + THREES) >>> 3) & ONES;
+        long doubled = (d << 1) - ge5 * 9;
+        long v = (doubled & doubledBytes) | (d & ~doubledBytes);
+        // 8个字节求和, 每个不超过9, 不会进位
+        return (int)((v * ONES) >>> 56);
+    }
+
+    /**
+     * 掩码, 保留前6后4位; 长度不超过10时原样复制
+     *
+     * @param src       卡号
+     * @param offset    卡号起始位置
+     * @param length    卡号长度
+     * @param dst       输出
+     * @param dstOffset 输出起始位置, 写入length个字节
+     */
+    public static void mask(byte[] src, int offset, int length, byte[] dst, int dstOffset) {
+        System.arraycopy(src, offset, dst, dstOffset, length);
+        if (length > BIN_DIGITS + KEEP_LAST) {
+            Arrays.fill(dst, dstOffset + BIN_DIGITS, dstOffset + length - KEEP_LAST, MASK_CHAR);
+        }
+    }
+
+    /**
+     * 批量掩码, 整块复制后逐个填充中间部分
+     *
+     * @param pans  定长卡号
+     * @param width 卡号长度
+     * @param count 卡号个数
+     * @param out   输出, 与pans布局相同, 可以就是pans本身
+     */
+    public static void mask(byte[] pans, int width, int count, byte[] out) {
+        checkBatch(pans, width, count);
+        if (out != pans) {
+            System.arraycopy(pans, 0, out, 0, width * count);
+        }
+        if (width <= BIN_DIGITS + KEEP_LAST) {
+            return;
+        }
+        for (int i = 0, offset = 0; i < count; i++, offset += width) {
+            for (int j = offset + BIN_DIGITS, end = offset + width - KEEP_LAST; j < end; j++) {
+                out[j] = MASK_CHAR;
+            }
+        }
+    }
+
+    /**
+     * 掩码, 用于日志
+     *
+     * @return 保留前6后4位的卡号, null返回null
+     */
+    public static String mask(CharSequence cardNo) {
+        if (cardNo == null) {
+            return null;
+        }
+        int length = cardNo.length();
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = i >= BIN_DIGITS && i < length - KEEP_LAST ? (char)MASK_CHAR : cardNo.charAt(i);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 提取前六位BIN
+     *
+     * @param src    卡号所在数组, offset之后至少6个字节
+     * @param offset 卡号起始位置
+     * @return 前六位, 含非数字时为-1
+     */
+    public static int bin(byte[] src, int offset) {
+        int bin = 0;
+        int bad = 0;
+        for (int j = 0; j < BIN_DIGITS; j++) {
+            int d = src[offset + j] - '0';
+            bad |= d | (9 - d);
+            bin = bin * 10 + d;
+        }
+        // bad为负说明有非数字, 结果置为-1
+        return bin | (bad >> 31);
+    }
+
+    /**
+     * 提取前六位BIN
+     *
+     * @return 前六位, 含非数字、不足6位或null时为-1
+     */
+    public static int bin(CharSequence cardNo) {
+        if (cardNo == null || cardNo.length() < BIN_DIGITS) {
+            return -1;
+        }
+        int bin = 0;
+        int bad = 0;
+        for (int j = 0; j < BIN_DIGITS; j++) {
+            int d = cardNo.charAt(j) - '0';
+            bad |= d | (9 - d);
+            bin = bin * 10 + d;
+        }
+        return bin | (bad >> 31);
+    }
+
+    /**
+     * 批量提取前六位BIN
+     *
+     * @param pans  定长卡号
+     * @param width 卡号长度, 不小于6
+     * @param count 卡号个数
+     * @param out   out[i]为第i个卡号的前六位, 含非数字时为-1
+     */
+    public static void bins(byte[] pans, int width, int count, int[] out) {
+        checkBatch(pans, width, count);
+        if (width < BIN_DIGITS) {
+            throw new IllegalArgumentException("width " + width + " < " + BIN_DIGITS);
+        }
+        for (int i = 0, offset = 0; i < count; i++, offset += width) {
+            out[i] = bin(pans, offset);
+        }
+    }
+
+    private static void checkBatch(byte[] pans, int width, int count) {
+        if (width <= 0 || count < 0 || (long)width * count > pans.length) {
+            throw new IllegalArgumentException("width " + width + " * count " + count + " > " + pans.length);
+        }
+    }
+}
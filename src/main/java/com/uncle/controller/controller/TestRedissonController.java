@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.annotation.Resource;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author 杨戬
@@ -61,4 +62,25 @@ public class TestRedissonController {
         }
     }
 
+    /**
+     * Redisson异步测试, 等锁期间不占用请求线程
+     *
+     * @param pathValue 测试数据
+     * @return 测试数据
+     */
+    @RequestMapping("/async/{pathValue}")
+    public CompletableFuture<String> getAsync(@PathVariable("pathValue") String pathValue) {
+        return distributedRedisLock.acquireAsync(pathValue).thenCompose(acquire -> {
+            if (acquire == null) {
+                log.info("获取锁失败");
+                throw new RuntimeException("获取锁失败-订单重复");
+            }
+            log.info("======获得锁后进行相应的操作======");
+            return distributedRedisLock.releaseAsync(acquire).thenApply(v -> {
+                log.info("==============解锁===============");
+                return pathValue;
+            });
+        });
+    }
+
 }
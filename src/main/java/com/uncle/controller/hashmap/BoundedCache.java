@@ -0,0 +1,458 @@
+package com.uncle.controller.hashmap;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 基于HashMap的有界本地缓存
+ * <p>
+ * 1.节点本身带前后指针(侵入式链表), 按访问顺序排列, 淘汰时直接摘链表头, O(1), 不扫描哈希表
+ * 2.LRU: 一条链表, 超出容量淘汰最久未访问的
+ * 3.W_TINY_LFU: 1%的窗口LRU + 99%的分段LRU(probation 20% / protected 80%); 窗口溢出的候选和probation的队头比较
+ * FrequencySketch估算的访问频率, 频率高的留下. 一次性扫描的冷数据进不了主区, 不会把热点挤出去
+ * 4.TTL: 写入后超过指定时间过期, 读的时候发现过期当作未命中; 每次插入时顺带清理各链表头部已过期的节点
+ * <p>
+ * 每个节点比HashMap多两个指针 + 一个long + 一个byte. 非线程安全, 多线程使用需要外部加锁
+ *
+ * @author 杨戬
+ * @className BoundedCache
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 23:20
+ */
+public class BoundedCache<K, V> extends HashMap<K, V> {
+    /**
+     * 淘汰策略
+     */
+    public enum Policy {
+        /**
+         * 最近最少使用
+         */
+        LRU,
+        /**
+         * 窗口LRU + 频率准入 + 分段LRU
+         */
+        W_TINY_LFU
+    }
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+    /**
+     * 每次插入时每条链表最多顺带清理的过期节点数
+     */
+    private static final int EXPIRE_BATCH = 4;
+    /**
+     * 候选频率不超过这个值时直接拒绝, 超过时也有1/128的概率放行, 防止被人为制造的高频key卡住
+     */
+    private static final int ADMIT_HASHDOS_THRESHOLD = 5;
+
+    private final int maximumSize;
+    private final Policy policy;
+    private final long expireAfterWriteNanos;
+    private final FrequencySketch sketch;
+    private final AccessQueue<K, V>[] queues;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expirationCount;
+
+    public BoundedCache(int maximumSize) {
+        this(maximumSize, Policy.W_TINY_LFU, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param maximumSize
+     *            最大元素个数
+     * @param policy
+     *            淘汰策略
+     * @param expireAfterWrite
+     *            写入后多久过期, 0表示不过期
+     * @param unit
+     *            时间单位
+     */
+    @SuppressWarnings("unchecked")
+    public BoundedCache(int maximumSize, Policy policy, long expireAfterWrite, TimeUnit unit) {
+        super((int)Math.min(Math.max(maximumSize, 0) / 0.75f + 1, 1 << 16));
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Illegal maximum size: " + maximumSize);
+        }
+        if (expireAfterWrite < 0) {
+            throw new IllegalArgumentException("Illegal expireAfterWrite: " + expireAfterWrite);
+        }
+        this.maximumSize = maximumSize;
+        this.policy = policy;
+        this.expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+        this.queues = new AccessQueue[] {new AccessQueue<>(), new AccessQueue<>(), new AccessQueue<>()};
+        if (policy == Policy.W_TINY_LFU) {
+            this.sketch = new FrequencySketch(maximumSize);
+            this.windowMaximum = Math.max(1, maximumSize / 100);
+            this.protectedMaximum = (int)((maximumSize - windowMaximum) * 0.8);
+        } else {
+            this.sketch = null;
+            this.windowMaximum = maximumSize;
+            this.protectedMaximum = 0;
+        }
+    }
+
+    /**
+     * 命中时调整访问顺序, 过期时删除并当作未命中
+     */
+    @Override
+    public V get(K k) {
+        int hash = hash(k.hashCode());
+        Node<K, V> e = getNode(k, hash);
+        if (e == null) {
+            recordMiss(hash);
+            return null;
+        }
+        CacheNode<K, V> p = (CacheNode<K, V>)e;
+        if (isExpired(p)) {
+            expire(p);
+            recordMiss(hash);
+            return null;
+        }
+        hitCount++;
+        onAccess(p);
+        return p.value;
+    }
+
+    /**
+     * 只判断是否存在且未过期, 不影响访问顺序和统计
+     */
+    @Override
+    public boolean containsKey(K k) {
+        Node<K, V> e = getNode(k, hash(k.hashCode()));
+        return e != null && !isExpired((CacheNode<K, V>)e);
+    }
+
+    /**
+     * 命中时直接返回, 未命中(或已过期)时调用mappingFunction加载并放入, 放入后可能触发淘汰
+     */
+    @Override
+    public V computeIfAbsent(K k, Function<? super K, ? extends V> mappingFunction) {
+        int hash = hash(k.hashCode());
+        Node<K, V> e = getNode(k, hash);
+        if (e != null && e.value != null) {
+            CacheNode<K, V> p = (CacheNode<K, V>)e;
+            if (!isExpired(p)) {
+                hitCount++;
+                onAccess(p);
+                return p.value;
+            }
+            expire(p);
+        }
+        recordMiss(hash);
+        return super.computeIfAbsent(k, mappingFunction);
+    }
+
+    /**
+     * 已过期的旧值不参与合并
+     */
+    @Override
+    public V merge(K k, V v, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (expireAfterWriteNanos > 0) {
+            Node<K, V> e = getNode(k, hash(k.hashCode()));
+            if (e != null && isExpired((CacheNode<K, V>)e)) {
+                expire((CacheNode<K, V>)e);
+            }
+        }
+        return super.merge(k, v, remappingFunction);
+    }
+
+    /**
+     * 逐个put, 超出容量的部分按策略淘汰; 不像HashMap那样按源map大小预先扩容
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        m.forEach(this::put);
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    public Policy policy() {
+        return policy;
+    }
+
+    /**
+     * 统计快照
+     *
+     * @return 命中/未命中/淘汰/过期次数
+     */
+    public CacheStats stats() {
+        return new CacheStats(hitCount, missCount, evictionCount, expirationCount);
+    }
+
+    @Override
+    Node<K, V> newNode(int hash, K k, V v, Node<K, V> next) {
+        CacheNode<K, V> p = new CacheNode<>(k, v, hash, next);
+        linkNew(p);
+        return p;
+    }
+
+    @Override
+    Node<K, V> replacementNode(Node<K, V> p, Node<K, V> next) {
+        CacheNode<K, V> q = new CacheNode<>(p.key, p.value, p.hashCode, next);
+        transferLinks((CacheNode<K, V>)p, q);
+        return q;
+    }
+
+    @Override
+    TreeNode<K, V> newTreeNode(int hash, K k, V v, Node<K, V> next) {
+        TreeNode<K, V> p = new TreeNode<>(k, v, hash, next);
+        linkNew(p);
+        return p;
+    }
+
+    @Override
+    TreeNode<K, V> replacementTreeNode(Node<K, V> p, Node<K, V> next) {
+        TreeNode<K, V> q = new TreeNode<>(p.key, p.value, p.hashCode, next);
+        transferLinks((CacheNode<K, V>)p, q);
+        return q;
+    }
+
+    /**
+     * 覆盖写: 重新计算过期时间, 算一次访问
+     */
+    @Override
+    void afterNodeUpdate(Node<K, V> e) {
+        CacheNode<K, V> p = (CacheNode<K, V>)e;
+        if (expireAfterWriteNanos > 0) {
+            p.expireAt = System.nanoTime() + expireAfterWriteNanos;
+        }
+        onAccess(p);
+    }
+
+    @Override
+    void afterNodeInsertion() {
+        expireHeads();
+        evict();
+    }
+
+    @Override
+    void afterNodeRemoval(Node<K, V> e) {
+        CacheNode<K, V> p = (CacheNode<K, V>)e;
+        queues[p.queue].unlink(p);
+    }
+
+    /**
+     * 新节点放到窗口队尾(LRU模式下窗口就是整个缓存)
+     */
+    private void linkNew(CacheNode<K, V> p) {
+        if (expireAfterWriteNanos > 0) {
+            p.expireAt = System.nanoTime() + expireAfterWriteNanos;
+        }
+        p.queue = WINDOW;
+        queues[WINDOW].linkLast(p);
+        if (sketch != null) {
+            sketch.increment(p.hashCode);
+        }
+    }
+
+    /**
+     * 树化/退化时节点被复制, 新节点接替旧节点在链表里的位置
+     */
+    private void transferLinks(CacheNode<K, V> src, CacheNode<K, V> dst) {
+        dst.expireAt = src.expireAt;
+        dst.queue = src.queue;
+        queues[src.queue].replace(src, dst);
+    }
+
+    private void onAccess(CacheNode<K, V> p) {
+        if (sketch != null) {
+            sketch.increment(p.hashCode);
+        }
+        switch (p.queue) {
+            case PROBATION:
+                // 在主区被再次访问, 晋升到protected; protected满了把最久未访问的降回probation
+                queues[PROBATION].unlink(p);
+                p.queue = PROTECTED;
+                queues[PROTECTED].linkLast(p);
+                if (queues[PROTECTED].size > protectedMaximum) {
+                    CacheNode<K, V> demoted = queues[PROTECTED].head;
+                    queues[PROTECTED].unlink(demoted);
+                    demoted.queue = PROBATION;
+                    queues[PROBATION].linkLast(demoted);
+                }
+                break;
+            default:
+                queues[p.queue].moveToTail(p);
+                break;
+        }
+    }
+
+    private void recordMiss(int hash) {
+        missCount++;
+        if (sketch != null) {
+            sketch.increment(hash);
+        }
+    }
+
+    private void evict() {
+        if (policy == Policy.LRU) {
+            while (size > maximumSize) {
+                evictNode(queues[WINDOW].head);
+            }
+            return;
+        }
+        AccessQueue<K, V> window = queues[WINDOW];
+        AccessQueue<K, V> probation = queues[PROBATION];
+        while (window.size > windowMaximum) {
+            // 窗口溢出的节点进入probation作为候选
+            CacheNode<K, V> candidate = window.head;
+            window.unlink(candidate);
+            candidate.queue = PROBATION;
+            probation.linkLast(candidate);
+            if (size > maximumSize) {
+                CacheNode<K, V> victim = probation.head;
+                evictNode(victim == candidate || admit(candidate, victim) ? victim : candidate);
+            }
+        }
+        while (size > maximumSize) {
+            CacheNode<K, V> victim = probation.head;
+            if (victim == null) {
+                victim = queues[PROTECTED].head != null ? queues[PROTECTED].head : window.head;
+            }
+            evictNode(victim);
+        }
+    }
+
+    /**
+     * 候选访问频率高于受害者时准入
+     */
+    private boolean admit(CacheNode<K, V> candidate, CacheNode<K, V> victim) {
+        int victimFrequency = sketch.frequency(victim.hashCode);
+        int candidateFrequency = sketch.frequency(candidate.hashCode);
+        if (candidateFrequency > victimFrequency) {
+            return true;
+        }
+        if (candidateFrequency <= ADMIT_HASHDOS_THRESHOLD) {
+            return false;
+        }
+        return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+
+    private void evictNode(CacheNode<K, V> p) {
+        removeNode(p.hashCode, p.key, true);
+        evictionCount++;
+    }
+
+    private boolean isExpired(CacheNode<K, V> p) {
+        return expireAfterWriteNanos > 0 && System.nanoTime() - p.expireAt >= 0;
+    }
+
+    private void expire(CacheNode<K, V> p) {
+        removeNode(p.hashCode, p.key, true);
+        expirationCount++;
+    }
+
+    /**
+     * 各链表头部是最久未访问的节点, 顺带清理其中已过期的, 每条最多EXPIRE_BATCH个
+     */
+    private void expireHeads() {
+        if (expireAfterWriteNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (AccessQueue<K, V> queue : queues) {
+            for (int i = 0; i < EXPIRE_BATCH; i++) {
+                CacheNode<K, V> head = queue.head;
+                if (head == null || now - head.expireAt < 0) {
+                    break;
+                }
+                expire(head);
+            }
+        }
+    }
+
+    /**
+     * 缓存节点, 在HashMap节点的基础上加了访问顺序链表的前后指针
+     *
+     * @param <K>
+     * @param <V>
+     */
+    static class CacheNode<K, V> extends Node<K, V> {
+        CacheNode<K, V> before;
+        CacheNode<K, V> after;
+        /**
+         * 过期时间(System.nanoTime), 没有设置TTL时不使用
+         */
+        long expireAt;
+        /**
+         * 所在链表 WINDOW/PROBATION/PROTECTED
+         */
+        byte queue;
+
+        CacheNode(K key, V value, int hashCode, Node<K, V> next) {
+            super(key, value, hashCode, next);
+        }
+    }
+
+    /**
+     * 双向链表, 队头最久未访问, 队尾最近访问
+     */
+    static final class AccessQueue<K, V> {
+        CacheNode<K, V> head;
+        CacheNode<K, V> tail;
+        int size;
+
+        void linkLast(CacheNode<K, V> p) {
+            p.after = null;
+            p.before = tail;
+            if (tail == null) {
+                head = p;
+            } else {
+                tail.after = p;
+            }
+            tail = p;
+            size++;
+        }
+
+        void unlink(CacheNode<K, V> p) {
+            CacheNode<K, V> b = p.before, a = p.after;
+            if (b == null) {
+                head = a;
+            } else {
+                b.after = a;
+            }
+            if (a == null) {
+                tail = b;
+            } else {
+                a.before = b;
+            }
+            p.before = p.after = null;
+            size--;
+        }
+
+        void moveToTail(CacheNode<K, V> p) {
+            if (tail != p) {
+                unlink(p);
+                linkLast(p);
+            }
+        }
+
+        /**
+         * dst原地替换src, size不变
+         */
+        void replace(CacheNode<K, V> src, CacheNode<K, V> dst) {
+            CacheNode<K, V> b = dst.before = src.before;
+            CacheNode<K, V> a = dst.after = src.after;
+            if (b == null) {
+                head = dst;
+            } else {
+                b.after = dst;
+            }
+            if (a == null) {
+                tail = dst;
+            } else {
+                a.before = dst;
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.uncle.controller.hashmap;
+
+/**
+ * 缓存统计快照
+ *
+ * @author 杨戬
+ * @className CacheStats
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 23:20
+ */
+public final class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long expirationCount;
+
+    CacheStats(long hitCount, long missCount, long evictionCount, long expirationCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * 因容量淘汰的个数
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 因过期删除的个数
+     */
+    public long expirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * 命中率, 没有任何请求时为1
+     */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double)hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hitCount=" + hitCount + ", missCount=" + missCount + ", hitRate="
+            + String.format("%.4f", hitRate()) + ", evictionCount=" + evictionCount + ", expirationCount="
+            + expirationCount + "}";
+    }
+}
@@ -0,0 +1,752 @@
+package com.uncle.controller.hashmap;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 线程安全的HashMap
+ * <p>
+ * 1.空桶直接CAS放入节点, 不加锁
+ * 2.桶不为空时只锁桶的头节点, 不同桶之间互不影响
+ * 3.扩容时多个线程按步长领取桶区间一起迁移, 迁移完的桶放一个转发节点, 读请求跟着转发节点去新表查, 不会阻塞
+ * 4.元素个数用LongAdder分段计数, 避免所有线程争抢同一个计数器
+ * 5.computeIfAbsent/merge在桶锁内完成读-改-写, 是原子的; 空桶上先放占位节点再计算
+ * 6.迭代器是弱一致性的, 不抛ConcurrentModificationException
+ * <p>
+ * key和value都不允许为null, 桶内只使用链表
+ *
+ * @author 杨戬
+ * @className ConcurrentHashMap
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 15:20
+ */
+public class ConcurrentHashMap<K, V> implements Map<K, V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final float LOAD_FACTOR = 0.75f;
+    /**
+     * 每个线程一次领取迁移的最少桶数
+     */
+    private static final int MIN_TRANSFER_STRIDE = 16;
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentHashMap, Transfer> TRANSFER_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentHashMap.class, Transfer.class, "transfer");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentHashMap, AtomicReferenceArray> TABLE_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentHashMap.class, AtomicReferenceArray.class, "table");
+
+    /**
+     * 哈希表, 长度始终是2的幂; 扩容完成时从旧表CAS成新表
+     */
+    private volatile AtomicReferenceArray<Node<K, V>> table;
+
+    /**
+     * 正在进行的扩容, 没有扩容时为null
+     */
+    private volatile Transfer<K, V> transfer;
+
+    /**
+     * 扩容阈值
+     */
+    private volatile int threshold;
+
+    /**
+     * 元素个数
+     */
+    private final LongAdder count = new LongAdder();
+
+    public ConcurrentHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 指定初始空间, 会向上取整到2的幂
+     *
+     * @param initialCapacity
+     *            初始空间
+     */
+    public ConcurrentHashMap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+        int capacity = HashMap.tableSizeFor(initialCapacity);
+        this.table = new AtomicReferenceArray<>(capacity);
+        this.threshold = (int)(capacity * LOAD_FACTOR);
+    }
+
+    @Override
+    public V put(K k, V v) {
+        if (k == null || v == null) {
+            throw new NullPointerException();
+        }
+        int hash = spread(k.hashCode());
+        int binCount;
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        for (;;) {
+            int i = hash & (tab.length() - 1);
+            Node<K, V> f = tab.get(i);
+            if (f == null) {
+                // 空桶CAS, 失败说明有别的线程抢先放入了, 重新来一次
+                if (tab.compareAndSet(i, null, new Node<>(hash, k, v))) {
+                    binCount = 1;
+                    break;
+                }
+            } else if (f instanceof ForwardingNode) {
+                // 这个桶已经迁移走了, 帮忙一起扩容后到新表里放
+                tab = helpTransfer((ForwardingNode<K, V>)f);
+            } else {
+                binCount = 0;
+                synchronized (f) {
+                    // 加锁后再确认一次头节点没有变化(没有被迁移)
+                    if (tab.get(i) == f) {
+                        checkReservation(f);
+                        for (Node<K, V> e = f;; e = e.next) {
+                            binCount++;
+                            if (e.hash == hash && e.key.equals(k)) {
+                                e.val = v;
+                                return v;
+                            }
+                            if (e.next == null) {
+                                e.next = new Node<>(hash, k, v);
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (binCount != 0) {
+                    break;
+                }
+            }
+        }
+        addCount();
+        return v;
+    }
+
+    @Override
+    public V get(K k) {
+        int hash = spread(k.hashCode());
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        for (;;) {
+            Node<K, V> e = tab.get(hash & (tab.length() - 1));
+            if (e instanceof ForwardingNode) {
+                tab = ((ForwardingNode<K, V>)e).nextTable;
+                continue;
+            }
+            for (; e != null; e = e.next) {
+                if (e.hash == hash && e.key.equals(k)) {
+                    return e.val;
+                }
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public int size() {
+        long n = count.sum();
+        return n < 0L ? 0 : n > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int)n;
+    }
+
+    @Override
+    public V remove(K k) {
+        int hash = spread(k.hashCode());
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        for (;;) {
+            int i = hash & (tab.length() - 1);
+            Node<K, V> f = tab.get(i);
+            if (f == null) {
+                return null;
+            }
+            if (f instanceof ForwardingNode) {
+                tab = helpTransfer((ForwardingNode<K, V>)f);
+                continue;
+            }
+            V oldVal = null;
+            boolean validated = false;
+            synchronized (f) {
+                if (tab.get(i) == f) {
+                    checkReservation(f);
+                    validated = true;
+                    for (Node<K, V> e = f, pred = null; e != null; pred = e, e = e.next) {
+                        if (e.hash == hash && e.key.equals(k)) {
+                            oldVal = e.val;
+                            // 只改前驱的next, 正在遍历这个节点的读线程仍然能走下去
+                            if (pred == null) {
+                                tab.set(i, e.next);
+                            } else {
+                                pred.next = e.next;
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+            if (validated) {
+                if (oldVal != null) {
+                    count.decrement();
+                }
+                return oldVal;
+            }
+        }
+    }
+
+    /**
+     * key不存在时计算并放入, 整个过程持有桶锁, 同一个key的mappingFunction只会执行一次
+     * <p>
+     * mappingFunction应该尽量短, 并且不能修改当前map
+     *
+     * @param k
+     *            k
+     * @param mappingFunction
+     *            计算value
+     * @return 当前value, 计算结果为null时返回null且不放入
+     */
+    @Override
+    public V computeIfAbsent(K k, Function<? super K, ? extends V> mappingFunction) {
+        if (k == null || mappingFunction == null) {
+            throw new NullPointerException();
+        }
+        int hash = spread(k.hashCode());
+        V val = null;
+        boolean added = false;
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        for (;;) {
+            int i = hash & (tab.length() - 1);
+            Node<K, V> f = tab.get(i);
+            if (f == null) {
+                // 空桶先CAS一个占位节点并持有它的锁, 计算期间其他线程写这个桶都会等待
+                Node<K, V> r = new ReservationNode<>();
+                synchronized (r) {
+                    if (tab.compareAndSet(i, null, r)) {
+                        Node<K, V> node = null;
+                        try {
+                            if ((val = mappingFunction.apply(k)) != null) {
+                                node = new Node<>(hash, k, val);
+                                added = true;
+                            }
+                        } finally {
+                            tab.set(i, node);
+                        }
+                        break;
+                    }
+                }
+            } else if (f instanceof ForwardingNode) {
+                tab = helpTransfer((ForwardingNode<K, V>)f);
+            } else {
+                // 已存在时不加锁直接返回
+                for (Node<K, V> e = f; e != null; e = e.next) {
+                    if (e.hash == hash && e.key.equals(k)) {
+                        return e.val;
+                    }
+                }
+                boolean validated = false;
+                synchronized (f) {
+                    if (tab.get(i) == f) {
+                        checkReservation(f);
+                        validated = true;
+                        for (Node<K, V> e = f;; e = e.next) {
+                            if (e.hash == hash && e.key.equals(k)) {
+                                val = e.val;
+                                break;
+                            }
+                            if (e.next == null) {
+                                if ((val = mappingFunction.apply(k)) != null) {
+                                    e.next = new Node<>(hash, k, val);
+                                    added = true;
+                                }
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (validated) {
+                    break;
+                }
+            }
+        }
+        if (added) {
+            addCount();
+        }
+        return val;
+    }
+
+    /**
+     * key不存在时放入v, 存在时在桶锁内用remappingFunction合并, 合并结果为null时删除
+     *
+     * @param k
+     *            k
+     * @param v
+     *            v
+     * @param remappingFunction
+     *            合并
+     * @return 合并后的value, 删除时返回null
+     */
+    @Override
+    public V merge(K k, V v, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (k == null || v == null || remappingFunction == null) {
+            throw new NullPointerException();
+        }
+        int hash = spread(k.hashCode());
+        V val = null;
+        int delta = 0;
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        for (;;) {
+            int i = hash & (tab.length() - 1);
+            Node<K, V> f = tab.get(i);
+            if (f == null) {
+                if (tab.compareAndSet(i, null, new Node<>(hash, k, v))) {
+                    val = v;
+                    delta = 1;
+                    break;
+                }
+            } else if (f instanceof ForwardingNode) {
+                tab = helpTransfer((ForwardingNode<K, V>)f);
+            } else {
+                boolean validated = false;
+                synchronized (f) {
+                    if (tab.get(i) == f) {
+                        checkReservation(f);
+                        validated = true;
+                        for (Node<K, V> e = f, pred = null;; pred = e, e = e.next) {
+                            if (e.hash == hash && e.key.equals(k)) {
+                                if ((val = remappingFunction.apply(e.val, v)) != null) {
+                                    e.val = val;
+                                } else {
+                                    delta = -1;
+                                    if (pred == null) {
+                                        tab.set(i, e.next);
+                                    } else {
+                                        pred.next = e.next;
+                                    }
+                                }
+                                break;
+                            }
+                            if (e.next == null) {
+                                e.next = new Node<>(hash, k, v);
+                                val = v;
+                                delta = 1;
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (validated) {
+                    break;
+                }
+            }
+        }
+        if (delta > 0) {
+            addCount();
+        } else if (delta < 0) {
+            count.decrement();
+        }
+        return val;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        List<Node<K, V>> bin = new ArrayList<>();
+        for (int i = 0; i < tab.length(); i++) {
+            bin.clear();
+            collect(tab, i, bin);
+            for (Node<K, V> e : bin) {
+                action.accept(e.key, e.val);
+            }
+        }
+    }
+
+    /**
+     * 所有键值对, 弱一致性: 遍历期间的修改可能看到也可能看不到, 不会抛出ConcurrentModificationException
+     * <p>
+     * entry.setValue会写回map
+     *
+     * @return entry集合
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return ConcurrentHashMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * 收集旧表下标i对应的所有节点, 桶已经迁移时到新表的 i 和 i+n 两个桶里继续找
+     */
+    private static <K, V> void collect(AtomicReferenceArray<Node<K, V>> tab, int i, List<Node<K, V>> out) {
+        Node<K, V> e = tab.get(i);
+        if (e instanceof ForwardingNode) {
+            AtomicReferenceArray<Node<K, V>> next = ((ForwardingNode<K, V>)e).nextTable;
+            collect(next, i, out);
+            collect(next, i + tab.length(), out);
+            return;
+        }
+        for (; e != null; e = e.next) {
+            // 跳过占位节点
+            if (e.key != null) {
+                out.add(e);
+            }
+        }
+    }
+
+    /**
+     * 在持有锁的线程里又遇到了自己放的占位节点, 说明mappingFunction修改了当前map
+     */
+    private static void checkReservation(Node<?, ?> f) {
+        if (f instanceof ReservationNode) {
+            throw new IllegalStateException("Recursive update");
+        }
+    }
+
+    /**
+     * 计数并检查是否需要扩容
+     */
+    private void addCount() {
+        count.increment();
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        if (count.sum() <= threshold || tab.length() >= MAXIMUM_CAPACITY) {
+            return;
+        }
+        Transfer<K, V> t = transfer;
+        if (t == null) {
+            t = new Transfer<>(tab, new AtomicReferenceArray<>(tab.length() << 1));
+            // 别的线程已经发起了扩容, 交给它们
+            if (!TRANSFER_UPDATER.compareAndSet(this, null, t)) {
+                return;
+            }
+            // 读tab之后表已经被别的线程换过了, 这是一次过期的扩容, 放弃
+            if (tab != table) {
+                abort(t);
+                return;
+            }
+        } else if (t.src != tab || tab != table) {
+            return;
+        }
+        transfer(t);
+    }
+
+    /**
+     * 遇到转发节点时协助扩容
+     *
+     * @param f
+     *            转发节点
+     * @return 新表
+     */
+    private AtomicReferenceArray<Node<K, V>> helpTransfer(ForwardingNode<K, V> f) {
+        Transfer<K, V> t = transfer;
+        if (t != null && t.dst == f.nextTable && t.src == table) {
+            transfer(t);
+        }
+        return f.nextTable;
+    }
+
+    /**
+     * 领取桶区间迁移到新表, 直到没有剩余区间; 最后一个完成的线程负责切换table
+     * <p>
+     * 发起或协助时src可能刚好被换掉(过期的扩容): 这时src的桶都已经是指向别的表的转发节点, 遇到就放弃,
+     * 切换table也用CAS, 过期的扩容不会把table换成空表
+     *
+     * @param t
+     *            扩容任务
+     */
+    private void transfer(Transfer<K, V> t) {
+        AtomicReferenceArray<Node<K, V>> src = t.src;
+        AtomicReferenceArray<Node<K, V>> dst = t.dst;
+        int n = src.length();
+        int stride = Math.max((n >>> 3) / NCPU, MIN_TRANSFER_STRIDE);
+        ForwardingNode<K, V> fwd = new ForwardingNode<>(dst);
+        for (;;) {
+            // 从后往前领取 [bound, hi) 区间
+            int hi = t.transferIndex.get();
+            if (hi <= 0 || t.aborted) {
+                return;
+            }
+            int bound = Math.max(hi - stride, 0);
+            if (!t.transferIndex.compareAndSet(hi, bound)) {
+                continue;
+            }
+            for (int i = hi - 1; i >= bound; i--) {
+                if (!transferBin(src, dst, i, n, fwd)) {
+                    abort(t);
+                    return;
+                }
+            }
+            if (t.finished.addAndGet(hi - bound) == n) {
+                if (table != src) {
+                    abort(t);
+                    return;
+                }
+                // 先更新阈值再切换table, 保证看到新表的线程不会按旧阈值再次发起扩容
+                threshold = dst.length() < MAXIMUM_CAPACITY ? (int)(dst.length() * LOAD_FACTOR) : Integer.MAX_VALUE;
+                TABLE_UPDATER.compareAndSet(this, src, dst);
+                TRANSFER_UPDATER.compareAndSet(this, t, null);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 放弃一次过期的扩容, 其他协助的线程看到aborted后退出
+     */
+    private void abort(Transfer<K, V> t) {
+        t.aborted = true;
+        TRANSFER_UPDATER.compareAndSet(this, t, null);
+    }
+
+    /**
+     * 迁移一个桶, 和HashMap一样按 hash & n 拆成高低两条链表
+     * <p>
+     * 旧链表上可能还有读线程在遍历, 所以不能修改旧节点的next, 只能复制; 链表尾部不需要拆分的那一段(lastRun)直接复用
+     *
+     * @return false 桶已经被另一次扩容迁走, 这次扩容是过期的
+     */
+    private boolean transferBin(AtomicReferenceArray<Node<K, V>> src, AtomicReferenceArray<Node<K, V>> dst, int i, int n,
+        ForwardingNode<K, V> fwd) {
+        for (;;) {
+            Node<K, V> f = src.get(i);
+            if (f == null) {
+                if (src.compareAndSet(i, null, fwd)) {
+                    return true;
+                }
+                continue;
+            }
+            if (f instanceof ForwardingNode) {
+                return ((ForwardingNode<K, V>)f).nextTable == dst;
+            }
+            synchronized (f) {
+                if (src.get(i) != f) {
+                    continue;
+                }
+                checkReservation(f);
+                int runBit = f.hash & n;
+                Node<K, V> lastRun = f;
+                for (Node<K, V> p = f.next; p != null; p = p.next) {
+                    int b = p.hash & n;
+                    if (b != runBit) {
+                        runBit = b;
+                        lastRun = p;
+                    }
+                }
+                Node<K, V> ln = runBit == 0 ? lastRun : null;
+                Node<K, V> hn = runBit == 0 ? null : lastRun;
+                for (Node<K, V> p = f; p != lastRun; p = p.next) {
+                    if ((p.hash & n) == 0) {
+                        ln = new Node<>(p.hash, p.key, p.val, ln);
+                    } else {
+                        hn = new Node<>(p.hash, p.key, p.val, hn);
+                    }
+                }
+                dst.set(i, ln);
+                dst.set(i + n, hn);
+                src.set(i, fwd);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 扰动函数, 结果一定非负
+     */
+    static int spread(int h) {
+        return (h ^ (h >>> 16)) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * 链表节点, val和next用volatile保证读线程不加锁也能看到最新值
+     */
+    static class Node<K, V> implements Map.Entry<K, V> {
+        final int hash;
+        final K key;
+        volatile V val;
+        volatile Node<K, V> next;
+
+        Node(int hash, K key, V val) {
+            this(hash, key, val, null);
+        }
+
+        Node(int hash, K key, V val, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.val = val;
+            this.next = next;
+        }
+
+        @Override
+        public final K getKey() {
+            return key;
+        }
+
+        @Override
+        public final V getValue() {
+            return val;
+        }
+
+        @Override
+        public final V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * 转发节点, 放在已经迁移完的旧桶上, 指向新表
+     */
+    static final class ForwardingNode<K, V> extends Node<K, V> {
+        final AtomicReferenceArray<Node<K, V>> nextTable;
+
+        ForwardingNode(AtomicReferenceArray<Node<K, V>> nextTable) {
+            super(-1, null, null);
+            this.nextTable = nextTable;
+        }
+    }
+
+    /**
+     * computeIfAbsent时放在空桶上的占位节点
+     */
+    static final class ReservationNode<K, V> extends Node<K, V> {
+        ReservationNode() {
+            super(-1, null, null);
+        }
+    }
+
+    /**
+     * 按桶遍历, 每次把一个桶的节点复制到bin里再逐个返回
+     */
+    final class EntryIterator implements Iterator<Entry<K, V>> {
+        private final AtomicReferenceArray<Node<K, V>> tab = table;
+        private final List<Node<K, V>> bin = new ArrayList<>();
+        private int index;
+        private int pos;
+        private Node<K, V> current;
+
+        @Override
+        public boolean hasNext() {
+            while (pos >= bin.size()) {
+                if (index >= tab.length()) {
+                    return false;
+                }
+                bin.clear();
+                pos = 0;
+                collect(tab, index++, bin);
+            }
+            return true;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            current = bin.get(pos++);
+            return new MapEntry(current.key, current.val);
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentHashMap.this.remove(current.key);
+            current = null;
+        }
+    }
+
+    /**
+     * 迭代器返回的entry, setValue写回map
+     */
+    final class MapEntry implements Entry<K, V> {
+        private final K key;
+        private V val;
+
+        MapEntry(K key, V val) {
+            this.key = key;
+            this.val = val;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return val;
+        }
+
+        @Override
+        public V setValue(V value) {
+            if (value == null) {
+                throw new NullPointerException();
+            }
+            V oldValue = val;
+            val = value;
+            put(key, value);
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+            return key.equals(e.getKey()) && val.equals(e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ val.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + val;
+        }
+    }
+
+    /**
+     * 一次扩容的状态, 每次扩容都是新对象, 协助的线程不会把两次扩容混在一起
+     */
+    static final class Transfer<K, V> {
+        final AtomicReferenceArray<Node<K, V>> src;
+        final AtomicReferenceArray<Node<K, V>> dst;
+        /**
+         * 还没有被领取的桶区间上界
+         */
+        final AtomicInteger transferIndex;
+        /**
+         * 已经迁移完的桶数
+         */
+        final AtomicInteger finished = new AtomicInteger();
+        /**
+         * src已经被换掉, 放弃迁移
+         */
+        volatile boolean aborted;
+
+        Transfer(AtomicReferenceArray<Node<K, V>> src, AtomicReferenceArray<Node<K, V>> dst) {
+            this.src = src;
+            this.dst = dst;
+            this.transferIndex = new AtomicInteger(src.length());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.uncle.controller.hashmap;
+
+/**
+ * 访问频率估算(4bit Count-Min Sketch), 给W-TinyLFU做准入判断
+ * <p>
+ * 每个long存16个4bit计数器, 一个元素在4个long里各占一个计数器, 取最小值作为频率, 上限15.
+ * 累计增加次数达到 10 * 缓存容量 时所有计数器减半, 让过去的热点逐渐冷却. 非线程安全
+ *
+ * @author 杨戬
+ * @className FrequencySketch
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 23:20
+ */
+final class FrequencySketch {
+    private static final long[] SEED = {0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL,
+        0xCBF29CE484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    /**
+     * @param maximumSize
+     *            缓存容量
+     */
+    FrequencySketch(int maximumSize) {
+        int capacity = HashMap.tableSizeFor(Math.max(maximumSize, 1));
+        this.table = new long[capacity];
+        this.tableMask = capacity - 1;
+        this.sampleSize = maximumSize > Integer.MAX_VALUE / 10 ? Integer.MAX_VALUE : Math.max(maximumSize, 1) * 10;
+    }
+
+    /**
+     * 估算频率
+     *
+     * @param hash
+     *            元素hash
+     * @return 0~15
+     */
+    int frequency(int hash) {
+        int h = spread(hash);
+        int start = (h & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(h, i);
+            int count = (int)((table[index] >>> ((start + i) << 2)) & 0xFL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 频率加1
+     *
+     * @param hash
+     *            元素hash
+     */
+    void increment(int hash) {
+        int h = spread(hash);
+        int start = (h & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(h, i), start + i);
+        }
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * 第i个long里的第j个计数器加1, 已经是15时不变
+     */
+    private boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = 0xFL << offset;
+        if ((table[i] & mask) != mask) {
+            table[i] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 所有计数器减半
+     */
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size - (odd >>> 2)) >>> 1;
+    }
+
+    private int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += hash >>> 32;
+        return (int)hash & tableMask;
+    }
+
+    /**
+     * HashMap的hash只做了高低位异或, 这里再打散一次, 保证4个下标足够独立
+     */
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45D9F3B;
+        x = ((x >>> 16) ^ x) * 0x45D9F3B;
+        return (x >>> 16) ^ x;
+    }
+}
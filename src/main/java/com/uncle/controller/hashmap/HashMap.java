@@ -1,9 +1,25 @@
 package com.uncle.controller.hashmap;
 
-import org.springframework.util.CollectionUtils;
-
-import java.util.ArrayList;
-import java.util.List;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongBiFunction;
 
 /**
  * @author 杨戬
@@ -17,37 +33,80 @@ public class HashMap<K, V> implements Map<K, V> {
      * 一定是偶数 &的结果是 集中的, 哈希碰撞率自然是上面的偶数的时候要小,
      */
     private final static int SIZE_TMP = 16;
+    /**
+     * 最大空间, 必须是2的幂
+     */
+    private final static int MAXIMUM_CAPACITY = 1 << 30;
     /**
      * 负载因子是0.75的时候，空间利用率比较高，而且避免了相当多的Hash冲突，使得底层的链表或者是红黑树的高度比较低，提升了空间效率。
      */
     private final static float EXPANSION_OF_MULTIPLES = 0.75f;
+    /**
+     * 链表长度达到8时转换成红黑树, 按泊松分布正常hash下单个桶达到8的概率不到千万分之一, 出现了基本就是hash碰撞攻击
+     */
+    static final int TREEIFY_THRESHOLD = 8;
+    /**
+     * 扩容拆分后红黑树节点数不超过6时退化回链表, 和8之间留出余量避免反复转换
+     */
+    static final int UNTREEIFY_THRESHOLD = 6;
+    /**
+     * 空间小于64时优先扩容而不是树化, 桶少的时候冲突多半是空间不够而不是hash差
+     */
+    static final int MIN_TREEIFY_CAPACITY = 64;
     /**
      * 链表
      */
     transient Node<K, V>[] table;
 
     /**
-     * 空间大小
+     * 元素个数
      */
     transient int size;
 
     /**
-     * 是否在扩容
+     * 扩容阈值(table.length * 负载因子)
      */
-    transient boolean isCarriedOutExpansionIng;
+    transient int threshold;
 
-    /**
-     * 操作大小
-     */
-    transient int resultSize;
     /**
      * 改变次数
      */
     transient int theNumberOfChanges;
 
+    /**
+     * 碰撞模式 true:链表过长时转红黑树 false:始终使用链表
+     */
+    final boolean treeifyBins;
+
+    /**
+     * 监控指标, 默认不开启, 为null时热点路径上只多一次判空
+     */
+    transient HashMapMetrics metrics;
+
     public HashMap() {
-        this.theNumberOfChanges = 1;
-        this.table = new Node[SIZE_TMP];
+        this(SIZE_TMP);
+    }
+
+    public HashMap(int initialCapacity) {
+        this(initialCapacity, true);
+    }
+
+    /**
+     * 指定初始空间, 会向上取整到2的幂, 预知元素个数时可以避免多次扩容
+     *
+     * @param initialCapacity
+     *            初始空间
+     * @param treeifyBins
+     *            是否把过长的链表转换成红黑树, 关闭后最坏情况下get/put退化成O(n)
+     */
+    public HashMap(int initialCapacity, boolean treeifyBins) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+        int capacity = tableSizeFor(initialCapacity);
+        this.table = new Node[capacity];
+        this.threshold = (int)(capacity * EXPANSION_OF_MULTIPLES);
+        this.treeifyBins = treeifyBins;
     }
 
     /**
@@ -61,7 +120,7 @@ public class HashMap<K, V> implements Map<K, V> {
      */
     @Override
     public V put(K k, V v) {
-        return putVal(k, v, getIndex(k, table.length), hash(k.hashCode()));
+        return putVal(k, v, hash(k.hashCode()));
     }
 
     /**
@@ -73,90 +132,578 @@ public class HashMap<K, V> implements Map<K, V> {
      */
     @Override
     public V get(K k) {
-        // 根据 k活得当前k的 下标拿到node节点
-        // 前提:k的值相等 hashcode相等 如果node节点不存在next 直接返回value
-        // 如果node节点存在next节点 并且第一节点 没有找到符合的结果递归查找 找到满意的结果为止返回不存在返回null
+        Node<K, V> kvNode = getNode(k, hash(k.hashCode()));
+        return kvNode == null ? null : kvNode.getValue();
+    }
+
+    /**
+     * 空间大小
+     *
+     * @return 空间
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public V remove(K k) {
+        Node<K, V> node = removeNode(hash(k.hashCode()), k, true);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public boolean containsKey(K k) {
+        return getNode(k, hash(k.hashCode())) != null;
+    }
+
+    /**
+     * 批量put, 先按最终元素个数一次性把空间准备好, 插入过程中不再扩容
+     *
+     * @param m
+     *            源map
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        int n = m.size();
+        if (n == 0) {
+            return;
+        }
+        long needed = (long)((size + (long)n) / EXPANSION_OF_MULTIPLES) + 1;
+        int cap = needed >= MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY : tableSizeFor((int)needed);
+        if (cap > table.length) {
+            resizeTo(cap);
+        }
+        if (m instanceof HashMap) {
+            // 同样的hash函数, 直接复用源节点的hash值
+            for (Node<? extends K, ? extends V> e : ((HashMap<? extends K, ? extends V>)m).table) {
+                for (; e != null; e = e.next) {
+                    putVal(e.key, e.value, e.hashCode);
+                }
+            }
+        } else {
+            m.forEach(this::put);
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        int mc = theNumberOfChanges;
+        for (Node<K, V> e : table) {
+            for (; e != null; e = e.next) {
+                action.accept(e.key, e.value);
+            }
+        }
+        if (mc != theNumberOfChanges) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * key不存在(或value为null)时计算并放入, 查找和插入共用同一次hash和桶定位
+     * <p>
+     * mappingFunction里不能修改当前map, 否则抛出ConcurrentModificationException
+     *
+     * @param k
+     *            k
+     * @param mappingFunction
+     *            计算value
+     * @return 当前value, 计算结果为null时返回null且不放入
+     */
+    @Override
+    public V computeIfAbsent(K k, Function<? super K, ? extends V> mappingFunction) {
         int hash = hash(k.hashCode());
-        Node<K, V> kvNode = table[getIndex(k, table.length)];
-        if (null == kvNode) {
+        Node<K, V>[] tab = table;
+        int index = getIndex(hash, tab.length);
+        Node<K, V> first = tab[index], last = null, old = null;
+        int binCount = 0;
+        if (first instanceof TreeNode) {
+            old = ((TreeNode<K, V>)first).getTreeNode(hash, k);
+        } else {
+            for (Node<K, V> e = first; e != null; last = e, e = e.next) {
+                binCount++;
+                if (e.hashCode == hash && e.key.equals(k)) {
+                    old = e;
+                    break;
+                }
+            }
+        }
+        if (old != null && old.value != null) {
+            return old.value;
+        }
+        int mc = theNumberOfChanges;
+        V v = mappingFunction.apply(k);
+        if (mc != theNumberOfChanges) {
+            throw new ConcurrentModificationException();
+        }
+        if (v == null) {
             return null;
         }
-        if (kvNode.getKey().equals(k) && hash == kvNode.hashCode) {
-            return kvNode.getValue();
+        if (old != null) {
+            old.value = v;
+            afterNodeUpdate(old);
+        } else {
+            insertAbsent(tab, index, first, last, binCount, hash, k, v);
+        }
+        return v;
+    }
+
+    /**
+     * key不存在时放入v, 存在时用remappingFunction合并新旧value, 合并结果为null时删除, 只定位一次桶
+     * <p>
+     * 典型用法是计数: merge(k, 1, Integer::sum)
+     *
+     * @param k
+     *            k
+     * @param v
+     *            v
+     * @param remappingFunction
+     *            合并
+     * @return 合并后的value, 删除时返回null
+     */
+    @Override
+    public V merge(K k, V v, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (v == null || remappingFunction == null) {
+            throw new NullPointerException();
         }
-        if (kvNode.next != null) {
-            Node<K, V> next = kvNode.next;
-            while (next != null) {
-                if (next.getKey().equals(k) && hash == next.hashCode) {
-                    return next.getValue();
+        int hash = hash(k.hashCode());
+        Node<K, V>[] tab = table;
+        int index = getIndex(hash, tab.length);
+        Node<K, V> first = tab[index], last = null, old = null;
+        int binCount = 0;
+        if (first instanceof TreeNode) {
+            old = ((TreeNode<K, V>)first).getTreeNode(hash, k);
+        } else {
+            for (Node<K, V> e = first; e != null; last = e, e = e.next) {
+                binCount++;
+                if (e.hashCode == hash && e.key.equals(k)) {
+                    old = e;
+                    break;
                 }
-                next = next.next;
             }
         }
-        return null;
+        if (old == null) {
+            insertAbsent(tab, index, first, last, binCount, hash, k, v);
+            return v;
+        }
+        V newValue = v;
+        if (old.value != null) {
+            int mc = theNumberOfChanges;
+            newValue = remappingFunction.apply(old.value, v);
+            if (mc != theNumberOfChanges) {
+                throw new ConcurrentModificationException();
+            }
+        }
+        if (newValue == null) {
+            removeNode(hash, k, true);
+        } else {
+            old.value = newValue;
+            afterNodeUpdate(old);
+        }
+        return newValue;
     }
 
     /**
-     * 空间大小
+     * 所有键值对, 迭代器是fail-fast的: 迭代过程中map被迭代器以外的方式修改时抛出ConcurrentModificationException
      *
-     * @return 空间
+     * @return entry集合
      */
     @Override
-    public int size() {
-        return resultSize;
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
     }
 
-    private V putVal(K k, V v, int index, int hashCode) {
-        // 是否需要扩容
-        if (isNeedForExpansion(size)) {
-            System.out.println("日志:=====当前空间大小 = " + size);
-            carriedOutExpansion();
+    @Override
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new Values();
+    }
+
+    /**
+     * 并行遍历
+     * <p>
+     * 元素个数不超过parallelismThreshold时在当前线程顺序执行, 不经过线程池; 否则拆分桶区间, 每个子任务大约处理
+     * parallelismThreshold个元素, 当前线程也处理一部分, 其余的fork到当前的ForkJoinPool(不在池里调用时是commonPool).
+     * 执行期间不能修改map, action需要线程安全
+     *
+     * @param parallelismThreshold
+     *            并行阈值, Long.MAX_VALUE表示不并行, 1表示尽量并行
+     * @param action
+     *            处理
+     */
+    public void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        int mc = theNumberOfChanges;
+        Node<K, V>[] tab = table;
+        invoke(new ForEachTask<>(tab, 0, tab.length, leafBins(parallelismThreshold), action));
+        checkForComodification(mc);
+    }
+
+    /**
+     * 并行查找, 返回任意一个searchFunction的非null结果, 找到后其余子任务尽快结束
+     *
+     * @param parallelismThreshold
+     *            并行阈值
+     * @param searchFunction
+     *            不匹配时返回null
+     * @return 查找结果, 没有找到返回null
+     */
+    public <U> U search(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+        Objects.requireNonNull(searchFunction);
+        int mc = theNumberOfChanges;
+        Node<K, V>[] tab = table;
+        AtomicReference<U> result = new AtomicReference<>();
+        invoke(new SearchTask<>(tab, 0, tab.length, leafBins(parallelismThreshold), searchFunction, result));
+        checkForComodification(mc);
+        return result.get();
+    }
+
+    /**
+     * 并行归约
+     *
+     * @param parallelismThreshold
+     *            并行阈值
+     * @param transformer
+     *            转换每个键值对, 返回null的忽略
+     * @param reducer
+     *            合并两个结果, 需要满足结合律
+     * @return 归约结果, 没有任何非null转换结果时返回null
+     */
+    public <U> U reduce(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> transformer,
+        BiFunction<? super U, ? super U, ? extends U> reducer) {
+        Objects.requireNonNull(transformer);
+        Objects.requireNonNull(reducer);
+        int mc = theNumberOfChanges;
+        Node<K, V>[] tab = table;
+        U result = invoke(new ReduceTask<>(tab, 0, tab.length, leafBins(parallelismThreshold), transformer, reducer));
+        checkForComodification(mc);
+        return result;
+    }
+
+    /**
+     * 并行转换成long后归约, 中间结果不装箱
+     * <p>
+     * 例如求和: mapToLong(threshold, (k, v) -&gt; v.amount, 0L, Long::sum)
+     *
+     * @param parallelismThreshold
+     *            并行阈值
+     * @param transformer
+     *            转换每个键值对
+     * @param basis
+     *            初始值, 也是reducer的单位元
+     * @param reducer
+     *            合并两个结果, 需要满足结合律
+     * @return 归约结果
+     */
+    public long mapToLong(long parallelismThreshold, ToLongBiFunction<? super K, ? super V> transformer, long basis,
+        LongBinaryOperator reducer) {
+        Objects.requireNonNull(transformer);
+        Objects.requireNonNull(reducer);
+        int mc = theNumberOfChanges;
+        Node<K, V>[] tab = table;
+        long result = invoke(
+            new MapToLongTask<>(tab, 0, tab.length, leafBins(parallelismThreshold), transformer, basis, reducer));
+        checkForComodification(mc);
+        return result;
+    }
+
+    /**
+     * 按阈值计算每个子任务负责的桶数: 每个子任务大约处理parallelismThreshold个元素, 子任务总数不超过并行度的16倍
+     */
+    private int leafBins(long parallelismThreshold) {
+        int n = table.length;
+        if (parallelismThreshold <= 0 || size <= parallelismThreshold) {
+            return n;
+        }
+        long leaves = Math.min(size / parallelismThreshold, (long)ForkJoinPool.getCommonPoolParallelism() << 4);
+        return leaves <= 1 ? n : (int)Math.max(1L, n / leaves);
+    }
+
+    /**
+     * 只有一个子任务时直接在当前线程执行; 否则由当前线程开始拆分, fork出的子任务进当前线程所在的池, 不在池里时进commonPool
+     */
+    private static <R> R invoke(BulkTask<?, ?, R> task) {
+        return task.hi - task.lo <= task.unit ? task.leaf() : task.invoke();
+    }
+
+    private void checkForComodification(int expectedModCount) {
+        if (expectedModCount != theNumberOfChanges) {
+            throw new ConcurrentModificationException();
         }
-        Node<K, V> kvNode = table[index];
+    }
+
+    /**
+     * 查找节点
+     *
+     * @param k
+     *            k
+     * @param hash
+     *            hash值
+     * @return 节点, 不存在返回null
+     */
+    final Node<K, V> getNode(K k, int hash) {
+        // 根据 k活得当前k的 下标拿到node节点
+        // 前提:k的值相等 hashcode相等 如果node节点不存在next 直接返回value
+        // 如果是红黑树按树查找, 否则沿着链表循环查找 找到满意的结果为止返回不存在返回null
+        Node<K, V> kvNode = table[getIndex(hash, table.length)];
+        HashMapMetrics metrics = this.metrics;
         if (null == kvNode) {
-            table[index] = new Node<>(k, v, hashCode, null);
-            size++;
-            if (!isCarriedOutExpansionIng) {
-                resultSize++;
+            if (metrics != null) {
+                metrics.recordProbe(0);
+            }
+            return null;
+        }
+        if (kvNode instanceof TreeNode) {
+            if (metrics != null) {
+                metrics.recordTreeLookup();
+            }
+            return ((TreeNode<K, V>)kvNode).getTreeNode(hash, k);
+        }
+        int probes = 0;
+        do {
+            probes++;
+            if (hash == kvNode.hashCode && kvNode.getKey().equals(k)) {
+                break;
             }
-            // System.out.println("日志：===size = " + size);
+        } while ((kvNode = kvNode.next) != null);
+        if (metrics != null) {
+            metrics.recordProbe(probes);
+        }
+        return kvNode;
+    }
+
+    private V putVal(K k, V v, int hashCode) {
+        Node<K, V>[] tab = table;
+        int index = getIndex(hashCode, tab.length);
+        Node<K, V> kvNode = tab[index];
+        if (null == kvNode) {
+            tab[index] = newNode(hashCode, k, v, null);
         } else {
-            // 处理存在next添加到链表结尾
-            processorNext(k, v, hashCode, (Node<K, V>)kvNode);
+            // 红黑树或链表中已存在相同的key时直接覆盖, 元素个数不变
+            Node<K, V> exist = kvNode instanceof TreeNode
+                ? ((TreeNode<K, V>)kvNode).putTreeVal(this, tab, hashCode, k, v)
+                : processorNext(k, v, hashCode, kvNode, index);
+            if (exist != null) {
+                exist.value = v;
+                afterNodeUpdate(exist);
+                return v;
+            }
         }
-        System.out.println("日志：======put成功:k = " + k);
+        incrementSize();
         return v;
     }
 
+    /**
+     * 新增节点后计数, 是否需要扩容
+     */
+    private void incrementSize() {
+        theNumberOfChanges++;
+        if (isNeedForExpansion(++size)) {
+            carriedOutExpansion();
+        }
+        afterNodeInsertion();
+    }
+
+    // 以下是给子类(BoundedCache)预留的扩展点, 节点统一从这里创建, 子类可以换成带链表指针的节点并在增删改时维护链表
+
+    Node<K, V> newNode(int hash, K k, V v, Node<K, V> next) {
+        return new Node<>(k, v, hash, next);
+    }
+
+    /**
+     * 红黑树退化成链表时用p的内容创建普通节点
+     */
+    Node<K, V> replacementNode(Node<K, V> p, Node<K, V> next) {
+        return new Node<>(p.key, p.value, p.hashCode, next);
+    }
+
+    TreeNode<K, V> newTreeNode(int hash, K k, V v, Node<K, V> next) {
+        return new TreeNode<>(k, v, hash, next);
+    }
+
+    /**
+     * 链表转换成红黑树时用p的内容创建树节点
+     */
+    TreeNode<K, V> replacementTreeNode(Node<K, V> p, Node<K, V> next) {
+        return new TreeNode<>(p.key, p.value, p.hashCode, next);
+    }
+
+    /**
+     * 已存在的节点被覆盖了value
+     */
+    void afterNodeUpdate(Node<K, V> p) {
+    }
+
+    /**
+     * 新节点已经放入并计数之后
+     */
+    void afterNodeInsertion() {
+    }
+
+    /**
+     * 节点已经从桶里摘掉之后
+     */
+    void afterNodeRemoval(Node<K, V> p) {
+    }
+
+    /**
+     * 把查找时确认不存在的key放进桶里, first/last/binCount是查找时得到的桶头/链表尾/链表长度
+     */
+    private void insertAbsent(Node<K, V>[] tab, int index, Node<K, V> first, Node<K, V> last, int binCount, int hash,
+        K k, V v) {
+        if (first instanceof TreeNode) {
+            ((TreeNode<K, V>)first).putTreeVal(this, tab, hash, k, v);
+        } else if (last == null) {
+            tab[index] = newNode(hash, k, v, null);
+        } else {
+            appendToBin(last, binCount, k, v, hash, index);
+        }
+        incrementSize();
+    }
+
+    /**
+     * 删除节点
+     *
+     * @param hash
+     *            hash值
+     * @param k
+     *            k
+     * @param movable
+     *            删除红黑树节点后是否允许把新树根移到桶头, 迭代器删除时为false, 避免打乱剩余节点的遍历顺序
+     * @return 被删除的节点, 不存在返回null
+     */
+    final Node<K, V> removeNode(int hash, Object k, boolean movable) {
+        Node<K, V>[] tab = table;
+        int index = getIndex(hash, tab.length);
+        Node<K, V> p = tab[index];
+        if (p == null) {
+            return null;
+        }
+        Node<K, V> node = null;
+        if (p.hashCode == hash && p.key.equals(k)) {
+            node = p;
+        } else if (p instanceof TreeNode) {
+            node = ((TreeNode<K, V>)p).getTreeNode(hash, k);
+        } else {
+            for (Node<K, V> e = p.next; e != null; p = e, e = e.next) {
+                if (e.hashCode == hash && e.key.equals(k)) {
+                    node = e;
+                    break;
+                }
+            }
+        }
+        if (node == null) {
+            return null;
+        }
+        if (node instanceof TreeNode) {
+            ((TreeNode<K, V>)node).removeTreeNode(this, tab, movable);
+        } else if (node == p) {
+            tab[index] = node.next;
+        } else {
+            p.next = node.next;
+        }
+        theNumberOfChanges++;
+        size--;
+        afterNodeRemoval(node);
+        return node;
+    }
+
     /**
      * 扩容方法
+     * <p>
+     * 空间翻倍, 因为长度始终是2的幂, 旧桶j里的节点在新表里只可能落在 j 或 j+oldCap 两个位置上,
+     * 由 hash & oldCap 这一位决定. 所以每个桶只需要遍历一次, 原地拆成低位(lo)/高位(hi)两条链表挂到新表上,
+     * 不需要重新计算下标, 也不需要创建新节点, 整个扩容是一次O(n)的遍历, 除了新数组之外不再分配内存
      */
     private void carriedOutExpansion() {
-        int size = table.length + SIZE_TMP;
-        this.size = 0;
-
-        Node<K, V>[] newTable = new Node[size];
-        // 得到全部的node的节点
-        List<Node<K, V>> list = new ArrayList<>();
-        for (Node<K, V> kvNode : table) {
-            while (kvNode != null) {
-                // 重置next
-                Node<K, V> node = new Node<>(kvNode.getKey(), kvNode.getValue(), kvNode.hashCode, null);
-                list.add(node);
-                kvNode = kvNode.next;
+        HashMapMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0L;
+        Node<K, V>[] oldTab = table;
+        int oldCap = oldTab.length;
+        if (oldCap >= MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+        int newCap = oldCap << 1;
+        Node<K, V>[] newTab = new Node[newCap];
+        for (int j = 0; j < oldCap; j++) {
+            Node<K, V> kvNode = oldTab[j];
+            if (kvNode == null) {
+                continue;
+            }
+            oldTab[j] = null;
+            if (kvNode.next == null) {
+                newTab[kvNode.hashCode & (newCap - 1)] = kvNode;
+                continue;
+            }
+            if (kvNode instanceof TreeNode) {
+                ((TreeNode<K, V>)kvNode).split(this, newTab, j, oldCap);
+                continue;
+            }
+            // 拆分链表, 保持节点原有顺序
+            Node<K, V> loHead = null, loTail = null;
+            Node<K, V> hiHead = null, hiTail = null;
+            Node<K, V> next;
+            do {
+                next = kvNode.next;
+                if ((kvNode.hashCode & oldCap) == 0) {
+                    if (loTail == null) {
+                        loHead = kvNode;
+                    } else {
+                        loTail.next = kvNode;
+                    }
+                    loTail = kvNode;
+                } else {
+                    if (hiTail == null) {
+                        hiHead = kvNode;
+                    } else {
+                        hiTail.next = kvNode;
+                    }
+                    hiTail = kvNode;
+                }
+            } while ((kvNode = next) != null);
+            if (loTail != null) {
+                loTail.next = null;
+                newTab[j] = loHead;
+            }
+            if (hiTail != null) {
+                hiTail.next = null;
+                newTab[j + oldCap] = hiHead;
             }
         }
-        this.table = newTable;
-        // 将node节点全部拆散添加到新数组
-        if (!CollectionUtils.isEmpty(list)) {
-            this.isCarriedOutExpansionIng = true;
-            theNumberOfChanges++;
-            System.out.println("日志：======開始擴容 擴容集合size：" + list.size());
-            for (Node<K, V> kvNode : list) {
-                put(kvNode.getKey(), kvNode.getValue());
+        this.table = newTab;
+        this.threshold = newCap < MAXIMUM_CAPACITY ? (int)(newCap * EXPANSION_OF_MULTIPLES) : Integer.MAX_VALUE;
+        if (metrics != null) {
+            metrics.recordResize(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 一次性换成指定大小的表, 原有元素按已有的hash值重新放入, 不管差几倍都只遍历一次
+     *
+     * @param newCap
+     *            新空间, 2的幂
+     */
+    private void resizeTo(int newCap) {
+        HashMapMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0L;
+        Node<K, V>[] oldTab = table;
+        this.table = new Node[newCap];
+        this.threshold = newCap < MAXIMUM_CAPACITY ? (int)(newCap * EXPANSION_OF_MULTIPLES) : Integer.MAX_VALUE;
+        if (size > 0) {
+            size = 0;
+            for (Node<K, V> e : oldTab) {
+                for (; e != null; e = e.next) {
+                    putVal(e.key, e.value, e.hashCode);
+                }
             }
-            System.out.println("日志：======擴容結束");
-            this.isCarriedOutExpansionIng = false;
+        }
+        if (metrics != null) {
+            metrics.recordResize(System.nanoTime() - start);
         }
     }
 
@@ -164,15 +711,17 @@ public class HashMap<K, V> implements Map<K, V> {
      * 是否需要扩容
      *
      * @param size
-     *            当前链表空间
+     *            当前元素个数
      * @return 是/否
      */
     private boolean isNeedForExpansion(int size) {
-        return size > SIZE_TMP * EXPANSION_OF_MULTIPLES * theNumberOfChanges;
+        return size > threshold;
     }
 
     /**
-     * 处理next节点 递归
+     * 处理next节点 循环遍历链表, 不存在时添加到链表结尾
+     * <p>
+     * 以前是每个节点递归一次, 链表很长(hash碰撞攻击)时会StackOverflowError
      *
      * @param k
      *            k
@@ -181,22 +730,68 @@ public class HashMap<K, V> implements Map<K, V> {
      * @param hash
      *            hash
      * @param kvNode
-     *            当前节点
+     *            链表头节点
+     * @param index
+     *            桶下标
+     * @return 已存在的节点, 新增时返回null
      */
-    private void processorNext(K k, V v, int hash, Node<K, V> kvNode) {
-        // 如果key相同并且hashcode想用覆盖原来的值
-        if (kvNode.getKey().equals(k) && kvNode.hashCode == hash) {
-            kvNode.value = v;
-            return;
+    private Node<K, V> processorNext(K k, V v, int hash, Node<K, V> kvNode, int index) {
+        for (int binCount = 1;; binCount++) {
+            // 如果key相同并且hashcode想用, 由调用方覆盖原来的值
+            if (kvNode.hashCode == hash && kvNode.getKey().equals(k)) {
+                return kvNode;
+            }
+            if (kvNode.next == null) {
+                appendToBin(kvNode, binCount, k, v, hash, index);
+                return null;
+            }
+            kvNode = kvNode.next;
+        }
+    }
+
+    /**
+     * 追加到链表结尾, 链表过长时转换成红黑树
+     *
+     * @param last
+     *            链表尾节点
+     * @param binCount
+     *            追加前的链表长度
+     */
+    private void appendToBin(Node<K, V> last, int binCount, K k, V v, int hash, int index) {
+        last.next = newNode(hash, k, v, null);
+        if (metrics != null) {
+            metrics.recordChainLength(binCount + 1);
+        }
+        if (treeifyBins && binCount >= TREEIFY_THRESHOLD - 1) {
+            treeifyBin(index);
         }
+    }
 
-        if (kvNode.next != null) {
-            processorNext(k, v, hash, kvNode.next);
+    /**
+     * 把桶内的链表转换成红黑树, 空间太小时改为扩容
+     *
+     * @param index
+     *            桶下标
+     */
+    private void treeifyBin(int index) {
+        Node<K, V>[] tab = table;
+        if (tab.length < MIN_TREEIFY_CAPACITY) {
+            carriedOutExpansion();
             return;
         }
-        kvNode.next = new Node<>(k, v, hash, null);
-        if (!isCarriedOutExpansionIng) {
-            resultSize++;
+        TreeNode<K, V> hd = null, tl = null;
+        for (Node<K, V> e = tab[index]; e != null; e = e.next) {
+            TreeNode<K, V> p = replacementTreeNode(e, null);
+            if (tl == null) {
+                hd = p;
+            } else {
+                p.prev = tl;
+                tl.next = p;
+            }
+            tl = p;
+        }
+        if ((tab[index] = hd) != null) {
+            hd.treeify(tab);
         }
     }
 
@@ -212,31 +807,61 @@ public class HashMap<K, V> implements Map<K, V> {
     }
 
     /**
-     * 模拟根据哈希值去对应哈希表下标
+     * 返回大于等于cap的最小的2的幂
      *
-     * @param k
-     *            k
-     * @param length
-     *            链表长度
-     * @return 下标
+     * @param cap
+     *            期望空间
+     * @return 2的幂
      */
-    private int getIndex(K k, int length) {
-        int m = length - 1;
-        // 取模
-        /*
-            &m ==>> table length为偶数的时候(初始化空间给的是16)
-            后续的扩容都是按照16*n,也就是length一定为偶数[16,32,48],
-            对应的m就是[15,31,47]一定为奇数,
-            经过测试当n&m运算:
-                m为偶数时,例如[1-20]&16,结果为[0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,16,16,16,16]
+    static int tableSizeFor(int cap) {
+        int n = -1 >>> Integer.numberOfLeadingZeros(Math.max(cap, 1) - 1);
+        return n < 0 ? 1 : n >= MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    /**
+     * 当前哈希表空间
+     *
+     * @return 空间
+     */
+    int capacity() {
+        return table.length;
+    }
+
+    /**
+     * 开启监控指标(扩容次数/耗时, 最长链表, 负载, 查找探测长度分布), 可以注册到JMX
+     *
+     * @return 监控指标
+     */
+    public HashMapMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new HashMapMetrics(this);
+        }
+        return metrics;
+    }
+
+    /**
+     * 模拟根据哈希值去对应哈希表下标
+     *
+     * @param hash
+     *            hash值
+     * @param length
+     *            链表长度
+     * @return 下标
+     */
+    private int getIndex(int hash, int length) {
+        int m = length - 1;
+        // 取模
+        /*
+            &m ==>> table length始终是2的幂(初始化空间给的是16, 扩容每次翻倍)
+            也就是length一定为[16,32,64...],
+            对应的m就是[15,31,63]二进制全是1,
+            经过测试当n&m运算:
+                m为偶数时,例如[1-20]&16,结果为[0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,16,16,16,16]
                 m为奇数时,例如[1-20]&15,结果为[1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,0,1,2,3]
             从以上结果可知下标的哈希碰撞率显而易见偶数非常大
-            所以初始化空间给的是偶数,在做&运算的时候用length-1操作,取出下标(index)
+            所以空间始终是2的幂,在做&运算的时候用length-1操作,取出下标(index), 等价于 hash % length 且结果一定非负
         * */
-        int index = hash(k.hashCode()) & m;
-        System.out
-            .println("日志：======下鏢：" + Math.abs(index) + "====index:" + index + "=====length:" + m + "======key：" + k);
-        return Math.abs(index);
+        return hash & m;
     }
 
     /**
@@ -269,23 +894,23 @@ public class HashMap<K, V> implements Map<K, V> {
      * @param <K>
      * @param <V>
      */
-    private static class Node<K, V> implements Map.Entry<K, V> {
+    static class Node<K, V> implements Map.Entry<K, V> {
         /**
          * k
          */
-        private final K key;
+        final K key;
         /**
          * v
          */
-        private V value;
+        V value;
         /**
          * hashCode
          */
-        private final int hashCode;
+        final int hashCode;
         /**
          * 下一个节点 由于链表可能导致过长影响查询效率,在jdk1.8 当链表大于8-1个时, 会将结构转换成红黑树数据结构==>(上个节点/下个节点/是否是red节点,其余的和链表一样)
          */
-        private Node<K, V> next;
+        Node<K, V> next;
 
         public Node(K key, V value, int hashCode, Node<K, V> next) {
             this.key = key;
@@ -310,8 +935,1065 @@ public class HashMap<K, V> implements Map<K, V> {
 
         @Override
         public V setValue(V value) {
-            return value;
+            V oldValue = this.value;
+            this.value = value;
+            return oldValue;
+        }
+
+        @Override
+        public final boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public final int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public final String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * 按桶下标顺序遍历, 同一个桶内按next顺序
+     */
+    abstract class HashIterator {
+        Node<K, V> next;
+        Node<K, V> current;
+        int expectedModCount;
+        int index;
+
+        HashIterator() {
+            expectedModCount = theNumberOfChanges;
+            Node<K, V>[] t = table;
+            if (size > 0) {
+                while (index < t.length && (next = t[index++]) == null) {
+                }
+            }
+        }
+
+        public final boolean hasNext() {
+            return next != null;
+        }
+
+        final Node<K, V> nextNode() {
+            Node<K, V> e = next;
+            if (theNumberOfChanges != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (e == null) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V>[] t = table;
+            if ((next = (current = e).next) == null) {
+                while (index < t.length && (next = t[index++]) == null) {
+                }
+            }
+            return e;
+        }
+
+        public final void remove() {
+            Node<K, V> p = current;
+            if (p == null) {
+                throw new IllegalStateException();
+            }
+            if (theNumberOfChanges != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            current = null;
+            removeNode(p.hashCode, p.key, false);
+            expectedModCount = theNumberOfChanges;
+        }
+    }
+
+    final class EntryIterator extends HashIterator implements Iterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            return nextNode();
+        }
+    }
+
+    final class KeyIterator extends HashIterator implements Iterator<K> {
+        @Override
+        public K next() {
+            return nextNode().key;
+        }
+    }
+
+    final class ValueIterator extends HashIterator implements Iterator<V> {
+        @Override
+        public V next() {
+            return nextNode().value;
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        /**
+         * 按桶区间二分的spliterator, entrySet().parallelStream()可以直接按桶拆分
+         */
+        @Override
+        public Spliterator<Entry<K, V>> spliterator() {
+            return new EntrySpliterator<>(HashMap.this, table, 0, table.length, size, theNumberOfChanges);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+            Object key = e.getKey();
+            Node<K, V> candidate = getNode((K)key, hash(key.hashCode()));
+            return candidate != null && candidate.equals(e);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!contains(o)) {
+                return false;
+            }
+            Object key = ((Map.Entry<?, ?>)o).getKey();
+            return removeNode(hash(key.hashCode()), key, true) != null;
+        }
+    }
+
+    /**
+     * 桶区间 [index, fence) 上的spliterator, trySplit把剩余区间对半分, 元素个数按桶数比例估算
+     */
+    static final class EntrySpliterator<K, V> implements Spliterator<Entry<K, V>> {
+        private final HashMap<K, V> map;
+        private final Node<K, V>[] tab;
+        private Node<K, V> current;
+        private int index;
+        private final int fence;
+        private int est;
+        private final int expectedModCount;
+        private final boolean sized;
+
+        EntrySpliterator(HashMap<K, V> map, Node<K, V>[] tab, int origin, int fence, int est, int expectedModCount) {
+            this.map = map;
+            this.tab = tab;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+            this.sized = origin == 0 && fence == tab.length;
+        }
+
+        @Override
+        public Spliterator<Entry<K, V>> trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            if (lo >= mid || current != null) {
+                return null;
+            }
+            return new EntrySpliterator<>(map, tab, lo, index = mid, est >>>= 1, expectedModCount);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Entry<K, V>> action) {
+            Objects.requireNonNull(action);
+            while (current != null || index < fence) {
+                if (current == null) {
+                    current = tab[index++];
+                } else {
+                    Node<K, V> e = current;
+                    current = e.next;
+                    action.accept(e);
+                    if (map.theNumberOfChanges != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Entry<K, V>> action) {
+            Objects.requireNonNull(action);
+            Node<K, V> p = current;
+            int i = index, hi = fence;
+            current = null;
+            index = hi;
+            while (p != null || i < hi) {
+                if (p == null) {
+                    p = tab[i++];
+                } else {
+                    action.accept(p);
+                    p = p.next;
+                }
+            }
+            if (map.theNumberOfChanges != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return est;
+        }
+
+        @Override
+        public int characteristics() {
+            return (sized && est == map.size ? Spliterator.SIZED : 0) | Spliterator.DISTINCT;
+        }
+    }
+
+    /**
+     * 并行任务基类: 桶区间大于unit时对半拆分, fork右半部分, 当前线程继续处理左半部分
+     */
+    abstract static class BulkTask<K, V, R> extends RecursiveTask<R> {
+        final Node<K, V>[] tab;
+        final int lo;
+        final int hi;
+        final int unit;
+
+        BulkTask(Node<K, V>[] tab, int lo, int hi, int unit) {
+            this.tab = tab;
+            this.lo = lo;
+            this.hi = hi;
+            this.unit = unit;
+        }
+
+        @Override
+        protected final R compute() {
+            if (hi - lo <= unit) {
+                return leaf();
+            }
+            int mid = (lo + hi) >>> 1;
+            BulkTask<K, V, R> right = create(mid, hi);
+            right.fork();
+            R left = create(lo, mid).compute();
+            return combine(left, right.join());
+        }
+
+        abstract BulkTask<K, V, R> create(int lo, int hi);
+
+        abstract R leaf();
+
+        abstract R combine(R left, R right);
+    }
+
+    static final class ForEachTask<K, V> extends BulkTask<K, V, Void> {
+        final BiConsumer<? super K, ? super V> action;
+
+        ForEachTask(Node<K, V>[] tab, int lo, int hi, int unit, BiConsumer<? super K, ? super V> action) {
+            super(tab, lo, hi, unit);
+            this.action = action;
+        }
+
+        @Override
+        BulkTask<K, V, Void> create(int lo, int hi) {
+            return new ForEachTask<>(tab, lo, hi, unit, action);
+        }
+
+        @Override
+        Void leaf() {
+            for (int i = lo; i < hi; i++) {
+                for (Node<K, V> e = tab[i]; e != null; e = e.next) {
+                    action.accept(e.key, e.value);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        Void combine(Void left, Void right) {
+            return null;
+        }
+    }
+
+    static final class SearchTask<K, V, U> extends BulkTask<K, V, Void> {
+        final BiFunction<? super K, ? super V, ? extends U> searchFunction;
+        final AtomicReference<U> result;
+
+        SearchTask(Node<K, V>[] tab, int lo, int hi, int unit, BiFunction<? super K, ? super V, ? extends U> searchFunction,
+            AtomicReference<U> result) {
+            super(tab, lo, hi, unit);
+            this.searchFunction = searchFunction;
+            this.result = result;
+        }
+
+        @Override
+        BulkTask<K, V, Void> create(int lo, int hi) {
+            return new SearchTask<>(tab, lo, hi, unit, searchFunction, result);
+        }
+
+        @Override
+        Void leaf() {
+            for (int i = lo; i < hi; i++) {
+                // 别的子任务已经找到了
+                if (result.get() != null) {
+                    return null;
+                }
+                for (Node<K, V> e = tab[i]; e != null; e = e.next) {
+                    U u = searchFunction.apply(e.key, e.value);
+                    if (u != null) {
+                        result.compareAndSet(null, u);
+                        return null;
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        Void combine(Void left, Void right) {
+            return null;
+        }
+    }
+
+    static final class ReduceTask<K, V, U> extends BulkTask<K, V, U> {
+        final BiFunction<? super K, ? super V, ? extends U> transformer;
+        final BiFunction<? super U, ? super U, ? extends U> reducer;
+
+        ReduceTask(Node<K, V>[] tab, int lo, int hi, int unit, BiFunction<? super K, ? super V, ? extends U> transformer,
+            BiFunction<? super U, ? super U, ? extends U> reducer) {
+            super(tab, lo, hi, unit);
+            this.transformer = transformer;
+            this.reducer = reducer;
+        }
+
+        @Override
+        BulkTask<K, V, U> create(int lo, int hi) {
+            return new ReduceTask<>(tab, lo, hi, unit, transformer, reducer);
+        }
+
+        @Override
+        U leaf() {
+            U r = null;
+            for (int i = lo; i < hi; i++) {
+                for (Node<K, V> e = tab[i]; e != null; e = e.next) {
+                    U u = transformer.apply(e.key, e.value);
+                    if (u != null) {
+                        r = r == null ? u : reducer.apply(r, u);
+                    }
+                }
+            }
+            return r;
+        }
+
+        @Override
+        U combine(U left, U right) {
+            return left == null ? right : right == null ? left : reducer.apply(left, right);
+        }
+    }
+
+    static final class MapToLongTask<K, V> extends BulkTask<K, V, Long> {
+        final ToLongBiFunction<? super K, ? super V> transformer;
+        final long basis;
+        final LongBinaryOperator reducer;
+
+        MapToLongTask(Node<K, V>[] tab, int lo, int hi, int unit, ToLongBiFunction<? super K, ? super V> transformer,
+            long basis, LongBinaryOperator reducer) {
+            super(tab, lo, hi, unit);
+            this.transformer = transformer;
+            this.basis = basis;
+            this.reducer = reducer;
+        }
+
+        @Override
+        BulkTask<K, V, Long> create(int lo, int hi) {
+            return new MapToLongTask<>(tab, lo, hi, unit, transformer, basis, reducer);
+        }
+
+        @Override
+        Long leaf() {
+            long r = basis;
+            for (int i = lo; i < hi; i++) {
+                for (Node<K, V> e = tab[i]; e != null; e = e.next) {
+                    r = reducer.applyAsLong(r, transformer.applyAsLong(e.key, e.value));
+                }
+            }
+            return r;
+        }
+
+        @Override
+        Long combine(Long left, Long right) {
+            return reducer.applyAsLong(left, right);
+        }
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            return containsKey((K)o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return removeNode(hash(o.hashCode()), o, true) != null;
+        }
+    }
+
+    final class Values extends AbstractCollection<V> {
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * 红黑树节点, 先按hash排序, hash相同再按Comparable排序, 都无法区分时按类名和identityHashCode决定左右
+     * <p>
+     * 节点同时保留next/prev链表指针, 桶的第一个节点始终是树根, 扩容拆分和遍历时仍然可以按链表走.
+     * 继承CacheNode是为了BoundedCache里的树节点也能挂在访问顺序链表上, 普通HashMap只有树化的桶才会多出这几个字段
+     *
+     * @param <K>
+     * @param <V>
+     */
+    static final class TreeNode<K, V> extends BoundedCache.CacheNode<K, V> {
+        TreeNode<K, V> parent;
+        TreeNode<K, V> left;
+        TreeNode<K, V> right;
+        /**
+         * 链表中的上一个节点, 删除时需要
+         */
+        TreeNode<K, V> prev;
+        boolean red;
+
+        TreeNode(K key, V value, int hashCode, Node<K, V> next) {
+            super(key, value, hashCode, next);
+        }
+
+        final TreeNode<K, V> root() {
+            for (TreeNode<K, V> r = this, p;;) {
+                if ((p = r.parent) == null) {
+                    return r;
+                }
+                r = p;
+            }
+        }
+
+        /**
+         * 从树根开始查找, 迭代器删除后树根可能不在桶头
+         */
+        final TreeNode<K, V> getTreeNode(int h, Object k) {
+            return ((parent != null) ? root() : this).find(h, k, null);
+        }
+
+        /**
+         * 从当前节点开始查找, O(log n)
+         *
+         * @param h
+         *            hash值
+         * @param k
+         *            k
+         * @param kc
+         *            k的Comparable类型, 第一次传null
+         * @return 节点, 不存在返回null
+         */
+        final TreeNode<K, V> find(int h, Object k, Class<?> kc) {
+            TreeNode<K, V> p = this;
+            do {
+                int ph, dir;
+                K pk;
+                TreeNode<K, V> pl = p.left, pr = p.right, q;
+                if ((ph = p.hashCode) > h) {
+                    p = pl;
+                } else if (ph < h) {
+                    p = pr;
+                } else if ((pk = p.key) == k || (k != null && k.equals(pk))) {
+                    return p;
+                } else if (pl == null) {
+                    p = pr;
+                } else if (pr == null) {
+                    p = pl;
+                } else if ((kc != null || (kc = comparableClassFor(k)) != null)
+                    && (dir = compareComparables(kc, k, pk)) != 0) {
+                    p = (dir < 0) ? pl : pr;
+                } else if ((q = pr.find(h, k, kc)) != null) {
+                    // hash相同且无法比较大小, 只能两边都找
+                    return q;
+                } else {
+                    p = pl;
+                }
+            } while (p != null);
+            return null;
+        }
+
+        /**
+         * 把以当前节点开头的链表构建成红黑树
+         *
+         * @param tab
+         *            哈希表
+         */
+        final void treeify(Node<K, V>[] tab) {
+            TreeNode<K, V> root = null;
+            for (TreeNode<K, V> x = this, next; x != null; x = next) {
+                next = (TreeNode<K, V>)x.next;
+                x.left = x.right = null;
+                if (root == null) {
+                    x.parent = null;
+                    x.red = false;
+                    root = x;
+                    continue;
+                }
+                K k = x.key;
+                int h = x.hashCode;
+                Class<?> kc = null;
+                for (TreeNode<K, V> p = root;;) {
+                    int dir, ph;
+                    K pk = p.key;
+                    if ((ph = p.hashCode) > h) {
+                        dir = -1;
+                    } else if (ph < h) {
+                        dir = 1;
+                    } else if ((kc == null && (kc = comparableClassFor(k)) == null)
+                        || (dir = compareComparables(kc, k, pk)) == 0) {
+                        dir = tieBreakOrder(k, pk);
+                    }
+                    TreeNode<K, V> xp = p;
+                    if ((p = (dir <= 0) ? p.left : p.right) == null) {
+                        x.parent = xp;
+                        if (dir <= 0) {
+                            xp.left = x;
+                        } else {
+                            xp.right = x;
+                        }
+                        root = balanceInsertion(root, x);
+                        break;
+                    }
+                }
+            }
+            moveRootToFront(tab, root);
+        }
+
+        /**
+         * 退化成普通链表
+         *
+         * @return 链表头节点
+         */
+        final Node<K, V> untreeify(HashMap<K, V> map) {
+            Node<K, V> hd = null, tl = null;
+            for (Node<K, V> q = this; q != null; q = q.next) {
+                Node<K, V> p = map.replacementNode(q, null);
+                if (tl == null) {
+                    hd = p;
+                } else {
+                    tl.next = p;
+                }
+                tl = p;
+            }
+            return hd;
+        }
+
+        /**
+         * 树中查找或新增
+         *
+         * @return 已存在的节点, 新增时返回null
+         */
+        final TreeNode<K, V> putTreeVal(HashMap<K, V> map, Node<K, V>[] tab, int h, K k, V v) {
+            Class<?> kc = null;
+            boolean searched = false;
+            TreeNode<K, V> root = (parent != null) ? root() : this;
+            for (TreeNode<K, V> p = root;;) {
+                int dir, ph;
+                K pk;
+                if ((ph = p.hashCode) > h) {
+                    dir = -1;
+                } else if (ph < h) {
+                    dir = 1;
+                } else if ((pk = p.key) == k || (k != null && k.equals(pk))) {
+                    return p;
+                } else if ((kc == null && (kc = comparableClassFor(k)) == null)
+                    || (dir = compareComparables(kc, k, pk)) == 0) {
+                    if (!searched) {
+                        // 无法比较大小时, 先在两边子树里找一遍是否已存在, 整个插入过程只找一次
+                        TreeNode<K, V> q, ch;
+                        searched = true;
+                        if (((ch = p.left) != null && (q = ch.find(h, k, kc)) != null)
+                            || ((ch = p.right) != null && (q = ch.find(h, k, kc)) != null)) {
+                            return q;
+                        }
+                    }
+                    dir = tieBreakOrder(k, pk);
+                }
+                TreeNode<K, V> xp = p;
+                if ((p = (dir <= 0) ? p.left : p.right) == null) {
+                    Node<K, V> xpn = xp.next;
+                    TreeNode<K, V> x = map.newTreeNode(h, k, v, xpn);
+                    if (dir <= 0) {
+                        xp.left = x;
+                    } else {
+                        xp.right = x;
+                    }
+                    xp.next = x;
+                    x.parent = x.prev = xp;
+                    if (xpn != null) {
+                        ((TreeNode<K, V>)xpn).prev = x;
+                    }
+                    moveRootToFront(tab, balanceInsertion(root, x));
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * 扩容时拆分红黑树, 和链表一样按 hash & bit 拆成高低两部分, 节点数过少的一边退化成链表
+         *
+         * @param map
+         *            所属map, 退化时由它创建节点
+         * @param tab
+         *            新表
+         * @param index
+         *            旧表下标
+         * @param bit
+         *            旧表空间
+         */
+        final void split(HashMap<K, V> map, Node<K, V>[] tab, int index, int bit) {
+            TreeNode<K, V> loHead = null, loTail = null;
+            TreeNode<K, V> hiHead = null, hiTail = null;
+            int lc = 0, hc = 0;
+            for (TreeNode<K, V> e = this, next; e != null; e = next) {
+                next = (TreeNode<K, V>)e.next;
+                e.next = null;
+                if ((e.hashCode & bit) == 0) {
+                    if ((e.prev = loTail) == null) {
+                        loHead = e;
+                    } else {
+                        loTail.next = e;
+                    }
+                    loTail = e;
+                    ++lc;
+                } else {
+                    if ((e.prev = hiTail) == null) {
+                        hiHead = e;
+                    } else {
+                        hiTail.next = e;
+                    }
+                    hiTail = e;
+                    ++hc;
+                }
+            }
+            if (loHead != null) {
+                if (lc <= UNTREEIFY_THRESHOLD) {
+                    tab[index] = loHead.untreeify(map);
+                } else {
+                    tab[index] = loHead;
+                    // 另一边为空说明整棵树原样保留, 不需要重建
+                    if (hiHead != null) {
+                        loHead.treeify(tab);
+                    }
+                }
+            }
+            if (hiHead != null) {
+                if (hc <= UNTREEIFY_THRESHOLD) {
+                    tab[index + bit] = hiHead.untreeify(map);
+                } else {
+                    tab[index + bit] = hiHead;
+                    if (loHead != null) {
+                        hiHead.treeify(tab);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 删除当前节点, 同时维护链表指针; 树太小时退化成链表
+         *
+         * @param map
+         *            所属map, 退化时由它创建节点
+         * @param tab
+         *            哈希表
+         * @param movable
+         *            是否允许把新树根移到桶头
+         */
+        final void removeTreeNode(HashMap<K, V> map, Node<K, V>[] tab, boolean movable) {
+            int index = hashCode & (tab.length - 1);
+            TreeNode<K, V> first = (TreeNode<K, V>)tab[index], root = first, rl;
+            TreeNode<K, V> succ = (TreeNode<K, V>)next, pred = prev;
+            // 先从链表里摘掉
+            if (pred == null) {
+                tab[index] = first = succ;
+            } else {
+                pred.next = succ;
+            }
+            if (succ != null) {
+                succ.prev = pred;
+            }
+            if (first == null) {
+                return;
+            }
+            if (root.parent != null) {
+                root = root.root();
+            }
+            if (root == null || (movable && (root.right == null || (rl = root.left) == null || rl.left == null))) {
+                // 节点很少了
+                tab[index] = first.untreeify(map);
+                return;
+            }
+            TreeNode<K, V> p = this, pl = left, pr = right, replacement;
+            if (pl != null && pr != null) {
+                // 有两个子节点时和后继节点(右子树最小节点)交换位置和颜色, 转成最多一个子节点的情况
+                TreeNode<K, V> s = pr, sl;
+                while ((sl = s.left) != null) {
+                    s = sl;
+                }
+                boolean c = s.red;
+                s.red = p.red;
+                p.red = c;
+                TreeNode<K, V> sr = s.right;
+                TreeNode<K, V> pp = p.parent;
+                if (s == pr) {
+                    p.parent = s;
+                    s.right = p;
+                } else {
+                    TreeNode<K, V> sp = s.parent;
+                    if ((p.parent = sp) != null) {
+                        if (s == sp.left) {
+                            sp.left = p;
+                        } else {
+                            sp.right = p;
+                        }
+                    }
+                    if ((s.right = pr) != null) {
+                        pr.parent = s;
+                    }
+                }
+                p.left = null;
+                if ((p.right = sr) != null) {
+                    sr.parent = p;
+                }
+                if ((s.left = pl) != null) {
+                    pl.parent = s;
+                }
+                if ((s.parent = pp) == null) {
+                    root = s;
+                } else if (p == pp.left) {
+                    pp.left = s;
+                } else {
+                    pp.right = s;
+                }
+                replacement = sr != null ? sr : p;
+            } else if (pl != null) {
+                replacement = pl;
+            } else if (pr != null) {
+                replacement = pr;
+            } else {
+                replacement = p;
+            }
+            if (replacement != p) {
+                TreeNode<K, V> pp = replacement.parent = p.parent;
+                if (pp == null) {
+                    (root = replacement).red = false;
+                } else if (p == pp.left) {
+                    pp.left = replacement;
+                } else {
+                    pp.right = replacement;
+                }
+                p.left = p.right = p.parent = null;
+            }
+            TreeNode<K, V> r = p.red ? root : balanceDeletion(root, replacement);
+            if (replacement == p) {
+                // 没有子节点, 最后再从父节点上摘掉
+                TreeNode<K, V> pp = p.parent;
+                p.parent = null;
+                if (pp != null) {
+                    if (p == pp.left) {
+                        pp.left = null;
+                    } else if (p == pp.right) {
+                        pp.right = null;
+                    }
+                }
+            }
+            if (movable) {
+                moveRootToFront(tab, r);
+            }
+        }
+
+        static <K, V> TreeNode<K, V> rotateLeft(TreeNode<K, V> root, TreeNode<K, V> p) {
+            TreeNode<K, V> r, pp, rl;
+            if (p != null && (r = p.right) != null) {
+                if ((rl = p.right = r.left) != null) {
+                    rl.parent = p;
+                }
+                if ((pp = r.parent = p.parent) == null) {
+                    (root = r).red = false;
+                } else if (pp.left == p) {
+                    pp.left = r;
+                } else {
+                    pp.right = r;
+                }
+                r.left = p;
+                p.parent = r;
+            }
+            return root;
+        }
+
+        static <K, V> TreeNode<K, V> rotateRight(TreeNode<K, V> root, TreeNode<K, V> p) {
+            TreeNode<K, V> l, pp, lr;
+            if (p != null && (l = p.left) != null) {
+                if ((lr = p.left = l.right) != null) {
+                    lr.parent = p;
+                }
+                if ((pp = l.parent = p.parent) == null) {
+                    (root = l).red = false;
+                } else if (pp.right == p) {
+                    pp.right = l;
+                } else {
+                    pp.left = l;
+                }
+                l.right = p;
+                p.parent = l;
+            }
+            return root;
+        }
+
+        /**
+         * 插入后的平衡调整
+         *
+         * @return 新的树根
+         */
+        static <K, V> TreeNode<K, V> balanceInsertion(TreeNode<K, V> root, TreeNode<K, V> x) {
+            x.red = true;
+            for (TreeNode<K, V> xp, xpp, xppl, xppr;;) {
+                if ((xp = x.parent) == null) {
+                    x.red = false;
+                    return x;
+                } else if (!xp.red || (xpp = xp.parent) == null) {
+                    return root;
+                }
+                if (xp == (xppl = xpp.left)) {
+                    if ((xppr = xpp.right) != null && xppr.red) {
+                        xppr.red = false;
+                        xp.red = false;
+                        xpp.red = true;
+                        x = xpp;
+                    } else {
+                        if (x == xp.right) {
+                            root = rotateLeft(root, x = xp);
+                            xpp = (xp = x.parent) == null ? null : xp.parent;
+                        }
+                        if (xp != null) {
+                            xp.red = false;
+                            if (xpp != null) {
+                                xpp.red = true;
+                                root = rotateRight(root, xpp);
+                            }
+                        }
+                    }
+                } else {
+                    if (xppl != null && xppl.red) {
+                        xppl.red = false;
+                        xp.red = false;
+                        xpp.red = true;
+                        x = xpp;
+                    } else {
+                        if (x == xp.left) {
+                            root = rotateRight(root, x = xp);
+                            xpp = (xp = x.parent) == null ? null : xp.parent;
+                        }
+                        if (xp != null) {
+                            xp.red = false;
+                            if (xpp != null) {
+                                xpp.red = true;
+                                root = rotateLeft(root, xpp);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * 删除后的平衡调整
+         *
+         * @return 新的树根
+         */
+        static <K, V> TreeNode<K, V> balanceDeletion(TreeNode<K, V> root, TreeNode<K, V> x) {
+            for (TreeNode<K, V> xp, xpl, xpr;;) {
+                if (x == null || x == root) {
+                    return root;
+                } else if ((xp = x.parent) == null) {
+                    x.red = false;
+                    return x;
+                } else if (x.red) {
+                    x.red = false;
+                    return root;
+                } else if ((xpl = xp.left) == x) {
+                    if ((xpr = xp.right) != null && xpr.red) {
+                        xpr.red = false;
+                        xp.red = true;
+                        root = rotateLeft(root, xp);
+                        xpr = (xp = x.parent) == null ? null : xp.right;
+                    }
+                    if (xpr == null) {
+                        x = xp;
+                    } else {
+                        TreeNode<K, V> sl = xpr.left, sr = xpr.right;
+                        if ((sr == null || !sr.red) && (sl == null || !sl.red)) {
+                            xpr.red = true;
+                            x = xp;
+                        } else {
+                            if (sr == null || !sr.red) {
+                                if (sl != null) {
+                                    sl.red = false;
+                                }
+                                xpr.red = true;
+                                root = rotateRight(root, xpr);
+                                xpr = (xp = x.parent) == null ? null : xp.right;
+                            }
+                            if (xpr != null) {
+                                xpr.red = xp != null && xp.red;
+                                if ((sr = xpr.right) != null) {
+                                    sr.red = false;
+                                }
+                            }
+                            if (xp != null) {
+                                xp.red = false;
+                                root = rotateLeft(root, xp);
+                            }
+                            x = root;
+                        }
+                    }
+                } else {
+                    if (xpl != null && xpl.red) {
+                        xpl.red = false;
+                        xp.red = true;
+                        root = rotateRight(root, xp);
+                        xpl = (xp = x.parent) == null ? null : xp.left;
+                    }
+                    if (xpl == null) {
+                        x = xp;
+                    } else {
+                        TreeNode<K, V> sl = xpl.left, sr = xpl.right;
+                        if ((sl == null || !sl.red) && (sr == null || !sr.red)) {
+                            xpl.red = true;
+                            x = xp;
+                        } else {
+                            if (sl == null || !sl.red) {
+                                if (sr != null) {
+                                    sr.red = false;
+                                }
+                                xpl.red = true;
+                                root = rotateLeft(root, xpl);
+                                xpl = (xp = x.parent) == null ? null : xp.left;
+                            }
+                            if (xpl != null) {
+                                xpl.red = xp != null && xp.red;
+                                if ((sl = xpl.left) != null) {
+                                    sl.red = false;
+                                }
+                            }
+                            if (xp != null) {
+                                xp.red = false;
+                                root = rotateRight(root, xp);
+                            }
+                            x = root;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * 保证树根是桶里的第一个节点
+         */
+        static <K, V> void moveRootToFront(Node<K, V>[] tab, TreeNode<K, V> root) {
+            int index = root.hashCode & (tab.length - 1);
+            TreeNode<K, V> first = (TreeNode<K, V>)tab[index];
+            if (root == first) {
+                return;
+            }
+            tab[index] = root;
+            TreeNode<K, V> rp = root.prev;
+            Node<K, V> rn = root.next;
+            if (rn != null) {
+                ((TreeNode<K, V>)rn).prev = rp;
+            }
+            if (rp != null) {
+                rp.next = rn;
+            }
+            if (first != null) {
+                first.prev = root;
+            }
+            root.next = first;
+            root.prev = null;
+        }
+    }
+
+    /**
+     * x的类型形如 class C implements Comparable&lt;C&gt; 时返回C, 否则返回null
+     *
+     * @param x
+     *            key
+     * @return Comparable类型
+     */
+    static Class<?> comparableClassFor(Object x) {
+        if (!(x instanceof Comparable)) {
+            return null;
+        }
+        Class<?> c = x.getClass();
+        if (c == String.class) {
+            return c;
+        }
+        Type[] ts = c.getGenericInterfaces();
+        for (Type t : ts) {
+            if (t instanceof ParameterizedType) {
+                ParameterizedType p = (ParameterizedType)t;
+                Type[] as = p.getActualTypeArguments();
+                if (p.getRawType() == Comparable.class && as != null && as.length == 1 && as[0] == c) {
+                    return c;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * x和k是同一个Comparable类型时比较大小, 否则返回0
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static int compareComparables(Class<?> kc, Object k, Object x) {
+        return (x == null || x.getClass() != kc ? 0 : ((Comparable)k).compareTo(x));
+    }
+
+    /**
+     * hash相同且无法比较大小时决定插入方向, 只要保证同一对key结果一致即可
+     */
+    static int tieBreakOrder(Object a, Object b) {
+        int d;
+        if (a == null || b == null || (d = a.getClass().getName().compareTo(b.getClass().getName())) == 0) {
+            d = (System.identityHashCode(a) <= System.identityHashCode(b) ? -1 : 1);
         }
+        return d;
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,123 @@
+package com.uncle.controller.hashmap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * HashMap监控指标, 通过 {@link HashMap#enableMetrics()} 开启
+ * <p>
+ * 计数器都是普通字段, 由map所在的线程写入, JMX线程读到的可能不是最新值; 统计本身不分配内存
+ *
+ * @author 杨戬
+ * @className HashMapMetrics
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 21:02
+ */
+public class HashMapMetrics implements HashMapMetricsMBean {
+    /**
+     * 探测长度分布的桶数, 0~8各一个, 9及以上合并
+     */
+    public static final int PROBE_BUCKETS = 10;
+
+    private final HashMap<?, ?> map;
+    private long resizeCount;
+    private long resizeTimeNanos;
+    private int maxChainLength;
+    private long treeBinLookups;
+    private final long[] probeLengthHistogram = new long[PROBE_BUCKETS];
+
+    HashMapMetrics(HashMap<?, ?> map) {
+        this.map = map;
+    }
+
+    void recordProbe(int probes) {
+        probeLengthHistogram[probes < PROBE_BUCKETS ? probes : PROBE_BUCKETS - 1]++;
+    }
+
+    void recordTreeLookup() {
+        treeBinLookups++;
+    }
+
+    void recordChainLength(int length) {
+        if (length > maxChainLength) {
+            maxChainLength = length;
+        }
+    }
+
+    void recordResize(long nanos) {
+        resizeCount++;
+        resizeTimeNanos += nanos;
+    }
+
+    /**
+     * 注册到平台MBeanServer, ObjectName为 com.uncle.controller.hashmap:type=HashMap,name={name}
+     *
+     * @param name
+     *            名称
+     * @return ObjectName
+     * @throws JMException
+     *             注册失败
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("com.uncle.controller.hashmap:type=HashMap,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * 从平台MBeanServer注销
+     *
+     * @param objectName
+     *            注册时返回的ObjectName
+     * @throws JMException
+     *             注销失败
+     */
+    public static void unregister(ObjectName objectName) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    @Override
+    public long getResizeCount() {
+        return resizeCount;
+    }
+
+    @Override
+    public long getResizeTimeNanos() {
+        return resizeTimeNanos;
+    }
+
+    @Override
+    public int getMaxChainLength() {
+        return maxChainLength;
+    }
+
+    @Override
+    public double getLoadFactor() {
+        return (double)map.size() / map.capacity();
+    }
+
+    @Override
+    public int getSize() {
+        return map.size();
+    }
+
+    @Override
+    public int getCapacity() {
+        return map.capacity();
+    }
+
+    @Override
+    public long[] getProbeLengthHistogram() {
+        return probeLengthHistogram.clone();
+    }
+
+    @Override
+    public long getTreeBinLookups() {
+        return treeBinLookups;
+    }
+}
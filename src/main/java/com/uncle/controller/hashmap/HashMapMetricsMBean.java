@@ -0,0 +1,45 @@
+package com.uncle.controller.hashmap;
+
+/**
+ * HashMap监控指标的JMX接口
+ *
+ * @author 杨戬
+ * @className HashMapMetricsMBean
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 21:02
+ */
+public interface HashMapMetricsMBean {
+    /**
+     * 扩容次数
+     */
+    long getResizeCount();
+
+    /**
+     * 扩容累计耗时(纳秒)
+     */
+    long getResizeTimeNanos();
+
+    /**
+     * 插入时观察到的最长链表
+     */
+    int getMaxChainLength();
+
+    /**
+     * 当前负载 = 元素个数 / 空间
+     */
+    double getLoadFactor();
+
+    int getSize();
+
+    int getCapacity();
+
+    /**
+     * 查找时的探测长度分布, 下标i表示比较了i个节点, 最后一个下标包含所有更长的探测
+     */
+    long[] getProbeLengthHistogram();
+
+    /**
+     * 落在红黑树桶上的查找次数
+     */
+    long getTreeBinLookups();
+}
@@ -0,0 +1,183 @@
+package com.uncle.controller.hashmap;
+
+/**
+ * key为int的开放寻址(线性探测)哈希表
+ * <p>
+ * key和value分别放在两个平行数组里, 没有Node对象, key不装箱, get不分配任何内存;
+ * 0作为空槽标记, key为0的元素单独存放; 删除时把后面的元素往前挪(backward shift), 不留墓碑
+ *
+ * @author 杨戬
+ * @className IntObjectHashMap
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 17:16
+ */
+public class IntObjectHashMap<V> implements IntObjectMap<V> {
+    private static final int DEFAULT_EXPECTED_SIZE = 12;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    /**
+     * 数组中的元素个数, 不包含key为0的元素
+     */
+    private int size;
+    private int threshold;
+
+    private boolean hasZeroKey;
+    private V zeroValue;
+
+    public IntObjectHashMap() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * @param expectedSize
+     *            预计元素个数, 按负载因子换算成空间, 避免扩容
+     */
+    public IntObjectHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        allocate(HashMap.tableSizeFor((int)Math.min(MAXIMUM_CAPACITY, (long)Math.ceil(expectedSize / LOAD_FACTOR))));
+    }
+
+    @Override
+    public V put(int k, V v) {
+        if (v == null) {
+            throw new NullPointerException();
+        }
+        if (k == 0) {
+            hasZeroKey = true;
+            zeroValue = v;
+            return v;
+        }
+        int[] keys = this.keys;
+        int mask = this.mask;
+        int i = mix(k) & mask;
+        for (int cur; (cur = keys[i]) != 0; i = (i + 1) & mask) {
+            if (cur == k) {
+                values[i] = v;
+                return v;
+            }
+        }
+        keys[i] = k;
+        values[i] = v;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+        return v;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(int k) {
+        if (k == 0) {
+            return zeroValue;
+        }
+        int i = indexOf(k);
+        return i < 0 ? null : (V)values[i];
+    }
+
+    @Override
+    public boolean containsKey(int k) {
+        return k == 0 ? hasZeroKey : indexOf(k) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(int k) {
+        if (k == 0) {
+            V old = zeroValue;
+            hasZeroKey = false;
+            zeroValue = null;
+            return old;
+        }
+        int i = indexOf(k);
+        if (i < 0) {
+            return null;
+        }
+        V old = (V)values[i];
+        shiftBack(i);
+        size--;
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return hasZeroKey ? size + 1 : size;
+    }
+
+    private int indexOf(int k) {
+        int[] keys = this.keys;
+        int mask = this.mask;
+        for (int i = mix(k) & mask, cur; (cur = keys[i]) != 0; i = (i + 1) & mask) {
+            if (cur == k) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 删除gap位置的元素, 把后续探测链上可以前移的元素依次挪进空位, 保证查找时不会提前遇到空槽
+     */
+    private void shiftBack(int gap) {
+        int[] keys = this.keys;
+        Object[] values = this.values;
+        int mask = this.mask;
+        for (int j = (gap + 1) & mask, cur; (cur = keys[j]) != 0; j = (j + 1) & mask) {
+            int ideal = mix(cur) & mask;
+            // ideal不在(gap, j]区间内, 说明j可以挪到gap
+            if (((j - ideal) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = cur;
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+    }
+
+    private void rehash(int newCapacity) {
+        if (keys.length >= MAXIMUM_CAPACITY) {
+            if (size >= MAXIMUM_CAPACITY - 1) {
+                throw new IllegalStateException("IntObjectHashMap is full");
+            }
+            threshold = MAXIMUM_CAPACITY - 1;
+            return;
+        }
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        int[] keys = this.keys;
+        int mask = this.mask;
+        for (int j = 0; j < oldKeys.length; j++) {
+            int k = oldKeys[j];
+            if (k != 0) {
+                int i = mix(k) & mask;
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = k;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = capacity < MAXIMUM_CAPACITY ? (int)(capacity * LOAD_FACTOR) : MAXIMUM_CAPACITY - 1;
+    }
+
+    /**
+     * 连续的id/卡BIN直接&mask会挤在一起, 先乘黄金分割常数打散
+     */
+    static int mix(int k) {
+        int h = k * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
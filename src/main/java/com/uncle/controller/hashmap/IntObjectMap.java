@@ -0,0 +1,51 @@
+package com.uncle.controller.hashmap;
+
+/**
+ * key为int的Map, key不装箱
+ *
+ * @author 杨戬
+ * @className IntObjectMap
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 17:10
+ */
+public interface IntObjectMap<V> {
+    /**
+     * put
+     *
+     * @param k
+     *            k
+     * @param v
+     *            v, 不允许为null
+     * @return v
+     */
+    V put(int k, V v);
+
+    /**
+     * get
+     *
+     * @param k
+     *            k
+     * @return v, 不存在返回null
+     */
+    V get(int k);
+
+    /**
+     * 是否存在
+     *
+     * @param k
+     *            k
+     * @return 是/否
+     */
+    boolean containsKey(int k);
+
+    /**
+     * 删除
+     *
+     * @param k
+     *            k
+     * @return 原来的v, 不存在返回null
+     */
+    V remove(int k);
+
+    int size();
+}
@@ -0,0 +1,201 @@
+package com.uncle.controller.hashmap;
+
+import java.util.Arrays;
+
+/**
+ * key和value都是long的开放寻址(线性探测)哈希表
+ * <p>
+ * 两个平行的long数组, 每个元素固定16字节(按负载因子折算约21字节), 没有Node对象也没有Long装箱, get不分配任何内存;
+ * 0作为空槽标记, key为0的元素单独存放; 删除时把后面的元素往前挪(backward shift), 不留墓碑
+ *
+ * @author 杨戬
+ * @className LongLongHashMap
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 17:16
+ */
+public class LongLongHashMap implements LongLongMap {
+    private static final int DEFAULT_EXPECTED_SIZE = 12;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    /**
+     * 数组中的元素个数, 不包含key为0的元素
+     */
+    private int size;
+    private int threshold;
+
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    private final long noEntryValue;
+
+    public LongLongHashMap() {
+        this(DEFAULT_EXPECTED_SIZE, 0L);
+    }
+
+    /**
+     * @param expectedSize
+     *            预计元素个数, 按负载因子换算成空间, 避免扩容
+     * @param noEntryValue
+     *            key不存在时get/remove的返回值
+     */
+    public LongLongHashMap(int expectedSize, long noEntryValue) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        this.noEntryValue = noEntryValue;
+        allocate(HashMap.tableSizeFor((int)Math.min(MAXIMUM_CAPACITY, (long)Math.ceil(expectedSize / LOAD_FACTOR))));
+    }
+
+    @Override
+    public long put(long k, long v) {
+        if (k == 0L) {
+            hasZeroKey = true;
+            zeroValue = v;
+            return v;
+        }
+        long[] keys = this.keys;
+        int mask = this.mask;
+        int i = mix(k) & mask;
+        for (long cur; (cur = keys[i]) != 0L; i = (i + 1) & mask) {
+            if (cur == k) {
+                values[i] = v;
+                return v;
+            }
+        }
+        keys[i] = k;
+        values[i] = v;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+        return v;
+    }
+
+    @Override
+    public long get(long k) {
+        if (k == 0L) {
+            return hasZeroKey ? zeroValue : noEntryValue;
+        }
+        int i = indexOf(k);
+        return i < 0 ? noEntryValue : values[i];
+    }
+
+    @Override
+    public boolean containsKey(long k) {
+        return k == 0L ? hasZeroKey : indexOf(k) >= 0;
+    }
+
+    @Override
+    public long remove(long k) {
+        if (k == 0L) {
+            if (!hasZeroKey) {
+                return noEntryValue;
+            }
+            hasZeroKey = false;
+            return zeroValue;
+        }
+        int i = indexOf(k);
+        if (i < 0) {
+            return noEntryValue;
+        }
+        long old = values[i];
+        shiftBack(i);
+        size--;
+        return old;
+    }
+
+    @Override
+    public long noEntryValue() {
+        return noEntryValue;
+    }
+
+    @Override
+    public int size() {
+        return hasZeroKey ? size + 1 : size;
+    }
+
+    /**
+     * 清空, 保留已分配的数组
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    private int indexOf(long k) {
+        long[] keys = this.keys;
+        int mask = this.mask;
+        long cur;
+        for (int i = mix(k) & mask; (cur = keys[i]) != 0L; i = (i + 1) & mask) {
+            if (cur == k) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 删除gap位置的元素, 把后续探测链上可以前移的元素依次挪进空位, 保证查找时不会提前遇到空槽
+     */
+    private void shiftBack(int gap) {
+        long[] keys = this.keys;
+        long[] values = this.values;
+        int mask = this.mask;
+        long cur;
+        for (int j = (gap + 1) & mask; (cur = keys[j]) != 0L; j = (j + 1) & mask) {
+            int ideal = mix(cur) & mask;
+            // ideal不在(gap, j]区间内, 说明j可以挪到gap
+            if (((j - ideal) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = cur;
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = 0L;
+    }
+
+    private void rehash(int newCapacity) {
+        if (keys.length >= MAXIMUM_CAPACITY) {
+            if (size >= MAXIMUM_CAPACITY - 1) {
+                throw new IllegalStateException("LongLongHashMap is full");
+            }
+            threshold = MAXIMUM_CAPACITY - 1;
+            return;
+        }
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(newCapacity);
+        long[] keys = this.keys;
+        int mask = this.mask;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long k = oldKeys[j];
+            if (k != 0L) {
+                int i = mix(k) & mask;
+                while (keys[i] != 0L) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = k;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        threshold = capacity < MAXIMUM_CAPACITY ? (int)(capacity * LOAD_FACTOR) : MAXIMUM_CAPACITY - 1;
+    }
+
+    /**
+     * 64位混合后取高位, 连续的用户id/计数器id也能均匀分布
+     */
+    static int mix(long k) {
+        long h = k * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,58 @@
+package com.uncle.controller.hashmap;
+
+/**
+ * key和value都是long的Map, 不装箱
+ *
+ * @author 杨戬
+ * @className LongLongMap
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 17:10
+ */
+public interface LongLongMap {
+    /**
+     * put
+     *
+     * @param k
+     *            k
+     * @param v
+     *            v
+     * @return v
+     */
+    long put(long k, long v);
+
+    /**
+     * get
+     *
+     * @param k
+     *            k
+     * @return v, 不存在时返回 {@link #noEntryValue()}
+     */
+    long get(long k);
+
+    /**
+     * 是否存在
+     *
+     * @param k
+     *            k
+     * @return 是/否
+     */
+    boolean containsKey(long k);
+
+    /**
+     * 删除
+     *
+     * @param k
+     *            k
+     * @return 原来的v, 不存在时返回 {@link #noEntryValue()}
+     */
+    long remove(long k);
+
+    /**
+     * key不存在时get/remove的返回值
+     *
+     * @return 默认值
+     */
+    long noEntryValue();
+
+    int size();
+}
@@ -1,5 +1,14 @@
 package com.uncle.controller.hashmap;
 
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
 /**
  * @author 杨戬
  * @className Map
@@ -24,6 +33,176 @@ public interface Map<K,V> {
 
     int size();
 
+    /**
+     * 删除
+     *
+     * @param k
+     *            k
+     * @return 被删除的value, 不存在返回null
+     */
+    V remove(K k);
+
+    /**
+     * 所有键值对, 删除会同步到map
+     *
+     * @return entry集合
+     */
+    Set<Entry<K, V>> entrySet();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 是否包含key, 默认实现认为value为null等同于不存在
+     *
+     * @param k
+     *            k
+     * @return 是/否
+     */
+    default boolean containsKey(K k) {
+        return get(k) != null;
+    }
+
+    /**
+     * 批量put
+     *
+     * @param m
+     *            源map
+     */
+    default void putAll(Map<? extends K, ? extends V> m) {
+        m.forEach(this::put);
+    }
+
+    /**
+     * 遍历所有键值对
+     *
+     * @param action
+     *            处理
+     */
+    default void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Entry<K, V> e : entrySet()) {
+            action.accept(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * key不存在时用mappingFunction计算value并放入, 结果为null时不放入
+     * <p>
+     * 默认实现是get + put两次查找, 实现类应该覆盖成一次查找
+     *
+     * @param k
+     *            k
+     * @param mappingFunction
+     *            计算value
+     * @return 当前value
+     */
+    default V computeIfAbsent(K k, Function<? super K, ? extends V> mappingFunction) {
+        V v = get(k);
+        if (v == null && (v = mappingFunction.apply(k)) != null) {
+            put(k, v);
+        }
+        return v;
+    }
+
+    /**
+     * key不存在时放入v, 存在时用remappingFunction合并新旧value, 合并结果为null时删除
+     *
+     * @param k
+     *            k
+     * @param v
+     *            v
+     * @param remappingFunction
+     *            合并
+     * @return 合并后的value, 删除时返回null
+     */
+    default V merge(K k, V v, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        V oldValue = get(k);
+        V newValue = oldValue == null ? v : remappingFunction.apply(oldValue, v);
+        if (newValue == null) {
+            remove(k);
+        } else {
+            put(k, newValue);
+        }
+        return newValue;
+    }
+
+    /**
+     * 所有key, 基于entrySet的视图
+     *
+     * @return key集合
+     */
+    default Set<K> keySet() {
+        return new AbstractSet<K>() {
+            @Override
+            public Iterator<K> iterator() {
+                Iterator<Entry<K, V>> it = entrySet().iterator();
+                return new Iterator<K>() {
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public K next() {
+                        return it.next().getKey();
+                    }
+
+                    @Override
+                    public void remove() {
+                        it.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return Map.this.size();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean contains(Object o) {
+                return containsKey((K)o);
+            }
+        };
+    }
+
+    /**
+     * 所有value, 基于entrySet的视图
+     *
+     * @return value集合
+     */
+    default Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                Iterator<Entry<K, V>> it = entrySet().iterator();
+                return new Iterator<V>() {
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public V next() {
+                        return it.next().getValue();
+                    }
+
+                    @Override
+                    public void remove() {
+                        it.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return Map.this.size();
+            }
+        };
+    }
+
     interface Entry<K,V> {
         /**
          * Returns the key corresponding to this entry.
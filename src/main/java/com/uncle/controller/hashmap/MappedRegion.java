@@ -0,0 +1,157 @@
+package com.uncle.controller.hashmap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 按固定大小分段映射的文件, 单个MappedByteBuffer最大只有2G, 分段后可以按long偏移访问任意大小的文件
+ * <p>
+ * 8字节对齐的long不会跨段, 其余数据由调用方保证不跨段; 非线程安全
+ *
+ * @author 杨戬
+ * @className MappedRegion
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 19:12
+ */
+final class MappedRegion implements Closeable {
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int chunkShift;
+    private final long chunkSize;
+    private final long chunkMask;
+    private MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+    /**
+     * 每段对应一个可复用的视图, 读写时调整position/limit, 不用每次duplicate
+     */
+    private ByteBuffer[] views = new ByteBuffer[0];
+
+    /**
+     * @param path
+     *            文件
+     * @param chunkShift
+     *            每段大小 1 &lt;&lt; chunkShift, 最大30
+     * @param minLength
+     *            至少映射的长度
+     */
+    MappedRegion(Path path, int chunkShift, long minLength) throws IOException {
+        if (chunkShift < 3 || chunkShift > 30) {
+            throw new IllegalArgumentException("Illegal chunk shift: " + chunkShift);
+        }
+        this.file = new RandomAccessFile(path.toFile(), "rw");
+        this.channel = file.getChannel();
+        this.chunkShift = chunkShift;
+        this.chunkSize = 1L << chunkShift;
+        this.chunkMask = chunkSize - 1;
+        ensureLength(Math.max(minLength, file.length()));
+    }
+
+    /**
+     * 文件不够长时扩展并映射新的段, 长度按段对齐
+     *
+     * @param length
+     *            需要的长度
+     */
+    void ensureLength(long length) throws IOException {
+        int count = (int)((length + chunkMask) >>> chunkShift);
+        if (count <= chunks.length) {
+            return;
+        }
+        long fileLength = (long)count << chunkShift;
+        if (file.length() < fileLength) {
+            file.setLength(fileLength);
+        }
+        MappedByteBuffer[] newChunks = Arrays.copyOf(chunks, count);
+        ByteBuffer[] newViews = Arrays.copyOf(views, count);
+        for (int i = chunks.length; i < count; i++) {
+            newChunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long)i << chunkShift, chunkSize);
+            newViews[i] = newChunks[i].duplicate();
+        }
+        this.chunks = newChunks;
+        this.views = newViews;
+    }
+
+    long length() {
+        return (long)chunks.length << chunkShift;
+    }
+
+    long chunkSize() {
+        return chunkSize;
+    }
+
+    long getLong(long pos) {
+        return chunks[(int)(pos >>> chunkShift)].getLong((int)(pos & chunkMask));
+    }
+
+    void putLong(long pos, long value) {
+        chunks[(int)(pos >>> chunkShift)].putLong((int)(pos & chunkMask), value);
+    }
+
+    int getInt(long pos) {
+        return chunks[(int)(pos >>> chunkShift)].getInt((int)(pos & chunkMask));
+    }
+
+    void putInt(long pos, int value) {
+        chunks[(int)(pos >>> chunkShift)].putInt((int)(pos & chunkMask), value);
+    }
+
+    /**
+     * 比较 [pos, pos+len) 与buf的 [0, len) 是否相同, 不分配内存
+     */
+    boolean equalsAt(long pos, ByteBuffer buf, int len) {
+        MappedByteBuffer chunk = chunks[(int)(pos >>> chunkShift)];
+        int off = (int)(pos & chunkMask);
+        int i = 0;
+        for (; i + 8 <= len; i += 8) {
+            if (chunk.getLong(off + i) != buf.getLong(i)) {
+                return false;
+            }
+        }
+        for (; i < len; i++) {
+            if (chunk.get(off + i) != buf.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 返回 [pos, pos+len) 的可复用视图, 下一次调用前有效
+     */
+    ByteBuffer view(long pos, int len) {
+        ByteBuffer view = views[(int)(pos >>> chunkShift)];
+        int off = (int)(pos & chunkMask);
+        view.limit(off + len).position(off);
+        return view;
+    }
+
+    /**
+     * 把src剩余的字节写到pos
+     */
+    void put(long pos, ByteBuffer src) {
+        ByteBuffer view = views[(int)(pos >>> chunkShift)];
+        int off = (int)(pos & chunkMask);
+        view.limit(off + src.remaining()).position(off);
+        view.put(src);
+    }
+
+    void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        chunks = new MappedByteBuffer[0];
+        views = new ByteBuffer[0];
+        channel.close();
+        file.close();
+    }
+}
@@ -0,0 +1,549 @@
+package com.uncle.controller.hashmap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 堆外HashMap, 数据放在内存映射文件里, 几十G的数据也不占用堆, 不影响GC
+ * <p>
+ * 1.索引文件(.idx): 64字节文件头 + 开放寻址(线性探测)的槽数组, 每个槽8字节 = 记录偏移量 &lt;&lt; 16 | hash高16位
+ * 2.数据文件(.dat): 追加写的记录 [hash 8字节][key长度 4字节][value长度 4字节][key][value], 8字节对齐, 不跨映射段
+ * <p>
+ * value长度不变时原地覆盖, 否则追加新记录并修改槽位, 旧记录成为垃圾; 删除只把槽位标记为墓碑, 记录不动;
+ * 文件头实时记录元素个数和数据末尾,
+ * 关闭后用同一路径重新打开即可继续使用, 不需要重建索引. 非线程安全
+ *
+ * @author 杨戬
+ * @className OffHeapHashMap
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 19:30
+ */
+public class OffHeapHashMap<K, V> implements Map<K, V>, Closeable {
+    /**
+     * "UNCLEOHM"
+     */
+    private static final long MAGIC = 0x554E434C454F484DL;
+    private static final int VERSION = 1;
+    private static final int HEADER = 64;
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 8;
+    private static final int H_CAPACITY = 12;
+    private static final int H_SIZE = 16;
+    private static final int H_DATA_END = 24;
+    private static final int H_TOMBSTONES = 32;
+    private static final int H_DATA_CHUNK_SHIFT = 40;
+    /**
+     * 记录头: hash(8) + key长度(4) + value长度(4)
+     */
+    private static final int RECORD_HEADER = 16;
+    private static final long EMPTY = 0L;
+    private static final long TOMBSTONE = -1L;
+    private static final long TAG_MASK = 0xFFFFL;
+    private static final float LOAD_FACTOR = 0.7f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final int DEFAULT_EXPECTED_SIZE = 1024;
+    /**
+     * 数据文件每段64M
+     */
+    private static final int DEFAULT_DATA_CHUNK_SHIFT = 26;
+
+    private final Path indexPath;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final MappedRegion data;
+    private MappedRegion index;
+
+    private int capacity;
+    private int mask;
+    private int threshold;
+    private long size;
+    private long tombstones;
+    private long dataEnd;
+    /**
+     * 结构修改次数, 迭代器据此fail-fast
+     */
+    private int modCount;
+
+    /**
+     * key/value序列化缓冲区, 复用
+     */
+    private ByteBuffer keyBuf = ByteBuffer.allocate(64);
+    private ByteBuffer valueBuf = ByteBuffer.allocate(256);
+
+    public OffHeapHashMap(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        this(path, keySerializer, valueSerializer, DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * 打开或创建, path.idx 和 path.dat 已存在时直接映射现有数据
+     *
+     * @param path
+     *            文件路径前缀
+     * @param keySerializer
+     *            key序列化
+     * @param valueSerializer
+     *            value序列化
+     * @param expectedSize
+     *            新建时预计的元素个数, 避免扩容时重建索引
+     */
+    public OffHeapHashMap(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer, long expectedSize)
+        throws IOException {
+        this.indexPath = Paths.get(path + ".idx");
+        Path dataPath = Paths.get(path + ".dat");
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        boolean exists = Files.exists(indexPath) && Files.size(indexPath) >= HEADER;
+        int dataChunkShift = DEFAULT_DATA_CHUNK_SHIFT;
+        if (exists) {
+            try (RandomAccessFile raf = new RandomAccessFile(indexPath.toFile(), "r")) {
+                if (raf.readLong() != MAGIC || raf.readInt() != VERSION) {
+                    throw new IOException("Not an OffHeapHashMap index: " + indexPath);
+                }
+                capacity = raf.readInt();
+                size = raf.readLong();
+                dataEnd = raf.readLong();
+                tombstones = raf.readLong();
+                dataChunkShift = raf.readInt();
+            }
+        } else {
+            capacity = HashMap.tableSizeFor((int)Math.min(MAXIMUM_CAPACITY, (long)Math.ceil(expectedSize / LOAD_FACTOR)));
+            dataEnd = HEADER;
+        }
+        this.data = new MappedRegion(dataPath, dataChunkShift, dataEnd);
+        this.index = openIndex(indexPath, capacity);
+        if (!exists) {
+            data.putLong(0, MAGIC);
+            writeHeader(index, capacity);
+        }
+        this.mask = capacity - 1;
+        this.threshold = (int)(capacity * LOAD_FACTOR);
+    }
+
+    @Override
+    public V put(K k, V v) {
+        int keyLen = serializeKey(k);
+        int valLen = serializeValue(v);
+        long hash = hash(keyBuf, keyLen);
+        long tag = hash >>> 48;
+        int firstTombstone = -1;
+        int i = (int)hash & mask;
+        for (;; i = (i + 1) & mask) {
+            long slot = index.getLong(slotPos(i));
+            if (slot == EMPTY) {
+                break;
+            }
+            if (slot == TOMBSTONE) {
+                if (firstTombstone < 0) {
+                    firstTombstone = i;
+                }
+            } else if ((slot & TAG_MASK) == tag && matches(slot >>> 16, hash, keyLen)) {
+                long rec = slot >>> 16;
+                if (data.getInt(rec + 12) == valLen) {
+                    // 长度相同原地覆盖
+                    valueBuf.position(0).limit(valLen);
+                    data.put(rec + RECORD_HEADER + keyLen, valueBuf);
+                } else {
+                    index.putLong(slotPos(i), append(hash, keyLen, valLen) << 16 | tag);
+                    index.putLong(H_DATA_END, dataEnd);
+                }
+                return v;
+            }
+        }
+        if (firstTombstone >= 0) {
+            i = firstTombstone;
+            tombstones--;
+        }
+        // 先写记录再写槽位, 最后更新文件头
+        long rec = append(hash, keyLen, valLen);
+        index.putLong(slotPos(i), rec << 16 | tag);
+        size++;
+        modCount++;
+        writeCounters();
+        if (size + tombstones > threshold) {
+            rehash(size > threshold ? capacity << 1 : capacity);
+        }
+        return v;
+    }
+
+    @Override
+    public V get(K k) {
+        int keyLen = serializeKey(k);
+        int i = findSlot(hash(keyBuf, keyLen), keyLen);
+        return i < 0 ? null : readValue(index.getLong(slotPos(i)) >>> 16, keyLen);
+    }
+
+    @Override
+    public boolean containsKey(K k) {
+        int keyLen = serializeKey(k);
+        return findSlot(hash(keyBuf, keyLen), keyLen) >= 0;
+    }
+
+    @Override
+    public V remove(K k) {
+        int keyLen = serializeKey(k);
+        int i = findSlot(hash(keyBuf, keyLen), keyLen);
+        if (i < 0) {
+            return null;
+        }
+        V oldValue = readValue(index.getLong(slotPos(i)) >>> 16, keyLen);
+        removeSlot(i);
+        return oldValue;
+    }
+
+    /**
+     * 按槽位顺序遍历, 迭代器是fail-fast的; 每个entry都会反序列化key和value
+     * <p>
+     * entry.setValue会写回map
+     *
+     * @return entry集合
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return OffHeapHashMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int)size;
+    }
+
+    /**
+     * 元素个数
+     *
+     * @return 元素个数
+     */
+    public long longSize() {
+        return size;
+    }
+
+    /**
+     * 刷盘
+     */
+    public void flush() {
+        writeCounters();
+        index.force();
+        data.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeCounters();
+        index.close();
+        data.close();
+    }
+
+    /**
+     * 查找keyBuf里已经序列化好的key
+     *
+     * @return 槽位下标, 不存在返回-1
+     */
+    private int findSlot(long hash, int keyLen) {
+        long tag = hash >>> 48;
+        for (int i = (int)hash & mask;; i = (i + 1) & mask) {
+            long slot = index.getLong(slotPos(i));
+            if (slot == EMPTY) {
+                return -1;
+            }
+            if (slot != TOMBSTONE && (slot & TAG_MASK) == tag && matches(slot >>> 16, hash, keyLen)) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * 删除槽位, 下一个槽位为空时说明没有探测链经过这里, 直接置空, 否则标记为墓碑
+     */
+    private void removeSlot(int i) {
+        if (index.getLong(slotPos((i + 1) & mask)) == EMPTY) {
+            index.putLong(slotPos(i), EMPTY);
+        } else {
+            index.putLong(slotPos(i), TOMBSTONE);
+            tombstones++;
+        }
+        size--;
+        modCount++;
+        writeCounters();
+    }
+
+    private K readKey(long rec, int keyLen) {
+        return keySerializer.read(data.view(rec + RECORD_HEADER, keyLen), keyLen);
+    }
+
+    private V readValue(long rec, int keyLen) {
+        int valLen = data.getInt(rec + 12);
+        return valueSerializer.read(data.view(rec + RECORD_HEADER + keyLen, valLen), valLen);
+    }
+
+    private boolean matches(long rec, long hash, int keyLen) {
+        return data.getLong(rec) == hash && data.getInt(rec + 8) == keyLen
+            && data.equalsAt(rec + RECORD_HEADER, keyBuf, keyLen);
+    }
+
+    /**
+     * 追加一条记录, 当前段剩余空间不够时跳到下一段开头
+     *
+     * @return 记录偏移量
+     */
+    private long append(long hash, int keyLen, int valLen) {
+        int recLen = (RECORD_HEADER + keyLen + valLen + 7) & ~7;
+        long chunkSize = data.chunkSize();
+        if (recLen > chunkSize) {
+            throw new IllegalArgumentException("Record too large: " + recLen);
+        }
+        long pos = dataEnd;
+        long chunkLeft = chunkSize - (pos & (chunkSize - 1));
+        if (recLen > chunkLeft) {
+            pos += chunkLeft;
+        }
+        try {
+            data.ensureLength(pos + recLen);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        data.putLong(pos, hash);
+        data.putInt(pos + 8, keyLen);
+        data.putInt(pos + 12, valLen);
+        keyBuf.position(0).limit(keyLen);
+        data.put(pos + RECORD_HEADER, keyBuf);
+        valueBuf.position(0).limit(valLen);
+        data.put(pos + RECORD_HEADER + keyLen, valueBuf);
+        dataEnd = pos + recLen;
+        return pos;
+    }
+
+    /**
+     * 索引扩容或清理墓碑: 写到临时文件后原子替换, 记录本身不动
+     */
+    private void rehash(int newCapacity) {
+        if (newCapacity > MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("OffHeapHashMap is full");
+        }
+        Path tmp = Paths.get(indexPath + ".tmp");
+        try {
+            Files.deleteIfExists(tmp);
+            MappedRegion newIndex = openIndex(tmp, newCapacity);
+            int newMask = newCapacity - 1;
+            for (int j = 0; j < capacity; j++) {
+                long slot = index.getLong(slotPos(j));
+                if (slot == EMPTY || slot == TOMBSTONE) {
+                    continue;
+                }
+                int i = (int)data.getLong(slot >>> 16) & newMask;
+                while (newIndex.getLong(slotPos(i)) != EMPTY) {
+                    i = (i + 1) & newMask;
+                }
+                newIndex.putLong(slotPos(i), slot);
+            }
+            tombstones = 0;
+            writeHeader(newIndex, newCapacity);
+            newIndex.close();
+            index.close();
+            Files.move(tmp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            index = openIndex(indexPath, newCapacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        capacity = newCapacity;
+        mask = newCapacity - 1;
+        threshold = (int)(newCapacity * LOAD_FACTOR);
+    }
+
+    private static MappedRegion openIndex(Path path, int capacity) throws IOException {
+        long length = HEADER + (long)capacity * 8;
+        int shift = Math.max(3, Math.min(30, 64 - Long.numberOfLeadingZeros(length - 1)));
+        return new MappedRegion(path, shift, length);
+    }
+
+    private void writeHeader(MappedRegion region, int capacity) {
+        region.putLong(H_MAGIC, MAGIC);
+        region.putInt(H_VERSION, VERSION);
+        region.putInt(H_CAPACITY, capacity);
+        region.putLong(H_SIZE, size);
+        region.putLong(H_DATA_END, dataEnd);
+        region.putLong(H_TOMBSTONES, tombstones);
+        region.putInt(H_DATA_CHUNK_SHIFT, Long.numberOfTrailingZeros(data.chunkSize()));
+    }
+
+    private void writeCounters() {
+        index.putLong(H_SIZE, size);
+        index.putLong(H_DATA_END, dataEnd);
+        index.putLong(H_TOMBSTONES, tombstones);
+    }
+
+    private static long slotPos(int i) {
+        return HEADER + ((long)i << 3);
+    }
+
+    private int serializeKey(K k) {
+        for (;;) {
+            keyBuf.clear();
+            try {
+                keySerializer.write(k, keyBuf);
+                return keyBuf.position();
+            } catch (BufferOverflowException e) {
+                keyBuf = ByteBuffer.allocate(keyBuf.capacity() << 1);
+            }
+        }
+    }
+
+    private int serializeValue(V v) {
+        for (;;) {
+            valueBuf.clear();
+            try {
+                valueSerializer.write(v, valueBuf);
+                return valueBuf.position();
+            } catch (BufferOverflowException e) {
+                valueBuf = ByteBuffer.allocate(valueBuf.capacity() << 1);
+            }
+        }
+    }
+
+    /**
+     * 对序列化后的字节计算hash, 与key的hashCode实现无关, 换一个JVM重新打开结果也一样
+     */
+    static long hash(ByteBuffer buf, int len) {
+        long h = 0x9E3779B97F4A7C15L ^ len;
+        int i = 0;
+        for (; i + 8 <= len; i += 8) {
+            h ^= buf.getLong(i) * 0xC2B2AE3D27D4EB4FL;
+            h = Long.rotateLeft(h, 31) * 0x9E3779B97F4A7C15L;
+        }
+        for (; i < len; i++) {
+            h ^= (buf.get(i) & 0xFFL) * 0x165667B19E3779F9L;
+            h = Long.rotateLeft(h, 23) * 0x9E3779B97F4A7C15L;
+        }
+        // fmix64
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    final class EntryIterator implements Iterator<Entry<K, V>> {
+        private int nextSlot;
+        private int current = -1;
+        private int expectedModCount = modCount;
+
+        EntryIterator() {
+            nextSlot = advance(0);
+        }
+
+        private int advance(int from) {
+            for (; from < capacity; from++) {
+                long slot = index.getLong(slotPos(from));
+                if (slot != EMPTY && slot != TOMBSTONE) {
+                    break;
+                }
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextSlot < capacity;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (nextSlot >= capacity) {
+                throw new NoSuchElementException();
+            }
+            current = nextSlot;
+            nextSlot = advance(current + 1);
+            long rec = index.getLong(slotPos(current)) >>> 16;
+            int keyLen = data.getInt(rec + 8);
+            return new OffHeapEntry(readKey(rec, keyLen), readValue(rec, keyLen));
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeSlot(current);
+            current = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * 迭代器返回的entry, 是反序列化出来的副本, setValue写回map
+     */
+    final class OffHeapEntry implements Entry<K, V> {
+        private final K key;
+        private V value;
+
+        OffHeapEntry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = this.value;
+            this.value = value;
+            put(key, value);
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+            return key.equals(e.getKey()) && value.equals(e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.uncle.controller.hashmap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 堆外Map的key/value序列化
+ *
+ * @author 杨戬
+ * @className Serializer
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 19:05
+ */
+public interface Serializer<T> {
+    /**
+     * 写入buf的当前position, 空间不够时抛出 {@link java.nio.BufferOverflowException}, 调用方扩容后重试
+     *
+     * @param t
+     *            对象
+     * @param buf
+     *            缓冲区
+     */
+    void write(T t, ByteBuffer buf);
+
+    /**
+     * 从buf的当前position读取length个字节
+     *
+     * @param buf
+     *            缓冲区
+     * @param length
+     *            长度
+     * @return 对象
+     */
+    T read(ByteBuffer buf, int length);
+
+    /**
+     * UTF-8字符串
+     */
+    Serializer<String> STRING = new Serializer<String>() {
+        @Override
+        public void write(String s, ByteBuffer buf) {
+            buf.put(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String read(ByteBuffer buf, int length) {
+            if (buf.hasArray()) {
+                String s = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+                buf.position(buf.position() + length);
+                return s;
+            }
+            byte[] bytes = new byte[length];
+            buf.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * 8字节long
+     */
+    Serializer<Long> LONG = new Serializer<Long>() {
+        @Override
+        public void write(Long l, ByteBuffer buf) {
+            buf.putLong(l);
+        }
+
+        @Override
+        public Long read(ByteBuffer buf, int length) {
+            return buf.getLong();
+        }
+    };
+}
@@ -0,0 +1,69 @@
+package com.uncle.controller.hashmap.test;
+
+import com.uncle.controller.hashmap.BoundedCache;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BoundedCache: 热点访问混合一次性扫描时LRU与W-TinyLFU的命中率, 以及命中时get的吞吐量
+ *
+ * @author 杨戬
+ * @className BoundedCacheBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 23:58
+ */
+public class BoundedCacheBenchmark {
+    private static final int MAXIMUM_SIZE = 10_000;
+    private static final int KEY_SPACE = 100_000;
+    private static final int REQUESTS = 5_000_000;
+    /**
+     * 每10次请求里有几次是扫描(只出现一次的key)
+     */
+    private static final int SCAN_PER_TEN = 3;
+
+    public static void main(String[] args) {
+        Integer[] trace = trace();
+        for (BoundedCache.Policy policy : BoundedCache.Policy.values()) {
+            BoundedCache<Integer, Integer> cache = new BoundedCache<>(MAXIMUM_SIZE, policy, 0, TimeUnit.SECONDS);
+            long start = System.nanoTime();
+            for (Integer key : trace) {
+                cache.computeIfAbsent(key, k -> k);
+            }
+            long cost = System.nanoTime() - start;
+            System.out.println(policy + "\t" + cache.stats() + " | " + REQUESTS * 1_000_000L / cost + " ops/ms");
+        }
+
+        // 全部命中时的get开销
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(MAXIMUM_SIZE);
+        Integer[] keys = new Integer[MAXIMUM_SIZE];
+        for (int i = 0; i < MAXIMUM_SIZE; i++) {
+            keys[i] = i;
+            cache.put(keys[i], i);
+        }
+        long sum = 0;
+        for (int round = 0; round < 6; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                sum += cache.get(keys[i % MAXIMUM_SIZE]);
+            }
+            if (round == 5) {
+                System.out.println("get(全部命中) " + REQUESTS * 1_000_000L / (System.nanoTime() - start)
+                    + " ops/ms (checksum " + sum + ")");
+            }
+        }
+    }
+
+    /**
+     * 热点key服从近似zipf分布, 夹杂只访问一次的扫描key
+     */
+    private static Integer[] trace() {
+        Random random = new Random(42);
+        Integer[] trace = new Integer[REQUESTS];
+        int scan = KEY_SPACE;
+        for (int i = 0; i < REQUESTS; i++) {
+            trace[i] = i % 10 < SCAN_PER_TEN ? scan++ : (int)Math.pow(KEY_SPACE, random.nextDouble());
+        }
+        return trace;
+    }
+}
@@ -0,0 +1,112 @@
+package com.uncle.controller.hashmap.test;
+
+import com.uncle.controller.hashmap.ConcurrentHashMap;
+import com.uncle.controller.hashmap.HashMap;
+import com.uncle.controller.hashmap.Map;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 多线程争用下ConcurrentHashMap与synchronized包装的HashMap吞吐量对比, 读写比例3:1
+ *
+ * @author 杨戬
+ * @className ConcurrentHashMapBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 16:02
+ */
+public class ConcurrentHashMapBenchmark {
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int KEY_RANGE = 1 << 16;
+    private static final int OPS_PER_THREAD = 1_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        Integer[] keys = new Integer[KEY_RANGE];
+        for (int i = 0; i < KEY_RANGE; i++) {
+            keys[i] = i;
+        }
+        // 预热
+        run(new ConcurrentHashMap<>(), keys, 4);
+        run(new SynchronizedMap<>(new HashMap<>()), keys, 4);
+        for (int threads : THREADS) {
+            long concurrent = run(new ConcurrentHashMap<>(), keys, threads);
+            long synchronizedMap = run(new SynchronizedMap<>(new HashMap<>()), keys, threads);
+            System.out.println("threads = " + threads
+                    + " | ConcurrentHashMap " + concurrent + " ops/ms"
+                    + " | synchronized(HashMap) " + synchronizedMap + " ops/ms");
+        }
+    }
+
+    private static long run(Map<Integer, Integer> map, Integer[] keys, int threads) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    ready.countDown();
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        Integer key = keys[random.nextInt(KEY_RANGE)];
+                        if ((i & 3) == 0) {
+                            map.put(key, key);
+                        } else {
+                            map.get(key);
+                        }
+                    }
+                    done.countDown();
+                }
+            });
+            thread.start();
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long cost = System.nanoTime() - begin;
+        return (long) threads * OPS_PER_THREAD * 1_000_000L / Math.max(cost, 1);
+    }
+
+    /**
+     * 所有操作都用同一把锁
+     */
+    private static final class SynchronizedMap<K, V> implements Map<K, V> {
+        private final Map<K, V> map;
+
+        private SynchronizedMap(Map<K, V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public synchronized V put(K k, V v) {
+            return map.put(k, v);
+        }
+
+        @Override
+        public synchronized V get(K k) {
+            return map.get(k);
+        }
+
+        @Override
+        public synchronized int size() {
+            return map.size();
+        }
+
+        @Override
+        public synchronized V remove(K k) {
+            return map.remove(k);
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return map.entrySet();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.uncle.controller.hashmap.test;
+
+import com.uncle.controller.hashmap.ConcurrentHashMap;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * ConcurrentHashMap多线程扩容正确性: 每轮从容量2开始, 多个线程各自put不相交的key并不停读size,
+ * 期间连续扩容十几次; 结束后核对size和每个key都能get到, 丢一个就抛异常
+ *
+ * @author 杨戬
+ * @className ConcurrentHashMapResizeStress
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 16:40
+ */
+public class ConcurrentHashMapResizeStress {
+    private static final int ROUNDS = 200;
+    private static final int THREADS = 16;
+    private static final int KEYS_PER_THREAD = 5_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        long begin = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            run(round);
+        }
+        System.out.println(ROUNDS + " 轮 x " + THREADS * KEYS_PER_THREAD + " 个key, 没有丢失, 耗时 "
+                + (System.nanoTime() - begin) / 1_000_000 + " ms");
+    }
+
+    private static void run(int round) throws InterruptedException {
+        ConcurrentHashMap<Integer, Integer> map = new ConcurrentHashMap<>(2);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            int base = t * KEYS_PER_THREAD;
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                for (int i = 0; i < KEYS_PER_THREAD; i++) {
+                    map.put(base + i, base + i);
+                    if ((i & 63) == 0 && map.size() < 0) {
+                        throw new IllegalStateException("negative size");
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        start.countDown();
+        done.await();
+        int expected = THREADS * KEYS_PER_THREAD;
+        if (map.size() != expected) {
+            throw new IllegalStateException("round " + round + ": size " + map.size() + " != " + expected);
+        }
+        int found = 0;
+        for (int k = 0; k < expected; k++) {
+            Integer v = map.get(k);
+            if (v == null || v != k) {
+                throw new IllegalStateException("round " + round + ": lost key " + k);
+            }
+            found++;
+        }
+        int iterated = countEntries(map);
+        if (found != expected || iterated != expected) {
+            throw new IllegalStateException("round " + round + ": iterated " + iterated + " != " + expected);
+        }
+    }
+
+    private static int countEntries(ConcurrentHashMap<Integer, Integer> map) {
+        int n = 0;
+        for (Object ignored : map.entrySet()) {
+            n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,77 @@
+package com.uncle.controller.hashmap.test;
+
+import com.uncle.controller.hashmap.HashMap;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * hash碰撞攻击下链表模式与红黑树模式的get/put延迟对比
+ * <p>
+ * "Aa"和"BB"的hashCode相同, 任意拼接n段得到2^n个hashCode完全相同的字符串, 全部落在同一个桶里
+ *
+ * @author 杨戬
+ * @className HashFloodingBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 14:05
+ */
+public class HashFloodingBenchmark {
+    private static final int SEGMENTS = 13;
+    private static final int LOOKUPS = 200_000;
+
+    public static void main(String[] args) {
+        String[] keys = collidingKeys(SEGMENTS);
+        System.out.println("碰撞key个数 = " + keys.length + ", hashCode = " + keys[0].hashCode());
+        for (int round = 0; round < 3; round++) {
+            // 前两轮预热
+            boolean print = round == 2;
+            run("链表  ", keys, false, print);
+            run("红黑树", keys, true, print);
+        }
+    }
+
+    private static void run(String name, String[] keys, boolean treeifyBins, boolean print) {
+        HashMap<String, String> map = new HashMap<>(16, treeifyBins);
+        long[] putCost = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            long start = System.nanoTime();
+            map.put(keys[i], keys[i]);
+            putCost[i] = System.nanoTime() - start;
+        }
+        Random random = new Random(7);
+        long[] getCost = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            String key = keys[random.nextInt(keys.length)];
+            long start = System.nanoTime();
+            String value = map.get(key);
+            getCost[i] = System.nanoTime() - start;
+            if (value != key) {
+                throw new IllegalStateException("key = " + key);
+            }
+        }
+        if (print) {
+            System.out.println(name + " put " + percentiles(putCost) + " | get " + percentiles(getCost));
+        }
+    }
+
+    private static String[] collidingKeys(int segments) {
+        int n = 1 << segments;
+        String[] keys = new String[n];
+        for (int i = 0; i < n; i++) {
+            StringBuilder sb = new StringBuilder(segments * 2);
+            for (int bit = 0; bit < segments; bit++) {
+                sb.append((i & (1 << bit)) == 0 ? "Aa" : "BB");
+            }
+            keys[i] = sb.toString();
+        }
+        return keys;
+    }
+
+    private static String percentiles(long[] costs) {
+        long[] sorted = costs.clone();
+        Arrays.sort(sorted);
+        return "p50=" + sorted[sorted.length / 2] + "ns"
+                + " p99=" + sorted[(int) (sorted.length * 0.99)] + "ns"
+                + " p999=" + sorted[(int) (sorted.length * 0.999)] + "ns";
+    }
+}
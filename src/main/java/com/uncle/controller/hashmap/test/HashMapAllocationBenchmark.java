@@ -0,0 +1,80 @@
+package com.uncle.controller.hashmap.test;
+
+import com.uncle.controller.hashmap.HashMap;
+import com.uncle.controller.hashmap.HashMapMetrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * HashMap热路径分配检查: 预热后统计get和覆盖put期间当前线程分配的字节数, 分别在关闭和开启监控时执行
+ * <p>
+ * 运行: java com.uncle.controller.hashmap.test.HashMapAllocationBenchmark
+ *
+ * @author 杨戬
+ * @className HashMapAllocationBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 21:30
+ */
+public class HashMapAllocationBenchmark {
+    private static final int SIZE = 100_000;
+    private static final int OPS = 1_000_000;
+
+    public static void main(String[] args) throws Exception {
+        // 提前装箱, 避免把Integer.valueOf的分配算进去
+        Integer[] keys = new Integer[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            keys[i] = i * 0x9E3779B9;
+        }
+        run("关闭监控", new HashMap<>(), keys);
+
+        HashMap<Integer, Integer> map = new HashMap<>();
+        HashMapMetrics metrics = map.enableMetrics();
+        run("开启监控", map, keys);
+        System.out.println("resize " + metrics.getResizeCount() + "次, 耗时 " + metrics.getResizeTimeNanos() / 1_000
+                + "us, 最长链表 " + metrics.getMaxChainLength() + ", 负载 "
+                + String.format("%.2f", metrics.getLoadFactor()));
+        System.out.println("探测长度分布 " + Arrays.toString(metrics.getProbeLengthHistogram()));
+    }
+
+    private static void run(String name, HashMap<Integer, Integer> map, Integer[] keys) {
+        for (Integer key : keys) {
+            map.put(key, key);
+        }
+        // 预热
+        long sum = 0;
+        for (int round = 0; round < 5; round++) {
+            sum += gets(map, keys) + puts(map, keys);
+        }
+        long allocated = allocatedBytes();
+        sum += gets(map, keys);
+        long getBytes = allocatedBytes() - allocated;
+        allocated = allocatedBytes();
+        sum += puts(map, keys);
+        long putBytes = allocatedBytes() - allocated;
+        System.out.println(name + " | " + OPS + "次get分配 " + getBytes + " bytes | " + OPS + "次覆盖put分配 "
+                + putBytes + " bytes (checksum " + sum + ")");
+    }
+
+    private static long gets(HashMap<Integer, Integer> map, Integer[] keys) {
+        long sum = 0;
+        for (int i = 0; i < OPS; i++) {
+            sum += map.get(keys[i % SIZE]);
+        }
+        return sum;
+    }
+
+    private static long puts(HashMap<Integer, Integer> map, Integer[] keys) {
+        long sum = 0;
+        for (int i = 0; i < OPS; i++) {
+            Integer key = keys[i % SIZE];
+            sum += map.put(key, key);
+        }
+        return sum;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,81 @@
+package com.uncle.controller.hashmap.test;
+
+import com.uncle.controller.hashmap.HashMap;
+import com.uncle.controller.hashmap.Map;
+
+/**
+ * 手写HashMap与java.util.HashMap插入吞吐量对比
+ * <p>
+ * 运行: java -Xms4g -Xmx4g com.uncle.controller.hashmap.test.HashMapBenchmark
+ *
+ * @author 杨戬
+ * @className HashMapBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 10:12
+ */
+public class HashMapBenchmark {
+    private static final int[] SIZES = {1_000, 100_000, 10_000_000};
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURE_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        for (int size : SIZES) {
+            Integer[] keys = keys(size);
+            int rounds = size >= 10_000_000 ? 1 : WARMUP_ROUNDS;
+            for (int i = 0; i < rounds; i++) {
+                insertUncle(keys);
+                insertJdk(keys);
+            }
+            long uncle = Long.MAX_VALUE;
+            long jdk = Long.MAX_VALUE;
+            for (int i = 0; i < MEASURE_ROUNDS; i++) {
+                uncle = Math.min(uncle, insertUncle(keys));
+                jdk = Math.min(jdk, insertJdk(keys));
+            }
+            System.out.println("size = " + size
+                    + " | uncle.HashMap " + opsPerMs(size, uncle) + " ops/ms"
+                    + " | java.util.HashMap " + opsPerMs(size, jdk) + " ops/ms");
+        }
+    }
+
+    private static long insertUncle(Integer[] keys) {
+        long start = System.nanoTime();
+        Map<Integer, Integer> map = new HashMap<>();
+        for (Integer key : keys) {
+            map.put(key, key);
+        }
+        long cost = System.nanoTime() - start;
+        check(map.size(), keys.length);
+        return cost;
+    }
+
+    private static long insertJdk(Integer[] keys) {
+        long start = System.nanoTime();
+        java.util.Map<Integer, Integer> map = new java.util.HashMap<>();
+        for (Integer key : keys) {
+            map.put(key, key);
+        }
+        long cost = System.nanoTime() - start;
+        check(map.size(), keys.length);
+        return cost;
+    }
+
+    private static Integer[] keys(int size) {
+        // 提前装箱, 避免把Integer.valueOf的开销算进去
+        Integer[] keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i * 0x9E3779B9;
+        }
+        return keys;
+    }
+
+    private static void check(int actual, int expected) {
+        if (actual != expected) {
+            throw new IllegalStateException("size = " + actual + ", expected = " + expected);
+        }
+    }
+
+    private static long opsPerMs(int size, long nanos) {
+        return size * 1_000_000L / Math.max(nanos, 1);
+    }
+}
@@ -0,0 +1,94 @@
+package com.uncle.controller.hashmap.test;
+
+import com.uncle.controller.hashmap.HashMap;
+
+/**
+ * 计数场景下 get+put(两次查找) 与 merge/computeIfAbsent(一次查找) 的吞吐量对比
+ *
+ * @author 杨戬
+ * @className HashMapComputeBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 22:10
+ */
+public class HashMapComputeBenchmark {
+    private static final int KEY_RANGE = 1 << 16;
+    private static final int OPS = 10_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        String[] keys = new String[KEY_RANGE];
+        for (int i = 0; i < KEY_RANGE; i++) {
+            keys[i] = "user:" + i;
+        }
+        int[] order = new int[OPS];
+        long seed = 17;
+        for (int i = 0; i < OPS; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            order[i] = (int)(seed >>> 48) & (KEY_RANGE - 1);
+        }
+        long getPut = Long.MAX_VALUE;
+        long merge = Long.MAX_VALUE;
+        long computeIfAbsent = Long.MAX_VALUE;
+        // 第一轮是预热
+        for (int round = 0; round <= ROUNDS; round++) {
+            long a = getPut(keys, order);
+            long b = merge(keys, order);
+            long c = computeIfAbsent(keys, order);
+            if (round > 0) {
+                getPut = Math.min(getPut, a);
+                merge = Math.min(merge, b);
+                computeIfAbsent = Math.min(computeIfAbsent, c);
+            }
+        }
+        System.out.println("get+put         " + OPS * 1_000_000L / getPut + " ops/ms");
+        System.out.println("merge           " + OPS * 1_000_000L / merge + " ops/ms");
+        System.out.println("computeIfAbsent " + OPS * 1_000_000L / computeIfAbsent + " ops/ms");
+    }
+
+    private static long getPut(String[] keys, int[] order) {
+        HashMap<String, Integer> map = new HashMap<>();
+        long start = System.nanoTime();
+        for (int i : order) {
+            Integer count = map.get(keys[i]);
+            map.put(keys[i], count == null ? 1 : count + 1);
+        }
+        return check(map, System.nanoTime() - start);
+    }
+
+    private static long merge(String[] keys, int[] order) {
+        HashMap<String, Integer> map = new HashMap<>();
+        long start = System.nanoTime();
+        for (int i : order) {
+            map.merge(keys[i], 1, Integer::sum);
+        }
+        return check(map, System.nanoTime() - start);
+    }
+
+    private static long computeIfAbsent(String[] keys, int[] order) {
+        HashMap<String, int[]> map = new HashMap<>();
+        long start = System.nanoTime();
+        for (int i : order) {
+            map.computeIfAbsent(keys[i], k -> new int[1])[0]++;
+        }
+        long cost = System.nanoTime() - start;
+        long total = 0;
+        for (int[] count : map.values()) {
+            total += count[0];
+        }
+        if (total != OPS) {
+            throw new IllegalStateException("total = " + total);
+        }
+        return cost;
+    }
+
+    private static long check(HashMap<String, Integer> map, long cost) {
+        long total = 0;
+        for (Integer count : map.values()) {
+            total += count;
+        }
+        if (total != OPS) {
+            throw new IllegalStateException("total = " + total);
+        }
+        return cost;
+    }
+}
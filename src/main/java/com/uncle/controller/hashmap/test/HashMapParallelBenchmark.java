@@ -0,0 +1,103 @@
+package com.uncle.controller.hashmap.test;
+
+import com.uncle.controller.hashmap.HashMap;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 大Map扫描: 单线程与fork-join并行 forEach/reduce/search/mapToLong 的耗时对比, 同时校验结果一致.
+ * 最后检查不并行时在调用线程执行, 在自己的ForkJoinPool里调用时子任务不跑到commonPool
+ * <p>
+ * 运行: java -Xmx4g com.uncle.controller.hashmap.test.HashMapParallelBenchmark [元素个数]
+ *
+ * @author 杨戬
+ * @className HashMapParallelBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 22:48
+ */
+public class HashMapParallelBenchmark {
+    private static final int DEFAULT_SIZE = 10_000_000;
+    private static final long[] THRESHOLDS = {Long.MAX_VALUE, 1_000_000, 100_000, 10_000};
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+        HashMap<Integer, Long> map = new HashMap<>(size * 2);
+        long expected = 0;
+        for (int i = 0; i < size; i++) {
+            long amount = (i * 31L) % 1000;
+            map.put(i * 0x9E3779B9, amount);
+            expected += amount;
+        }
+        Integer target = (size - 1) * 0x9E3779B9;
+        System.out.println("size = " + size + ", commonPool并行度 = " + ForkJoinPool.getCommonPoolParallelism());
+
+        for (long threshold : THRESHOLDS) {
+            long mapToLong = Long.MAX_VALUE;
+            long reduce = Long.MAX_VALUE;
+            long search = Long.MAX_VALUE;
+            long forEach = Long.MAX_VALUE;
+            // 第一轮是预热
+            for (int round = 0; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                long sum = map.mapToLong(threshold, (k, v) -> v, 0L, Long::sum);
+                long a = System.nanoTime() - start;
+                check(sum == expected, "mapToLong");
+
+                start = System.nanoTime();
+                Long max = map.reduce(threshold, (k, v) -> v, Math::max);
+                long b = System.nanoTime() - start;
+                check(max == 999L, "reduce");
+
+                start = System.nanoTime();
+                Integer found = map.search(threshold, (k, v) -> k.equals(target) ? k : null);
+                long c = System.nanoTime() - start;
+                check(target.equals(found), "search");
+
+                LongAdder adder = new LongAdder();
+                start = System.nanoTime();
+                map.forEach(threshold, (k, v) -> adder.add(v));
+                long d = System.nanoTime() - start;
+                check(adder.sum() == expected, "forEach");
+
+                if (round > 0) {
+                    mapToLong = Math.min(mapToLong, a);
+                    reduce = Math.min(reduce, b);
+                    search = Math.min(search, c);
+                    forEach = Math.min(forEach, d);
+                }
+            }
+            System.out.println((threshold == Long.MAX_VALUE ? "单线程        " : "threshold=" + threshold + "\t")
+                + " | mapToLong " + mapToLong / 1_000_000 + "ms"
+                + " | reduce " + reduce / 1_000_000 + "ms"
+                + " | search " + search / 1_000_000 + "ms"
+                + " | forEach " + forEach / 1_000_000 + "ms");
+        }
+
+        long start = System.nanoTime();
+        long sum = map.entrySet().parallelStream().mapToLong(e -> e.getValue()).sum();
+        check(sum == expected, "parallelStream");
+        System.out.println("entrySet().parallelStream() sum " + (System.nanoTime() - start) / 1_000_000 + "ms");
+
+        Thread caller = Thread.currentThread();
+        map.forEach(Long.MAX_VALUE, (k, v) -> check(Thread.currentThread() == caller, "forEach in caller"));
+        ForkJoinPool pool = new ForkJoinPool(2);
+        long inPool = pool.submit(() -> map.mapToLong(10_000, (k, v) -> {
+            Thread thread = Thread.currentThread();
+            check(thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread)thread).getPool() == pool,
+                "mapToLong in caller's pool");
+            return v;
+        }, 0L, Long::sum)).join();
+        check(inPool == expected, "mapToLong in pool");
+        pool.shutdown();
+        System.out.println("不并行时在调用线程执行, 在自己的池里调用时留在这个池里");
+    }
+
+    private static void check(boolean ok, String name) {
+        if (!ok) {
+            throw new IllegalStateException(name);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.uncle.controller.hashmap.test;
+
+import com.uncle.controller.hashmap.OffHeapHashMap;
+import com.uncle.controller.hashmap.Serializer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 堆外HashMap: 构建耗时/堆占用/随机get延迟/重新打开耗时
+ * <p>
+ * 运行: java -Xmx512m com.uncle.controller.hashmap.test.OffHeapHashMapBenchmark [元素个数] [目录]
+ *
+ * @author 杨戬
+ * @className OffHeapHashMapBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 20:26
+ */
+public class OffHeapHashMapBenchmark {
+    private static final long DEFAULT_SIZE = 50_000_000L;
+    private static final int LOOKUPS = 1_000_000;
+
+    public static void main(String[] args) throws IOException {
+        long size = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_SIZE;
+        Path dir = args.length > 1 ? Paths.get(args[1]) : Files.createTempDirectory("offheap");
+        Path path = dir.resolve("bench");
+        Files.deleteIfExists(Paths.get(path + ".idx"));
+        Files.deleteIfExists(Paths.get(path + ".dat"));
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        try (OffHeapHashMap<Long, Long> map = new OffHeapHashMap<>(path, Serializer.LONG, Serializer.LONG, size)) {
+            for (long i = 0; i < size; i++) {
+                map.put(i, i * 31);
+            }
+            System.out.println("构建 " + size + " 条耗时 " + (System.nanoTime() - start) / 1_000_000 + "ms, 堆增长 "
+                    + ((usedHeap() - heapBefore) >> 20) + "MB");
+            lookup(map, size);
+        }
+
+        start = System.nanoTime();
+        try (OffHeapHashMap<Long, Long> map = new OffHeapHashMap<>(path, Serializer.LONG, Serializer.LONG)) {
+            System.out.println("重新打开耗时 " + (System.nanoTime() - start) / 1_000 + "us, size = " + map.longSize());
+            lookup(map, size);
+        }
+    }
+
+    private static void lookup(OffHeapHashMap<Long, Long> map, long size) {
+        Random random = new Random(11);
+        Long[] keys = new Long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            keys[i] = (long) (random.nextDouble() * size);
+        }
+        // 预热
+        for (Long key : keys) {
+            map.get(key);
+        }
+        long[] costs = new long[LOOKUPS];
+        long begin = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            long t = System.nanoTime();
+            Long value = map.get(keys[i]);
+            costs[i] = System.nanoTime() - t;
+            if (value == null || value != keys[i] * 31) {
+                throw new IllegalStateException("key = " + keys[i]);
+            }
+        }
+        long total = System.nanoTime() - begin;
+        Arrays.sort(costs);
+        System.out.println("随机get " + LOOKUPS + "次, 平均 " + total / LOOKUPS + "ns, p50=" + costs[LOOKUPS / 2]
+                + "ns, p99=" + costs[(int) (LOOKUPS * 0.99)] + "ns");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,95 @@
+package com.uncle.controller.hashmap.test;
+
+import com.uncle.controller.hashmap.IntObjectHashMap;
+import com.uncle.controller.hashmap.LongLongHashMap;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 原始类型Map与java.util.HashMap的内存占用及get分配对比
+ * <p>
+ * 运行: java -Xmx6g -XX:+UseParallelGC com.uncle.controller.hashmap.test.PrimitiveMapBenchmark [元素个数]
+ *
+ * @author 杨戬
+ * @className PrimitiveMapBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 17:48
+ */
+public class PrimitiveMapBenchmark {
+    private static final int DEFAULT_SIZE = 10_000_000;
+    private static final int LOOKUPS = 1_000_000;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+
+        long base = usedHeap();
+        java.util.Map<Long, Long> boxed = new java.util.HashMap<>();
+        for (int i = 0; i < size; i++) {
+            boxed.put(id(i), (long) i);
+        }
+        long boxedBytes = usedHeap() - base;
+        boxed = null;
+
+        base = usedHeap();
+        LongLongHashMap primitive = new LongLongHashMap(size, -1L);
+        for (int i = 0; i < size; i++) {
+            primitive.put(id(i), i);
+        }
+        long primitiveBytes = usedHeap() - base;
+
+        System.out.println("size = " + size);
+        System.out.println("java.util.HashMap<Long, Long> " + (boxedBytes >> 20) + "MB, "
+                + boxedBytes / size + " bytes/entry");
+        System.out.println("LongLongHashMap               " + (primitiveBytes >> 20) + "MB, "
+                + primitiveBytes / size + " bytes/entry");
+        System.out.println("内存节省 " + String.format("%.1f", (double) boxedBytes / primitiveBytes) + "x");
+
+        // get分配: 预热后统计当前线程在LOOKUPS次get期间分配的字节数
+        long sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += primitive.get(id(i % size));
+        }
+        long allocated = allocatedBytes();
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += primitive.get(id(i % size));
+        }
+        allocated = allocatedBytes() - allocated;
+        System.out.println("LongLongHashMap " + LOOKUPS + "次get分配 " + allocated + " bytes (checksum " + sum + ")");
+
+        IntObjectHashMap<String> bins = new IntObjectHashMap<>();
+        String visa = "VISA";
+        for (int i = 400000; i < 500000; i++) {
+            bins.put(i, visa);
+        }
+        int hits = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            hits += bins.get(400000 + i % 100000) == null ? 0 : 1;
+        }
+        allocated = allocatedBytes();
+        for (int i = 0; i < LOOKUPS; i++) {
+            hits += bins.get(400000 + i % 100000) == null ? 0 : 1;
+        }
+        allocated = allocatedBytes() - allocated;
+        System.out.println("IntObjectHashMap " + LOOKUPS + "次get分配 " + allocated + " bytes (hits " + hits + ")");
+    }
+
+    /**
+     * 模拟用户id, 不连续
+     */
+    private static long id(int i) {
+        return 100_000_000L + i * 7L;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -3,6 +3,7 @@ package com.uncle.controller.mongo.service.impl;
 import com.uncle.controller.mongo.dao.ManMongoDAO;
 import com.uncle.controller.mongo.service.ManMongoService;
 import com.uncle.controller.mongo.bo.Man;
+import com.uncle.controller.redisson.NearCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -21,22 +22,30 @@ public class ManMongoServiceImpl implements ManMongoService {
 
     @Resource
     private ManMongoDAO manMongoDAO;
+    /**
+     * 按id/按name查询的两级缓存, key为 id:xxx / name:xxx
+     */
+    @Resource
+    private NearCache<Man> manNearCache;
 
     @Override
     public void insert(Man man) {
         manMongoDAO.insert(man);
+        // 按name查询可能之前查不到或查到的是另一条
+        manNearCache.invalidate("id:" + man.getId());
+        manNearCache.invalidate("name:" + man.getName());
         log.info("新增man数据成功{}", man);
     }
 
     @Override
     public Man selectByName(String name) {
         log.info("根据name查询man：{}", name);
-        return manMongoDAO.selectByName(name);
+        return manNearCache.get("name:" + name, key -> manMongoDAO.selectByName(name));
     }
 
     @Override
     public Man selectById(String id) {
-        return manMongoDAO.selectById(id);
+        return manNearCache.get("id:" + id, key -> manMongoDAO.selectById(id));
     }
 
     @Override
@@ -0,0 +1,42 @@
+package com.uncle.controller.redisson;
+
+/**
+ * {@link DistributedRedisLock#acquireAsync(String)} 返回的锁凭证
+ * <p>
+ * 异步加锁的回调不在发起请求的线程上执行, Redis锁用每次加锁一个的虚拟线程id持有, 记在凭证里,
+ * 释放时交回 {@link DistributedRedisLock#releaseAsync} 即可, 任何线程都可以释放.
+ * 没有看门狗时fencing token为0
+ *
+ * @author 杨戬
+ * @className AsyncMutex
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 10:40
+ */
+public class AsyncMutex extends FencedMutex {
+    private final String key;
+    private final long ownerId;
+    private final long acquiredAt = System.nanoTime();
+
+    AsyncMutex(String lockName, long fencingToken, String key, long ownerId) {
+        super(lockName, fencingToken);
+        this.key = key;
+        this.ownerId = ownerId;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    long getOwnerId() {
+        return ownerId;
+    }
+
+    long getAcquiredAt() {
+        return acquiredAt;
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncMutex{" + getLockName() + ", token=" + getFencingToken() + ", owner=" + ownerId + "}";
+    }
+}
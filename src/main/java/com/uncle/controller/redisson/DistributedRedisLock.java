@@ -2,9 +2,13 @@ package com.uncle.controller.redisson;
 
 import com.sun.corba.se.impl.orbutil.concurrent.Mutex;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RFuture;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -23,6 +27,19 @@ public class DistributedRedisLock {
     }*/
 
     private RedissonClient redissonClient;
+    /**
+     * 本地优先模式, 为null时每次都直接竞争Redis锁
+     */
+    private LocalFirstRedisLock localFirstLock;
+    private MultiLock multiLock;
+    /**
+     * 看门狗模式, 为null时使用固定的 {@link #LEASE_TIME}
+     */
+    private LockWatchdog watchdog;
+    /**
+     * 监控指标, 为null时不统计
+     */
+    private LockMetrics metrics;
 
     public RedissonClient getRedissonClient() {
         return redissonClient;
@@ -30,24 +47,94 @@ public class DistributedRedisLock {
 
     public void setRedissonClient(RedissonClient redissonClient) {
         this.redissonClient = redissonClient;
+        this.multiLock = new MultiLock(redissonClient);
+    }
+
+    /**
+     * 本地优先模式: 同一个key在本JVM内先排队, 整个JVM只持有一次Redis锁并在本地线程间交接,
+     * 见 {@link LocalFirstRedisLock}. 需要在setRedissonClient之后调用
+     */
+    public void setLocalFirst(boolean localFirst) {
+        this.localFirstLock = localFirst ? new LocalFirstRedisLock(redissonClient, watchdog) : null;
+    }
+
+    public boolean isLocalFirst() {
+        return localFirstLock != null;
+    }
+
+    /**
+     * 看门狗模式: 用短租期加锁, 持有期间后台续期, 进程挂掉后最多一个租期锁就会释放;
+     * {@link #acquire(String)} 返回带fencing token的 {@link FencedMutex}, 见 {@link LockWatchdog}.
+     * 需要在setRedissonClient之后调用
+     *
+     * @param leaseSeconds 租期秒数, 0为关闭, 使用固定的600秒租期
+     */
+    public void setWatchdogLeaseSeconds(long leaseSeconds) {
+        if (watchdog != null) {
+            watchdog.close();
+        }
+        this.watchdog = leaseSeconds > 0 ? new LockWatchdog(redissonClient, leaseSeconds, TimeUnit.SECONDS) : null;
+        if (localFirstLock != null) {
+            this.localFirstLock = new LocalFirstRedisLock(redissonClient, watchdog);
+        }
+    }
+
+    public boolean isWatchdog() {
+        return watchdog != null;
+    }
+
+    /**
+     * 开启监控指标(按锁名前缀的加锁耗时、持有时间、等待和失败次数, 争抢最多的key), 可以注册到JMX
+     *
+     * @return 监控指标
+     */
+    public LockMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new LockMetrics();
+        }
+        return metrics;
     }
 
     private static final String LOCK_TITLE = "redisLock_";
+    private static final long WAIT_TIME = 3L;
+    private static final long LEASE_TIME = 600L;
 
+    /**
+     * @return 看门狗模式下是 {@link FencedMutex}; 超时返回null
+     */
     public Mutex acquire(String lockName) {
-        Mutex mutex = new Mutex();
+        LockMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0L;
+        Mutex mutex = null;
         String key = LOCK_TITLE + lockName;
-        RLock mylock = redissonClient.getLock(key);
-        boolean b = true;
+        boolean b = false;
         try {
             //3L==等待时间 600L==过期时间
-            b = mylock.tryLock(3L, 600L, TimeUnit.SECONDS);
-            log.info("======lock====== tryLock_result {}", b);
-
+            long leaseMillis = leaseMillis();
+            if (localFirstLock != null) {
+                long token = localFirstLock.tryLock(key, TimeUnit.SECONDS.toMillis(WAIT_TIME), leaseMillis,
+                    TimeUnit.MILLISECONDS);
+                b = token != LocalFirstRedisLock.NOT_LOCKED;
+                mutex = watchdog != null ? new FencedMutex(lockName, token) : new Mutex();
+            } else {
+                b = redissonClient.getLock(key).tryLock(TimeUnit.SECONDS.toMillis(WAIT_TIME), leaseMillis,
+                    TimeUnit.MILLISECONDS);
+                if (b && watchdog != null) {
+                    mutex = fence(key, lockName);
+                    b = mutex != null;
+                } else {
+                    mutex = new Mutex();
+                }
+            }
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        }
+        if (metrics != null) {
+            metrics.recordAcquire(lockName, System.nanoTime() - start, b);
+            if (b) {
+                metrics.held(lockName);
+            }
         }
-        log.info("======lock======{}", Thread.currentThread().getName());
         if (b) {
             return mutex;
         } else {
@@ -57,8 +144,209 @@ public class DistributedRedisLock {
 
     public void release(String lockName) {
         String key = LOCK_TITLE + lockName;
-        RLock mylock = redissonClient.getLock(key);
-        mylock.unlock();
-        log.info("======unlock======{}", Thread.currentThread().getName());
+        if (metrics != null) {
+            metrics.released(lockName);
+        }
+        if (localFirstLock != null) {
+            localFirstLock.unlock(key);
+        } else {
+            if (watchdog != null) {
+                watchdog.unwatch(key, Thread.currentThread().getId());
+            }
+            RLock mylock = redissonClient.getLock(key);
+            mylock.unlock();
+        }
+    }
+
+    /**
+     * 异步加锁, 等待 {@link #WAIT_TIME} 秒, 见 {@link #acquireAsync(String, long, TimeUnit)}
+     */
+    public CompletableFuture<Mutex> acquireAsync(String lockName) {
+        return acquireAsync(lockName, WAIT_TIME, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 异步加锁: 等锁期间不占线程, 靠Redisson的pub/sub通知; 适合Controller直接返回CompletableFuture.
+     * 回调在Redisson的netty线程上执行, 拿到锁之后的耗时操作要切到业务线程池(thenApplyAsync等)
+     * <p>
+     * 每次加锁用一个新的虚拟线程id持有Redis锁, 不可重入, 不经过本地优先模式.
+     * 调用方取消或提前完成(比如自己的超时)返回的future后, 如果锁才到手会马上释放掉
+     *
+     * @param waitTime 最长等待时间
+     * @return {@link AsyncMutex}, 要用 {@link #releaseAsync(Mutex)} 释放; 超时时结果为null
+     */
+    public CompletableFuture<Mutex> acquireAsync(String lockName, long waitTime, TimeUnit unit) {
+        String key = LOCK_TITLE + lockName;
+        long ownerId = LocalFirstRedisLock.nextOwnerId();
+        LockWatchdog watchdog = this.watchdog;
+        LockMetrics metrics = this.metrics;
+        long start = System.nanoTime();
+        CompletableFuture<Mutex> result = new CompletableFuture<>();
+        RFuture<Boolean> future = redissonClient.getLock(key)
+            .tryLockAsync(unit.toMillis(waitTime), leaseMillis(), TimeUnit.MILLISECONDS, ownerId);
+        future.whenComplete((locked, t) -> {
+            if (t != null) {
+                result.completeExceptionally(t);
+            } else if (!Boolean.TRUE.equals(locked)) {
+                result.complete(null);
+            } else if (watchdog == null) {
+                complete(result, new AsyncMutex(lockName, 0L, key, ownerId));
+            } else {
+                watchdog.watch(key, ownerId);
+                watchdog.fenceAsync(key, ownerId).whenComplete((fence, e) -> {
+                    if (e != null) {
+                        unlockAsync(key, ownerId, watchdog);
+                        result.completeExceptionally(e);
+                    } else if (fence == null) {
+                        // 取token之前锁已经过期被别人拿走, 按没拿到处理
+                        watchdog.unwatch(key, ownerId);
+                        log.warn("lock {} lost before fencing", key);
+                        result.complete(null);
+                    } else {
+                        complete(result, new AsyncMutex(lockName, LockWatchdog.token(fence, 0), key, ownerId));
+                    }
+                });
+            }
+        });
+        result.whenComplete((mutex, t) -> {
+            if (result.isCancelled()) {
+                future.cancel(false);
+            } else if (metrics != null && t == null) {
+                metrics.recordAcquire(lockName, System.nanoTime() - start, mutex != null);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 释放 {@link #acquireAsync(String)} 拿到的锁, 可以在任意线程调用
+     */
+    public CompletableFuture<Void> releaseAsync(Mutex mutex) {
+        if (!(mutex instanceof AsyncMutex)) {
+            throw new IllegalArgumentException("Not acquired by acquireAsync: " + mutex);
+        }
+        AsyncMutex asyncMutex = (AsyncMutex)mutex;
+        if (metrics != null) {
+            metrics.recordHold(asyncMutex.getLockName(), System.nanoTime() - asyncMutex.getAcquiredAt());
+        }
+        return unlockAsync(asyncMutex.getKey(), asyncMutex.getOwnerId(), watchdog);
+    }
+
+    /**
+     * 调用方已经取消或完成了future, 锁来晚了, 释放掉
+     */
+    private void complete(CompletableFuture<Mutex> result, AsyncMutex mutex) {
+        if (!result.complete(mutex)) {
+            unlockAsync(mutex.getKey(), mutex.getOwnerId(), watchdog).whenComplete((v, t) -> {
+                if (t != null) {
+                    log.error("unlock {} failed", mutex.getKey(), t);
+                }
+            });
+        }
+    }
+
+    private CompletableFuture<Void> unlockAsync(String key, long ownerId, LockWatchdog watchdog) {
+        if (watchdog != null) {
+            watchdog.unwatch(key, ownerId);
+        }
+        return redissonClient.getLock(key).unlockAsync(ownerId).toCompletableFuture();
+    }
+
+    /**
+     * 一次加多把锁, 比如账户、订单、优惠券; 一次Redis往返, 要么全部加上要么一个都不加, 见 {@link MultiLock}.
+     * 不经过本地优先模式, 同一个key不要和 {@link #acquire(String)} 混用
+     *
+     * @param lockNames 锁名, 顺序无关, 重复的只加一次
+     * @return 超时返回null
+     */
+    public Mutex acquireAll(String... lockNames) {
+        long start = metrics != null ? System.nanoTime() : 0L;
+        List<String> keys = keys(lockNames);
+        try {
+            if (multiLock.tryLock(keys, TimeUnit.SECONDS.toMillis(WAIT_TIME), leaseMillis(), TimeUnit.MILLISECONDS)) {
+                if (watchdog != null) {
+                    for (String key : keys) {
+                        watchdog.watch(key, Thread.currentThread().getId());
+                    }
+                }
+                recordAcquireAll(lockNames, start, true);
+                return new Mutex();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        recordAcquireAll(lockNames, start, false);
+        return null;
+    }
+
+    /**
+     * 释放 {@link #acquireAll(String...)} 加的锁, 一次Redis往返
+     */
+    public void releaseAll(String... lockNames) {
+        List<String> keys = keys(lockNames);
+        if (metrics != null) {
+            for (String lockName : lockNames) {
+                metrics.released(lockName);
+            }
+        }
+        if (watchdog != null) {
+            for (String key : keys) {
+                watchdog.unwatch(key, Thread.currentThread().getId());
+            }
+        }
+        multiLock.unlock(keys);
+    }
+
+    /**
+     * 每个锁名记一次, 耗时相同
+     */
+    private void recordAcquireAll(String[] lockNames, long start, boolean locked) {
+        LockMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        for (String lockName : lockNames) {
+            metrics.recordAcquire(lockName, nanos, locked);
+            if (locked) {
+                metrics.held(lockName);
+            }
+        }
+    }
+
+    private long leaseMillis() {
+        return watchdog != null ? watchdog.getLeaseMillis() : TimeUnit.SECONDS.toMillis(LEASE_TIME);
+    }
+
+    /**
+     * 直接竞争Redis锁成功后登记续期并取fencing token, 取token出错时释放锁
+     *
+     * @return 取token之前锁已经过期被别人拿走时为null
+     */
+    private FencedMutex fence(String key, String lockName) {
+        long threadId = Thread.currentThread().getId();
+        watchdog.watch(key, threadId);
+        Long fence;
+        try {
+            fence = watchdog.fence(key, threadId);
+        } catch (RuntimeException e) {
+            watchdog.unwatch(key, threadId);
+            redissonClient.getLock(key).unlock();
+            throw e;
+        }
+        if (fence == null) {
+            watchdog.unwatch(key, threadId);
+            log.warn("lock {} lost before fencing", key);
+            return null;
+        }
+        return new FencedMutex(lockName, LockWatchdog.token(fence, 0));
+    }
+
+    private static List<String> keys(String... lockNames) {
+        List<String> keys = new ArrayList<>(lockNames.length);
+        for (String lockName : lockNames) {
+            keys.add(LOCK_TITLE + lockName);
+        }
+        return keys;
     }
 }
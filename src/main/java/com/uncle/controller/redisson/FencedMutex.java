@@ -0,0 +1,37 @@
+package com.uncle.controller.redisson;
+
+import com.sun.corba.se.impl.orbutil.concurrent.Mutex;
+
+/**
+ * 带fencing token的锁凭证
+ * <p>
+ * 同一个锁名, 后拿到锁的持有者token一定更大. 下游写入(比如Mongo更新)带上token, 存储端只接受不小于已见过的token,
+ * 这样租期过期后还在写的旧持有者(GC停顿、网络分区)会被拒绝
+ *
+ * @author 杨戬
+ * @className FencedMutex
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 09:40
+ */
+public class FencedMutex extends Mutex {
+    private final String lockName;
+    private final long fencingToken;
+
+    public FencedMutex(String lockName, long fencingToken) {
+        this.lockName = lockName;
+        this.fencingToken = fencingToken;
+    }
+
+    public String getLockName() {
+        return lockName;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    @Override
+    public String toString() {
+        return "FencedMutex{" + lockName + ", token=" + fencingToken + "}";
+    }
+}
@@ -0,0 +1,144 @@
+package com.uncle.controller.redisson;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 热点key: Count-Min Sketch估算每个key的次数, 再用一个大小为k的小顶堆留下次数最多的k个key
+ * <p>
+ * sketch是4行计数器, 每个key每行一个, 取最小值作为估算值(只会多估不会少估), 用CAS累加不加锁.
+ * 只有估算值超过堆顶时才进同步块更新堆, 大部分冷key的记录不碰锁.
+ * 累计记录次数达到 {@link #DECAY_PERIOD} 时所有计数减半, 过去的热点逐渐冷却
+ *
+ * @author 杨戬
+ * @className HotKeySketch
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 11:10
+ */
+final class HotKeySketch {
+    private static final long[] SEED = {0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL,
+        0xCBF29CE484222325L};
+    static final int DECAY_PERIOD = 1 << 20;
+
+    private final int k;
+    private final int widthMask;
+    private final AtomicLongArray table;
+    private final PriorityQueue<Node> heap;
+    private final Map<String, Node> nodes = new HashMap<>();
+    /**
+     * 堆满时的堆顶估算值, 没满时为0
+     */
+    private volatile long threshold;
+    private final AtomicInteger records = new AtomicInteger();
+
+    /**
+     * @param k     保留的热点key个数
+     * @param width 每行计数器个数, 取整到2的幂
+     */
+    HotKeySketch(int k, int width) {
+        int capacity = Integer.highestOneBit(Math.max(width, 2) * 2 - 1);
+        this.k = k;
+        this.widthMask = capacity - 1;
+        this.table = new AtomicLongArray(capacity * SEED.length);
+        this.heap = new PriorityQueue<>(k, (a, b) -> Long.compare(a.count, b.count));
+    }
+
+    void increment(String key) {
+        int hash = spread(key.hashCode());
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < SEED.length; i++) {
+            estimate = Math.min(estimate, table.incrementAndGet(indexOf(hash, i)));
+        }
+        if (estimate > threshold) {
+            offer(key, estimate);
+        }
+        if (records.incrementAndGet() % DECAY_PERIOD == 0) {
+            decay();
+        }
+    }
+
+    long estimate(String key) {
+        int hash = spread(key.hashCode());
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < SEED.length; i++) {
+            estimate = Math.min(estimate, table.get(indexOf(hash, i)));
+        }
+        return estimate;
+    }
+
+    /**
+     * @return "key=估算次数", 次数从高到低
+     */
+    synchronized String[] top() {
+        List<Node> sorted = new ArrayList<>(heap);
+        sorted.sort((a, b) -> Long.compare(b.count, a.count));
+        String[] top = new String[sorted.size()];
+        for (int i = 0; i < top.length; i++) {
+            top[i] = sorted.get(i).key + "=" + sorted.get(i).count;
+        }
+        return top;
+    }
+
+    private synchronized void offer(String key, long estimate) {
+        Node node = nodes.get(key);
+        if (node != null) {
+            heap.remove(node);
+            node.count = estimate;
+            heap.add(node);
+        } else if (heap.size() < k) {
+            node = new Node(key, estimate);
+            nodes.put(key, node);
+            heap.add(node);
+        } else if (estimate > heap.peek().count) {
+            nodes.remove(heap.poll().key);
+            node = new Node(key, estimate);
+            nodes.put(key, node);
+            heap.add(node);
+        }
+        threshold = heap.size() < k ? 0L : heap.peek().count;
+    }
+
+    /**
+     * 所有计数减半, 期间并发的累加可能丢一次, 估算值本来就是近似的
+     */
+    private synchronized void decay() {
+        for (int i = 0; i < table.length(); i++) {
+            long count = table.get(i);
+            table.compareAndSet(i, count, count >>> 1);
+        }
+        List<Node> all = new ArrayList<>(heap);
+        heap.clear();
+        for (Node node : all) {
+            node.count >>>= 1;
+            heap.add(node);
+        }
+        threshold = heap.size() < k ? 0L : heap.peek().count;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEED[i]) * SEED[i];
+        h += h >>> 32;
+        return i * (widthMask + 1) + ((int)h & widthMask);
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45D9F3B;
+        x = ((x >>> 16) ^ x) * 0x45D9F3B;
+        return (x >>> 16) ^ x;
+    }
+
+    private static final class Node {
+        final String key;
+        long count;
+
+        Node(String key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.uncle.controller.redisson;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RScript;
+import org.redisson.api.RScriptAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.LongCodec;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 两级限流: 每个key(商户号、卡号)在Redis里一个全局令牌桶, 每个节点本地一个令牌桶, 本地令牌从全局桶里成批领取
+ * <p>
+ * {@link #tryAcquire(String)} 只对本地的AtomicLong做CAS减一, 不加锁不访问网络. 本地令牌剩四分之一时异步领下一批;
+ * 本地令牌用完而全局桶还不知道空没空时, 等正在领的这一批(一次往返)再决定, 不直接拒绝.
+ * 一个key在本节点第一次用时先放行这一个请求, 从第一批里扣, 不等Redis;
+ * 所有节点共用一个调度线程, 每个实例每 {@link #RECONCILE_MILLIS} 毫秒对账一次: 按上个周期的用量调整每批的大小
+ * (用光过就翻倍, 不超过burst), 把所有需要补充的key放进一个RBatch一次往返领完;
+ * 连续 {@link #IDLE_ROUNDS} 个周期没用的key把剩下的令牌还回全局桶并移除.
+ * <p>
+ * 全局桶已经空了的key不再每次被拒绝都去Redis, 只在对账时重试, 超限的流量不会打到Redis上.
+ * 每个节点最多提前领一个周期左右的用量, 全局限额是近似的: 误差不超过 节点数 * 每批大小.
+ * Redis不可用时领不到令牌, 本地令牌用完后拒绝
+ *
+ * @author 杨戬
+ * @className HybridRateLimiter
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 11:40
+ */
+@Slf4j
+public class HybridRateLimiter implements Closeable {
+    /**
+     * 全局令牌桶, 按时间补充后取出 min(现有整数令牌, 请求个数) 个, 返回取到的个数; 请求个数为负数时是归还.
+     * 时间用客户端的, 比上次记录的还早时按上次算
+     * KEYS[1]: 桶; ARGV: 每秒令牌数, 桶容量, 请求个数, 当前毫秒
+     */
+    static final String TAKE_SCRIPT =
+        "local rate = tonumber(ARGV[1]); "
+            + "local capacity = tonumber(ARGV[2]); "
+            + "local requested = tonumber(ARGV[3]); "
+            + "local now = tonumber(ARGV[4]); "
+            + "local bucket = redis.call('hmget', KEYS[1], 'tokens', 'ts'); "
+            + "local tokens = capacity; "
+            + "if bucket[1] then "
+            + "local ts = tonumber(bucket[2]); "
+            + "if now < ts then now = ts; end; "
+            + "tokens = math.min(capacity, tonumber(bucket[1]) + (now - ts) * rate / 1000); "
+            + "end; "
+            + "local granted = requested; "
+            + "if requested > 0 then granted = math.min(math.floor(tokens), requested); end; "
+            + "tokens = math.min(capacity, tokens - granted); "
+            + "redis.call('hmset', KEYS[1], 'tokens', tostring(tokens), 'ts', now); "
+            + "redis.call('pexpire', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000); "
+            + "return granted;";
+    static final long RECONCILE_MILLIS = 100L;
+    static final int IDLE_ROUNDS = 50;
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rate-limiter-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final RedissonClient redissonClient;
+    private final String keyPrefix;
+    private final long permitsPerSecond;
+    private final long burst;
+    /**
+     * 每批最少领取的令牌数, 四分之一个突发, 至少2个(不超过burst): 低速率的key领一次也能撑住一个往返内的第二个请求
+     */
+    private final long minBatch;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> task;
+
+    /**
+     * @param keyPrefix        Redis里全局桶的key前缀, 后面拼上限流的key
+     * @param permitsPerSecond 每个key全集群每秒的令牌数
+     * @param burst            全局桶容量, 允许的突发
+     */
+    public HybridRateLimiter(RedissonClient redissonClient, String keyPrefix, long permitsPerSecond, long burst) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.redissonClient = redissonClient;
+        this.keyPrefix = keyPrefix;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.minBatch = Math.min(burst, Math.max(2L, burst / 4));
+        this.task = SCHEDULER.scheduleWithFixedDelay(this::reconcile, RECONCILE_MILLIS, RECONCILE_MILLIS,
+            TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 取一个令牌. 本地有令牌时只是一次CAS; 本地用完时最多等一次正在进行的领取, 全局桶已经空了的直接拒绝
+     *
+     * @return 没有令牌(被限流)返回false
+     */
+    public boolean tryAcquire(String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            Bucket created = new Bucket(minBatch);
+            bucket = buckets.putIfAbsent(key, created);
+            if (bucket == null) {
+                // 本节点第一次用这个key, 令牌从-1开始: 这个请求先放行, 从第一批里扣
+                lease(key, created, created.leasing.get(), minBatch);
+                return true;
+            }
+        }
+        boolean waited = false;
+        while (true) {
+            long tokens = bucket.tokens.get();
+            if (tokens <= 0) {
+                if (bucket.removed) {
+                    return tryAcquire(key);
+                }
+                CompletableFuture<Void> leasing = waited ? null : leaseAsync(key, bucket);
+                if (leasing == null) {
+                    if (!bucket.starved) {
+                        bucket.starved = true;
+                    }
+                    return false;
+                }
+                leasing.join();
+                waited = true;
+                continue;
+            }
+            if (bucket.tokens.compareAndSet(tokens, tokens - 1)) {
+                if (tokens <= bucket.refillAt) {
+                    leaseAsync(key, bucket);
+                }
+                return true;
+            }
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    /**
+     * 没有在领并且全局桶上次还有令牌时, 异步领一批
+     *
+     * @return 正在进行的领取(可能是别的线程或者对账发起的), 全局桶上次没给够时返回null
+     */
+    private CompletableFuture<Void> leaseAsync(String key, Bucket bucket) {
+        if (bucket.exhausted) {
+            return null;
+        }
+        CompletableFuture<Void> leasing = bucket.leasing.get();
+        if (leasing != null) {
+            return leasing;
+        }
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        if (!bucket.leasing.compareAndSet(null, created)) {
+            leasing = bucket.leasing.get();
+            return leasing != null ? leasing : CompletableFuture.completedFuture(null);
+        }
+        lease(key, bucket, created, bucket.batch);
+        return created;
+    }
+
+    private void lease(String key, Bucket bucket, CompletableFuture<Void> leasing, long request) {
+        try {
+            take(key, request).whenComplete((granted, t) -> {
+                complete(key, bucket, request, granted, t);
+                bucket.release(leasing);
+            });
+        } catch (RuntimeException e) {
+            complete(key, bucket, request, null, e);
+            bucket.release(leasing);
+        }
+    }
+
+    private void complete(String key, Bucket bucket, long request, Long granted, Throwable t) {
+        if (t != null) {
+            log.warn("lease {} permits of {} failed", request, key, t);
+        } else {
+            bucket.add(granted);
+            bucket.exhausted = granted < request;
+        }
+    }
+
+    private RFuture<Long> take(String key, long permits) {
+        return redissonClient.getScript(LongCodec.INSTANCE).evalAsync(RScript.Mode.READ_WRITE, TAKE_SCRIPT,
+            RScript.ReturnType.INTEGER, Collections.singletonList(keyPrefix + key), permitsPerSecond, burst,
+            permits, System.currentTimeMillis());
+    }
+
+    /**
+     * 按上个周期的用量调整每批大小, 补充令牌, 归还并移除闲置的key, 一次往返
+     */
+    private void reconcile() {
+        List<String> keys = new ArrayList<>();
+        List<Bucket> targets = new ArrayList<>();
+        List<Long> requests = new ArrayList<>();
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            long used = bucket.leased.get() - bucket.tokens.get();
+            long consumed = Math.max(0L, used - bucket.used);
+            bucket.used = used;
+            boolean starved = bucket.starved;
+            bucket.idleRounds = consumed > 0 || starved ? 0 : bucket.idleRounds + 1;
+            CompletableFuture<Void> leasing = new CompletableFuture<>();
+            if (!bucket.leasing.compareAndSet(null, leasing)) {
+                continue;
+            }
+            if (bucket.idleRounds >= IDLE_ROUNDS) {
+                bucket.removed = true;
+                buckets.remove(entry.getKey(), bucket);
+                long rest = bucket.tokens.getAndSet(0L);
+                if (rest > 0) {
+                    keys.add(entry.getKey());
+                    targets.add(bucket);
+                    requests.add(-rest);
+                }
+                continue;
+            }
+            // 全局桶不够时翻倍也领不到, 只会和别的节点抢
+            long batch = starved && !bucket.exhausted ? Math.max(consumed, bucket.batch) * 2 : consumed;
+            bucket.resize(Math.max(minBatch, Math.min(burst, batch)));
+            bucket.starved = false;
+            long tokens = bucket.tokens.get();
+            if (tokens < bucket.batch) {
+                keys.add(entry.getKey());
+                targets.add(bucket);
+                requests.add(bucket.batch - tokens);
+            } else {
+                bucket.release(leasing);
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        execute(keys, targets, requests);
+    }
+
+    private void execute(List<String> keys, List<Bucket> targets, List<Long> requests) {
+        RBatch batch = redissonClient.createBatch();
+        RScriptAsync script = batch.getScript(LongCodec.INSTANCE);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keyPrefix + keys.get(i);
+            script.evalAsync(key, RScript.Mode.READ_WRITE, TAKE_SCRIPT, RScript.ReturnType.INTEGER,
+                Collections.singletonList(key), permitsPerSecond, burst, requests.get(i), now);
+        }
+        try {
+            List<?> responses = batch.execute().getResponses();
+            for (int i = 0; i < responses.size(); i++) {
+                if (requests.get(i) > 0) {
+                    complete(keys.get(i), targets.get(i), requests.get(i), (Long)responses.get(i), null);
+                }
+            }
+        } catch (RuntimeException e) {
+            // 下个周期再试
+            log.warn("reconcile {} rate limit buckets failed", keys.size(), e);
+        } finally {
+            for (Bucket bucket : targets) {
+                bucket.release(bucket.leasing.get());
+            }
+        }
+    }
+
+    /**
+     * 停止对账, 把本地剩下的令牌还回全局桶
+     */
+    @Override
+    public void close() {
+        task.cancel(false);
+        List<String> keys = new ArrayList<>();
+        List<Bucket> targets = new ArrayList<>();
+        List<Long> requests = new ArrayList<>();
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            bucket.removed = true;
+            long rest = bucket.tokens.getAndSet(0L);
+            if (rest > 0) {
+                keys.add(entry.getKey());
+                targets.add(bucket);
+                requests.add(-rest);
+            }
+        }
+        buckets.clear();
+        if (!keys.isEmpty()) {
+            execute(keys, targets, requests);
+        }
+    }
+
+    private static final class Bucket {
+        /**
+         * 可以是负数: 第一个请求先放行, 欠的从第一批里扣
+         */
+        final AtomicLong tokens = new AtomicLong(-1L);
+        /**
+         * 累计领到的令牌数, 减去tokens就是累计用掉的
+         */
+        final AtomicLong leased = new AtomicLong();
+        /**
+         * 正在进行的领取, 领完时完成并置null; 同一时间只有一个, 异步领取和对账共用.
+         * 本地令牌用完的请求等它
+         */
+        final AtomicReference<CompletableFuture<Void>> leasing = new AtomicReference<>();
+        volatile long batch;
+        /**
+         * 剩余令牌不超过这个数时异步领下一批
+         */
+        volatile long refillAt;
+        /**
+         * 上个周期有请求因为没有令牌被拒绝
+         */
+        volatile boolean starved;
+        /**
+         * 全局桶上次没给够, 对账之前不再异步领取
+         */
+        volatile boolean exhausted;
+        volatile boolean removed;
+        /**
+         * 以下只在对账线程读写
+         */
+        long used;
+        int idleRounds;
+
+        /**
+         * 创建时就在领第一批
+         */
+        Bucket(long batch) {
+            resize(batch);
+            leasing.set(new CompletableFuture<>());
+        }
+
+        void resize(long batch) {
+            this.batch = batch;
+            // 至少在取走最后一个时预取, 每批只有两三个的低速率key也不用等令牌用完
+            this.refillAt = Math.max(1L, batch >> 2);
+        }
+
+        /**
+         * 先置null再唤醒, 醒来的请求看到的是没在领
+         */
+        void release(CompletableFuture<Void> leasing) {
+            if (leasing != null) {
+                this.leasing.compareAndSet(leasing, null);
+                leasing.complete(null);
+            }
+        }
+
+        void add(long granted) {
+            leased.addAndGet(granted);
+            tokens.addAndGet(granted);
+        }
+    }
+}
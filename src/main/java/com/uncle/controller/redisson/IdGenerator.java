@@ -0,0 +1,18 @@
+package com.uncle.controller.redisson;
+
+/**
+ * 全局唯一ID
+ *
+ * @author 杨戬
+ * @className IdGenerator
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 08:10
+ */
+public interface IdGenerator {
+    /**
+     * 下一个ID
+     *
+     * @return 大于0, 本节点内递增
+     */
+    long nextId();
+}
@@ -0,0 +1,78 @@
+package com.uncle.controller.redisson;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 耗时分布, 思路同HdrHistogram: 按微秒记录, 每个2的幂区间再等分 {@link #SUB_BUCKETS} / 2 份,
+ * 相对误差不超过 1 / {@link #SUB_BUCKETS} * 2 (约6%), 最大 {@link #MAX_MICROS}, 更大的算在最后一个桶里.
+ * 每次记录一次CAS, 不加锁, 不分配内存; 读取时各个桶之间不是同一时刻的快照
+ *
+ * @author 杨戬
+ * @className LatencyHistogram
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 11:10
+ */
+final class LatencyHistogram {
+    static final int SUB_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    static final long MAX_MICROS = TimeUnit.SECONDS.toMicros(60);
+    private static final int HALF = SUB_BUCKETS >> 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_MICROS) + 1);
+
+    void record(long nanos) {
+        long micros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0L), MAX_MICROS);
+        counts.incrementAndGet(indexOf(micros));
+    }
+
+    /**
+     * @param quantile 0~1
+     * @return 所在桶的上界, 没有数据时为0
+     */
+    long percentileMicros(double quantile) {
+        long[] snapshot = new long[counts.length()];
+        long count = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        long rank = (long)Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank && seen > 0) {
+                return upperBound(i);
+            }
+        }
+        return 0L;
+    }
+
+    long maxMicros() {
+        for (int i = counts.length() - 1; i >= 0; i--) {
+            if (counts.get(i) > 0) {
+                return upperBound(i);
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * 小于 {@link #SUB_BUCKETS} 的值一个桶一个值; 之后每翻一倍 HALF 个桶, 下标连续
+     */
+    static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int)micros;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(micros) - SUB_BITS;
+        return shift * HALF + (int)(micros >>> shift);
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF - 1;
+        return ((long)(index % HALF + HALF + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,237 @@
+package com.uncle.controller.redisson;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RFuture;
+import org.redisson.api.RedissonClient;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 本地优先的两级锁
+ * <p>
+ * 同一个key在本JVM内先竞争一把公平的本地锁, 拿到本地锁的线程再去拿Redis锁. Redis锁用实例级的虚拟线程id持有,
+ * 不属于某个具体线程: 释放时如果还有本地线程在等同一个key, 只放本地锁, Redis锁直接交给下一个本地线程,
+ * N个本地竞争者只需要一次网络往返.
+ * <p>
+ * 为了不让其它JVM饿死, 也不让Redis锁的租期在接力中过期, 连续交接 {@link #MAX_HANDOFFS} 次以后,
+ * 或者Redis锁已经持有超过租期一半时, 先释放Redis锁再重新竞争.
+ * <p>
+ * 本地锁按key引用计数, 没有线程持有或等待时从表里移除.
+ * <p>
+ * 看门狗模式下只在真正拿到Redis锁时取一次fencing token, 本地交接的持有者在此基础上加交接序号,
+ * 整条接力链的token仍然递增, 不多一次网络往返
+ *
+ * @author 杨戬
+ * @className LocalFirstRedisLock
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 06:10
+ */
+@Slf4j
+class LocalFirstRedisLock {
+    static final int MAX_HANDOFFS = 64;
+    static final long NOT_LOCKED = -1L;
+    private static final AtomicLong OWNER_IDS = new AtomicLong();
+
+    private final RedissonClient redissonClient;
+    /**
+     * 本实例持有Redis锁使用的线程id
+     */
+    private final long ownerId = nextOwnerId();
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    /**
+     * 看门狗, 为null时用固定租期, 没有fencing token
+     */
+    private final LockWatchdog watchdog;
+
+    LocalFirstRedisLock(RedissonClient redissonClient, LockWatchdog watchdog) {
+        this.redissonClient = redissonClient;
+        this.watchdog = watchdog;
+    }
+
+    /**
+     * @param key       Redis锁的key
+     * @param waitTime  本地等待和Redis等待合计的最长时间
+     * @param leaseTime Redis锁的租期
+     * @return fencing token, 没有看门狗时为0; 超时返回 {@link #NOT_LOCKED}
+     */
+    long tryLock(String key, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(waitTime);
+        Entry entry = retain(key);
+        boolean locked = false;
+        try {
+            if (!entry.local.tryLock(waitTime, unit)) {
+                return NOT_LOCKED;
+            }
+            try {
+                // 重入, 或者上一个本地持有者交接过来
+                if (entry.remoteHeld) {
+                    locked = true;
+                    return LockWatchdog.token(entry.fence, entry.handoffs);
+                }
+                long remaining = TimeUnit.NANOSECONDS.toMillis(Math.max(0L, deadline - System.nanoTime()));
+                long leaseMillis = unit.toMillis(leaseTime);
+                if (!lockRemote(key, remaining, leaseMillis)) {
+                    return NOT_LOCKED;
+                }
+                entry.remoteHeld = true;
+                entry.handoffs = 0;
+                entry.acquiredAt = System.nanoTime();
+                entry.leaseNanos = TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+                if (watchdog != null) {
+                    watchdog.watch(key, ownerId);
+                    Long fence;
+                    try {
+                        fence = watchdog.fence(key, ownerId);
+                    } catch (RuntimeException e) {
+                        entry.remoteHeld = false;
+                        unlockRemote(key);
+                        throw e;
+                    }
+                    // 取token之前锁已经过期被别人拿走
+                    if (fence == null) {
+                        entry.remoteHeld = false;
+                        watchdog.unwatch(key, ownerId);
+                        log.warn("lock {} lost before fencing", key);
+                        return NOT_LOCKED;
+                    }
+                    entry.fence = fence;
+                }
+                locked = true;
+                return LockWatchdog.token(entry.fence, 0);
+            } finally {
+                if (!locked) {
+                    entry.local.unlock();
+                }
+            }
+        } finally {
+            if (!locked) {
+                release(key);
+            }
+        }
+    }
+
+    /**
+     * 必须由加锁的线程调用
+     */
+    void unlock(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.local.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("Lock " + key + " is not held by " + Thread.currentThread().getName());
+        }
+        try {
+            if (entry.local.getHoldCount() == 1 && !handOff(entry)) {
+                entry.remoteHeld = false;
+                unlockRemote(key);
+            }
+        } finally {
+            entry.local.unlock();
+            release(key);
+        }
+    }
+
+    /**
+     * 本地还有线程在等, 且没有超过交接次数和时间限制时, 保留Redis锁交给下一个线程
+     */
+    private boolean handOff(Entry entry) {
+        if (entry.refs <= 1 || entry.handoffs >= MAX_HANDOFFS
+            || System.nanoTime() - entry.acquiredAt > entry.leaseNanos >> 1) {
+            return false;
+        }
+        entry.handoffs++;
+        return true;
+    }
+
+    private boolean lockRemote(String key, long waitMillis, long leaseMillis) throws InterruptedException {
+        RFuture<Boolean> future = redissonClient.getLock(key)
+            .tryLockAsync(waitMillis, leaseMillis, TimeUnit.MILLISECONDS, ownerId);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // 请求已经发出, 之后成功的话要释放掉, 否则要等租期到了才能被别人拿到
+            future.whenComplete((ok, t) -> {
+                if (Boolean.TRUE.equals(ok)) {
+                    unlockRemoteAsync(key);
+                }
+            });
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException)cause : new IllegalStateException(cause);
+        }
+    }
+
+    private void unlockRemote(String key) {
+        if (watchdog != null) {
+            watchdog.unwatch(key, ownerId);
+        }
+        redissonClient.getLock(key).unlockAsync(ownerId).toCompletableFuture().join();
+    }
+
+    private void unlockRemoteAsync(String key) {
+        if (watchdog != null) {
+            watchdog.unwatch(key, ownerId);
+        }
+        redissonClient.getLock(key).unlockAsync(ownerId).whenComplete((v, t) -> {
+            if (t != null) {
+                log.error("unlock {} failed", key, t);
+            }
+        });
+    }
+
+    private Entry retain(String key) {
+        return entries.compute(key, (k, entry) -> {
+            if (entry == null) {
+                entry = new Entry();
+            }
+            entry.refs++;
+            return entry;
+        });
+    }
+
+    /**
+     * 最后一个引用释放时移除; Redis锁交接给的线程等待超时离开时, 由它负责释放Redis锁
+     */
+    private void release(String key) {
+        entries.computeIfPresent(key, (k, entry) -> {
+            if (--entry.refs > 0) {
+                return entry;
+            }
+            if (entry.remoteHeld) {
+                entry.remoteHeld = false;
+                unlockRemoteAsync(key);
+            }
+            return null;
+        });
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * 不属于具体线程的Redis锁持有者id, 取负数避免和真实线程id冲突
+     */
+    static long nextOwnerId() {
+        return -OWNER_IDS.incrementAndGet();
+    }
+
+    private static final class Entry {
+        final ReentrantLock local = new ReentrantLock(true);
+        /**
+         * 持有和等待本地锁的线程数, 只在ConcurrentHashMap.compute里修改
+         */
+        volatile int refs;
+        /**
+         * 以下字段在持有本地锁时读写, refs为0时没有线程持有本地锁
+         */
+        volatile boolean remoteHeld;
+        int handoffs;
+        long fence;
+        long acquiredAt;
+        long leaseNanos;
+    }
+}
@@ -0,0 +1,222 @@
+package com.uncle.controller.redisson;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DistributedRedisLock监控指标, 通过 {@link DistributedRedisLock#enableMetrics()} 开启
+ * <p>
+ * 按锁名前缀(第一个 '_' 或 ':' 及之前的部分, 比如 order_123 算在 order_ 下)分别统计加锁次数、失败次数、等待次数,
+ * 加锁耗时和持有时间的分布 {@link LatencyHistogram}. 前缀最多 {@link #MAX_PREFIXES} 个, 之后的都算在 {@link #OTHER} 下.
+ * 加锁耗时超过 {@link #WAIT_THRESHOLD_MICROS} 算一次等待, 等待和失败的锁名记进 {@link HotKeySketch}, 找出争抢最多的key.
+ * <p>
+ * 都是LongAdder和CAS计数, 不加锁; 同步加锁的持有时间记在线程本地, 异步加锁的记在 {@link AsyncMutex} 里
+ *
+ * @author 杨戬
+ * @className LockMetrics
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 11:10
+ */
+public class LockMetrics implements LockMetricsMBean {
+    static final int MAX_PREFIXES = 64;
+    static final String OTHER = "*";
+    /**
+     * 一次Redis往返以内拿到锁不算等待
+     */
+    static final long WAIT_THRESHOLD_MICROS = 2_000L;
+    static final int HOT_KEYS = 20;
+
+    private final ConcurrentHashMap<String, PrefixStats> prefixes = new ConcurrentHashMap<>();
+    private final HotKeySketch hotKeys = new HotKeySketch(HOT_KEYS, 4096);
+    /**
+     * 当前线程持有的锁 -&gt; {重入次数, 拿到锁的时刻}
+     */
+    private final ThreadLocal<Map<String, long[]>> holding = ThreadLocal.withInitial(HashMap::new);
+
+    LockMetrics() {
+    }
+
+    /**
+     * @param nanos 加锁耗时
+     */
+    void recordAcquire(String lockName, long nanos, boolean locked) {
+        PrefixStats stats = stats(lockName);
+        stats.acquires.increment();
+        stats.acquireLatency.record(nanos);
+        boolean waited = TimeUnit.NANOSECONDS.toMicros(nanos) > WAIT_THRESHOLD_MICROS;
+        if (waited) {
+            stats.waits.increment();
+        }
+        if (!locked) {
+            stats.failures.increment();
+        }
+        if (waited || !locked) {
+            hotKeys.increment(lockName);
+        }
+    }
+
+    void recordHold(String lockName, long nanos) {
+        stats(lockName).holdTime.record(nanos);
+    }
+
+    /**
+     * 当前线程拿到锁, 重入的只记最外层
+     */
+    void held(String lockName) {
+        long[] hold = holding.get().computeIfAbsent(lockName, k -> new long[]{0L, System.nanoTime()});
+        hold[0]++;
+    }
+
+    /**
+     * 当前线程释放锁, 最外层释放时记录持有时间
+     */
+    void released(String lockName) {
+        Map<String, long[]> held = holding.get();
+        long[] hold = held.get(lockName);
+        if (hold != null && --hold[0] == 0) {
+            held.remove(lockName);
+            recordHold(lockName, System.nanoTime() - hold[1]);
+        }
+    }
+
+    /**
+     * @param quantile 0~1
+     * @return 该前缀的加锁耗时分位数(微秒), 没有数据时为0
+     */
+    public long acquirePercentileMicros(String prefix, double quantile) {
+        PrefixStats stats = prefixes.get(prefix);
+        return stats == null ? 0L : stats.acquireLatency.percentileMicros(quantile);
+    }
+
+    /**
+     * @param quantile 0~1
+     * @return 该前缀的持有时间分位数(微秒), 没有数据时为0
+     */
+    public long holdPercentileMicros(String prefix, double quantile) {
+        PrefixStats stats = prefixes.get(prefix);
+        return stats == null ? 0L : stats.holdTime.percentileMicros(quantile);
+    }
+
+    /**
+     * 注册到平台MBeanServer, ObjectName为 com.uncle.controller.redisson:type=DistributedRedisLock,name={name}
+     *
+     * @param name 名称
+     * @return ObjectName
+     * @throws JMException 注册失败
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(
+            "com.uncle.controller.redisson:type=DistributedRedisLock,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * 从平台MBeanServer注销
+     *
+     * @param objectName 注册时返回的ObjectName
+     * @throws JMException 注销失败
+     */
+    public static void unregister(ObjectName objectName) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    @Override
+    public long getAcquireCount() {
+        long count = 0;
+        for (PrefixStats stats : prefixes.values()) {
+            count += stats.acquires.sum();
+        }
+        return count;
+    }
+
+    @Override
+    public long getFailureCount() {
+        long count = 0;
+        for (PrefixStats stats : prefixes.values()) {
+            count += stats.failures.sum();
+        }
+        return count;
+    }
+
+    @Override
+    public double getFailureRate() {
+        long acquires = getAcquireCount();
+        return acquires == 0 ? 0.0 : (double)getFailureCount() / acquires;
+    }
+
+    @Override
+    public long getWaitCount() {
+        long count = 0;
+        for (PrefixStats stats : prefixes.values()) {
+            count += stats.waits.sum();
+        }
+        return count;
+    }
+
+    @Override
+    public String[] getPrefixStats() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, PrefixStats> entry : new TreeMap<>(prefixes).entrySet()) {
+            PrefixStats stats = entry.getValue();
+            long acquires = stats.acquires.sum();
+            lines.add(entry.getKey() + " acquires=" + acquires + " failures=" + stats.failures.sum()
+                + " waits=" + stats.waits.sum()
+                + " acquireMicros[p50=" + stats.acquireLatency.percentileMicros(0.5)
+                + " p99=" + stats.acquireLatency.percentileMicros(0.99)
+                + " max=" + stats.acquireLatency.maxMicros() + "]"
+                + " holdMicros[p50=" + stats.holdTime.percentileMicros(0.5)
+                + " p99=" + stats.holdTime.percentileMicros(0.99)
+                + " max=" + stats.holdTime.maxMicros() + "]");
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    @Override
+    public String[] getHotKeys() {
+        return hotKeys.top();
+    }
+
+    private PrefixStats stats(String lockName) {
+        String prefix = prefixOf(lockName);
+        PrefixStats stats = prefixes.get(prefix);
+        if (stats != null) {
+            return stats;
+        }
+        if (prefixes.size() >= MAX_PREFIXES) {
+            prefix = OTHER;
+        }
+        return prefixes.computeIfAbsent(prefix, k -> new PrefixStats());
+    }
+
+    static String prefixOf(String lockName) {
+        for (int i = 0; i < lockName.length(); i++) {
+            char c = lockName.charAt(i);
+            if (c == '_' || c == ':') {
+                return lockName.substring(0, i + 1);
+            }
+        }
+        return lockName;
+    }
+
+    private static final class PrefixStats {
+        final LongAdder acquires = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder waits = new LongAdder();
+        final LatencyHistogram acquireLatency = new LatencyHistogram();
+        final LatencyHistogram holdTime = new LatencyHistogram();
+    }
+}
@@ -0,0 +1,41 @@
+package com.uncle.controller.redisson;
+
+/**
+ * 分布式锁监控指标的JMX接口
+ *
+ * @author 杨戬
+ * @className LockMetricsMBean
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 11:10
+ */
+public interface LockMetricsMBean {
+    /**
+     * 加锁次数, 包括失败的
+     */
+    long getAcquireCount();
+
+    /**
+     * 等锁超时的次数
+     */
+    long getFailureCount();
+
+    /**
+     * 失败次数 / 加锁次数
+     */
+    double getFailureRate();
+
+    /**
+     * 加锁耗时超过等待阈值的次数, 即锁被别人占着需要等的次数
+     */
+    long getWaitCount();
+
+    /**
+     * 每个锁名前缀一行: 次数、失败、等待, 加锁耗时和持有时间的p50/p99/max(微秒)
+     */
+    String[] getPrefixStats();
+
+    /**
+     * 等待或失败最多的锁名, "锁名=估算次数", 从高到低
+     */
+    String[] getHotKeys();
+}
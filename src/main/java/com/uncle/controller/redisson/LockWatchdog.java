@@ -0,0 +1,229 @@
+package com.uncle.controller.redisson;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RScript;
+import org.redisson.api.RScriptAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.LongCodec;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 锁续期和fencing token
+ * <p>
+ * 加锁用短租期, 持有期间由看门狗每三分之一租期续一次; 进程挂掉后最多一个租期锁就会释放, 不用等固定的600秒.
+ * 所有实例共用一个调度线程, 每个实例一个定时任务: 每次把当前持有的所有锁放进一个RBatch, 一次往返续完,
+ * 不是每把锁一个线程或一个定时器. 续期时发现锁已经不是自己的(租期已过被别人拿走), 停止续期并打错误日志.
+ * <p>
+ * fencing token来自每个锁一个Redis计数器, 拿到锁之后在同一个脚本里先确认锁还是自己的再INCR, 所以后拿到锁的持有者token更大;
+ * 计数器 {@link #FENCE_TTL_MILLIS} 没用就过期, 锁名带订单号之类的也不会越积越多. 计数器不小于Redis的当前时间(微秒),
+ * 过期后重建的计数器从当前时间开始, 仍然比之前发过的token大(只要Redis的时钟没有往回调过).
+ * 拿到锁之后、取token之前停顿太久(GC、网络分区)锁已经被别人拿走的, 脚本返回nil, 这次加锁算失败.
+ * 本地优先模式下一次Redis加锁会在本地交接多次, token = 计数器 * {@link #TOKENS_PER_FENCE} + 交接序号,
+ * 直接竞争Redis锁时交接序号为0, 两种模式的节点混用同一把锁时token也是递增的
+ *
+ * @author 杨戬
+ * @className LockWatchdog
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 09:40
+ */
+@Slf4j
+class LockWatchdog implements Closeable {
+    /**
+     * 还是自己持有时重置租期, 返回1; 否则返回0. 数据结构同RedissonLock
+     * KEYS[1]: 锁; ARGV[1]: 租期毫秒, ARGV[2]: 持有者
+     */
+    static final String RENEW_SCRIPT =
+        "if redis.call('hexists', KEYS[1], ARGV[2]) == 1 then "
+            + "redis.call('pexpire', KEYS[1], ARGV[1]); "
+            + "return 1; "
+            + "end; "
+            + "return 0;";
+    /**
+     * 还是自己持有时计数器加一(不小于Redis当前微秒数), 重置过期时间并返回, 否则返回nil
+     * KEYS[1]: 锁, KEYS[2]: 计数器; ARGV[1]: 持有者, ARGV[2]: 计数器过期毫秒
+     */
+    static final String FENCE_SCRIPT =
+        "redis.replicate_commands(); "
+            + "if redis.call('hexists', KEYS[1], ARGV[1]) == 1 then "
+            + "local time = redis.call('time'); "
+            + "local now = tonumber(time[1]) * 1000000 + tonumber(time[2]); "
+            + "local fence = redis.call('incr', KEYS[2]); "
+            + "if fence < now then "
+            + "fence = now; "
+            + "redis.call('set', KEYS[2], string.format('%.0f', now)); "
+            + "end; "
+            + "redis.call('pexpire', KEYS[2], ARGV[2]); "
+            + "return fence; "
+            + "end; "
+            + "return nil;";
+    static final String FENCE_SUFFIX = ":fence";
+    static final long FENCE_TTL_MILLIS = TimeUnit.HOURS.toMillis(1L);
+    static final int TOKENS_PER_FENCE = LocalFirstRedisLock.MAX_HANDOFFS + 1;
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "redis-lock-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final RedissonClient redissonClient;
+    private final long leaseMillis;
+    /**
+     * 持有中的锁 -&gt; 重入次数, 同一把锁释放后再拿到时是新的Holds对象
+     */
+    private final ConcurrentHashMap<Lease, Holds> leases = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> task;
+
+    LockWatchdog(RedissonClient redissonClient, long leaseTime, TimeUnit unit) {
+        this.redissonClient = redissonClient;
+        this.leaseMillis = unit.toMillis(leaseTime);
+        if (leaseMillis < 3) {
+            throw new IllegalArgumentException("leaseTime too short: " + leaseMillis + "ms");
+        }
+        long period = leaseMillis / 3;
+        this.task = SCHEDULER.scheduleWithFixedDelay(this::renew, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    long getLeaseMillis() {
+        return leaseMillis;
+    }
+
+    /**
+     * 加锁成功后登记
+     *
+     * @param threadId Redisson持有者里的线程id
+     */
+    void watch(String key, long threadId) {
+        leases.compute(new Lease(key, threadId), (lease, holds) -> {
+            if (holds == null) {
+                holds = new Holds();
+            }
+            holds.count++;
+            return holds;
+        });
+    }
+
+    /**
+     * 解锁前注销, 重入的锁最后一次才真正移除
+     */
+    void unwatch(String key, long threadId) {
+        leases.computeIfPresent(new Lease(key, threadId), (lease, holds) -> --holds.count > 0 ? holds : null);
+    }
+
+    /**
+     * 持有锁之后调用, 计数器加一
+     *
+     * @param threadId Redisson持有者里的线程id
+     * @return 锁已经不是自己的时为null
+     */
+    Long fence(String key, long threadId) {
+        return redissonClient.getScript(LongCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, FENCE_SCRIPT,
+            RScript.ReturnType.INTEGER, fenceKeys(key), redissonClient.getId() + ":" + threadId, FENCE_TTL_MILLIS);
+    }
+
+    /**
+     * {@link #fence(String, long)} 的异步版本
+     */
+    RFuture<Long> fenceAsync(String key, long threadId) {
+        return redissonClient.getScript(LongCodec.INSTANCE).evalAsync(RScript.Mode.READ_WRITE, FENCE_SCRIPT,
+            RScript.ReturnType.INTEGER, fenceKeys(key), redissonClient.getId() + ":" + threadId, FENCE_TTL_MILLIS);
+    }
+
+    /**
+     * 计数器和锁在同一个slot: 锁没有hash tag时把整个锁名作为计数器的hash tag
+     */
+    private static List<Object> fenceKeys(String key) {
+        return Arrays.asList(key, (key.contains("{") ? key : "{" + key + "}") + FENCE_SUFFIX);
+    }
+
+    /**
+     * @param handoffs 本地交接序号, 不超过 {@link LocalFirstRedisLock#MAX_HANDOFFS}
+     */
+    static long token(long fence, int handoffs) {
+        return fence * TOKENS_PER_FENCE + handoffs;
+    }
+
+    int size() {
+        return leases.size();
+    }
+
+    private void renew() {
+        if (leases.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Lease, Holds>> snapshot = new ArrayList<>(leases.entrySet());
+        String clientId = redissonClient.getId();
+        RBatch batch = redissonClient.createBatch();
+        RScriptAsync script = batch.getScript(LongCodec.INSTANCE);
+        for (Map.Entry<Lease, Holds> entry : snapshot) {
+            Lease lease = entry.getKey();
+            script.evalAsync(lease.key, RScript.Mode.READ_WRITE, RENEW_SCRIPT, RScript.ReturnType.INTEGER,
+                Collections.singletonList(lease.key), leaseMillis, clientId + ":" + lease.threadId);
+        }
+        try {
+            List<?> responses = batch.execute().getResponses();
+            for (int i = 0; i < responses.size(); i++) {
+                if (!Long.valueOf(1L).equals(responses.get(i))) {
+                    Map.Entry<Lease, Holds> entry = snapshot.get(i);
+                    // 期间释放后又拿到的是新的Holds, 不会被误删
+                    if (leases.remove(entry.getKey(), entry.getValue())) {
+                        log.error("lock {} lost before renewal", entry.getKey().key);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // 下个周期再试, 租期还剩三分之二
+            log.warn("renew {} locks failed", snapshot.size(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        task.cancel(false);
+        leases.clear();
+    }
+
+    private static final class Lease {
+        final String key;
+        final long threadId;
+
+        Lease(String key, long threadId) {
+            this.key = key;
+            this.threadId = threadId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Lease)) {
+                return false;
+            }
+            Lease lease = (Lease)o;
+            return threadId == lease.threadId && key.equals(lease.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, threadId);
+        }
+    }
+
+    private static final class Holds {
+        int count;
+    }
+}
@@ -0,0 +1,143 @@
+package com.uncle.controller.redisson;
+
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.LongCodec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多个key一起加锁、一起解锁, 各一次Redis往返
+ * <p>
+ * 加锁和解锁各是一段Lua脚本, 在Redis里原子地检查、修改所有key: 任何一个key被别人持有就一个都不加.
+ * 数据结构和Redisson的RLock一样(hash, field为 客户端id:线程id, 值为重入次数), 所以同一个key可以和
+ * {@link org.redisson.api.RLock} 混用: 互斥, 同一线程可重入, 解锁时照样发布解锁消息唤醒RLock的等待者.
+ * <p>
+ * key排序去重后再发送, 顺序固定; 加锁失败时退避重试直到超时.
+ * 集群模式下一段脚本的key必须在同一个slot, 需要用 {xxx} 这样的hash tag
+ *
+ * @author 杨戬
+ * @className MultiLock
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 07:10
+ */
+class MultiLock {
+    /**
+     * 全部可以加锁时加锁并返回0, 否则返回第一个被别人持有的key的下标(从1开始)
+     * KEYS: 锁; ARGV[1]: 租期毫秒, ARGV[2]: 持有者
+     */
+    static final String LOCK_SCRIPT =
+        "for i = 1, #KEYS do "
+            + "if redis.call('exists', KEYS[i]) == 1 and redis.call('hexists', KEYS[i], ARGV[2]) == 0 then "
+            + "return i; "
+            + "end; "
+            + "end; "
+            + "for i = 1, #KEYS do "
+            + "redis.call('hincrby', KEYS[i], ARGV[2], 1); "
+            + "redis.call('pexpire', KEYS[i], ARGV[1]); "
+            + "end; "
+            + "return 0;";
+    /**
+     * 释放当前持有者的每个key, 重入次数减到0时删除并发布解锁消息, 返回实际持有的key个数
+     * KEYS: 前一半是锁, 后一半是对应的频道; ARGV[1]: 解锁消息, ARGV[2]: 持有者
+     */
+    static final String UNLOCK_SCRIPT =
+        "local n = #KEYS / 2; "
+            + "local held = 0; "
+            + "for i = 1, n do "
+            + "if redis.call('hexists', KEYS[i], ARGV[2]) == 1 then "
+            + "held = held + 1; "
+            + "if redis.call('hincrby', KEYS[i], ARGV[2], -1) <= 0 then "
+            + "redis.call('del', KEYS[i]); "
+            + "redis.call('publish', KEYS[n + i], ARGV[1]); "
+            + "end; "
+            + "end; "
+            + "end; "
+            + "return held;";
+    /**
+     * 与RedissonLock的频道名和解锁消息一致, 频道名见 {@link #channel(Object)}
+     */
+    private static final String CHANNEL_PREFIX = "redisson_lock__channel";
+    private static final long UNLOCK_MESSAGE = 0L;
+    private static final long MIN_BACKOFF_MILLIS = 1L;
+    private static final long MAX_BACKOFF_MILLIS = 64L;
+
+    private final RedissonClient redissonClient;
+
+    MultiLock(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    /**
+     * 当前线程对所有key加锁
+     *
+     * @return 全部加锁成功; 超时返回false, 此时一个都没有加
+     */
+    boolean tryLock(Collection<String> keys, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+        List<Object> sorted = sort(keys);
+        long deadline = System.nanoTime() + unit.toNanos(waitTime);
+        String owner = owner();
+        long leaseMillis = unit.toMillis(leaseTime);
+        long backoff = MIN_BACKOFF_MILLIS;
+        while (true) {
+            Long blocked = redissonClient.getScript(LongCodec.INSTANCE)
+                .eval(RScript.Mode.READ_WRITE, LOCK_SCRIPT, RScript.ReturnType.INTEGER, sorted, leaseMillis, owner);
+            if (blocked == 0L) {
+                return true;
+            }
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(Math.min(backoff, remaining));
+            backoff = Math.min(backoff << 1, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    /**
+     * 当前线程释放所有key
+     *
+     * @throws IllegalMonitorStateException 有key不是当前线程持有的(比如租期已过), 其余key照常释放
+     */
+    void unlock(Collection<String> keys) {
+        List<Object> sorted = sort(keys);
+        int n = sorted.size();
+        List<Object> keysAndChannels = new ArrayList<>(n << 1);
+        keysAndChannels.addAll(sorted);
+        for (Object key : sorted) {
+            keysAndChannels.add(channel(key));
+        }
+        Long held = redissonClient.getScript(LongCodec.INSTANCE)
+            .eval(RScript.Mode.READ_WRITE, UNLOCK_SCRIPT, RScript.ReturnType.INTEGER, keysAndChannels,
+                UNLOCK_MESSAGE, owner());
+        if (held != n) {
+            throw new IllegalMonitorStateException((n - held) + " of " + sorted + " not locked by current thread");
+        }
+    }
+
+    /**
+     * 与Redisson的prefixName一致: key里已经有hash tag时不再加括号, 和key在同一个slot, RLock的等待者订阅的也是它
+     */
+    private static String channel(Object key) {
+        String name = key.toString();
+        return name.contains("{") ? CHANNEL_PREFIX + ":" + name : CHANNEL_PREFIX + ":{" + name + "}";
+    }
+
+    /**
+     * 与RedissonLock.getLockName(threadId)一致
+     */
+    private String owner() {
+        return redissonClient.getId() + ":" + Thread.currentThread().getId();
+    }
+
+    private static List<Object> sort(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("keys is empty");
+        }
+        return new ArrayList<>(new TreeSet<>(keys));
+    }
+}
@@ -0,0 +1,233 @@
+package com.uncle.controller.redisson;
+
+import com.uncle.controller.hashmap.BoundedCache;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 两级缓存: 本地 {@link BoundedCache}(W-TinyLFU, 写入后过期) + Redis RMapCache, 都没有时调用loader(查库)
+ * <p>
+ * 1.本地缓存按key的hash分成 {@link #SEGMENTS} 段, 每段一把锁, BoundedCache的get会调整访问顺序, 不能并发读
+ * 2.同一个key同时未命中时只有第一个线程去Redis和数据库, 其它线程等它的结果
+ * 3.数据变更后调用 {@link #invalidate(String)}: 删Redis, 删本地, 再通过Redis pub/sub通知所有节点删本地.
+ * 加载期间本节点已经收到失效通知的, 加载结果不放进本地缓存也不写Redis.
+ * 别的节点在通知到达之前查库读到旧值并写回Redis的, 靠 {@link #SECOND_INVALIDATE_DELAY_MILLIS} 之后的第二次删除和通知清掉,
+ * 所以查库加写Redis超过这个时间的旧值仍可能留到Redis过期
+ * 4.pub/sub不保证送达(断线期间的通知会丢), 本地缓存的过期时间就是最长的不一致时间, 要设短一些
+ * 5.Redis出错时跳过远程缓存直接查库; loader返回null不缓存
+ * <p>
+ * 本地缓存里的对象是共享的, 调用方不要修改返回的对象
+ *
+ * @author 杨戬
+ * @className NearCache
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 12:10
+ */
+@Slf4j
+public class NearCache<V> implements Closeable {
+    static final int SEGMENTS = 16;
+    static final String INVALIDATE_SUFFIX = ":invalidate";
+    /**
+     * 第二次删除的延迟, 要大于一次查库加写Redis的时间
+     */
+    static final long SECOND_INVALIDATE_DELAY_MILLIS = 1_000L;
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "near-cache-invalidator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+    private final Segment<V>[] segments;
+    private final RMapCache<String, V> remote;
+    private final long remoteTtlMillis;
+    private final RTopic topic;
+    private final int listenerId;
+    private final ConcurrentHashMap<String, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+
+    /**
+     * @param name         RMapCache的名字, 失效通知的频道是 name + {@link #INVALIDATE_SUFFIX}
+     * @param localSize    本地缓存最多元素个数
+     * @param localTtl     本地缓存写入后过期时间
+     * @param remoteTtl    Redis缓存写入后过期时间
+     * @param codec        Redis缓存的编码, 值没有实现Serializable时用JsonJacksonCodec
+     */
+    @SuppressWarnings("unchecked")
+    public NearCache(RedissonClient redissonClient, String name, int localSize, long localTtl, long remoteTtl,
+        TimeUnit unit, Codec codec) {
+        this.name = name;
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>(Math.max(1, localSize / SEGMENTS), localTtl, unit);
+        }
+        this.remote = redissonClient.getMapCache(name, codec);
+        this.remoteTtlMillis = unit.toMillis(remoteTtl);
+        this.topic = redissonClient.getTopic(name + INVALIDATE_SUFFIX, StringCodec.INSTANCE);
+        this.listenerId = topic.addListener(String.class, (channel, key) -> invalidateLocal(key));
+    }
+
+    /**
+     * @param loader 本地和Redis都没有时调用, 比如查库
+     * @return loader也返回null时为null
+     */
+    public V get(String key, Function<String, V> loader) {
+        Segment<V> segment = segmentFor(key);
+        V value;
+        synchronized (segment) {
+            value = segment.cache.get(key);
+        }
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException)e.getCause() : e;
+            }
+        }
+        try {
+            // 上一个加载可能在第一次未命中和putIfAbsent之间刚结束并放进了本地缓存
+            synchronized (segment) {
+                value = segment.cache.get(key);
+            }
+            if (value != null) {
+                localHits.increment();
+            } else {
+                value = load(segment, key, loader);
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * 数据变更之后调用, 所有节点的本地缓存和Redis缓存都删掉; {@link #SECOND_INVALIDATE_DELAY_MILLIS} 之后再删一次,
+     * 清掉别的节点在通知到达之前写回的旧值
+     */
+    public void invalidate(String key) {
+        remove(key);
+        SCHEDULER.schedule(() -> remove(key), SECOND_INVALIDATE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void remove(String key) {
+        try {
+            remote.fastRemove(key);
+        } catch (RuntimeException e) {
+            log.warn("remove {} from {} failed", key, name, e);
+        }
+        invalidateLocal(key);
+        try {
+            topic.publish(key);
+        } catch (RuntimeException e) {
+            log.warn("publish invalidation of {} to {} failed", key, name, e);
+        }
+    }
+
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    public long getRemoteHits() {
+        return remoteHits.sum();
+    }
+
+    /**
+     * 调用loader的次数
+     */
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    private V load(Segment<V> segment, String key, Function<String, V> loader) {
+        long epoch = segment.epoch;
+        V value = null;
+        boolean remoteAvailable = true;
+        try {
+            value = remote.get(key);
+        } catch (RuntimeException e) {
+            remoteAvailable = false;
+            log.warn("get {} from {} failed", key, name, e);
+        }
+        if (value != null) {
+            remoteHits.increment();
+        } else {
+            loads.increment();
+            value = loader.apply(key);
+            if (value != null && remoteAvailable && segment.epoch == epoch) {
+                try {
+                    remote.fastPut(key, value, remoteTtlMillis, TimeUnit.MILLISECONDS);
+                } catch (RuntimeException e) {
+                    log.warn("put {} to {} failed", key, name, e);
+                }
+            }
+        }
+        if (value != null) {
+            synchronized (segment) {
+                // 加载期间这一段收到过失效通知, 读到的可能是旧值
+                if (segment.epoch == epoch) {
+                    segment.cache.put(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    private void invalidateLocal(String key) {
+        Segment<V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.epoch++;
+            segment.cache.remove(key);
+        }
+    }
+
+    private Segment<V> segmentFor(String key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * 取消订阅失效通知
+     */
+    @Override
+    public void close() {
+        topic.removeListener(listenerId);
+    }
+
+    private static final class Segment<V> {
+        final BoundedCache<String, V> cache;
+        /**
+         * 失效次数, 在锁里写; 写Redis之前不加锁读, 只是尽量少写旧值, 漏掉的靠第二次删除
+         */
+        volatile long epoch;
+
+        Segment(int maximumSize, long ttl, TimeUnit unit) {
+            this.cache = new BoundedCache<>(maximumSize, BoundedCache.Policy.W_TINY_LFU, ttl, unit);
+        }
+    }
+}
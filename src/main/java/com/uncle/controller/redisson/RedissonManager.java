@@ -1,14 +1,19 @@
 package com.uncle.controller.redisson;
 
+import com.uncle.controller.mongo.bo.Man;
+import lombok.extern.slf4j.Slf4j;
 import org.redisson.Redisson;
-import org.redisson.api.RAtomicLong;
 import org.redisson.api.RedissonClient;
+import org.redisson.codec.JsonJacksonCodec;
 import org.redisson.config.Config;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.management.JMException;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author 杨戬
  * @className RedissonManager
@@ -16,8 +21,13 @@ import org.springframework.context.annotation.Configuration;
  * @date 19-8-15 17:33
  */
 @Configuration
+@Slf4j
 public class RedissonManager {
     private static final String RAtomicName = "genId_";
+    private static final String SNOWFLAKE_WORKER_PREFIX = "{genId_worker}_";
+    private static final String MERCHANT_LIMIT_PREFIX = "rateLimit_merchant_";
+    private static final String CARD_LIMIT_PREFIX = "rateLimit_card_";
+    private static final String MAN_CACHE_NAME = "cache_man";
     private static final String redis = "redis://";
     private Config config = new Config();
     private RedissonClient redisson = null;
@@ -26,41 +36,133 @@ public class RedissonManager {
     private String redisHost;
     @Value("${spring.redis.port}")
     private String redisPort;
+    /**
+     * 分布式锁本地优先模式, 见 {@link DistributedRedisLock#setLocalFirst(boolean)}
+     */
+    @Value("${redisson.lock.local-first:false}")
+    private boolean lockLocalFirst;
+    /**
+     * 分布式锁看门狗租期秒数, 0为关闭, 见 {@link DistributedRedisLock#setWatchdogLeaseSeconds(long)}
+     */
+    @Value("${redisson.lock.watchdog-lease-seconds:0}")
+    private long lockWatchdogLeaseSeconds;
+    /**
+     * 分布式锁监控指标, 注册到JMX, 见 {@link LockMetrics}
+     */
+    @Value("${redisson.lock.metrics:true}")
+    private boolean lockMetrics;
+    /**
+     * 号段ID每次从Redis领取的个数
+     */
+    @Value("${redisson.id.segment-size:10000}")
+    private int idSegmentSize;
+    /**
+     * ID生成方式: segment(号段) 或 snowflake(雪花, 发号不访问Redis)
+     */
+    @Value("${redisson.id.mode:segment}")
+    private String idMode;
+    /**
+     * 雪花ID的worker id租期
+     */
+    @Value("${redisson.id.worker-lease-seconds:30}")
+    private long workerLeaseSeconds;
+    /**
+     * 每个商户全集群每秒的请求数, 允许1秒的突发
+     */
+    @Value("${redisson.limit.merchant-permits-per-second:1000}")
+    private long merchantPermitsPerSecond;
+    /**
+     * 每张卡全集群每秒的请求数, 允许1秒的突发
+     */
+    @Value("${redisson.limit.card-permits-per-second:10}")
+    private long cardPermitsPerSecond;
+    /**
+     * Man两级缓存的本地元素个数
+     */
+    @Value("${redisson.cache.man.local-size:10000}")
+    private int manCacheLocalSize;
+    /**
+     * Man本地缓存过期秒数, 失效通知丢失时最多读到这么久的旧数据
+     */
+    @Value("${redisson.cache.man.local-ttl-seconds:60}")
+    private long manCacheLocalTtlSeconds;
+    /**
+     * Man的Redis缓存过期秒数
+     */
+    @Value("${redisson.cache.man.remote-ttl-seconds:600}")
+    private long manCacheRemoteTtlSeconds;
 
     @Bean
     public RedissonClient redissonClient() {
-        init("yangbo", "15");
+        init();
         return getRedisson();
     }
     @Bean
     public DistributedRedisLock distributedRedisLock(@Qualifier("redissonClient") RedissonClient redissonClient) {
         DistributedRedisLock distributedRedisLock = new DistributedRedisLock();
         distributedRedisLock.setRedissonClient(redissonClient);
+        distributedRedisLock.setWatchdogLeaseSeconds(lockWatchdogLeaseSeconds);
+        distributedRedisLock.setLocalFirst(lockLocalFirst);
+        if (lockMetrics) {
+            try {
+                distributedRedisLock.enableMetrics().register("distributedRedisLock");
+            } catch (JMException e) {
+                log.error("register lock metrics MBean distributedRedisLock failed", e);
+            }
+        }
         return distributedRedisLock;
     }
 
+    /**
+     * 雪花ID远大于号段ID, 可以从号段切换到雪花, 反过来会重复
+     */
+    @Bean
+    public IdGenerator idGenerator() {
+        if ("snowflake".equals(idMode)) {
+            return new SnowflakeIdGenerator(redissonClient(), SNOWFLAKE_WORKER_PREFIX, workerLeaseSeconds,
+                TimeUnit.SECONDS);
+        }
+        return new SegmentIdGenerator(redissonClient(), RAtomicName, idSegmentSize);
+    }
+
+    /**
+     * 按商户号限流, 见 {@link HybridRateLimiter}
+     */
+    @Bean
+    public HybridRateLimiter merchantRateLimiter(@Qualifier("redissonClient") RedissonClient redissonClient) {
+        return new HybridRateLimiter(redissonClient, MERCHANT_LIMIT_PREFIX, merchantPermitsPerSecond,
+            merchantPermitsPerSecond);
+    }
+
+    /**
+     * 按卡号限流, 见 {@link HybridRateLimiter}
+     */
+    @Bean
+    public HybridRateLimiter cardRateLimiter(@Qualifier("redissonClient") RedissonClient redissonClient) {
+        return new HybridRateLimiter(redissonClient, CARD_LIMIT_PREFIX, cardPermitsPerSecond, cardPermitsPerSecond);
+    }
+
+    /**
+     * ManMongoService的按id/按name查询缓存, 见 {@link NearCache}; Man没有实现Serializable, Redis里存JSON
+     */
+    @Bean
+    public NearCache<Man> manNearCache(@Qualifier("redissonClient") RedissonClient redissonClient) {
+        return new NearCache<>(redissonClient, MAN_CACHE_NAME, manCacheLocalSize, manCacheLocalTtlSeconds,
+            manCacheRemoteTtlSeconds, TimeUnit.SECONDS, JsonJacksonCodec.INSTANCE);
+    }
+
 
     ;
 
-    void init(String key, String value) {
+    void init() {
         try {
 /*            config.useClusterServers() //这是用的集群server
                     .setScanInterval(2000) //设置集群状态扫描时间
                     .setMasterConnectionPoolSize(10000) //设置连接数
                     .setSlaveConnectionPoolSize(10000)
                     .addNodeAddress("127.0.0.1:6379");*/
-            if (key == null || "".equals(key)) {
-                key = RAtomicName;
-            }
             config.useSingleServer().setAddress(redis + redisHost + ":" + redisPort);
             redisson = Redisson.create(config);
-            //清空自增的ID数字
-            RAtomicLong atomicLong = redisson.getAtomicLong(key);
-            long pValue = 1;
-            if (value != null && !"".equals(value)) {
-                pValue = Long.parseLong(value);
-            }
-            atomicLong.set(pValue);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -71,11 +173,9 @@ public class RedissonManager {
     }
 
     /**
-     * 获取redis中的原子ID
+     * 获取全局唯一ID, 见 {@link SegmentIdGenerator}, {@link SnowflakeIdGenerator}
      */
     public Long nextID() {
-        RAtomicLong atomicLong = getRedisson().getAtomicLong(RAtomicName);
-        atomicLong.incrementAndGet();
-        return atomicLong.get();
+        return idGenerator().nextId();
     }
 }
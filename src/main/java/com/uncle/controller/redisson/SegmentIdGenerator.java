@@ -0,0 +1,121 @@
+package com.uncle.controller.redisson;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 号段ID: 一次 addAndGet(segmentSize) 从Redis计数器领一段ID, 本地用AtomicLong发放
+ * <p>
+ * 双缓冲: 当前号段发出 {@link #PREFETCH_PERCENT}% 时异步领下一段, 当前号段用完直接切换,
+ * 正常情况下发号不等网络. 下一段没领到(Redis慢或者失败)时, 用完的线程同步领一段.
+ * 每 segmentSize 个ID一次网络往返; 节点重启时没发完的号段作废, ID不连续但不重复
+ *
+ * @author 杨戬
+ * @className SegmentIdGenerator
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 08:10
+ */
+@Slf4j
+public class SegmentIdGenerator implements IdGenerator {
+    static final int PREFETCH_PERCENT = 10;
+
+    private final RAtomicLong counter;
+    private final int segmentSize;
+    private volatile Segment current = new Segment(0L, 0L, 0L);
+    /**
+     * 预取中或已经取回的下一个号段, 用this加锁
+     */
+    private CompletableFuture<Segment> next;
+
+    /**
+     * @param key         Redis计数器
+     * @param segmentSize 每次领取的ID个数
+     */
+    public SegmentIdGenerator(RedissonClient redissonClient, String key, int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize must be positive: " + segmentSize);
+        }
+        this.counter = redissonClient.getAtomicLong(key);
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            Segment segment = current;
+            long id = segment.cursor.getAndIncrement();
+            if (id < segment.end) {
+                // 只有一个线程拿到这个值, 不需要另外去重
+                if (id == segment.prefetchAt) {
+                    prefetch();
+                }
+                return id;
+            }
+            advance(segment);
+        }
+    }
+
+    private synchronized void prefetch() {
+        if (next != null) {
+            return;
+        }
+        CompletableFuture<Segment> future = new CompletableFuture<>();
+        next = future;
+        counter.addAndGetAsync(segmentSize).whenComplete((max, t) -> {
+            if (t != null) {
+                log.warn("prefetch segment failed", t);
+                future.completeExceptionally(t);
+            } else {
+                future.complete(segment(max));
+            }
+        });
+    }
+
+    /**
+     * 号段用完, 换成预取的号段; 别的线程已经换过时直接返回
+     */
+    private synchronized void advance(Segment exhausted) {
+        if (current != exhausted) {
+            return;
+        }
+        CompletableFuture<Segment> pending = next;
+        next = null;
+        Segment segment = null;
+        if (pending != null) {
+            try {
+                segment = pending.join();
+            } catch (CompletionException e) {
+                // 预取失败, 下面同步重试一次
+            }
+        }
+        if (segment == null) {
+            segment = segment(counter.addAndGet(segmentSize));
+        }
+        current = segment;
+    }
+
+    /**
+     * addAndGet返回领取后的值max, 领到的是 (max - segmentSize, max]
+     */
+    private Segment segment(long max) {
+        long start = max - segmentSize + 1;
+        return new Segment(start, max + 1, start + (long)segmentSize * PREFETCH_PERCENT / 100);
+    }
+
+    private static final class Segment {
+        final AtomicLong cursor;
+        final long end;
+        final long prefetchAt;
+
+        Segment(long start, long end, long prefetchAt) {
+            this.cursor = new AtomicLong(start);
+            this.end = end;
+            this.prefetchAt = prefetchAt;
+        }
+    }
+}
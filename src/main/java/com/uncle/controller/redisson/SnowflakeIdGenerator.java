@@ -0,0 +1,278 @@
+package com.uncle.controller.redisson;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 雪花ID: 41位毫秒时间(从 {@link #EPOCH} 起) + 10位worker id + 12位序号, 按时间递增, 发号不访问网络
+ * <p>
+ * worker id启动时从Redis租一个(SET NX PX, 一段脚本一次往返), 后台每三分之一租期续一次.
+ * 续约时把 "已用到的时间 + 租期" 记在Redis里, 下一个租到这个worker id的节点从这个时间的下一毫秒开始, 不会重复.
+ * 续约失败到租期结束时停止发号, 抛IllegalStateException. Redis恢复后: worker id空闲时重新占用,
+ * 期间别人用过的话从它记录的时间之后接着发; 已经被别人占用时重新租一个worker id.
+ * <p>
+ * 时间和序号打包在一个AtomicLong里CAS递增, 不加锁. 同一毫秒序号用完时借用下一毫秒;
+ * 时钟回拨时继续沿用上次的时间递增. 逻辑时间最多领先系统时钟 {@link #MAX_LEAD_MILLIS},
+ * 超过后等时钟追上; 回拨超过 {@link #MAX_BACKWARD_MILLIS} 直接报错
+ *
+ * @author 杨戬
+ * @className SnowflakeIdGenerator
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 09:00
+ */
+@Slf4j
+public class SnowflakeIdGenerator implements IdGenerator, Closeable {
+    /**
+     * 2019-08-15 00:00:00 +08:00
+     */
+    static final long EPOCH = 1565798400000L;
+    static final int WORKER_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_WORKERS = 1 << WORKER_BITS;
+    static final long MAX_LEAD_MILLIS = 10L;
+    static final long MAX_BACKWARD_MILLIS = 5_000L;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    /**
+     * 从随机位置开始找一个空闲的worker id, 返回 {id, 该id记录的时间}, 都被占用返回nil.
+     * 脚本里拼出来的key没有放在KEYS里, 集群模式下前缀要带hash tag
+     * ARGV: 前缀, 实例id, 租期毫秒, 起始id, worker个数
+     */
+    static final String LEASE_SCRIPT =
+        "for i = 0, tonumber(ARGV[5]) - 1 do "
+            + "local id = (tonumber(ARGV[4]) + i) % tonumber(ARGV[5]); "
+            + "if redis.call('set', ARGV[1] .. id, ARGV[2], 'NX', 'PX', ARGV[3]) then "
+            + "return {id, tonumber(redis.call('get', ARGV[1] .. 'time:' .. id) or '0')}; "
+            + "end; "
+            + "end; "
+            + "return nil;";
+    /**
+     * 自己持有或者已经过期时续约, 记录的时间只增不减. 被别人占用返回-1; 自己持有返回0;
+     * 过期后重新占用返回记录的时间(期间别人可能用到的时间), 之后要从这个时间之后发号
+     * KEYS: worker key, 时间key; ARGV: 实例id, 租期毫秒, 时间
+     */
+    static final String RENEW_SCRIPT =
+        "local owner = redis.call('get', KEYS[1]); "
+            + "if owner and owner ~= ARGV[1] then "
+            + "return -1; "
+            + "end; "
+            + "local time = tonumber(redis.call('get', KEYS[2]) or '0'); "
+            + "redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]); "
+            + "if time < tonumber(ARGV[3]) then "
+            + "redis.call('set', KEYS[2], ARGV[3]); "
+            + "end; "
+            + "if owner then "
+            + "return 0; "
+            + "end; "
+            + "return time;";
+    /**
+     * 关闭时记录时间并归还worker id
+     * KEYS: worker key, 时间key; ARGV: 实例id, 时间
+     */
+    static final String RELEASE_SCRIPT =
+        "if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "redis.call('set', KEYS[2], ARGV[2]); "
+            + "redis.call('del', KEYS[1]); "
+            + "return 1; "
+            + "end; "
+            + "return 0;";
+
+    private final RedissonClient redissonClient;
+    private final String keyPrefix;
+    private final long leaseMillis;
+    private final String instanceId = UUID.randomUUID().toString();
+    /**
+     * 当前租到的worker id, 丢失后重新租时整个替换
+     */
+    private volatile Worker worker;
+    /**
+     * (毫秒 - EPOCH) &lt;&lt; SEQUENCE_BITS | 序号, 换worker id时不重置, 保证ID一直递增
+     */
+    private final AtomicLong state = new AtomicLong();
+    private final ScheduledExecutorService renewer;
+
+    /**
+     * @param keyPrefix worker id的key前缀, 后面拼上id
+     * @param leaseTime worker id的租期
+     */
+    public SnowflakeIdGenerator(RedissonClient redissonClient, String keyPrefix, long leaseTime, TimeUnit unit) {
+        this.redissonClient = redissonClient;
+        this.keyPrefix = keyPrefix;
+        this.leaseMillis = unit.toMillis(leaseTime);
+        if (leaseMillis < 3) {
+            throw new IllegalArgumentException("leaseTime too short: " + leaseMillis + "ms");
+        }
+        if (!lease()) {
+            throw new IllegalStateException("No free worker id under " + keyPrefix);
+        }
+        long interval = leaseMillis / 3;
+        this.renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "snowflake-renewer-" + keyPrefix);
+            thread.setDaemon(true);
+            return thread;
+        });
+        renewer.scheduleWithFixedDelay(() -> renew(interval), interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            // 先读state再读worker: 换worker之前先改state, 读到新worker之前读的state一定是旧的, CAS会失败;
+            // 读到旧worker的, 它的租约已经到期, 下面直接报错
+            long last = state.get();
+            Worker worker = this.worker;
+            // 不看续约结果, 只看到期时间: 续约卡在Redis超时重试里时, 到期后别的节点可能已经租到这个id
+            if (System.nanoTime() - worker.deadline >= 0) {
+                throw new IllegalStateException("Lease of worker id " + worker.id + " expired");
+            }
+            long now = System.currentTimeMillis() - EPOCH;
+            long next = Math.max(now << SEQUENCE_BITS, last + 1);
+            long lead = (next >>> SEQUENCE_BITS) - now;
+            if (lead > MAX_LEAD_MILLIS) {
+                if (lead > MAX_BACKWARD_MILLIS) {
+                    throw new IllegalStateException("Clock moved backwards " + lead + "ms");
+                }
+                // 序号借光了或者时钟回拨, 等时钟追上
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(lead - MAX_LEAD_MILLIS));
+                continue;
+            }
+            if (state.compareAndSet(last, next)) {
+                return (next >>> SEQUENCE_BITS) << (WORKER_BITS + SEQUENCE_BITS)
+                    | (long)worker.id << SEQUENCE_BITS | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public int getWorkerId() {
+        return worker.id;
+    }
+
+    /**
+     * 从id里取出生成时间
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (WORKER_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    /**
+     * 租一个空闲的worker id, 从它记录的时间之后开始发号
+     *
+     * @return 都被占用时返回false
+     */
+    private boolean lease() {
+        long start = System.nanoTime();
+        List<Long> lease = script().eval(RScript.Mode.READ_WRITE, LEASE_SCRIPT, RScript.ReturnType.MULTI,
+            Collections.emptyList(), keyPrefix, instanceId, leaseMillis,
+            ThreadLocalRandom.current().nextInt(MAX_WORKERS), MAX_WORKERS);
+        if (lease == null || lease.isEmpty()) {
+            return false;
+        }
+        int id = lease.get(0).intValue();
+        skipUsed(lease.get(1));
+        this.worker = new Worker(id, Arrays.asList(keyPrefix + id, keyPrefix + "time:" + id),
+            start + TimeUnit.MILLISECONDS.toNanos(leaseMillis));
+        log.info("snowflake worker id {} leased, last used time {}", id, lease.get(1));
+        return true;
+    }
+
+    /**
+     * 别人用这个worker id用到了usedTime, 那一毫秒的序号可能已经用完, 从下一毫秒开始.
+     * state总是会变, 要在换worker或者延长租约之前调用, 之前读到state的发号线程CAS会失败
+     */
+    private void skipUsed(long usedTime) {
+        state.getAndUpdate(s -> Math.max(s, (usedTime + 1) << SEQUENCE_BITS) + 1);
+    }
+
+    private void renew(long interval) {
+        long start = System.nanoTime();
+        Worker worker = this.worker;
+        try {
+            // 过期后重新占用时, 之后发的号可能比usedUntil大, 按当前时间记
+            long usedUntil = Math.max(usedUntil(), System.currentTimeMillis() - EPOCH);
+            Long used = script().eval(RScript.Mode.READ_WRITE, RENEW_SCRIPT, RScript.ReturnType.INTEGER,
+                worker.keys, instanceId, leaseMillis, usedUntil + leaseMillis);
+            if (used >= 0L) {
+                if (used > 0L) {
+                    skipUsed(used);
+                }
+                if (start - worker.deadline >= 0) {
+                    log.info("snowflake worker id {} lease recovered, last used time {}", worker.id, used);
+                }
+                // 按发出脚本之前的时刻算, Redis里的过期时间只会更晚
+                worker.deadline = start + TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+                return;
+            }
+            log.error("snowflake worker id {} taken by another node", worker.id);
+            worker.deadline = start;
+            if (!lease()) {
+                log.error("no free snowflake worker id under {}", keyPrefix);
+            }
+            return;
+        } catch (RuntimeException e) {
+            log.warn("renew snowflake worker id {} failed", worker.id, e);
+        }
+        long deadline = worker.deadline;
+        if (start - deadline < 0 && start + TimeUnit.MILLISECONDS.toNanos(interval) - deadline >= 0) {
+            log.error("snowflake worker id {} lease expires before next renewal", worker.id);
+        }
+    }
+
+    /**
+     * 已经发出的ID用到的时间, 从EPOCH起的毫秒
+     */
+    private long usedUntil() {
+        return state.get() >>> SEQUENCE_BITS;
+    }
+
+    private RScript script() {
+        return redissonClient.getScript(StringCodec.INSTANCE);
+    }
+
+    /**
+     * 停止续约并归还worker id
+     */
+    @Override
+    public void close() {
+        renewer.shutdownNow();
+        Worker worker = this.worker;
+        worker.deadline = System.nanoTime();
+        try {
+            script().eval(RScript.Mode.READ_WRITE, RELEASE_SCRIPT, RScript.ReturnType.INTEGER, worker.keys,
+                instanceId, usedUntil());
+        } catch (RuntimeException e) {
+            log.warn("release snowflake worker id {} failed", worker.id, e);
+        }
+    }
+
+    private static final class Worker {
+        final int id;
+        /**
+         * worker key, 时间key
+         */
+        final List<Object> keys;
+        /**
+         * 租约到期时刻, System.nanoTime; 过了这个时刻不再用这个id发号
+         */
+        volatile long deadline;
+
+        Worker(int id, List<Object> keys, long deadline) {
+            this.id = id;
+            this.keys = keys;
+            this.deadline = deadline;
+        }
+    }
+}
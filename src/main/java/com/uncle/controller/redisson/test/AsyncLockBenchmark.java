@@ -0,0 +1,137 @@
+package com.uncle.controller.redisson.test;
+
+import com.sun.corba.se.impl.orbutil.concurrent.Mutex;
+import com.uncle.controller.redisson.DistributedRedisLock;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DistributedRedisLock: acquire/release 对比 acquireAsync/releaseAsync
+ * <ol>
+ * <li>8个业务线程(相当于Dubbo线程池)处理请求, 一半请求抢同一个热点key并持有2ms, 一半是互不相关的冷key;
+ * 同步加锁时等热点锁的请求占满线程池, 冷key请求跟着排队. 输出总耗时和冷key请求的延迟</li>
+ * <li>超时: 锁被占用时等50ms返回null</li>
+ * <li>取消: 等锁中取消, 锁到手后自动释放, 不会一直占着</li>
+ * </ol>
+ *
+ * @author 杨戬
+ * @className AsyncLockBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 10:40
+ */
+public class AsyncLockBenchmark {
+    private static final long RTT_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final int THREADS = 8;
+    private static final int REQUESTS = 400;
+    private static final long HOLD_MILLIS = 2L;
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static void main(String[] args) throws Exception {
+        for (int round = 0; round < 3; round++) {
+            run(false);
+            run(true);
+        }
+        timeout();
+        cancel();
+        System.exit(0);
+    }
+
+    private static void run(boolean async) throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        DistributedRedisLock lock = lock(redis);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long[] coldNanos = new long[REQUESTS / 2];
+        AtomicInteger cold = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            boolean hot = (i & 1) == 0;
+            String lockName = hot ? "order_hot" : "order_" + i;
+            long submitted = System.nanoTime();
+            Runnable finish = () -> {
+                if (!hot) {
+                    coldNanos[cold.getAndIncrement()] = System.nanoTime() - submitted;
+                }
+                done.countDown();
+            };
+            pool.execute(() -> {
+                if (async) {
+                    lock.acquireAsync(lockName).thenCompose(mutex -> mutex == null
+                        ? CompletableFuture.completedFuture((Void)null)
+                        : delay().thenCompose(v -> lock.releaseAsync(mutex))).whenComplete((v, t) -> finish.run());
+                } else {
+                    Mutex mutex = lock.acquire(lockName);
+                    if (mutex != null) {
+                        try {
+                            Thread.sleep(HOLD_MILLIS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        lock.release(lockName);
+                    }
+                    finish.run();
+                }
+            });
+        }
+        done.await();
+        long cost = System.nanoTime() - start;
+        Arrays.sort(coldNanos);
+        System.out.println((async ? "acquireAsync" : "acquire") + ": " + REQUESTS + " 个请求耗时 "
+            + TimeUnit.NANOSECONDS.toMillis(cost) + "ms, 冷key请求延迟 p50 "
+            + TimeUnit.NANOSECONDS.toMillis(coldNanos[coldNanos.length / 2]) + "ms p99 "
+            + TimeUnit.NANOSECONDS.toMillis(coldNanos[coldNanos.length * 99 / 100]) + "ms");
+        pool.shutdown();
+        redis.shutdown();
+    }
+
+    private static void timeout() throws Exception {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        DistributedRedisLock lock = lock(redis);
+        Mutex holder = lock.acquireAsync("order_1").get();
+        long start = System.nanoTime();
+        Mutex mutex = lock.acquireAsync("order_1", 50, TimeUnit.MILLISECONDS).get();
+        System.out.println("超时: 等了 " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms 返回 "
+            + mutex);
+        lock.releaseAsync(holder).get();
+        redis.shutdown();
+    }
+
+    private static void cancel() throws Exception {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        DistributedRedisLock lock = lock(redis);
+        Mutex holder = lock.acquireAsync("order_2").get();
+        CompletableFuture<Mutex> waiting = lock.acquireAsync("order_2");
+        Thread.sleep(10);
+        waiting.cancel(false);
+        // 被取消的请求在这之后才拿到锁
+        lock.releaseAsync(holder).get();
+        long start = System.nanoTime();
+        Mutex next = lock.acquireAsync("order_2").get();
+        System.out.println("取消: 已取消 " + waiting.isCancelled() + ", 之后的请求等了 "
+            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms 拿到 " + next);
+        redis.shutdown();
+    }
+
+    private static CompletableFuture<Void> delay() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        TIMER.schedule(() -> future.complete(null), HOLD_MILLIS, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    private static DistributedRedisLock lock(FakeRedisson redis) {
+        DistributedRedisLock lock = new DistributedRedisLock();
+        lock.setRedissonClient(redis.client());
+        return lock;
+    }
+}
@@ -0,0 +1,637 @@
+package com.uncle.controller.redisson.test;
+
+import org.redisson.api.BatchResult;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RLock;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RScript;
+import org.redisson.api.RScriptAsync;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 压测用的内存版Redis, 通过动态代理提供RedissonClient, 没有实现的方法抛UnsupportedOperationException
+ * <p>
+ * 锁的语义照Redisson: hash结构, 客户端id:线程id 为持有者, 可重入, 带租期; 等锁的线程在解锁时只唤醒一个(Redisson的pub/sub).
+ * 脚本只认识 MultiLock、SnowflakeIdGenerator、LockWatchdog、HybridRateLimiter 里的几段. 每条命令停顿一个往返时间并计数.
+ * RMapCache只有get/fastPut/fastRemove, 值不序列化; RTopic的消息在io线程上投递给所有客户端的监听器.
+ * 集群模式下脚本的KEYS不在同一个slot时报CROSSSLOT(按hash tag的内容比较, 不算CRC16)
+ *
+ * @author 杨戬
+ * @className FakeRedisson
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 07:30
+ */
+public class FakeRedisson {
+    private final long rttNanos;
+    private final boolean cluster;
+    private final AtomicLong commands = new AtomicLong();
+    private final ReentrantLock mutex = new ReentrantLock();
+    private final Map<String, Map<String, Integer>> hashes = new HashMap<>();
+    private final Map<String, Long> expires = new HashMap<>();
+    /**
+     * 解锁频道 -> 等锁的线程, 只有发布到RLock订阅的频道才能唤醒
+     */
+    private final Map<String, Condition> unlocked = new HashMap<>();
+    private final Map<String, Long> longs = new HashMap<>();
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<String, Long> stringExpires = new HashMap<>();
+    /**
+     * 限流令牌桶 {令牌数, 时间}
+     */
+    private final Map<String, double[]> buckets = new HashMap<>();
+    private final Map<String, Map<Object, Object>> mapCaches = new HashMap<>();
+    private final Map<String, Map<Object, Long>> mapCacheExpires = new HashMap<>();
+    /**
+     * 频道 -> 监听器, 所有客户端共用
+     */
+    private final Map<String, List<Map.Entry<Integer, MessageListener<Object>>>> topics = new HashMap<>();
+    private final AtomicInteger listenerIds = new AtomicInteger();
+    /**
+     * 异步命令在这里执行, 相当于Redisson的netty线程
+     */
+    private final ExecutorService io = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "fake-redis-io");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public FakeRedisson(long rttNanos) {
+        this(rttNanos, false);
+    }
+
+    public FakeRedisson(long rttNanos, boolean cluster) {
+        this.rttNanos = rttNanos;
+        this.cluster = cluster;
+    }
+
+    /**
+     * 每次调用是一个新的客户端(新的客户端id), 相当于另一个JVM
+     */
+    public RedissonClient client() {
+        String clientId = UUID.randomUUID().toString();
+        return proxy(RedissonClient.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getId":
+                    return clientId;
+                case "getLock":
+                    return lock(clientId, (String)args[0]);
+                case "getScript":
+                    return script();
+                case "getAtomicLong":
+                    return atomicLong((String)args[0]);
+                case "createBatch":
+                    return batch();
+                case "getMapCache":
+                    return mapCache((String)args[0]);
+                case "getTopic":
+                    return topic((String)args[0]);
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /**
+     * 到目前为止的命令数, 即网络往返次数
+     */
+    public long commands() {
+        return commands.get();
+    }
+
+    public void shutdown() {
+        io.shutdownNow();
+    }
+
+    private RLock lock(String clientId, String key) {
+        return proxy(RLock.class, (proxy, method, args) -> {
+            String name = method.getName();
+            int arity = args == null ? 0 : args.length;
+            String owner = clientId + ":" + Thread.currentThread().getId();
+            if ("tryLock".equals(name) && arity == 3) {
+                return tryLock(key, owner, (Long)args[0], (Long)args[1], (TimeUnit)args[2]);
+            }
+            if ("unlock".equals(name) && arity == 0) {
+                unlock(key, owner);
+                return null;
+            }
+            if ("tryLockAsync".equals(name) && arity == 4) {
+                String asyncOwner = clientId + ":" + args[3];
+                return future(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return tryLock(key, asyncOwner, (Long)args[0], (Long)args[1], (TimeUnit)args[2]);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }, io));
+            }
+            if ("unlockAsync".equals(name) && arity == 1) {
+                String asyncOwner = clientId + ":" + args[0];
+                return future(CompletableFuture.runAsync(() -> unlock(key, asyncOwner), io));
+            }
+            throw new UnsupportedOperationException(name);
+        });
+    }
+
+    private RAtomicLong atomicLong(String key) {
+        return proxy(RAtomicLong.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "get":
+                    return addAndGet(key, 0L);
+                case "incrementAndGet":
+                    return addAndGet(key, 1L);
+                case "addAndGet":
+                    return addAndGet(key, (Long)args[0]);
+                case "addAndGetAsync":
+                    return future(CompletableFuture.supplyAsync(() -> addAndGet(key, (Long)args[0]), io));
+                case "incrementAndGetAsync":
+                    return future(CompletableFuture.supplyAsync(() -> addAndGet(key, 1L), io));
+                case "set":
+                    roundTrip();
+                    mutex.lock();
+                    try {
+                        longs.put(key, (Long)args[0]);
+                    } finally {
+                        mutex.unlock();
+                    }
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private RMapCache<Object, Object> mapCache(String name) {
+        return proxy(RMapCache.class, (proxy, method, args) -> {
+            String methodName = method.getName();
+            roundTrip();
+            mutex.lock();
+            try {
+                Map<Object, Object> map = mapCaches.computeIfAbsent(name, k -> new HashMap<>());
+                Map<Object, Long> expire = mapCacheExpires.computeIfAbsent(name, k -> new HashMap<>());
+                switch (methodName) {
+                    case "get":
+                        Long deadline = expire.get(args[0]);
+                        if (deadline != null && deadline - System.nanoTime() < 0) {
+                            map.remove(args[0]);
+                            expire.remove(args[0]);
+                        }
+                        return map.get(args[0]);
+                    case "fastPut":
+                        boolean added = map.put(args[0], args[1]) == null;
+                        long ttl = (Long)args[2];
+                        if (ttl > 0) {
+                            expire.put(args[0], System.nanoTime() + ((TimeUnit)args[3]).toNanos(ttl));
+                        } else {
+                            expire.remove(args[0]);
+                        }
+                        return added;
+                    case "fastRemove":
+                        long removed = 0;
+                        for (Object key : (Object[])args[0]) {
+                            expire.remove(key);
+                            removed += map.remove(key) == null ? 0 : 1;
+                        }
+                        return removed;
+                    default:
+                        throw new UnsupportedOperationException(methodName);
+                }
+            } finally {
+                mutex.unlock();
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private RTopic topic(String channel) {
+        return proxy(RTopic.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "addListener":
+                    int id = listenerIds.incrementAndGet();
+                    listeners(channel).add(new AbstractMap.SimpleImmutableEntry<>(id,
+                        (MessageListener<Object>)args[1]));
+                    return id;
+                case "removeListener":
+                    for (Object removed : (Object[])args[0]) {
+                        listeners(channel).removeIf(entry -> entry.getKey().equals(removed));
+                    }
+                    return null;
+                case "publish":
+                    roundTrip();
+                    List<Map.Entry<Integer, MessageListener<Object>>> receivers = listeners(channel);
+                    // 订阅方收到消息还要再过半个往返
+                    io.execute(() -> {
+                        LockSupport.parkNanos(rttNanos / 2);
+                        for (Map.Entry<Integer, MessageListener<Object>> entry : receivers) {
+                            entry.getValue().onMessage(channel, args[0]);
+                        }
+                    });
+                    return (long)receivers.size();
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private List<Map.Entry<Integer, MessageListener<Object>>> listeners(String channel) {
+        mutex.lock();
+        try {
+            return topics.computeIfAbsent(channel, k -> new CopyOnWriteArrayList<>());
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    private long addAndGet(String key, long delta) {
+        roundTrip();
+        mutex.lock();
+        try {
+            return longs.merge(key, delta, Long::sum);
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private RScript script() {
+        return proxy(RScript.class, (proxy, method, args) -> {
+            if (args.length != 5) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            String script = (String)args[1];
+            List<Object> keys = (List<Object>)args[3];
+            Object[] values = (Object[])args[4];
+            switch (method.getName()) {
+                case "eval":
+                    return eval(script, keys, values);
+                case "evalAsync":
+                    return future(CompletableFuture.supplyAsync(() -> eval(script, keys, values), io));
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private Object eval(String script, List<Object> keys, Object[] values) {
+        roundTrip();
+        if (cluster) {
+            for (Object key : keys) {
+                if (!slot((String)key).equals(slot((String)keys.get(0)))) {
+                    throw new IllegalStateException("CROSSSLOT Keys in request don't hash to the same slot: " + keys);
+                }
+            }
+        }
+        mutex.lock();
+        try {
+            return run(script, keys, values);
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * 按脚本内容认出是哪一段, 调用方持有mutex
+     */
+    private Object run(String script, List<Object> keys, Object[] values) {
+        if (script.contains("'incr'")) {
+            return fence(keys, (String)values[0]);
+        }
+        if (script.contains("'tokens'")) {
+            return take((String)keys.get(0), values);
+        }
+        if (script.contains("publish")) {
+            return unlockAll(keys, (String)values[1]);
+        }
+        if (script.contains("hincrby")) {
+            return lockAll(keys, (Long)values[0], (String)values[1]);
+        }
+        if (script.contains("'NX'")) {
+            return leaseWorker(values);
+        }
+        if (script.contains("local owner")) {
+            return renewWorker(keys, values);
+        }
+        if (script.contains("'del'")) {
+            return releaseWorker(keys, values);
+        }
+        if (script.contains("pexpire")) {
+            return renewLock((String)keys.get(0), (Long)values[0], (String)values[1]);
+        }
+        throw new UnsupportedOperationException(script);
+    }
+
+    /**
+     * 只支持脚本, execute时整批一个往返
+     */
+    @SuppressWarnings("unchecked")
+    private RBatch batch() {
+        List<Object[]> commands = new ArrayList<>();
+        RScriptAsync script = proxy(RScriptAsync.class, (proxy, method, args) -> {
+            commands.add(args);
+            return future(new CompletableFuture<>());
+        });
+        return proxy(RBatch.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getScript":
+                    return script;
+                case "execute":
+                    roundTrip();
+                    List<Object> responses = new ArrayList<>();
+                    mutex.lock();
+                    try {
+                        for (Object[] command : commands) {
+                            responses.add(run((String)command[2], (List<Object>)command[4], (Object[])command[5]));
+                        }
+                    } finally {
+                        mutex.unlock();
+                    }
+                    return new BatchResult<>(responses, 0);
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /**
+     * LockWatchdog.FENCE_SCRIPT, 计数器不会过期
+     */
+    private Long fence(List<Object> keys, String owner) {
+        String key = (String)keys.get(0);
+        lockable(key, owner);
+        Map<String, Integer> hash = hashes.get(key);
+        if (hash == null || !hash.containsKey(owner)) {
+            return null;
+        }
+        long now = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        return longs.merge((String)keys.get(1), now, (fence, floor) -> Math.max(fence + 1, floor));
+    }
+
+    /**
+     * HybridRateLimiter.TAKE_SCRIPT
+     */
+    private long take(String key, Object[] values) {
+        long rate = (Long)values[0];
+        long capacity = (Long)values[1];
+        long requested = (Long)values[2];
+        long now = (Long)values[3];
+        double[] bucket = buckets.get(key);
+        double tokens = capacity;
+        if (bucket != null) {
+            now = Math.max(now, (long)bucket[1]);
+            tokens = Math.min(capacity, bucket[0] + (now - bucket[1]) * rate / 1000);
+        }
+        long granted = requested > 0 ? Math.min((long)Math.floor(tokens), requested) : requested;
+        buckets.put(key, new double[]{Math.min(capacity, tokens - granted), now});
+        return granted;
+    }
+
+    /**
+     * LockWatchdog.RENEW_SCRIPT
+     */
+    private long renewLock(String key, long leaseMillis, String owner) {
+        lockable(key, owner);
+        Map<String, Integer> hash = hashes.get(key);
+        if (hash == null || !hash.containsKey(owner)) {
+            return 0L;
+        }
+        expires.put(key, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseMillis));
+        return 1L;
+    }
+
+    /**
+     * SnowflakeIdGenerator.LEASE_SCRIPT
+     */
+    private List<Long> leaseWorker(Object[] values) {
+        String prefix = (String)values[0];
+        int start = ((Number)values[3]).intValue();
+        int workers = ((Number)values[4]).intValue();
+        for (int i = 0; i < workers; i++) {
+            int id = (start + i) % workers;
+            if (string(prefix + id) == null) {
+                setString(prefix + id, (String)values[1], (Long)values[2]);
+                String time = string(prefix + "time:" + id);
+                return Arrays.asList((long)id, time == null ? 0L : Long.parseLong(time));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * SnowflakeIdGenerator.RENEW_SCRIPT
+     */
+    private long renewWorker(List<Object> keys, Object[] values) {
+        String owner = string((String)keys.get(0));
+        if (owner != null && !owner.equals(values[0])) {
+            return -1L;
+        }
+        String stored = string((String)keys.get(1));
+        long time = stored == null ? 0L : Long.parseLong(stored);
+        setString((String)keys.get(0), (String)values[0], (Long)values[1]);
+        if (time < (Long)values[2]) {
+            setString((String)keys.get(1), String.valueOf(values[2]), 0L);
+        }
+        return owner != null ? 0L : time;
+    }
+
+    /**
+     * SnowflakeIdGenerator.RELEASE_SCRIPT
+     */
+    private long releaseWorker(List<Object> keys, Object[] values) {
+        if (!values[0].equals(string((String)keys.get(0)))) {
+            return 0L;
+        }
+        setString((String)keys.get(1), String.valueOf(values[1]), 0L);
+        strings.remove(keys.get(0));
+        stringExpires.remove(keys.get(0));
+        return 1L;
+    }
+
+    private String string(String key) {
+        Long expire = stringExpires.get(key);
+        if (expire != null && expire - System.nanoTime() < 0) {
+            strings.remove(key);
+            stringExpires.remove(key);
+        }
+        return strings.get(key);
+    }
+
+    /**
+     * @param ttlMillis 0为不过期
+     */
+    private void setString(String key, String value, long ttlMillis) {
+        strings.put(key, value);
+        if (ttlMillis > 0) {
+            stringExpires.put(key, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+        } else {
+            stringExpires.remove(key);
+        }
+    }
+
+    /**
+     * 先尝试一次, 失败后等这个key的解锁通知再重试, 每次尝试一个往返
+     */
+    private boolean tryLock(String key, String owner, long waitTime, long leaseTime, TimeUnit unit)
+        throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(waitTime);
+        while (true) {
+            roundTrip();
+            mutex.lock();
+            try {
+                if (lockable(key, owner)) {
+                    hold(key, owner, unit.toMillis(leaseTime));
+                    return true;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                // 和Redisson一样最多等到锁过期
+                long ttl = expires.get(key) - System.nanoTime();
+                unlocked.computeIfAbsent(channel(key), k -> mutex.newCondition())
+                    .awaitNanos(Math.min(remaining, ttl));
+            } finally {
+                mutex.unlock();
+            }
+        }
+    }
+
+    private void unlock(String key, String owner) {
+        roundTrip();
+        mutex.lock();
+        try {
+            if (!release(key, channel(key), owner)) {
+                throw new IllegalMonitorStateException(key + " is not locked by " + owner);
+            }
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    private long lockAll(List<Object> keys, long leaseMillis, String owner) {
+        mutex.lock();
+        try {
+            for (int i = 0; i < keys.size(); i++) {
+                if (!lockable((String)keys.get(i), owner)) {
+                    return i + 1;
+                }
+            }
+            for (Object key : keys) {
+                hold((String)key, owner, leaseMillis);
+            }
+            return 0L;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    private long unlockAll(List<Object> keysAndChannels, String owner) {
+        mutex.lock();
+        try {
+            long held = 0;
+            int n = keysAndChannels.size() / 2;
+            for (int i = 0; i < n; i++) {
+                held += release((String)keysAndChannels.get(i), (String)keysAndChannels.get(n + i), owner) ? 1 : 0;
+            }
+            return held;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    private boolean lockable(String key, String owner) {
+        Long expire = expires.get(key);
+        if (expire != null && expire - System.nanoTime() < 0) {
+            hashes.remove(key);
+            expires.remove(key);
+        }
+        Map<String, Integer> hash = hashes.get(key);
+        return hash == null || hash.containsKey(owner);
+    }
+
+    private void hold(String key, String owner, long leaseMillis) {
+        hashes.computeIfAbsent(key, k -> new HashMap<>()).merge(owner, 1, Integer::sum);
+        expires.put(key, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseMillis));
+    }
+
+    /**
+     * @param channel 解锁消息发到这个频道
+     */
+    private boolean release(String key, String channel, String owner) {
+        // 先清掉已经过期的
+        lockable(key, owner);
+        Map<String, Integer> hash = hashes.get(key);
+        if (hash == null || !hash.containsKey(owner)) {
+            return false;
+        }
+        if (hash.merge(owner, -1, Integer::sum) == 0) {
+            hashes.remove(key);
+            expires.remove(key);
+            Condition condition = unlocked.get(channel);
+            if (condition != null) {
+                condition.signal();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * RedissonLock.getChannelName, 即 prefixName("redisson_lock__channel", key)
+     */
+    private static String channel(String key) {
+        return key.contains("{") ? "redisson_lock__channel:" + key : "redisson_lock__channel:{" + key + "}";
+    }
+
+    /**
+     * 集群的slot由 {} 里的内容决定, 没有或者为空时由整个key决定
+     */
+    private static String slot(String key) {
+        int start = key.indexOf('{');
+        int end = start < 0 ? -1 : key.indexOf('}', start + 1);
+        return end > start + 1 ? key.substring(start + 1, end) : key;
+    }
+
+    private void roundTrip() {
+        commands.incrementAndGet();
+        LockSupport.parkNanos(rttNanos);
+    }
+
+    /**
+     * RFuture的方法都转给CompletableFuture上的同名方法
+     */
+    private static <V> RFuture<V> future(CompletableFuture<V> future) {
+        return proxy(RFuture.class, (proxy, method, args) -> {
+            Method target = CompletableFuture.class.getMethod(method.getName(), method.getParameterTypes());
+            return target.invoke(future, args);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, InvocationHandler handler) {
+        return (T)Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
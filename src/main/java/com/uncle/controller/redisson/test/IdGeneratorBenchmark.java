@@ -0,0 +1,144 @@
+package com.uncle.controller.redisson.test;
+
+import com.uncle.controller.redisson.IdGenerator;
+import com.uncle.controller.redisson.SegmentIdGenerator;
+import com.uncle.controller.redisson.SnowflakeIdGenerator;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ID生成: 原来的 incrementAndGet + get(每个ID两次往返) 对比号段ID和雪花ID, 两个节点各4个线程,
+ * 输出吞吐量、每1000个ID的Redis往返次数和重复的ID个数, 并检查每个线程拿到的ID递增.
+ * 雪花ID每秒最多 4096000 个(每毫秒4096个序号), 吞吐量会贴着这个上限.
+ * 最后看续约卡在Redis上超过租期时, 雪花ID是否停止发号
+ *
+ * @author 杨戬
+ * @className IdGeneratorBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 08:30
+ */
+public class IdGeneratorBenchmark {
+    private static final long RTT_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final String KEY = "genId_";
+    private static final int NODES = 2;
+    private static final int THREADS = 4;
+    private static final int SEGMENT_SIZE = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        for (int round = 0; round < 3; round++) {
+            FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+            run("incrementAndGet+get", redis, 500, client -> {
+                RAtomicLong atomicLong = client.getAtomicLong(KEY);
+                return () -> {
+                    atomicLong.incrementAndGet();
+                    return atomicLong.get();
+                };
+            });
+            run("SegmentIdGenerator", redis, 2_000_000, client -> new SegmentIdGenerator(client, KEY, SEGMENT_SIZE));
+            run("SnowflakeIdGenerator", redis, 1_000_000,
+                client -> new SnowflakeIdGenerator(client, "{genId_worker}_", 30, TimeUnit.SECONDS));
+            redis.shutdown();
+        }
+        stalledRenewal();
+    }
+
+    private static void stalledRenewal() throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        RedissonClient client = redis.client();
+        CountDownLatch resume = new CountDownLatch(1);
+        AtomicInteger scripts = new AtomicInteger();
+        // 第一次(租worker id)正常, 之后的续约一直卡着, 像Redis超时重试
+        RedissonClient stalling = (RedissonClient)Proxy.newProxyInstance(RedissonClient.class.getClassLoader(),
+            new Class<?>[]{RedissonClient.class}, (proxy, method, args) -> {
+                if ("getScript".equals(method.getName()) && scripts.getAndIncrement() > 0) {
+                    resume.await();
+                }
+                try {
+                    return method.invoke(client, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        long leaseMillis = 300L;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(stalling, "{genId_worker}_", leaseMillis,
+            TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        long issued = 0;
+        String stopped = "到 " + leaseMillis * 2 + "ms 还在发号!";
+        while (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(leaseMillis * 2)) {
+            try {
+                generator.nextId();
+                issued++;
+            } catch (IllegalStateException e) {
+                stopped = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms 后停止发号";
+                break;
+            }
+        }
+        System.out.println("续约卡住, 租期 " + leaseMillis + "ms: " + stopped + ", 之前发了 " + issued + " 个");
+        resume.countDown();
+        generator.close();
+        redis.shutdown();
+    }
+
+    private static void run(String name, FakeRedisson redis, int idsPerThread, Factory factory)
+        throws InterruptedException, IOException {
+        long[][] ids = new long[NODES * THREADS][idsPerThread];
+        CountDownLatch done = new CountDownLatch(NODES * THREADS);
+        long commands = redis.commands();
+        IdGenerator[] generators = new IdGenerator[NODES];
+        for (int node = 0; node < NODES; node++) {
+            generators[node] = factory.create(redis.client());
+        }
+        long start = System.nanoTime();
+        for (int node = 0; node < NODES; node++) {
+            IdGenerator generator = generators[node];
+            for (int t = 0; t < THREADS; t++) {
+                long[] out = ids[node * THREADS + t];
+                new Thread(() -> {
+                    for (int i = 0; i < out.length; i++) {
+                        out[i] = generator.nextId();
+                    }
+                    done.countDown();
+                }).start();
+            }
+        }
+        done.await();
+        long cost = System.nanoTime() - start;
+        for (IdGenerator generator : generators) {
+            if (generator instanceof Closeable) {
+                ((Closeable)generator).close();
+            }
+        }
+        commands = redis.commands() - commands;
+        long total = (long)NODES * THREADS * idsPerThread;
+        long[] all = new long[(int)total];
+        boolean ordered = true;
+        for (int i = 0; i < ids.length; i++) {
+            for (int j = 1; j < idsPerThread; j++) {
+                ordered &= ids[i][j] > ids[i][j - 1];
+            }
+            System.arraycopy(ids[i], 0, all, i * idsPerThread, idsPerThread);
+        }
+        Arrays.sort(all);
+        int duplicates = 0;
+        for (int i = 1; i < all.length; i++) {
+            duplicates += all[i] == all[i - 1] ? 1 : 0;
+        }
+        System.out.println(name + ": " + total * 1_000_000_000L / cost + " ids/s, "
+            + String.format("%.3f", commands * 1000.0 / total) + " Redis往返/1000个, 重复 " + duplicates
+            + ", 线程内递增 " + ordered);
+    }
+
+    private interface Factory {
+        IdGenerator create(RedissonClient client);
+    }
+}
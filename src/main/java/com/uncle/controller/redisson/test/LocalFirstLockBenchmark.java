@@ -0,0 +1,77 @@
+package com.uncle.controller.redisson.test;
+
+import com.sun.corba.se.impl.orbutil.concurrent.Mutex;
+import com.uncle.controller.redisson.DistributedRedisLock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DistributedRedisLock: 两个"JVM"(两个实例, 各自的客户端id)各8个线程抢同一个key, 对比直接竞争Redis锁和本地优先模式的
+ * 吞吐量和每次加锁的Redis往返次数
+ * <p>
+ * 没有真实的Redis, 用 {@link FakeRedisson}, 每条命令停顿 {@link #RTT_NANOS} 模拟网络往返.
+ * 临界区里做非原子的自增, 最后检查两个实例之间是否互斥
+ *
+ * @author 杨戬
+ * @className LocalFirstLockBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 06:40
+ */
+public class LocalFirstLockBenchmark {
+    private static final long RTT_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final int THREADS = 8;
+    private static final int OPS = 300;
+    private static final String KEY = "order_1";
+
+    public static void main(String[] args) throws Exception {
+        for (int round = 0; round < 3; round++) {
+            run(false);
+            run(true);
+        }
+        System.exit(0);
+    }
+
+    private static void run(boolean localFirst) throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        DistributedRedisLock[] locks = new DistributedRedisLock[2];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new DistributedRedisLock();
+            locks[i].setRedissonClient(redis.client());
+            locks[i].setLocalFirst(localFirst);
+        }
+        long[] counter = new long[1];
+        AtomicLong failed = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(THREADS * locks.length);
+        long start = System.nanoTime();
+        for (DistributedRedisLock lock : locks) {
+            for (int t = 0; t < THREADS; t++) {
+                new Thread(() -> {
+                    for (int i = 0; i < OPS; i++) {
+                        Mutex mutex = lock.acquire(KEY);
+                        if (mutex == null) {
+                            failed.incrementAndGet();
+                            continue;
+                        }
+                        try {
+                            counter[0]++;
+                        } finally {
+                            lock.release(KEY);
+                        }
+                    }
+                    done.countDown();
+                }).start();
+            }
+        }
+        done.await();
+        long cost = System.nanoTime() - start;
+        long ops = (long)THREADS * locks.length * OPS - failed.get();
+        if (counter[0] != ops) {
+            throw new IllegalStateException("mutual exclusion broken: " + counter[0] + " != " + ops);
+        }
+        System.out.println((localFirst ? "本地优先" : "直接Redis") + ": " + ops * 1_000_000_000L / cost + " ops/s, "
+            + String.format("%.2f", (double)redis.commands() / ops) + " Redis往返/次, 失败 " + failed.get());
+        redis.shutdown();
+    }
+}
@@ -0,0 +1,109 @@
+package com.uncle.controller.redisson.test;
+
+import com.sun.corba.se.impl.orbutil.concurrent.Mutex;
+import com.uncle.controller.redisson.DistributedRedisLock;
+import com.uncle.controller.redisson.LockMetrics;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * DistributedRedisLock监控指标
+ * <ol>
+ * <li>开销: 往返时间为0时(只剩本地开销) 关闭/开启监控的加锁吞吐量</li>
+ * <li>效果: 8个线程抢 order_/account_/coupon_ 三类锁, order_1 占三成请求, 临界区按前缀持有不同时间,
+ * 输出每个前缀的统计和热点key</li>
+ * </ol>
+ *
+ * @author 杨戬
+ * @className LockMetricsBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 11:10
+ */
+public class LockMetricsBenchmark {
+    private static final int THREADS = 8;
+
+    public static void main(String[] args) throws Exception {
+        for (int round = 0; round < 3; round++) {
+            overhead(false);
+            overhead(true);
+        }
+        contention();
+        System.exit(0);
+    }
+
+    private static void overhead(boolean metrics) throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(0L);
+        DistributedRedisLock lock = lock(redis, metrics);
+        int ops = 50_000;
+        CountDownLatch done = new CountDownLatch(THREADS);
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            String lockName = "order_" + t;
+            new Thread(() -> {
+                for (int i = 0; i < ops; i++) {
+                    lock.acquire(lockName);
+                    lock.release(lockName);
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        long cost = System.nanoTime() - start;
+        System.out.println("监控" + (metrics ? "开启" : "关闭") + ": " + (long)THREADS * ops * 1_000_000_000L / cost
+            + " ops/s");
+        redis.shutdown();
+    }
+
+    private static void contention() throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(TimeUnit.MICROSECONDS.toNanos(200));
+        DistributedRedisLock lock = lock(redis, true);
+        String[] prefixes = {"order_", "account_", "coupon_"};
+        long[] holdMicros = {500, 100, 10};
+        AtomicLong failed = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(t);
+            new Thread(() -> {
+                for (int i = 0; i < 300; i++) {
+                    int p = random.nextInt(prefixes.length);
+                    String lockName = random.nextInt(10) < 3 ? "order_1" : prefixes[p] + random.nextInt(50);
+                    Mutex mutex = lock.acquire(lockName);
+                    if (mutex == null) {
+                        failed.incrementAndGet();
+                        continue;
+                    }
+                    int hold = lockName.startsWith("order_") ? 0 : p;
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(holdMicros[hold]));
+                    lock.release(lockName);
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        LockMetrics metrics = lock.enableMetrics();
+        System.out.println("加锁 " + metrics.getAcquireCount() + " 次, 等待 " + metrics.getWaitCount() + " 次, 失败率 "
+            + metrics.getFailureRate() + " (实际失败 " + failed.get() + ")");
+        for (String line : metrics.getPrefixStats()) {
+            System.out.println("  " + line);
+        }
+        System.out.println("热点key:");
+        String[] hotKeys = metrics.getHotKeys();
+        for (int i = 0; i < Math.min(5, hotKeys.length); i++) {
+            System.out.println("  " + hotKeys[i]);
+        }
+        redis.shutdown();
+    }
+
+    private static DistributedRedisLock lock(FakeRedisson redis, boolean metrics) {
+        DistributedRedisLock lock = new DistributedRedisLock();
+        lock.setRedissonClient(redis.client());
+        if (metrics) {
+            lock.enableMetrics();
+        }
+        return lock;
+    }
+}
@@ -0,0 +1,160 @@
+package com.uncle.controller.redisson.test;
+
+import com.sun.corba.se.impl.orbutil.concurrent.Mutex;
+import com.uncle.controller.redisson.DistributedRedisLock;
+import com.uncle.controller.redisson.FencedMutex;
+import org.redisson.api.RedissonClient;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DistributedRedisLock看门狗模式:
+ * <ol>
+ * <li>持有锁的节点挂掉(停止续期)后, 另一个节点多久能拿到锁: 固定600秒租期 对比 2秒租期+看门狗</li>
+ * <li>持有时间超过租期时锁不会丢</li>
+ * <li>两个节点(一个本地优先)各4个线程抢同一个key, fencing token按加锁顺序严格递增</li>
+ * <li>拿到锁之后、取token之前停顿超过租期(GC), 锁被别人拿走: 旧持有者加锁失败, 不会拿到更大的token</li>
+ * <li>同时持有1000把锁时, 每个续期周期的Redis往返次数</li>
+ * </ol>
+ *
+ * @author 杨戬
+ * @className LockWatchdogBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 10:10
+ */
+public class LockWatchdogBenchmark {
+    private static final long RTT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long LEASE_SECONDS = 2L;
+
+    public static void main(String[] args) throws Exception {
+        crash(0L);
+        crash(LEASE_SECONDS);
+        longHold();
+        fencing();
+        stalledHolder();
+        renewCost();
+        System.exit(0);
+    }
+
+    private static void crash(long leaseSeconds) {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        DistributedRedisLock crashed = lock(redis, leaseSeconds, false);
+        DistributedRedisLock survivor = lock(redis, leaseSeconds, false);
+        crashed.acquire("order_1");
+        // 模拟进程挂掉: 不释放, 也不再续期
+        crashed.setWatchdogLeaseSeconds(0L);
+        long start = System.nanoTime();
+        Mutex mutex = null;
+        for (int i = 0; i < 3 && mutex == null; i++) {
+            mutex = survivor.acquire("order_1");
+        }
+        System.out.println((leaseSeconds == 0 ? "固定600秒租期" : "看门狗" + leaseSeconds + "秒租期")
+            + ": 持有者挂掉后, 另一节点" + (mutex == null ? "9秒内没拿到锁" : "等了 "
+            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms 拿到锁 " + mutex));
+        redis.shutdown();
+    }
+
+    private static void longHold() throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        DistributedRedisLock holder = lock(redis, LEASE_SECONDS, false);
+        DistributedRedisLock other = lock(redis, LEASE_SECONDS, false);
+        holder.acquire("order_2");
+        Thread.sleep(TimeUnit.SECONDS.toMillis(LEASE_SECONDS * 2));
+        // 另一个节点等满3秒, 此时持有者已经持有了租期的3.5倍
+        Mutex stolen = other.acquire("order_2");
+        holder.release("order_2");
+        Mutex after = other.acquire("order_2");
+        System.out.println("持有" + LEASE_SECONDS * 2 + "秒后: 另一节点" + (stolen == null ? "拿不到锁" : "抢到了锁!")
+            + ", 释放后拿到 " + after);
+        redis.shutdown();
+    }
+
+    private static void fencing() throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        DistributedRedisLock[] locks = {lock(redis, LEASE_SECONDS, false), lock(redis, LEASE_SECONDS, true)};
+        List<Long> tokens = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(8);
+        for (DistributedRedisLock lock : locks) {
+            for (int t = 0; t < 4; t++) {
+                new Thread(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        FencedMutex mutex = (FencedMutex)lock.acquire("order_3");
+                        if (mutex != null) {
+                            // 临界区内追加, 列表顺序就是加锁顺序
+                            tokens.add(mutex.getFencingToken());
+                            lock.release("order_3");
+                        }
+                    }
+                    done.countDown();
+                }).start();
+            }
+        }
+        done.await();
+        boolean increasing = true;
+        for (int i = 1; i < tokens.size(); i++) {
+            increasing &= tokens.get(i) > tokens.get(i - 1);
+        }
+        System.out.println("fencing token: " + tokens.size() + " 次加锁, 严格递增 " + increasing + ", Redis往返/次 "
+            + String.format("%.2f", (double)redis.commands() / tokens.size()));
+        redis.shutdown();
+    }
+
+    private static void stalledHolder() throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        RedissonClient client = redis.client();
+        CountDownLatch resume = new CountDownLatch(1);
+        // 整个进程停顿: 取token的脚本和看门狗续期都卡住, 直到resume
+        RedissonClient stalling = (RedissonClient)Proxy.newProxyInstance(RedissonClient.class.getClassLoader(),
+            new Class<?>[]{RedissonClient.class}, (proxy, method, args) -> {
+                if ("getScript".equals(method.getName()) || "createBatch".equals(method.getName())) {
+                    resume.await();
+                }
+                try {
+                    return method.invoke(client, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        DistributedRedisLock stale = new DistributedRedisLock();
+        stale.setRedissonClient(stalling);
+        stale.setWatchdogLeaseSeconds(LEASE_SECONDS);
+        DistributedRedisLock other = lock(redis, LEASE_SECONDS, false);
+        Mutex[] staleMutex = new Mutex[1];
+        Thread holder = new Thread(() -> staleMutex[0] = stale.acquire("order_4"));
+        holder.start();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(LEASE_SECONDS) / 2);
+        Mutex mutex = other.acquire("order_4");
+        resume.countDown();
+        holder.join();
+        System.out.println("拿到锁后停顿超过租期: 新持有者 " + mutex + ", 旧持有者恢复后 " + staleMutex[0]);
+        stale.setWatchdogLeaseSeconds(0L);
+        redis.shutdown();
+    }
+
+    private static void renewCost() throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        DistributedRedisLock lock = lock(redis, LEASE_SECONDS, false);
+        for (int i = 0; i < 1000; i++) {
+            lock.acquire("account_" + i);
+        }
+        long commands = redis.commands();
+        long millis = TimeUnit.SECONDS.toMillis(LEASE_SECONDS * 2);
+        Thread.sleep(millis);
+        System.out.println("持有1000把锁 " + millis + "ms (续期周期 " + TimeUnit.SECONDS.toMillis(LEASE_SECONDS) / 3
+            + "ms): Redis往返 " + (redis.commands() - commands));
+        redis.shutdown();
+    }
+
+    private static DistributedRedisLock lock(FakeRedisson redis, long leaseSeconds, boolean localFirst) {
+        DistributedRedisLock lock = new DistributedRedisLock();
+        lock.setRedissonClient(redis.client());
+        lock.setWatchdogLeaseSeconds(leaseSeconds);
+        lock.setLocalFirst(localFirst);
+        return lock;
+    }
+}
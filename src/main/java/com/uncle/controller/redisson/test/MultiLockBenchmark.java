@@ -0,0 +1,162 @@
+package com.uncle.controller.redisson.test;
+
+import com.sun.corba.se.impl.orbutil.concurrent.Mutex;
+import com.uncle.controller.redisson.DistributedRedisLock;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DistributedRedisLock: 一次锁5个key(账户、订单、优惠券、商户、渠道), 逐个acquire/release 对比 acquireAll/releaseAll
+ * 的吞吐量和每次操作的Redis往返次数
+ * <p>
+ * 两个实例(相当于两个JVM)各4个线程, key从小范围里随机取, 互相有重叠. 临界区里对每个key做非原子的自增,
+ * 最后核对每个key的次数, 检查互斥.
+ * 最后在集群模式下用带hash tag的key: releaseAll不能报CROSSSLOT, 在其中一个key上用RLock等待的线程解锁后马上被唤醒
+ *
+ * @author 杨戬
+ * @className MultiLockBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 07:50
+ */
+public class MultiLockBenchmark {
+    private static final long RTT_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final int THREADS = 4;
+    private static final int OPS = 200;
+    private static final String[] GROUPS = {"account_", "order_", "coupon_", "merchant_", "channel_"};
+    private static final int KEYS_PER_GROUP = 16;
+
+    public static void main(String[] args) throws Exception {
+        for (int round = 0; round < 3; round++) {
+            run(false);
+            run(true);
+        }
+        hashTag();
+        System.exit(0);
+    }
+
+    private static void run(boolean batched) throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        DistributedRedisLock[] locks = new DistributedRedisLock[2];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new DistributedRedisLock();
+            locks[i].setRedissonClient(redis.client());
+        }
+        Map<String, long[]> counters = new HashMap<>();
+        for (String group : GROUPS) {
+            for (int i = 0; i < KEYS_PER_GROUP; i++) {
+                counters.put(group + i, new long[1]);
+            }
+        }
+        AtomicLong done = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        CountDownLatch finished = new CountDownLatch(THREADS * locks.length);
+        long start = System.nanoTime();
+        for (DistributedRedisLock lock : locks) {
+            for (int t = 0; t < THREADS; t++) {
+                Random random = new Random(t * 31 + lock.hashCode());
+                new Thread(() -> {
+                    String[] names = new String[GROUPS.length];
+                    for (int i = 0; i < OPS; i++) {
+                        for (int g = 0; g < GROUPS.length; g++) {
+                            names[g] = GROUPS[g] + random.nextInt(KEYS_PER_GROUP);
+                        }
+                        if (batched ? lockAll(lock, names) : lockEach(lock, names)) {
+                            try {
+                                for (String name : names) {
+                                    counters.get(name)[0]++;
+                                }
+                                done.incrementAndGet();
+                            } finally {
+                                if (batched) {
+                                    lock.releaseAll(names);
+                                } else {
+                                    unlockEach(lock, names, names.length);
+                                }
+                            }
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    }
+                    finished.countDown();
+                }).start();
+            }
+        }
+        finished.await();
+        long cost = System.nanoTime() - start;
+        long total = 0;
+        for (long[] counter : counters.values()) {
+            total += counter[0];
+        }
+        if (total != done.get() * GROUPS.length) {
+            throw new IllegalStateException("mutual exclusion broken: " + total + " != " + done.get() * GROUPS.length);
+        }
+        System.out.println((batched ? "acquireAll" : "逐个acquire") + ": " + done.get() * 1_000_000_000L / cost
+            + " ops/s, " + String.format("%.2f", (double)redis.commands() / done.get()) + " Redis往返/次, 失败 "
+            + failed.get());
+        redis.shutdown();
+    }
+
+    private static void hashTag() throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS, true);
+        DistributedRedisLock holder = new DistributedRedisLock();
+        holder.setRedissonClient(redis.client());
+        DistributedRedisLock waiter = new DistributedRedisLock();
+        waiter.setRedissonClient(redis.client());
+        String[] names = {"{order_1}:account", "{order_1}:coupon"};
+        if (holder.acquireAll(names) == null) {
+            throw new IllegalStateException("acquireAll " + Arrays.toString(names) + " failed");
+        }
+        long[] acquiredAt = new long[1];
+        Thread thread = new Thread(() -> {
+            if (waiter.acquire(names[0]) != null) {
+                acquiredAt[0] = System.nanoTime();
+            }
+        });
+        thread.start();
+        Thread.sleep(50L);
+        long releasedAt = System.nanoTime();
+        String released;
+        try {
+            holder.releaseAll(names);
+            released = "releaseAll成功";
+        } catch (RuntimeException e) {
+            released = "releaseAll失败 " + e.getMessage();
+        }
+        thread.join();
+        System.out.println("hash tag " + Arrays.toString(names) + ": " + released + ", RLock等待者"
+            + (acquiredAt[0] == 0 ? "没拿到锁" : "在解锁后 "
+            + TimeUnit.NANOSECONDS.toMicros(acquiredAt[0] - releasedAt) + " us 拿到锁"));
+        redis.shutdown();
+    }
+
+    private static boolean lockAll(DistributedRedisLock lock, String[] names) {
+        return lock.acquireAll(names) != null;
+    }
+
+    /**
+     * 按固定顺序逐个加锁, 失败时释放已经加上的
+     */
+    private static boolean lockEach(DistributedRedisLock lock, String[] names) {
+        Arrays.sort(names);
+        for (int i = 0; i < names.length; i++) {
+            Mutex mutex = lock.acquire(names[i]);
+            if (mutex == null) {
+                unlockEach(lock, names, i);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void unlockEach(DistributedRedisLock lock, String[] names, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            lock.release(names[i]);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.uncle.controller.redisson.test;
+
+import com.uncle.controller.redisson.NearCache;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * NearCache
+ * <ol>
+ * <li>读路径: 2个节点各4个线程, 95%的请求落在200个热点key上, 其余随机; 每次查库1ms.
+ * 对比直接查库和走NearCache的吞吐量、查库次数、Redis往返次数</li>
+ * <li>失效: 节点A更新后调用invalidate, 节点B多久读不到旧值</li>
+ * <li>写回旧值: 节点B查库读到旧值后, 节点A更新并失效, B在收到通知之前把旧值写回Redis;
+ * 看新节点马上读到什么, 第二次删除之后读到什么</li>
+ * <li>合并: 32个线程同时读同一个不在缓存里的key, 查库几次; 8个线程乱序读同一批key(查库很快, 前一个加载刚结束时最容易重复),
+ * 查库次数应该等于key的个数</li>
+ * </ol>
+ *
+ * @author 杨戬
+ * @className NearCacheBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 12:10
+ */
+public class NearCacheBenchmark {
+    private static final long RTT_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long DB_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int NODES = 2;
+    private static final int THREADS = 4;
+    private static final int OPS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        readPath(false);
+        readPath(true);
+        invalidation();
+        staleWriteBack();
+        coalescing();
+        System.exit(0);
+    }
+
+    private static void readPath(boolean nearCache) throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        AtomicLong dbCalls = new AtomicLong();
+        Function<String, String> loader = key -> {
+            dbCalls.incrementAndGet();
+            LockSupport.parkNanos(DB_NANOS);
+            return "man:" + key;
+        };
+        NearCache<String>[] caches = caches(redis);
+        CountDownLatch done = new CountDownLatch(NODES * THREADS);
+        long start = System.nanoTime();
+        for (int n = 0; n < NODES; n++) {
+            NearCache<String> cache = caches[n];
+            for (int t = 0; t < THREADS; t++) {
+                Random random = new Random(n * THREADS + t);
+                new Thread(() -> {
+                    for (int i = 0; i < OPS; i++) {
+                        int id = random.nextInt(100) < 95 ? random.nextInt(200) : 200 + random.nextInt(100_000);
+                        String key = "id:" + id;
+                        String value = nearCache ? cache.get(key, loader) : loader.apply(key);
+                        if (value == null) {
+                            throw new IllegalStateException(key);
+                        }
+                    }
+                    done.countDown();
+                }).start();
+            }
+        }
+        done.await();
+        long cost = System.nanoTime() - start;
+        long total = (long)NODES * THREADS * OPS;
+        StringBuilder line = new StringBuilder(nearCache ? "NearCache: " : "直接查库: ");
+        line.append(total * 1_000_000_000L / cost).append(" ops/s, 查库 ").append(dbCalls.get())
+            .append(", Redis往返 ").append(redis.commands());
+        if (nearCache) {
+            long localHits = 0;
+            long remoteHits = 0;
+            for (NearCache<String> cache : caches) {
+                localHits += cache.getLocalHits();
+                remoteHits += cache.getRemoteHits();
+            }
+            line.append(", 本地命中 ").append(String.format("%.1f%%", 100.0 * localHits / total))
+                .append(", Redis命中 ").append(remoteHits);
+        }
+        System.out.println(line);
+        close(caches);
+        redis.shutdown();
+    }
+
+    private static void invalidation() throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        NearCache<String>[] caches = caches(redis);
+        String[] row = {"v1"};
+        Function<String, String> loader = key -> row[0];
+        long[] nanos = new long[20];
+        for (int i = 0; i < nanos.length; i++) {
+            String key = "id:" + i;
+            caches[0].get(key, loader);
+            caches[1].get(key, loader);
+            String old = row[0];
+            row[0] = "v" + (i + 2);
+            long start = System.nanoTime();
+            caches[0].invalidate(key);
+            while (old.equals(caches[1].get(key, loader))) {
+                LockSupport.parkNanos(10_000L);
+            }
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.println("失效传播: 中位数 " + TimeUnit.NANOSECONDS.toMicros(nanos[nanos.length / 2]) + " us, 最大 "
+            + TimeUnit.NANOSECONDS.toMicros(nanos[nanos.length - 1]) + " us (往返 "
+            + TimeUnit.NANOSECONDS.toMicros(RTT_NANOS) + " us)");
+        // 等第二次删除执行完再关
+        Thread.sleep(1_500L);
+        close(caches);
+        redis.shutdown();
+    }
+
+    private static void staleWriteBack() throws InterruptedException {
+        // 往返放大到20ms, 时序由sleep控制
+        long rtt = TimeUnit.MILLISECONDS.toNanos(20);
+        FakeRedisson redis = new FakeRedisson(rtt);
+        NearCache<String>[] caches = caches(redis);
+        String[] row = {"v1"};
+        CountDownLatch read = new CountDownLatch(1);
+        Function<String, String> slowLoader = key -> {
+            String value = row[0];
+            read.countDown();
+            // 查完库之后还没写Redis, A的删除已经执行, 通知还没到
+            LockSupport.parkNanos(rtt + rtt / 4);
+            return value;
+        };
+        Thread loader = new Thread(() -> caches[1].get("id:1", slowLoader));
+        loader.start();
+        read.await();
+        row[0] = "v2";
+        caches[0].invalidate("id:1");
+        loader.join();
+        NearCache<String> fresh = new NearCache<>(redis.client(), "man", 10_000, 60, 600, TimeUnit.SECONDS,
+            StringCodec.INSTANCE);
+        Function<String, String> loader2 = key -> row[0];
+        String before = fresh.get("id:1", loader2);
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(rtt) * 4 + 1_000L);
+        String after = fresh.get("id:1", loader2);
+        System.out.println("写回旧值: 马上读到 " + before + ", 第二次删除后读到 " + after + " (库里是 " + row[0] + ")");
+        fresh.close();
+        close(caches);
+        redis.shutdown();
+    }
+
+    private static void coalescing() throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        NearCache<String>[] caches = caches(redis);
+        AtomicLong dbCalls = new AtomicLong();
+        Function<String, String> loader = key -> {
+            dbCalls.incrementAndGet();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+            return "man:" + key;
+        };
+        int threads = 32;
+        CountDownLatch ready = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    ready.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                caches[0].get("name:hot", loader);
+                done.countDown();
+            }).start();
+        }
+        ready.countDown();
+        done.await();
+        System.out.println("合并: " + threads + " 个线程同时未命中, 查库 " + dbCalls.get() + " 次");
+        close(caches);
+        redis.shutdown();
+
+        // 只有一个节点, Redis没有往返, 放大本地未命中和加载结束之间的竞争
+        FakeRedisson fast = new FakeRedisson(0L);
+        NearCache<String> cache = new NearCache<>(fast.client(), "man", 100_000, 60, 600, TimeUnit.SECONDS,
+            StringCodec.INSTANCE);
+        AtomicLong loads = new AtomicLong();
+        Set<String> requested = ConcurrentHashMap.newKeySet();
+        int keys = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            Random random = new Random(t);
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < keys; i++) {
+                    String key = "id:" + (i + random.nextInt(8));
+                    requested.add(key);
+                    cache.get(key, k -> {
+                        loads.incrementAndGet();
+                        return "man:" + k;
+                    });
+                }
+                finished.countDown();
+            }).start();
+        }
+        start.countDown();
+        finished.await();
+        System.out.println("合并: 8 个线程乱序读 " + requested.size() + " 个key, 查库 " + loads.get() + " 次");
+        cache.close();
+        fast.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static NearCache<String>[] caches(FakeRedisson redis) {
+        NearCache<String>[] caches = new NearCache[NODES];
+        for (int n = 0; n < NODES; n++) {
+            caches[n] = new NearCache<>(redis.client(), "man", 10_000, 60, 600, TimeUnit.SECONDS, StringCodec.INSTANCE);
+        }
+        return caches;
+    }
+
+    private static void close(NearCache<String>[] caches) {
+        for (NearCache<String> cache : caches) {
+            cache.close();
+        }
+    }
+}
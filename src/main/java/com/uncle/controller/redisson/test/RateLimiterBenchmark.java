@@ -0,0 +1,187 @@
+package com.uncle.controller.redisson.test;
+
+import com.uncle.controller.redisson.HybridRateLimiter;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HybridRateLimiter
+ * <ol>
+ * <li>本地开销: 额度足够时单线程和8线程(各自的key)每次tryAcquire的耗时(总耗时 / 总次数)</li>
+ * <li>对比每次请求INCR一次Redis计数器(固定窗口)的吞吐量</li>
+ * <li>全局限额: 3个节点各4个线程打同一个商户, 全局每秒5000、突发5000, 跑3秒, 核对放行总数和Redis往返次数;
+ * 再让一个节点占九成流量, 看额度会不会跟着流量走</li>
+ * <li>低速率突发: 卡号限流每秒10、突发10, 3个节点同时给200张新卡各发20个请求, 每张卡应该放行10个左右</li>
+ * </ol>
+ *
+ * @author 杨戬
+ * @className RateLimiterBenchmark
+ * @email uncle.yeung.bo@gmail.com
+ * @date 2026/10/18 11:40
+ */
+public class RateLimiterBenchmark {
+    private static final long RTT_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final String PREFIX = "rateLimit_merchant_";
+
+    public static void main(String[] args) throws Exception {
+        for (int round = 0; round < 3; round++) {
+            local(1);
+            local(8);
+        }
+        incrPerRequest();
+        global(new int[]{4, 4, 4});
+        global(new int[]{9, 1, 0});
+        burst();
+        System.exit(0);
+    }
+
+    private static void local(int threads) throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        HybridRateLimiter limiter = new HybridRateLimiter(redis.client(), PREFIX, 1_000_000_000L, 1_000_000_000L);
+        int ops = 20_000_000;
+        AtomicLong granted = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            String key = "merchant_" + t;
+            new Thread(() -> {
+                long ok = 0;
+                for (int i = 0; i < ops; i++) {
+                    ok += limiter.tryAcquire(key) ? 1 : 0;
+                }
+                granted.addAndGet(ok);
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        long cost = System.nanoTime() - start;
+        System.out.println(threads + "线程: " + String.format("%.1f", (double)cost / threads / ops) + " ns/次, 放行 "
+            + granted.get() + "/" + (long)threads * ops + ", Redis往返 " + redis.commands());
+        limiter.close();
+        redis.shutdown();
+    }
+
+    private static void incrPerRequest() throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        RedissonClient client = redis.client();
+        int threads = 8;
+        int ops = 2_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < ops; i++) {
+                    long window = System.currentTimeMillis() / 1000;
+                    RAtomicLong counter = client.getAtomicLong(PREFIX + "merchant_1:" + window);
+                    counter.incrementAndGet();
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        long cost = System.nanoTime() - start;
+        System.out.println("每次INCR: " + String.format("%.1f", (double)cost / threads / ops) + " ns/次, Redis往返/次 "
+            + String.format("%.2f", (double)redis.commands() / threads / ops));
+        redis.shutdown();
+    }
+
+    /**
+     * @param threads 每个节点的线程数
+     */
+    private static void global(int[] threads) throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        long rate = 5_000L;
+        long seconds = 3L;
+        HybridRateLimiter[] nodes = new HybridRateLimiter[threads.length];
+        AtomicLong[] granted = new AtomicLong[threads.length];
+        int total = 0;
+        for (int n = 0; n < nodes.length; n++) {
+            nodes[n] = new HybridRateLimiter(redis.client(), PREFIX, rate, rate);
+            granted[n] = new AtomicLong();
+            total += threads[n];
+        }
+        CountDownLatch done = new CountDownLatch(total);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long start = System.nanoTime();
+        for (int n = 0; n < nodes.length; n++) {
+            HybridRateLimiter limiter = nodes[n];
+            AtomicLong counter = granted[n];
+            for (int t = 0; t < threads[n]; t++) {
+                new Thread(() -> {
+                    long ok = 0;
+                    while (System.nanoTime() - deadline < 0) {
+                        for (int i = 0; i < 1000; i++) {
+                            ok += limiter.tryAcquire("merchant_1") ? 1 : 0;
+                        }
+                    }
+                    counter.addAndGet(ok);
+                    done.countDown();
+                }).start();
+            }
+        }
+        done.await();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long sum = 0;
+        StringBuilder perNode = new StringBuilder();
+        for (AtomicLong counter : granted) {
+            sum += counter.get();
+            perNode.append(' ').append(counter.get());
+        }
+        long expected = rate + (long)(rate * elapsed);
+        System.out.println("线程分布 " + Arrays.toString(threads) + ": 放行 " + sum + " (上限 突发+速率*时间 = "
+            + expected + ", " + String.format("%.3f", (double)sum / expected) + "), 各节点" + perNode
+            + ", Redis往返 " + redis.commands());
+        for (HybridRateLimiter limiter : nodes) {
+            limiter.close();
+        }
+        redis.shutdown();
+    }
+
+    private static void burst() throws InterruptedException {
+        FakeRedisson redis = new FakeRedisson(RTT_NANOS);
+        long rate = 10L;
+        int nodes = 3;
+        int cards = 200;
+        int requests = 20;
+        HybridRateLimiter[] limiters = new HybridRateLimiter[nodes];
+        for (int n = 0; n < nodes; n++) {
+            limiters[n] = new HybridRateLimiter(redis.client(), "rateLimit_card_", rate, rate);
+        }
+        AtomicLong granted = new AtomicLong();
+        AtomicLong nanos = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(nodes);
+        long start = System.nanoTime();
+        for (int n = 0; n < nodes; n++) {
+            HybridRateLimiter limiter = limiters[n];
+            // 每张卡的20个请求分到3个节点, 各自连着发
+            int share = requests / nodes + (n < requests % nodes ? 1 : 0);
+            new Thread(() -> {
+                long ok = 0;
+                long begin = System.nanoTime();
+                for (int c = 0; c < cards; c++) {
+                    for (int i = 0; i < share; i++) {
+                        ok += limiter.tryAcquire("card_" + c) ? 1 : 0;
+                    }
+                }
+                nanos.addAndGet(System.nanoTime() - begin);
+                granted.addAndGet(ok);
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long expected = cards * (rate + (long)(rate * elapsed));
+        System.out.println("低速率突发: " + cards + " 张卡各 " + requests + " 个请求, 放行 " + granted.get() + " (上限 "
+            + expected + ", 每张卡 " + String.format("%.1f", (double)granted.get() / cards) + "), "
+            + String.format("%.0f", (double)nanos.get() / cards / requests) + " ns/次, Redis往返 " + redis.commands());
+        for (HybridRateLimiter limiter : limiters) {
+            limiter.close();
+        }
+        redis.shutdown();
+    }
+}